@@ -0,0 +1,60 @@
+package org.agileactors.benchmarks;
+
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.ledger.LedgerAccount;
+import org.agileactors.utils.MoneyUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of validating a transfer against the source balance and moving its amount between two balances, with
+ * {@link BigDecimal} balances as in the database transfer modes and with the minor units of a {@link LedgerAccount}
+ * as in the ledger. Run it with {@code -prof gc} to compare the bytes allocated per transfer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class BalanceUpdateBenchmark {
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000000000000.00");
+
+    private final BigDecimal amount = new BigDecimal("100.00");
+    private final long minorAmount = MoneyUtils.toMinorUnits(amount, Currency.EUR);
+    private AccountEntity sourceAccount;
+    private AccountEntity targetAccount;
+    private LedgerAccount sourceLedgerAccount;
+    private LedgerAccount targetLedgerAccount;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        sourceAccount = new AccountEntity(1L, INITIAL_BALANCE, Currency.EUR, null);
+        targetAccount = new AccountEntity(2L, INITIAL_BALANCE, Currency.EUR, null);
+        sourceLedgerAccount = LedgerAccount.of(sourceAccount);
+        targetLedgerAccount = LedgerAccount.of(targetAccount);
+    }
+
+    @Benchmark
+    public boolean bigDecimal() {
+        if (sourceAccount.getBalance().compareTo(amount) < 0) {
+            return false;
+        }
+        sourceAccount.setBalance(sourceAccount.getBalance().subtract(amount));
+        targetAccount.setBalance(targetAccount.getBalance().add(amount));
+        return true;
+    }
+
+    @Benchmark
+    public boolean minorUnits() {
+        if (sourceLedgerAccount.getBalance() < minorAmount) {
+            return false;
+        }
+        sourceLedgerAccount.debit(minorAmount);
+        targetLedgerAccount.credit(minorAmount);
+        return true;
+    }
+}
@@ -0,0 +1,113 @@
+package org.agileactors.benchmarks;
+
+import org.agileactors.TransactionServiceApplication;
+import org.agileactors.concurrency.HotAccountSplitter;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.services.interfaces.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link TransactionService#performTransaction(TransactionEntity)} in {@code ATOMIC} mode against the
+ * application context and its in-memory H2 database, with many payers paying a single merchant account. With hot
+ * accounts enabled, the merchant is split into slots before the measurement, so the payments update different slot
+ * rows instead of all waiting for the merchant account row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class HotAccountBenchmark {
+
+    /**
+     * Whether the merchant account is split into slots.
+     */
+    @Param({"false", "true"})
+    public boolean hotAccounts;
+
+    /**
+     * The number of slots the merchant account is split into.
+     */
+    @Param({"16"})
+    public int slots;
+
+    /**
+     * The number of accounts paying the merchant.
+     */
+    @Param({"1024"})
+    public int payers;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private List<Long> payerIds;
+    private Long merchantId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(TransactionServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                        "--spring.datasource.url=jdbc:h2:mem:hot-account-benchmark",
+                        "--transaction.concurrency.mode=ATOMIC",
+                        "--transaction.hot-accounts.enabled=" + hotAccounts,
+                        "--transaction.hot-accounts.slots=" + slots,
+                        "--transaction.hot-accounts.threshold=2",
+                        // The window is ended by the setup, so the merchant stays split for the whole trial
+                        "--transaction.hot-accounts.window=1h");
+        transactionService = context.getBean(TransactionService.class);
+
+        // The demo accounts of the default profile are inserted with explicit ids the identity column does not know about
+        AccountEntityRepository accountEntityRepository = context.getBean(AccountEntityRepository.class);
+        accountEntityRepository.deleteAll();
+        merchantId = accountEntityRepository.save(new AccountEntity(null, BigDecimal.ZERO, Currency.EUR, null)).getId();
+        payerIds = new ArrayList<>(payers);
+        for (int i = 0; i < payers; i++) {
+            payerIds.add(accountEntityRepository.save(new AccountEntity(null, new BigDecimal("1000000000.00"), Currency.EUR, null)).getId());
+        }
+        if (hotAccounts) {
+            // Two payments from different payers make the merchant, and only the merchant, hot
+            transactionService.performTransaction(payment(payerIds.get(0)));
+            transactionService.performTransaction(payment(payerIds.get(1)));
+            HotAccountSplitter hotAccountSplitter = context.getBean(HotAccountSplitter.class);
+            hotAccountSplitter.detect();
+            if (!hotAccountSplitter.isSplit(merchantId)) {
+                throw new IllegalStateException("The merchant account has not been split");
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public TransactionEntity performTransaction() {
+        TransactionEntity transaction = payment(payerIds.get(ThreadLocalRandom.current().nextInt(payers)));
+        transactionService.performTransaction(transaction);
+        return transaction;
+    }
+
+    private TransactionEntity payment(Long payerId) {
+        return TransactionEntity.builder()
+                .sourceAccountId(payerId)
+                .targetAccountId(merchantId)
+                .amount(new BigDecimal("1.00"))
+                .currency(Currency.EUR)
+                .build();
+    }
+}
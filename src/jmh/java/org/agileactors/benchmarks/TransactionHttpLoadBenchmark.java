@@ -0,0 +1,113 @@
+package org.agileactors.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.agileactors.TransactionServiceApplication;
+import org.agileactors.dtos.TransactionRequestDto;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of {@code POST /transactions} over HTTP against the running application and its in-memory H2 database,
+ * comparing the platform thread pool of Tomcat with virtual threads. Every benchmark thread is one client with a
+ * single request in flight, so the number of concurrent requests is set with the JMH {@code -t} option; it only
+ * exceeds the 200 platform threads of Tomcat with {@code -t 256} or more. The virtual thread mode requires Java 21.
+ * At the end of each trial, the time connections were held and waited for, as measured by HikariCP, is printed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class TransactionHttpLoadBenchmark {
+
+    /**
+     * Whether the application serves requests on virtual threads.
+     */
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    /**
+     * The number of accounts the transfers are spread over. Fewer accounts mean more contention.
+     */
+    @Param({"1024"})
+    public int accounts;
+
+    /**
+     * Whether a JPA entity manager is bound to every request, holding its connection until the response is written.
+     */
+    @Param({"false", "true"})
+    public boolean openInView;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI uri;
+    private List<String> bodies;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = new SpringApplicationBuilder(TransactionServiceApplication.class)
+                .run("--server.port=0",
+                        "--logging.level.org.agileactors=WARN",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.datasource.url=jdbc:h2:mem:load",
+                        "--spring.jpa.open-in-view=" + openInView,
+                        "--transaction.virtual-threads.enabled=" + virtualThreads);
+        uri = URI.create("http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/transactions");
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+        // The sample accounts are inserted with explicit ids the identity column does not know about
+        AccountEntityRepository accountEntityRepository = context.getBean(AccountEntityRepository.class);
+        accountEntityRepository.deleteAll();
+        List<Long> accountIds = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            accountIds.add(accountEntityRepository.save(new AccountEntity(null, new BigDecimal("1000000000.00"), Currency.EUR, null)).getId());
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        bodies = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            Long target = accountIds.get((i + 1) % accounts);
+            bodies.add(objectMapper.writeValueAsString(new TransactionRequestDto(accountIds.get(i), target, new BigDecimal("1.00"), Currency.EUR)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+        Timer usage = meterRegistry.get("hikaricp.connections.usage").timer();
+        Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+        System.out.printf("%nConnections: held %d times for %.3f ms on average (max %.3f ms), waited for %.3f ms on average%n",
+                usage.count(), usage.mean(TimeUnit.MILLISECONDS), usage.max(TimeUnit.MILLISECONDS),
+                acquire.mean(TimeUnit.MILLISECONDS));
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(256)
+    public int makeTransaction() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(bodies.get(ThreadLocalRandom.current().nextInt(accounts))))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,113 @@
+package org.agileactors.benchmarks;
+
+import org.agileactors.utils.TimeOrderedUuidUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of inserting transactions into a table shaped like TRANSACTION that already holds {@code rows} rows,
+ * with random version 4 UUIDs as generated before and with time-ordered version 7 UUIDs as primary keys. Random keys
+ * land on any page of the primary key index, so once the index no longer fits in the cache of the database most
+ * inserts read and split a cold page, whereas time-ordered keys are always appended to the last one.
+ * The table is stored in an H2 file database in a temporary directory; filling it with 10 million rows takes several
+ * minutes and about 2 GB of disk for every fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@OperationsPerInvocation(TransactionIdInsertBenchmark.BATCH_SIZE)
+public class TransactionIdInsertBenchmark {
+    static final int BATCH_SIZE = 1000;
+    private static final String INSERT = "INSERT INTO TRANSACTION (id, source_account_id, target_account_id, amount, currency, transaction_date) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    /**
+     * The ids of the transactions.
+     */
+    public enum IdType {
+        RANDOM(UUID::randomUUID),
+        TIME_ORDERED(TimeOrderedUuidUtils::next);
+
+        private final Supplier<UUID> generator;
+
+        IdType(Supplier<UUID> generator) {
+            this.generator = generator;
+        }
+    }
+
+    @Param
+    private IdType idType;
+
+    @Param({"1000000", "10000000"})
+    private int rows;
+
+    private Path directory;
+    private Connection connection;
+    private PreparedStatement insert;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException, IOException {
+        directory = Files.createTempDirectory("transaction-id-benchmark");
+        connection = DriverManager.getConnection("jdbc:h2:file:" + directory.resolve("db"), "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE TRANSACTION (id UUID PRIMARY KEY, source_account_id BIGINT NOT NULL, "
+                    + "target_account_id BIGINT NOT NULL, amount NUMERIC(38, 2) NOT NULL, currency VARCHAR(3) NOT NULL, "
+                    + "transaction_date TIMESTAMP NOT NULL)");
+        }
+        connection.setAutoCommit(false);
+        insert = connection.prepareStatement(INSERT);
+        for (int inserted = 0; inserted < rows; inserted += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException, IOException {
+        insert.close();
+        connection.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] insert() throws SQLException {
+        return insertBatch();
+    }
+
+    private int[] insertBatch() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setObject(1, idType.generator.get());
+            insert.setLong(2, 1L);
+            insert.setLong(3, 2L);
+            insert.setBigDecimal(4, AMOUNT);
+            insert.setString(5, "EUR");
+            insert.setTimestamp(6, now);
+            insert.addBatch();
+        }
+        int[] counts = insert.executeBatch();
+        connection.commit();
+        return counts;
+    }
+}
@@ -0,0 +1,84 @@
+package org.agileactors.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.agileactors.dtos.TransactionRequestDto;
+import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.enums.Currency;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the JSON deserialization of a {@link TransactionRequestDto} and of the JSON serialization of a
+ * {@link TransactionResponseDto} list, using an {@link ObjectMapper} configured like the one of the application.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TransactionJsonBenchmark {
+    private static final ObjectMapper OBJECT_MAPPER = Jackson2ObjectMapperBuilder.json().build();
+
+    /**
+     * A serialized transaction request.
+     */
+    @State(Scope.Benchmark)
+    public static class Request {
+        private ObjectReader reader;
+        private byte[] json;
+
+        @Setup
+        public void setup() throws IOException {
+            reader = OBJECT_MAPPER.readerFor(TransactionRequestDto.class);
+            json = OBJECT_MAPPER.writeValueAsString(new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR))
+                    .getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * A list of transaction responses.
+     */
+    @State(Scope.Benchmark)
+    public static class Responses {
+
+        /**
+         * The number of transactions of the list.
+         */
+        @Param({"1", "100", "1000"})
+        public int size;
+
+        private ObjectWriter writer;
+        private List<TransactionResponseDto> transactions;
+
+        @Setup
+        public void setup() {
+            writer = OBJECT_MAPPER.writerFor(OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, TransactionResponseDto.class));
+            transactions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                transactions.add(new TransactionResponseDto(UUID.randomUUID(), 1L, 2L, new BigDecimal("100.00"), Currency.EUR,
+                        new Timestamp(System.currentTimeMillis())));
+            }
+        }
+    }
+
+    @Benchmark
+    public TransactionRequestDto deserializeTransactionRequest(Request request) throws IOException {
+        return request.reader.readValue(request.json);
+    }
+
+    @Benchmark
+    public byte[] serializeTransactionResponses(Responses responses) throws IOException {
+        return responses.writer.writeValueAsBytes(responses.transactions);
+    }
+}
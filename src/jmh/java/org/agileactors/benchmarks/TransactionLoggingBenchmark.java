@@ -0,0 +1,99 @@
+package org.agileactors.benchmarks;
+
+import org.agileactors.TransactionServiceApplication;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.services.interfaces.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link TransactionService#performTransaction(TransactionEntity)} against the application context and
+ * its in-memory H2 database, with the logging of the default profile, which echoes every SQL statement and logs
+ * synchronously, and with the logging of the {@code perf} profile, which logs sampled JSON summaries asynchronously.
+ * Standard output is redirected to a temporary file for the whole trial, as a log collector would consume it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionLoggingBenchmark {
+    private static final int ACCOUNTS = 1024;
+
+    /**
+     * The Spring profile whose logging is used.
+     */
+    @Param({"default", "perf"})
+    public String profile;
+
+    private PrintStream standardOutput;
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private List<Long> accountIds;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("logging-benchmark");
+        standardOutput = System.out;
+        System.setOut(new PrintStream(new FileOutputStream(directory.resolve("stdout.log").toFile()), false));
+
+        context = new SpringApplicationBuilder(TransactionServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profile)
+                // The benchmarks otherwise only log warnings, see logback-test.xml
+                .run("--logging.config=classpath:logback-spring.xml",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark",
+                        "--transaction.ledger.directory=" + directory.resolve("ledger"));
+        transactionService = context.getBean(TransactionService.class);
+
+        AccountEntityRepository accountEntityRepository = context.getBean(AccountEntityRepository.class);
+        accountEntityRepository.deleteAll();
+        accountIds = new ArrayList<>(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountIds.add(accountEntityRepository.save(new AccountEntity(null, new BigDecimal("1000000000.00"), Currency.EUR, null)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        PrintStream redirected = System.out;
+        System.setOut(standardOutput);
+        redirected.close();
+        System.out.println("Bytes written to standard output: " + Files.size(directory.resolve("stdout.log")));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionEntity performTransaction() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(ACCOUNTS);
+        int target = (source + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+        TransactionEntity transaction = TransactionEntity.builder()
+                .sourceAccountId(accountIds.get(source))
+                .targetAccountId(accountIds.get(target))
+                .amount(new BigDecimal("1.00"))
+                .currency(Currency.EUR)
+                .build();
+        transactionService.performTransaction(transaction);
+        return transaction;
+    }
+}
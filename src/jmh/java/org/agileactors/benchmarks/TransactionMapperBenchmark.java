@@ -0,0 +1,42 @@
+package org.agileactors.benchmarks;
+
+import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.utils.TransactionMapperUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link TransactionMapperUtils#mapTransactionEntityToTransactionResponseDto(TransactionEntity)}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TransactionMapperBenchmark {
+    private TransactionEntity transaction;
+
+    @Setup
+    public void setup() {
+        transaction = TransactionEntity.builder()
+                .id(UUID.randomUUID())
+                .sourceAccountId(1L)
+                .targetAccountId(2L)
+                .amount(new BigDecimal("100.00"))
+                .currency(Currency.EUR)
+                .transactionDate(new Timestamp(System.currentTimeMillis()))
+                .build();
+    }
+
+    @Benchmark
+    public TransactionResponseDto mapTransactionEntityToTransactionResponseDto() {
+        return TransactionMapperUtils.mapTransactionEntityToTransactionResponseDto(transaction);
+    }
+}
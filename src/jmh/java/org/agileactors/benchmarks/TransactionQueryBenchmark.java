@@ -0,0 +1,134 @@
+package org.agileactors.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.agileactors.TransactionServiceApplication;
+import org.agileactors.dtos.TransactionPageRequestDto;
+import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.agileactors.services.interfaces.TransactionService;
+import org.agileactors.utils.TransactionMapperUtils;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Benchmark of reading a page of transactions at a random position of a table of {@code rows} transactions, by
+ * loading managed {@link TransactionEntity} instances and copying them into {@link TransactionResponseDto}s, as the
+ * read paths did before, and through {@link TransactionService#getTransactions(TransactionPageRequestDto)}, which
+ * selects the rows straight into {@link TransactionResponseDto}s in a read-only transaction, and likewise of reading
+ * a single transaction by id. Run it with {@code -prof gc} to compare the bytes allocated per operation.
+ * The table is stored in an H2 file database in a temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionQueryBenchmark {
+    private static final Instant FIRST_TRANSACTION_DATE = Instant.parse("2023-01-01T00:00:00Z");
+
+    /**
+     * The number of transactions in the table, one per second from {@link #FIRST_TRANSACTION_DATE}.
+     */
+    @Param({"1000000"})
+    public int rows;
+
+    /**
+     * The number of transactions in a page.
+     */
+    @Param({"100", "1000"})
+    public int limit;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private EntityManager entityManager;
+    private TransactionEntityRepository transactionEntityRepository;
+    private List<UUID> ids;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("query-benchmark");
+        context = new SpringApplicationBuilder(TransactionServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.jpa.show-sql=false",
+                        "--spring.datasource.url=jdbc:h2:file:" + directory.resolve("transactions"),
+                        "--transaction.ledger.directory=" + directory.resolve("ledger"));
+        transactionService = context.getBean(TransactionService.class);
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+        transactionEntityRepository = context.getBean(TransactionEntityRepository.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("INSERT INTO TRANSACTION (id, source_account_id, target_account_id, amount, currency, transaction_date) "
+                        + "SELECT RANDOM_UUID(), MOD(X, 1000) + 1, MOD(X + 1, 1000) + 1, 10.00, 'EUR', DATEADD(SECOND, X, CAST(? AS TIMESTAMP)) "
+                        + "FROM SYSTEM_RANGE(0, CAST(? AS BIGINT))",
+                Timestamp.from(FIRST_TRANSACTION_DATE), rows - 1);
+        // The ids are random, so the first ones in id order are spread over the whole table
+        ids = jdbcTemplate.queryForList("SELECT id FROM TRANSACTION ORDER BY id LIMIT 10000", UUID.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<TransactionResponseDto> entities() {
+        return entityManager.createQuery("SELECT t FROM TransactionEntity t WHERE t.transactionDate >= :from "
+                        + "ORDER BY t.transactionDate, t.id", TransactionEntity.class)
+                .setParameter("from", Timestamp.from(randomFrom()))
+                .setMaxResults(limit)
+                .getResultList().stream()
+                .map(TransactionMapperUtils::mapTransactionEntityToTransactionResponseDto)
+                .toList();
+    }
+
+    @Benchmark
+    public List<TransactionResponseDto> projections() {
+        return transactionService.getTransactions(new TransactionPageRequestDto(null, null, randomFrom(), null, null, limit))
+                .getTransactions();
+    }
+
+    @Benchmark
+    public TransactionResponseDto entityById() {
+        return transactionEntityRepository.findById(randomId())
+                .map(TransactionMapperUtils::mapTransactionEntityToTransactionResponseDto)
+                .orElseThrow();
+    }
+
+    @Benchmark
+    public TransactionResponseDto projectionById() {
+        return transactionService.getTransaction(randomId()).orElseThrow();
+    }
+
+    private UUID randomId() {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    private Instant randomFrom() {
+        return FIRST_TRANSACTION_DATE.plusSeconds(ThreadLocalRandom.current().nextInt(rows - limit));
+    }
+}
@@ -0,0 +1,101 @@
+package org.agileactors.benchmarks;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.agileactors.concurrency.AccountLockManager;
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.concurrency.CreditAggregator;
+import org.agileactors.concurrency.GroupCommitter;
+import org.agileactors.concurrency.HotAccountSplitter;
+import org.agileactors.concurrency.OptimisticRetryExecutor;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.enums.Currency;
+import org.agileactors.ledger.LedgerEngine;
+import org.agileactors.metrics.TransactionMetrics;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.agileactors.services.TransactionServiceImpl;
+import org.agileactors.services.interfaces.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+/**
+ * Benchmark of {@link TransactionServiceImpl#performTransaction(TransactionEntity)} with mocked repositories, so it
+ * measures the service logic, the concurrency control and the logging of the transfer path without any database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class TransactionServiceBenchmark {
+
+    /**
+     * The {@link ConcurrencyMode} of the transfers.
+     */
+    @Param({"LOCKING", "OPTIMISTIC", "ATOMIC"})
+    public ConcurrencyMode mode;
+
+    /**
+     * Whether the credits of the target accounts are journaled, which only applies to the LOCKING and OPTIMISTIC modes.
+     */
+    @Param({"false", "true"})
+    public boolean creditJournal;
+
+    private TransactionServiceImpl transactionService;
+
+    @Setup
+    public void setup() {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getConcurrency().setMode(mode);
+        properties.getCreditJournal().setEnabled(creditJournal);
+
+        // Stub-only mocks do not record invocations, so they neither slow down nor grow over the run
+        AccountService accountService = mock(AccountService.class, withSettings().stubOnly());
+        TransactionEntityRepository transactionEntityRepository = mock(TransactionEntityRepository.class, withSettings().stubOnly());
+        AccountEntity sourceAccount = new AccountEntity(1L, new BigDecimal("1000000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity targetAccount = new AccountEntity(2L, new BigDecimal("1000000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(sourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(targetAccount));
+        when(accountService.debit(anyLong(), any(), any())).thenReturn(true);
+        when(accountService.credit(anyLong(), any(), any())).thenReturn(true);
+
+        AccountLockManager accountLockManager = new AccountLockManager(properties.getLocking().getStripes());
+        transactionService = new TransactionServiceImpl(accountService, transactionEntityRepository, Caffeine.newBuilder().build(),
+                accountLockManager, new ConnectionBulkhead(64, Duration.ofSeconds(5), new SimpleMeterRegistry()),
+                new GroupCommitter(properties, new SimpleMeterRegistry()),
+                TransactionOperations.withoutTransaction(),
+                new OptimisticRetryExecutor(properties, new SimpleMeterRegistry()),
+                mock(LedgerEngine.class, withSettings().stubOnly()), properties,
+                Validation.buildDefaultValidatorFactory().getValidator(), new TransactionMetrics(new SimpleMeterRegistry()),
+                new HotAccountSplitter(properties, accountService, TransactionOperations.withoutTransaction(), new SimpleMeterRegistry()),
+                new CreditAggregator(properties, accountService, accountLockManager, TransactionOperations.withoutTransaction(), new SimpleMeterRegistry()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public TransactionEntity performTransaction() {
+        TransactionEntity transaction = TransactionEntity.builder()
+                .sourceAccountId(1L)
+                .targetAccountId(2L)
+                .amount(new BigDecimal("1.00"))
+                .currency(Currency.EUR)
+                .build();
+        transactionService.performTransaction(transaction);
+        return transaction;
+    }
+}
@@ -0,0 +1,118 @@
+package org.agileactors.benchmarks;
+
+import org.agileactors.TransactionServiceApplication;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.enums.Currency;
+import org.agileactors.exceptions.ConcurrentUpdateException;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.services.interfaces.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link TransactionService#performTransaction(TransactionEntity)} against the application context and
+ * its H2 database, transferring between random pairs of accounts. The database is in memory with the default profile,
+ * and a fresh file with the {@code prod} profile.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionServiceH2Benchmark {
+
+    /**
+     * The {@link ConcurrencyMode} of the transfers.
+     */
+    @Param({"LOCKING", "OPTIMISTIC", "ATOMIC", "LEDGER", "SHARDED"})
+    public ConcurrencyMode mode;
+
+    /**
+     * The number of accounts the transfers are spread over. Fewer accounts mean more contention.
+     */
+    @Param({"16", "1024"})
+    public int accounts;
+
+    /**
+     * Whether transfers arriving concurrently are committed together. It only applies to the database modes.
+     */
+    @Param({"false", "true"})
+    public boolean groupCommit;
+
+    /**
+     * The Spring profile the application runs with, either {@code default} or {@code prod}.
+     */
+    @Param({"default", "prod"})
+    public String profile;
+
+    private ConfigurableApplicationContext context;
+    private TransactionService transactionService;
+    private List<Long> accountIds;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        // Every trial starts from an empty ledger log and a fresh database
+        Path directory = Files.createTempDirectory("h2-benchmark");
+        List<String> args = new ArrayList<>(List.of("--spring.jpa.show-sql=false",
+                "--transaction.concurrency.mode=" + mode,
+                "--transaction.ledger.directory=" + directory.resolve("ledger"),
+                "--transaction.group-commit.enabled=" + groupCommit));
+        if ("prod".equals(profile)) {
+            args.add("--spring.profiles.active=prod");
+            args.add("--TRANSACTION_DB_PATH=" + directory.resolve("transactions"));
+        } else {
+            args.add("--spring.datasource.url=jdbc:h2:mem:benchmark");
+        }
+        context = new SpringApplicationBuilder(TransactionServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        transactionService = context.getBean(TransactionService.class);
+
+        // The demo accounts of the default profile are inserted with explicit ids the identity column does not know about
+        AccountEntityRepository accountEntityRepository = context.getBean(AccountEntityRepository.class);
+        accountEntityRepository.deleteAll();
+        accountIds = new ArrayList<>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            accountIds.add(accountEntityRepository.save(new AccountEntity(null, new BigDecimal("1000000000.00"), Currency.EUR, null)).getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionEntity performTransaction() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accounts);
+        int target = (source + 1 + random.nextInt(accounts - 1)) % accounts;
+        TransactionEntity transaction = TransactionEntity.builder()
+                .sourceAccountId(accountIds.get(source))
+                .targetAccountId(accountIds.get(target))
+                .amount(new BigDecimal("1.00"))
+                .currency(Currency.EUR)
+                .build();
+        try {
+            transactionService.performTransaction(transaction);
+        } catch (ConcurrentUpdateException ex) {
+            // A transfer that ran out of optimistic attempts is a completed, rejected operation, not a benchmark failure
+        }
+        return transaction;
+    }
+}
@@ -2,11 +2,13 @@ package org.agileactors;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 /**
  * Main class for starting the Transaction Service application.
  */
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class TransactionServiceApplication {
 
     /**
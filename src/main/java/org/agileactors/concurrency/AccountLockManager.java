@@ -0,0 +1,133 @@
+package org.agileactors.concurrency;
+
+import org.agileactors.config.TransactionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process striped lock manager keyed by account id.
+ * Account ids are hashed onto a fixed set of {@link ReentrantLock} stripes. The stripes needed by a transfer are
+ * always acquired in ascending stripe order, so transfers touching the same accounts serialize without ever
+ * deadlocking, while transfers between unrelated accounts proceed in parallel.
+ */
+@Component
+public class AccountLockManager {
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Constructs an {@link AccountLockManager} with the stripe count of the given {@link TransactionProperties}.
+     *
+     * @param properties The transaction service configuration properties.
+     */
+    @Autowired
+    public AccountLockManager(TransactionProperties properties) {
+        this(properties.getLocking().getStripes());
+    }
+
+    /**
+     * Constructs an {@link AccountLockManager} with the given number of stripes.
+     *
+     * @param stripeCount The number of stripes. It is rounded up to a power of two.
+     */
+    public AccountLockManager(int stripeCount) {
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("stripeCount should be positive");
+        }
+        int size = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Acquires the locks of the given accounts, blocking until all of them are held.
+     *
+     * @param accountIds The ids of the accounts to lock.
+     * @return The {@link AccountLocks} that release the acquired locks when closed.
+     */
+    public AccountLocks lock(Long... accountIds) {
+        return lock(Arrays.asList(accountIds));
+    }
+
+    /**
+     * Acquires the locks of the given accounts, blocking until all of them are held.
+     *
+     * @param accountIds The ids of the accounts to lock.
+     * @return The {@link AccountLocks} that release the acquired locks when closed.
+     */
+    public AccountLocks lock(Collection<Long> accountIds) {
+        int[] indexes = accountIds.stream()
+                .mapToInt(this::stripeOf)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                stripes[index].lock();
+                acquired++;
+            }
+        } finally {
+            if (acquired < indexes.length) {
+                unlock(indexes, acquired);
+            }
+        }
+        return new AccountLocks(indexes);
+    }
+
+    /**
+     * Returns the number of stripes of this lock manager.
+     *
+     * @return The number of stripes.
+     */
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Returns the stripe an account id is mapped to.
+     *
+     * @param accountId The id of the account.
+     * @return The index of the stripe.
+     */
+    int stripeOf(Long accountId) {
+        long hash = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & (stripes.length - 1);
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    /**
+     * The set of stripes held by a caller. Closing it releases the stripes in reverse acquisition order.
+     * It must be closed by the thread that acquired it.
+     */
+    public final class AccountLocks implements AutoCloseable {
+        private final int[] indexes;
+        private boolean released;
+
+        private AccountLocks(int[] indexes) {
+            this.indexes = indexes;
+        }
+
+        /**
+         * Releases the held stripes. Calling it more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                unlock(indexes, indexes.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.agileactors.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.RequestLimitExceededException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the number of calls in flight to a limit that adapts to their observed latency, so excess calls are rejected
+ * right away instead of queueing up behind a slow database.
+ * Every completed call feeds its latency into a short-term and a long-term exponential moving average. The long-term
+ * average is the latency of the service when it is not overloaded; as long as the short-term average stays within
+ * {@code tolerance} times of it, the limit grows by about its square root per call, and as the short-term average
+ * rises above it, the limit shrinks in proportion, by at most half. The limit only moves while at least half of it is
+ * in use, so an idle service does not drift to the maximum, and it always stays between the minimum and the maximum.
+ * The long-term average is pulled down when it gets much larger than the short-term one, so the limit recovers once
+ * the latency is back to normal.
+ * The limit, the calls in flight and the rejected calls are exposed as {@code transaction.admission.limit},
+ * {@code transaction.admission.in.flight} and {@code transaction.admission.rejected}, tagged with the budget. Rejections
+ * are logged at most once per second, so an overloaded service does not also flood its log.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 500;
+    private static final double SMOOTHING = 0.2;
+    private static final Duration WARNING_INTERVAL = Duration.ofSeconds(1);
+
+    private final String budget;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final Duration retryAfter;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Counter rejected;
+    private final WarningThrottle rejectionWarnings = new WarningThrottle(WARNING_INTERVAL);
+
+    private volatile double limit;
+    private double shortLatency;
+    private double longLatency;
+
+    /**
+     * Constructs an {@link AdaptiveConcurrencyLimiter}.
+     *
+     * @param budget        The name of the budget, which tags the meters.
+     * @param settings      The limits of the budget.
+     * @param retryAfter    The time a rejected caller is told to wait before retrying.
+     * @param meterRegistry The {@link MeterRegistry} the meters are registered to.
+     */
+    public AdaptiveConcurrencyLimiter(String budget, TransactionProperties.Limit settings, Duration retryAfter, MeterRegistry meterRegistry) {
+        if (settings.getMinLimit() < 1 || settings.getMinLimit() > settings.getInitialLimit() || settings.getInitialLimit() > settings.getMaxLimit()) {
+            throw new IllegalArgumentException("Limits should satisfy 0 < minLimit <= initialLimit <= maxLimit");
+        }
+        if (settings.getTolerance() < 1) {
+            throw new IllegalArgumentException("tolerance should be at least 1");
+        }
+        this.budget = budget;
+        this.minLimit = settings.getMinLimit();
+        this.maxLimit = settings.getMaxLimit();
+        this.tolerance = settings.getTolerance();
+        this.retryAfter = retryAfter;
+        this.limit = settings.getInitialLimit();
+        Gauge.builder("transaction.admission.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Calls allowed in flight at the same time")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        Gauge.builder("transaction.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Calls in flight")
+                .tag("budget", budget)
+                .register(meterRegistry);
+        this.rejected = Counter.builder("transaction.admission.rejected")
+                .description("Calls rejected because the limit was reached")
+                .tag("budget", budget)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a call if fewer calls than the limit are in flight. It never blocks.
+     *
+     * @return The {@link Permit} that releases the call and records its latency when closed.
+     * @throws RequestLimitExceededException when the limit has been reached
+     */
+    public Permit acquire() {
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= (int) limit) {
+                rejected.increment();
+                long rejections = rejectionWarnings.record();
+                if (rejections > 0) {
+                    log.warn("Concurrency limit reached, rejecting calls. Budget={}, Limit={}, Rejected={}", budget, (int) limit, rejections);
+                }
+                throw new RequestLimitExceededException("Too many requests, please retry later", retryAfter);
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return new Admitted(System.nanoTime());
+    }
+
+    /**
+     * Returns the current limit.
+     *
+     * @return The number of calls allowed in flight at the same time.
+     */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the number of calls in flight.
+     *
+     * @return The number of admitted calls that have not been released yet.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void release(long latencyNanos) {
+        int released = inFlight.getAndDecrement();
+        lock.lock();
+        try {
+            if (longLatency == 0) {
+                shortLatency = latencyNanos;
+                longLatency = latencyNanos;
+            } else {
+                shortLatency += (latencyNanos - shortLatency) * 2 / (SHORT_WINDOW + 1);
+                longLatency += (latencyNanos - longLatency) * 2 / (LONG_WINDOW + 1);
+            }
+            if (longLatency > 2 * shortLatency) {
+                longLatency *= 0.95;
+            }
+            if (released < limit / 2 || shortLatency <= 0) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longLatency / shortLatency));
+            double target = limit * gradient + Math.sqrt(limit);
+            limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - SMOOTHING) + target * SMOOTHING));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An admitted call. Closing it releases the call.
+     */
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+
+        /**
+         * A permit of a call that is not limited.
+         */
+        Permit UNLIMITED = () -> {
+        };
+
+        /**
+         * Releases the call. Calling it more than once has no effect.
+         */
+        @Override
+        void close();
+    }
+
+    /**
+     * A call admitted by this limiter, which records the latency of the call when it is released.
+     */
+    private final class Admitted implements Permit {
+        private final long start;
+        private boolean released;
+
+        private Admitted(long start) {
+            this.start = start;
+        }
+
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                release(System.nanoTime() - start);
+            }
+        }
+    }
+}
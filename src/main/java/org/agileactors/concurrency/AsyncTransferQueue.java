@@ -0,0 +1,237 @@
+package org.agileactors.concurrency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.dtos.TransactionSubmissionDto;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.BatchItemStatus;
+import org.agileactors.enums.SubmissionStatus;
+import org.agileactors.enums.TransactionErrorCode;
+import org.agileactors.exceptions.ServiceBusyException;
+import org.agileactors.services.interfaces.TransactionService;
+import org.agileactors.utils.TimeOrderedUuidUtils;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts transfers to be performed asynchronously, so a client does not wait for its transfer to be committed.
+ * A submitted transfer is appended to a queue bounded by {@code transaction.async-transfers.queue-capacity}, and is
+ * given a submission id its state is polled with. Every one of the {@code transaction.async-transfers.workers} threads
+ * takes up to {@code transaction.async-transfers.batch-size} transfers from the queue at a time and performs them
+ * together with {@link TransactionService#performAcceptedTransactions(List, java.util.function.Consumer)}, like a
+ * best-effort batch, recording the outcome of every transfer as soon as its chunk has been committed. A submission is
+ * rejected as the service being busy when the queue is full, instead of piling up transfers the service cannot keep
+ * up with.
+ * The states of the submissions are kept in memory only, so the transfers still queued when the application is killed
+ * are lost; on a graceful shutdown the queue is drained first. A pending state is kept until the transfer has been
+ * performed, which the queue capacity bounds, while a final state expires after
+ * {@code transaction.async-transfers.status-expire-after-write}. The queued transfers are exposed as the
+ * {@code transaction.async.queued} gauge and the sizes of the batches as the {@code transaction.async.batch.size}
+ * distribution summary.
+ */
+@Slf4j
+@Component
+public class AsyncTransferQueue implements SmartLifecycle {
+    private static final long POLL_MILLIS = 100;
+
+    private final TransactionProperties.AsyncTransfers settings;
+    private final TransactionService transactionService;
+    private final BlockingQueue<Submission> queue;
+    private final Map<UUID, TransactionSubmissionDto> pending = new ConcurrentHashMap<>();
+    private final Cache<UUID, TransactionSubmissionDto> outcomes;
+    private final DistributionSummary batchSize;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean accepting = true;
+    private volatile boolean running;
+
+    /**
+     * Constructs an {@link AsyncTransferQueue}.
+     *
+     * @param properties         The transaction service configuration properties.
+     * @param transactionService The {@link TransactionService} the accepted transfers are performed with.
+     * @param meterRegistry      The {@link MeterRegistry} the meters are registered to.
+     */
+    public AsyncTransferQueue(TransactionProperties properties, TransactionService transactionService, MeterRegistry meterRegistry) {
+        this.settings = properties.getAsyncTransfers();
+        if (settings.getQueueCapacity() < 1 || settings.getWorkers() < 1 || settings.getBatchSize() < 1) {
+            throw new IllegalArgumentException("queueCapacity, workers and batchSize should be positive");
+        }
+        this.transactionService = transactionService;
+        this.queue = new ArrayBlockingQueue<>(settings.getQueueCapacity());
+        this.outcomes = Caffeine.newBuilder()
+                .maximumSize(settings.getStatusMaximumSize())
+                .expireAfterWrite(settings.getStatusExpireAfterWrite())
+                .build();
+        Gauge.builder("transaction.async.queued", queue, BlockingQueue::size)
+                .description("Accepted transfers waiting to be performed")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("transaction.async.batch.size")
+                .description("Accepted transfers performed together by a worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Accepts a transfer to be performed asynchronously.
+     *
+     * @param transaction The {@link TransactionEntity} of the transfer, whose request has been validated.
+     * @return The {@link TransactionSubmissionDto} of the pending transfer.
+     * @throws ServiceBusyException when the queue is full or the application is shutting down
+     */
+    public TransactionSubmissionDto submit(TransactionEntity transaction) {
+        UUID id = TimeOrderedUuidUtils.next();
+        TransactionSubmissionDto submission = new TransactionSubmissionDto(id, SubmissionStatus.PENDING, null, null, null);
+        // The state is recorded first, so a worker performing the transfer right away cannot be overwritten by it
+        pending.put(id, submission);
+        if (!accepting || !queue.offer(new Submission(id, transaction))) {
+            pending.remove(id);
+            log.warn("Transfer queue is full or stopped, rejecting the submission. Capacity={}", settings.getQueueCapacity());
+            throw new ServiceBusyException("Too many transactions are waiting to be performed, please retry later");
+        }
+        return submission;
+    }
+
+    /**
+     * Retrieves the state of a submitted transfer.
+     *
+     * @param id The {@link UUID} of the submission.
+     * @return An {@link Optional} containing the {@link TransactionSubmissionDto}, or an empty Optional if the id is
+     * not a submission id or its final state has expired.
+     */
+    public Optional<TransactionSubmissionDto> getSubmission(UUID id) {
+        TransactionSubmissionDto submission = pending.get(id);
+        // A final state is recorded before the pending one is removed
+        return Optional.ofNullable(submission != null ? submission : outcomes.getIfPresent(id));
+    }
+
+    /**
+     * Takes up to {@code transaction.async-transfers.batch-size} transfers from the queue and performs them, waiting a
+     * short while for the first one.
+     *
+     * @return The number of performed transfers, rejected ones included.
+     */
+    public int drain() {
+        List<Submission> batch = new ArrayList<>();
+        try {
+            Submission first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            if (first == null) {
+                return 0;
+            }
+            batch.add(first);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+        queue.drainTo(batch, settings.getBatchSize() - 1);
+        perform(batch);
+        batchSize.record(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * Starts the workers performing the accepted transfers.
+     */
+    @Override
+    public void start() {
+        accepting = true;
+        running = true;
+        for (int i = 0; i < settings.getWorkers(); i++) {
+            Thread worker = new Thread(this::work, "async-transfer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+        log.info("Async transfers started. Workers={}, QueueCapacity={}, BatchSize={}", settings.getWorkers(), settings.getQueueCapacity(), settings.getBatchSize());
+    }
+
+    /**
+     * Stops accepting transfers and lets the workers perform the transfers still queued before they stop.
+     */
+    @Override
+    public void stop() {
+        accepting = false;
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        workers.clear();
+        log.info("Async transfers stopped. Queued={}", queue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The queue starts after the {@link org.agileactors.ledger.LedgerEngine} and stops before it, once the web server
+     * has stopped accepting requests, so the workers can perform every queued transfer.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 1536;
+    }
+
+    private void work() {
+        while (running || !queue.isEmpty()) {
+            try {
+                drain();
+            } catch (RuntimeException ex) {
+                log.error("Could not perform the accepted transfers", ex);
+            }
+        }
+    }
+
+    private void perform(List<Submission> batch) {
+        List<TransactionEntity> transactions = batch.stream().map(Submission::transaction).toList();
+        try {
+            transactionService.performAcceptedTransactions(transactions, result -> {
+                UUID id = batch.get(result.getIndex()).id();
+                complete(result.getStatus() == BatchItemStatus.CREATED
+                        ? new TransactionSubmissionDto(id, SubmissionStatus.COMPLETED, result.getId(), null, null)
+                        : new TransactionSubmissionDto(id, SubmissionStatus.REJECTED, null, result.getErrorCode(), result.getMessage()));
+            });
+        } catch (RuntimeException ex) {
+            // The transfers without an outcome may or may not have been committed when the failure happened
+            log.error("Accepted transfers failed. Size={}", batch.size(), ex);
+            batch.stream()
+                    .filter(submission -> pending.containsKey(submission.id()))
+                    .forEach(submission -> complete(new TransactionSubmissionDto(
+                            submission.id(), SubmissionStatus.UNKNOWN, null, TransactionErrorCode.of(ex), ex.getMessage())));
+        }
+    }
+
+    private void complete(TransactionSubmissionDto submission) {
+        outcomes.put(submission.getId(), submission);
+        pending.remove(submission.getId());
+    }
+
+    /**
+     * A transfer waiting in the queue.
+     *
+     * @param id          The {@link UUID} of the submission.
+     * @param transaction The {@link TransactionEntity} of the transfer.
+     */
+    private record Submission(UUID id, TransactionEntity transaction) {
+    }
+}
@@ -0,0 +1,145 @@
+package org.agileactors.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds the number of requests holding a database connection at the same time, transfers and reads alike. By default
+ * the bound is the size of the JDBC connection pool less the connections reserved for the background workers, such as
+ * the ledger flusher, the credit aggregator and the hot account detector, which take their connections from the pool
+ * directly.
+ * Requests beyond it wait on a fair {@link Semaphore}, which parks virtual threads without pinning their carrier, and
+ * are rejected once the acquire timeout elapses. Thousands of concurrent requests therefore queue in front of the pool
+ * in arrival order and fail fast, instead of piling up on the pool and failing with connection timeouts. The available
+ * permits and the waiting requests are exposed as {@code transaction.bulkhead.available} and
+ * {@code transaction.bulkhead.queued} gauges, and the rejected requests as the {@code transaction.bulkhead.rejected}
+ * counter. Rejections are expected under load, so they are logged at most once per second.
+ */
+@Slf4j
+@Component
+public class ConnectionBulkhead {
+    private static final Duration WARNING_INTERVAL = Duration.ofSeconds(1);
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutNanos;
+    private final Counter rejected;
+    private final WarningThrottle rejectionWarnings = new WarningThrottle(WARNING_INTERVAL);
+
+    /**
+     * Constructs a {@link ConnectionBulkhead} with the settings of the given {@link TransactionProperties}.
+     *
+     * @param properties    The transaction service configuration properties.
+     * @param dataSource    The {@link DataSource} the maximum pool size is read from, unless configured explicitly.
+     * @param meterRegistry The {@link MeterRegistry} the meters are registered to.
+     */
+    @Autowired
+    public ConnectionBulkhead(TransactionProperties properties, DataSource dataSource, MeterRegistry meterRegistry) {
+        this(maxConcurrentOf(properties.getBulkhead(), dataSource), properties.getBulkhead().getAcquireTimeout(), meterRegistry);
+    }
+
+    /**
+     * Constructs a {@link ConnectionBulkhead} with the given number of permits.
+     *
+     * @param maxConcurrent  The maximum number of requests holding a database connection at the same time.
+     * @param acquireTimeout The time a request waits for a permit before it is rejected.
+     * @param meterRegistry  The {@link MeterRegistry} the meters are registered to.
+     */
+    public ConnectionBulkhead(int maxConcurrent, Duration acquireTimeout, MeterRegistry meterRegistry) {
+        if (maxConcurrent < 1) {
+            throw new IllegalArgumentException("maxConcurrent should be positive");
+        }
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        Gauge.builder("transaction.bulkhead.available", permits, Semaphore::availablePermits)
+                .description("Database connections the requests may still take")
+                .register(meterRegistry);
+        Gauge.builder("transaction.bulkhead.queued", permits, Semaphore::getQueueLength)
+                .description("Requests waiting for a database connection")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("transaction.bulkhead.rejected")
+                .description("Requests rejected because no database connection became available in time")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Acquires a permit, blocking until one is available or the acquire timeout elapses.
+     *
+     * @return The {@link Permit} that releases the permit when closed.
+     * @throws ServiceBusyException when no permit became available in time
+     */
+    public Permit acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                long rejections = rejectionWarnings.record();
+                if (rejections > 0) {
+                    log.warn("No database connection became available in time. maxConcurrent={}, queued={}, rejected={}", maxConcurrent, permits.getQueueLength(), rejections);
+                }
+                throw new ServiceBusyException("The service is busy, please retry the transaction");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Interrupted while waiting for a database connection");
+        }
+        return new Permit();
+    }
+
+    /**
+     * Returns the maximum number of requests holding a database connection at the same time.
+     *
+     * @return The number of permits.
+     */
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    private static int maxConcurrentOf(TransactionProperties.Bulkhead settings, DataSource dataSource) {
+        if (settings.getMaxConcurrent() > 0) {
+            return settings.getMaxConcurrent();
+        }
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return Math.max(1, dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize() - settings.getReservedConnections());
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Could not read the maximum size of the connection pool", ex);
+        }
+        throw new IllegalStateException("transaction.bulkhead.max-concurrent must be set for a non-Hikari data source");
+    }
+
+    /**
+     * A permit held by a caller. Closing it releases the permit.
+     */
+    public final class Permit implements AutoCloseable {
+        private boolean released;
+
+        private Permit() {
+        }
+
+        /**
+         * Releases the permit. Calling it more than once has no effect.
+         */
+        @Override
+        public void close() {
+            if (!released) {
+                released = true;
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package org.agileactors.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.services.interfaces.AccountService;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Settles the credits journaled by transfers in {@link ConcurrencyMode#LOCKING} and {@link ConcurrencyMode#OPTIMISTIC}
+ * mode, adding them to the balances and running totals of their accounts in the background.
+ * While the journal is enabled, a transfer only writes the row of its source account and appends the credit of its
+ * target account to the journal, so the target account is neither locked nor updated by the transfer. Every
+ * {@code transaction.credit-journal.flush-interval} the accounts of the oldest
+ * {@code transaction.credit-journal.batch-size} journaled credits are settled in groups of up to
+ * {@code transaction.credit-journal.lock-group-size} accounts, one database transaction per group. In
+ * {@link ConcurrencyMode#LOCKING} mode a group holds the locks of its accounts, so it never changes an account while a
+ * transfer is debiting it, and only stalls the transfers of its own accounts while it runs; in
+ * {@link ConcurrencyMode#OPTIMISTIC} mode such a transfer is retried.
+ * Every credit left over by a previous run is settled when the application starts, whatever the concurrency mode, so the
+ * other modes find the whole balances in the account rows. The settled credits are exposed as the
+ * {@code transaction.credit.journal.settled} counter.
+ */
+@Slf4j
+@Component
+public class CreditAggregator implements SmartLifecycle {
+    private final TransactionProperties.CreditJournal settings;
+    private final ConcurrencyMode mode;
+    private final boolean enabled;
+    private final AccountService accountService;
+    private final AccountLockManager accountLockManager;
+    private final TransactionOperations transactionOperations;
+    private final Counter settled;
+
+    private ScheduledExecutorService aggregator;
+    private volatile boolean running;
+
+    /**
+     * Constructs a {@link CreditAggregator}.
+     *
+     * @param properties            The transaction service configuration properties.
+     * @param accountService        The {@link AccountService} the credits are settled with.
+     * @param accountLockManager    The {@link AccountLockManager} the transfers lock their accounts with.
+     * @param transactionOperations The {@link TransactionOperations} every batch runs in.
+     * @param meterRegistry         The {@link MeterRegistry} the meters are registered to.
+     */
+    public CreditAggregator(TransactionProperties properties, AccountService accountService, AccountLockManager accountLockManager,
+                            TransactionOperations transactionOperations, MeterRegistry meterRegistry) {
+        this.settings = properties.getCreditJournal();
+        this.mode = properties.getConcurrency().getMode();
+        this.enabled = settings.isEnabled() && (mode == ConcurrencyMode.LOCKING || mode == ConcurrencyMode.OPTIMISTIC);
+        if (enabled && (settings.getBatchSize() < 1 || settings.getLockGroupSize() < 1)) {
+            throw new IllegalArgumentException("batchSize and lockGroupSize should be positive");
+        }
+        this.accountService = accountService;
+        this.accountLockManager = accountLockManager;
+        this.transactionOperations = transactionOperations;
+        this.settled = Counter.builder("transaction.credit.journal.settled")
+                .description("Journaled credits added to the balances of their accounts in the background")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tells whether credits are journaled, which they only are in {@link ConcurrencyMode#LOCKING} and
+     * {@link ConcurrencyMode#OPTIMISTIC} mode.
+     *
+     * @return True if the transfers must journal the credits of their target accounts.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Settles the journaled credits in batches, until a batch finds fewer credits than
+     * {@code transaction.credit-journal.batch-size}.
+     *
+     * @return The number of settled credits.
+     */
+    public int aggregate() {
+        int total = 0;
+        int batch;
+        do {
+            List<Long> accountIds = accountService.getAccountsWithJournaledCredits(settings.getBatchSize());
+            if (accountIds.isEmpty()) {
+                break;
+            }
+            batch = settle(accountIds);
+            settled.increment(batch);
+            total += batch;
+        } while (batch >= settings.getBatchSize());
+        return total;
+    }
+
+    /**
+     * Settles the credits left over by a previous run, then starts settling the journaled credits in the background if
+     * the journal is enabled.
+     */
+    @Override
+    public void start() {
+        int leftOver = aggregate();
+        if (leftOver > 0) {
+            log.info("Settled the credits journaled by a previous run. Credits={}", leftOver);
+        }
+        running = true;
+        if (enabled) {
+            long interval = settings.getFlushInterval().toMillis();
+            aggregator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "credit-aggregator");
+                thread.setDaemon(true);
+                return thread;
+            });
+            aggregator.scheduleWithFixedDelay(this::aggregateQuietly, interval, interval, TimeUnit.MILLISECONDS);
+            log.info("Credit journal aggregation started. FlushInterval={}, BatchSize={}", settings.getFlushInterval(), settings.getBatchSize());
+        }
+    }
+
+    /**
+     * Stops settling the journaled credits. The credits that are still journaled are settled on the next start.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (aggregator != null) {
+            aggregator.shutdown();
+            try {
+                aggregator.awaitTermination(settings.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The aggregator starts before the {@link org.agileactors.ledger.LedgerEngine}, so the ledger loads settled balances.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private int settle(List<Long> accountIds) {
+        int batch = 0;
+        for (int from = 0; from < accountIds.size(); from += settings.getLockGroupSize()) {
+            List<Long> group = accountIds.subList(from, Math.min(from + settings.getLockGroupSize(), accountIds.size()));
+            if (mode != ConcurrencyMode.LOCKING) {
+                batch += settleInTransaction(group);
+                continue;
+            }
+            // A transfer holds the lock of its source account from reading its version until it has committed
+            try (AccountLockManager.AccountLocks ignored = accountLockManager.lock(group)) {
+                batch += settleInTransaction(group);
+            }
+        }
+        return batch;
+    }
+
+    private int settleInTransaction(List<Long> accountIds) {
+        Integer batch = transactionOperations.execute(status -> accountService.settleCredits(accountIds, settings.getBatchSize()));
+        return batch == null ? 0 : batch;
+    }
+
+    private void aggregateQuietly() {
+        try {
+            aggregate();
+        } catch (RuntimeException ex) {
+            log.error("Could not settle the journaled credits", ex);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.agileactors.concurrency;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.entities.TransactionEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Coalesces transfers arriving concurrently into groups that are committed in a single database transaction, so their
+ * inserts share one JDBC batch and one commit.
+ * The first transfer to arrive leads a new group: it waits for up to {@code transaction.group-commit.window}, or until
+ * {@code transaction.group-commit.max-size} transfers have joined, then performs the whole group on its own thread while
+ * the next transfers form the next group. The leader only waits while other transfers are in flight outside its group,
+ * such as the members of the group being committed, so a transfer arriving alone is committed right away instead of
+ * paying for the window. Every caller returns only once its group has committed, so a transfer is as durable as when it
+ * is committed alone. The sizes of the groups are exposed as the {@code transaction.group.size}
+ * distribution summary.
+ */
+@Slf4j
+@Component
+public class GroupCommitter {
+    private final long windowNanos;
+    private final int maxSize;
+    private final DistributionSummary groupSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private Group forming;
+    private int inFlight;
+
+    /**
+     * Constructs a {@link GroupCommitter} with the settings of the given {@link TransactionProperties}.
+     *
+     * @param properties    The transaction service configuration properties.
+     * @param meterRegistry The {@link MeterRegistry} the group sizes are recorded to.
+     */
+    @Autowired
+    public GroupCommitter(TransactionProperties properties, MeterRegistry meterRegistry) {
+        this(properties.getGroupCommit().getWindow(), properties.getGroupCommit().getMaxSize(), meterRegistry);
+    }
+
+    /**
+     * Constructs a {@link GroupCommitter}.
+     *
+     * @param window        The time the leader of a group waits for other transfers to join it.
+     * @param maxSize       The number of transfers that closes a group before the window elapses.
+     * @param meterRegistry The {@link MeterRegistry} the group sizes are recorded to.
+     */
+    public GroupCommitter(Duration window, int maxSize, MeterRegistry meterRegistry) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize should be positive");
+        }
+        this.windowNanos = window.toNanos();
+        this.maxSize = maxSize;
+        this.groupSize = DistributionSummary.builder("transaction.group.size")
+                .description("Transfers committed together in a single database transaction")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Commits a transfer together with the transfers arriving concurrently.
+     * The work of the leader of the group performs all of them in a single database transaction. It rejects a transfer
+     * that breaks a business rule without affecting the others, and fails as a whole for anything else.
+     *
+     * @param transaction The transfer to commit.
+     * @param work        Performs a group of transfers in a single database transaction, returning the exceptions that
+     *                    rejected some of them by transfer. The map must compare transfers by identity.
+     * @return True when the transfer has been committed, false when its group failed as a whole, in which case nothing
+     * of the group has been committed and the transfer should be performed alone.
+     * @throws RuntimeException the exception that rejected the transfer
+     */
+    public boolean commit(TransactionEntity transaction, Function<List<TransactionEntity>, Map<TransactionEntity, RuntimeException>> work) {
+        Group group;
+        boolean leader;
+        lock.lock();
+        try {
+            inFlight++;
+            leader = forming == null;
+            if (leader) {
+                forming = new Group();
+            }
+            group = forming;
+            group.transactions.add(transaction);
+            if (group.transactions.size() >= maxSize) {
+                forming = null;
+                changed.signalAll();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            if (leader) {
+                close(group);
+                group.perform(work);
+            } else {
+                group.await();
+            }
+        } finally {
+            lock.lock();
+            try {
+                inFlight--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (group.failed) {
+            return false;
+        }
+        RuntimeException rejection = group.rejections.get(transaction);
+        if (rejection != null) {
+            throw rejection;
+        }
+        return true;
+    }
+
+    /**
+     * Waits until the group is full, the window elapses or no transfer is in flight outside the group, then stops it
+     * from accepting transfers.
+     */
+    private void close(Group group) {
+        lock.lock();
+        try {
+            long remaining = windowNanos;
+            while (forming == group && remaining > 0 && inFlight > group.transactions.size()) {
+                remaining = changed.awaitNanos(remaining);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (forming == group) {
+                forming = null;
+            }
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Transfers committed together. It is only changed by its leader once it has been closed, and its members read it
+     * once it is done.
+     */
+    private final class Group {
+        private final List<TransactionEntity> transactions = new ArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Map<TransactionEntity, RuntimeException> rejections = Map.of();
+        private boolean failed;
+
+        private void perform(Function<List<TransactionEntity>, Map<TransactionEntity, RuntimeException>> work) {
+            try {
+                rejections = work.apply(transactions);
+                groupSize.record(transactions.size());
+            } catch (RuntimeException ex) {
+                failed = true;
+                log.warn("Group commit failed, its transfers are performed one by one. Size={}", transactions.size(), ex);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        private void await() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package org.agileactors.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.enums.Currency;
+import org.agileactors.services.interfaces.AccountService;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Detects hot accounts from the transfers in {@link ConcurrencyMode#ATOMIC} mode and splits their balance into slots,
+ * so concurrent transfers of a hot account update different slot rows instead of all waiting for the lock of its
+ * account row.
+ * The transfers of every account are counted over a window of {@code transaction.hot-accounts.window}. An account that
+ * takes part in at least {@code transaction.hot-accounts.threshold} of them is split into
+ * {@code transaction.hot-accounts.slots} slots, its balance spread evenly over them; a split account that takes part in
+ * fewer than half as many is merged back into its account row. Credits of a split account go to its slots in turn.
+ * Debits start at the next slot and fall back to the other slots; when no single slot holds the amount, the whole
+ * balance is gathered from the account row and all the slots, debited and spread again. The balance of an account is
+ * always its account row plus its slots, so a transfer that raced with a split or a merge only ever takes a slower path.
+ * The slots left over by a previous run are merged when the application starts in {@link ConcurrencyMode#ATOMIC} mode
+ * with splitting enabled. In the other modes they are only merged when any exist, e.g. after a switch from
+ * {@link ConcurrencyMode#ATOMIC} mode, so those modes find the whole balances in the account rows without paying for a
+ * locking merge when no account was ever split. The split accounts are exposed as the
+ * {@code transaction.hot.accounts} gauge and the debits that had to gather the whole balance as the
+ * {@code transaction.hot.rebalances} counter.
+ */
+@Slf4j
+@Component
+public class HotAccountSplitter implements SmartLifecycle {
+    /**
+     * Tells that a transfer has updated the account row rather than a slot.
+     */
+    public static final int ACCOUNT_ROW = -1;
+
+    /**
+     * Tells that a transfer has been rejected by the account without changing anything.
+     */
+    public static final int REJECTED = -2;
+
+    private final TransactionProperties.HotAccounts settings;
+    private final boolean enabled;
+    private final AccountService accountService;
+    private final TransactionOperations transactionOperations;
+    private final Counter rebalances;
+
+    private final AtomicReference<Map<Long, LongAdder>> transfers = new AtomicReference<>(new ConcurrentHashMap<>());
+    private final Map<Long, AtomicInteger> splitAccounts = new ConcurrentHashMap<>();
+    private ScheduledExecutorService detector;
+    private volatile boolean running;
+
+    /**
+     * Constructs a {@link HotAccountSplitter}.
+     *
+     * @param properties            The transaction service configuration properties.
+     * @param accountService        The {@link AccountService} the balances are moved with.
+     * @param transactionOperations The {@link TransactionOperations} every split and merge runs in.
+     * @param meterRegistry         The {@link MeterRegistry} the meters are registered to.
+     */
+    public HotAccountSplitter(TransactionProperties properties, AccountService accountService,
+                              TransactionOperations transactionOperations, MeterRegistry meterRegistry) {
+        this.settings = properties.getHotAccounts();
+        this.enabled = settings.isEnabled() && properties.getConcurrency().getMode() == ConcurrencyMode.ATOMIC;
+        if (enabled && settings.getSlots() < 1) {
+            throw new IllegalArgumentException("slots should be positive");
+        }
+        this.accountService = accountService;
+        this.transactionOperations = transactionOperations;
+        this.rebalances = Counter.builder("transaction.hot.rebalances")
+                .description("Debits of split accounts that had to gather the whole balance from all the slots")
+                .register(meterRegistry);
+        Gauge.builder("transaction.hot.accounts", splitAccounts, Map::size)
+                .description("Accounts whose balance is split into slots")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Tells whether hot accounts are split, which they only are in {@link ConcurrencyMode#ATOMIC} mode.
+     *
+     * @return True if the transfers must go through {@link #debit} and {@link #credit}.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Tells whether an account is currently split into slots.
+     *
+     * @param accountId The unique identifier of the account.
+     * @return True if the account is split.
+     */
+    public boolean isSplit(Long accountId) {
+        return splitAccounts.containsKey(accountId);
+    }
+
+    /**
+     * Subtracts the amount from the balance of an account, provided that it has the given currency and a balance of at
+     * least the amount, and counts the transfer towards the detection of hot accounts. It must be called within a
+     * database transaction.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param amount    The amount to subtract.
+     * @param currency  The {@link Currency} the account must have.
+     * @return The slot the amount has been subtracted from, {@link #ACCOUNT_ROW} if it has been subtracted from the
+     * account row, or {@link #REJECTED} if the account does not exist or a condition does not hold.
+     */
+    public int debit(Long accountId, BigDecimal amount, Currency currency) {
+        count(accountId);
+        AtomicInteger cursor = splitAccounts.get(accountId);
+        if (cursor == null) {
+            if (accountService.debit(accountId, amount, currency)) {
+                return ACCOUNT_ROW;
+            }
+        } else {
+            int first = next(cursor);
+            for (int offset = 0; offset < settings.getSlots(); offset++) {
+                int slot = (first + offset) % settings.getSlots();
+                if (accountService.debitSlot(accountId, slot, amount, currency)) {
+                    return slot;
+                }
+            }
+            rebalances.increment();
+        }
+        // No single slot holds the amount, or the account has been split or merged since and its balance is elsewhere
+        int spread = accountService.rebalance(accountId, isSplit(accountId) ? settings.getSlots() : 0, amount, currency);
+        if (spread < 0) {
+            return REJECTED;
+        }
+        // The rebalance holds the locks of all the slots, so the first one can take back the amount if need be
+        return spread == 0 ? ACCOUNT_ROW : 0;
+    }
+
+    /**
+     * Adds the amount to the balance of an account, provided that it has the given currency, and counts the transfer
+     * towards the detection of hot accounts. It must be called within a database transaction.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param amount    The amount to add.
+     * @param currency  The {@link Currency} the account must have.
+     * @return The slot the amount has been added to, {@link #ACCOUNT_ROW} if it has been added to the account row, or
+     * {@link #REJECTED} if the account does not exist or has another currency.
+     */
+    public int credit(Long accountId, BigDecimal amount, Currency currency) {
+        count(accountId);
+        AtomicInteger cursor = splitAccounts.get(accountId);
+        if (cursor != null) {
+            int slot = next(cursor);
+            if (accountService.creditSlot(accountId, slot, amount, currency)) {
+                return slot;
+            }
+        }
+        // The account is not split, has been merged since, or the slot rejected the currency
+        return accountService.credit(accountId, amount, currency) ? ACCOUNT_ROW : REJECTED;
+    }
+
+    /**
+     * Ends the current detection window: merges the split accounts that have cooled down, then splits the hottest
+     * accounts that are not split yet, up to {@code transaction.hot-accounts.max-accounts}. Each split and merge runs
+     * in its own database transaction.
+     */
+    public void detect() {
+        Map<Long, LongAdder> counts = transfers.getAndSet(new ConcurrentHashMap<>());
+        for (Long accountId : List.copyOf(splitAccounts.keySet())) {
+            LongAdder count = counts.get(accountId);
+            if (count == null || count.sum() < settings.getThreshold() / 2) {
+                merge(accountId, count == null ? 0 : count.sum());
+            }
+        }
+
+        List<Map.Entry<Long, Long>> hot = new ArrayList<>();
+        counts.forEach((accountId, count) -> {
+            long sum = count.sum();
+            if (sum >= settings.getThreshold() && !isSplit(accountId)) {
+                hot.add(Map.entry(accountId, sum));
+            }
+        });
+        hot.sort(Map.Entry.<Long, Long>comparingByValue(Comparator.reverseOrder()));
+        for (Map.Entry<Long, Long> account : hot) {
+            if (splitAccounts.size() >= settings.getMaxAccounts()) {
+                log.warn("Too many hot accounts to split. MaxAccounts={}, Unsplit={}", settings.getMaxAccounts(), hot.size() - hot.indexOf(account));
+                break;
+            }
+            split(account.getKey(), account.getValue());
+        }
+    }
+
+    /**
+     * Merges the slots left over by a previous run, then starts detecting hot accounts if splitting is enabled.
+     */
+    @Override
+    public void start() {
+        if (enabled || accountService.hasSlots()) {
+            Integer merged = transactionOperations.execute(status -> accountService.mergeAllSlots());
+            if (merged != null && merged > 0) {
+                log.info("Merged the slots of accounts split by a previous run. Accounts={}", merged);
+            }
+        }
+        running = true;
+        if (enabled) {
+            long window = settings.getWindow().toMillis();
+            detector = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "hot-account-detector");
+                thread.setDaemon(true);
+                return thread;
+            });
+            detector.scheduleAtFixedRate(this::detectQuietly, window, window, TimeUnit.MILLISECONDS);
+            log.info("Hot account detection started. Threshold={}, Window={}, Slots={}", settings.getThreshold(), settings.getWindow(), settings.getSlots());
+        }
+    }
+
+    /**
+     * Stops detecting hot accounts. The split accounts stay split until the next start.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (detector != null) {
+            detector.shutdown();
+            try {
+                detector.awaitTermination(settings.getWindow().toMillis() * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The splitter starts before the {@link org.agileactors.ledger.LedgerEngine}, so the ledger loads merged balances.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void count(Long accountId) {
+        if (enabled) {
+            transfers.get().computeIfAbsent(accountId, id -> new LongAdder()).increment();
+        }
+    }
+
+    private int next(AtomicInteger cursor) {
+        return Math.floorMod(cursor.getAndIncrement(), settings.getSlots());
+    }
+
+    private void split(Long accountId, long count) {
+        Boolean split = transactionOperations.execute(status ->
+                accountService.addSlots(accountId, settings.getSlots())
+                        && accountService.rebalance(accountId, settings.getSlots(), BigDecimal.ZERO, null) >= 0);
+        if (Boolean.TRUE.equals(split)) {
+            splitAccounts.put(accountId, new AtomicInteger());
+            log.info("Hot account split. Account={}, Transfers={}, Slots={}", accountId, count, settings.getSlots());
+        }
+    }
+
+    private void merge(Long accountId, long count) {
+        // New transfers go to the account row first, the merge then gathers whatever is left on the slots
+        splitAccounts.remove(accountId);
+        transactionOperations.executeWithoutResult(status -> accountService.rebalance(accountId, 0, BigDecimal.ZERO, null));
+        log.info("Cooled down account merged. Account={}, Transfers={}", accountId, count);
+    }
+
+    private void detectQuietly() {
+        try {
+            detect();
+        } catch (RuntimeException ex) {
+            log.error("Could not split or merge hot accounts", ex);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.agileactors.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.RequestLimitExceededException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admits transfers and transaction reads against separate {@link AdaptiveConcurrencyLimiter}s, so slow reads cannot
+ * take the budget of transfers and the other way round. While {@code transaction.admission.enabled} is false every
+ * call is admitted.
+ */
+@Component
+public class LoadShedder {
+    private final AdaptiveConcurrencyLimiter writes;
+    private final AdaptiveConcurrencyLimiter reads;
+
+    /**
+     * Constructs a {@link LoadShedder}.
+     *
+     * @param properties    The transaction service configuration properties.
+     * @param meterRegistry The {@link MeterRegistry} the meters of the limiters are registered to.
+     */
+    public LoadShedder(TransactionProperties properties, MeterRegistry meterRegistry) {
+        TransactionProperties.Admission settings = properties.getAdmission();
+        if (settings.isEnabled()) {
+            this.writes = new AdaptiveConcurrencyLimiter("write", settings.getWrites(), settings.getRetryAfter(), meterRegistry);
+            this.reads = new AdaptiveConcurrencyLimiter("read", settings.getReads(), settings.getRetryAfter(), meterRegistry);
+        } else {
+            this.writes = null;
+            this.reads = null;
+        }
+    }
+
+    /**
+     * Admits a call that performs transfers.
+     *
+     * @return The {@link AdaptiveConcurrencyLimiter.Permit} to close once the call has completed.
+     * @throws RequestLimitExceededException when the write limit has been reached
+     */
+    public AdaptiveConcurrencyLimiter.Permit admitWrite() {
+        return writes == null ? AdaptiveConcurrencyLimiter.Permit.UNLIMITED : writes.acquire();
+    }
+
+    /**
+     * Admits a call that reads transactions.
+     *
+     * @return The {@link AdaptiveConcurrencyLimiter.Permit} to close once the call has completed.
+     * @throws RequestLimitExceededException when the read limit has been reached
+     */
+    public AdaptiveConcurrencyLimiter.Permit admitRead() {
+        return reads == null ? AdaptiveConcurrencyLimiter.Permit.UNLIMITED : reads.acquire();
+    }
+}
@@ -0,0 +1,92 @@
+package org.agileactors.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.ConcurrentUpdateException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a unit of work that is protected by optimistic locking, retrying it with a bounded, jittered exponential
+ * backoff whenever it fails because of a concurrent update.
+ * The number of attempts, conflicts, retries and exhausted retry loops are exposed as counters, so the conflict rate
+ * ({@code transaction.optimistic.conflicts} / {@code transaction.optimistic.attempts}) can be monitored.
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+    private final TransactionProperties.Optimistic settings;
+    private final Counter attempts;
+    private final Counter conflicts;
+    private final Counter retries;
+    private final Counter exhausted;
+
+    /**
+     * Constructs an {@link OptimisticRetryExecutor}.
+     *
+     * @param properties    The transaction service configuration properties.
+     * @param meterRegistry The {@link MeterRegistry} the counters are registered to.
+     */
+    public OptimisticRetryExecutor(TransactionProperties properties, MeterRegistry meterRegistry) {
+        this.settings = properties.getOptimistic();
+        this.attempts = Counter.builder("transaction.optimistic.attempts")
+                .description("Attempts of transfers running under optimistic locking")
+                .register(meterRegistry);
+        this.conflicts = Counter.builder("transaction.optimistic.conflicts")
+                .description("Attempts that failed because of a concurrent update")
+                .register(meterRegistry);
+        this.retries = Counter.builder("transaction.optimistic.retries")
+                .description("Attempts that were retried after a conflict")
+                .register(meterRegistry);
+        this.exhausted = Counter.builder("transaction.optimistic.exhausted")
+                .description("Transfers that were rejected after running out of attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the given unit of work until it completes without a concurrency failure.
+     * The unit of work must open and commit its own database transaction, so every attempt sees fresh state.
+     *
+     * @param work The unit of work.
+     * @throws ConcurrentUpdateException when every attempt failed because of a concurrent update
+     */
+    public void execute(Runnable work) {
+        for (int attempt = 1; ; attempt++) {
+            attempts.increment();
+            try {
+                work.run();
+                return;
+            } catch (ConcurrencyFailureException ex) {
+                conflicts.increment();
+                if (attempt >= settings.getMaxAttempts()) {
+                    exhausted.increment();
+                    log.error("Transaction conflicted with concurrent updates on every attempt. Attempts={}", attempt);
+                    throw new ConcurrentUpdateException("The accounts were updated concurrently, please retry the transaction");
+                }
+                retries.increment();
+                log.debug("Transaction conflicted with a concurrent update, retrying. Attempt={}", attempt);
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        long initial = settings.getInitialBackoff().toNanos();
+        long max = settings.getMaxBackoff().toNanos();
+        long bound = attempt > 30 ? max : Math.min(max, initial << (attempt - 1));
+        if (bound <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(bound));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConcurrentUpdateException("Interrupted while waiting to retry the transaction");
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package org.agileactors.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lets a warning that may be raised by every call while the service is overloaded be logged at most once per interval.
+ * The occurrences in between are counted, so the logged warning tells how many it stands for. It never blocks.
+ */
+public class WarningThrottle {
+    private final long intervalNanos;
+    private final AtomicLong nextWarningNanos;
+    private final AtomicLong occurrences = new AtomicLong();
+
+    /**
+     * Constructs a {@link WarningThrottle}.
+     *
+     * @param interval The minimum time between two logged warnings.
+     */
+    public WarningThrottle(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        this.nextWarningNanos = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Records an occurrence of the warning and tells whether it should be logged.
+     *
+     * @return The number of occurrences since the last logged warning, this one included, if the warning should be
+     * logged now, otherwise zero.
+     */
+    public long record() {
+        long count = occurrences.incrementAndGet();
+        long now = System.nanoTime();
+        long next = nextWarningNanos.get();
+        if (now - next < 0 || !nextWarningNanos.compareAndSet(next, now + intervalNanos)) {
+            return 0;
+        }
+        // Occurrences recorded concurrently are counted by the next logged warning
+        occurrences.addAndGet(-count);
+        return count;
+    }
+}
@@ -0,0 +1,35 @@
+package org.agileactors.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.agileactors.entities.AccountEntity;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the account cache.
+ */
+@Configuration
+public class AccountCacheConfig {
+
+    /**
+     * Creates the bounded account cache, whose hits, misses and evictions are exposed as {@code cache.*} metrics
+     * tagged with {@code cache=accounts}.
+     *
+     * @param properties    The transaction service configuration properties.
+     * @param meterRegistry The {@link MeterRegistry} the cache metrics are registered to.
+     * @return The account {@link Cache}, keyed by account id.
+     */
+    @Bean
+    public Cache<Long, AccountEntity> accountCache(TransactionProperties properties, MeterRegistry meterRegistry) {
+        TransactionProperties.AccountCache settings = properties.getAccountCache();
+        Cache<Long, AccountEntity> cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfterWrite(settings.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "accounts");
+    }
+}
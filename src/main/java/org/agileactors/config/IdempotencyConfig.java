@@ -0,0 +1,36 @@
+package org.agileactors.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.agileactors.dtos.IdempotencyRecord;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the idempotency key index.
+ */
+@Configuration
+public class IdempotencyConfig {
+
+    /**
+     * Creates the bounded, expiring index of the transactions created with an idempotency key. Its hits, misses and
+     * evictions are exposed as {@code cache.*} metrics tagged with {@code cache=idempotency-keys}.
+     *
+     * @param properties    The transaction service configuration properties.
+     * @param meterRegistry The {@link MeterRegistry} the cache metrics are registered to.
+     * @return The idempotency key {@link Cache}, mapping idempotency keys to the {@link IdempotencyRecord} of their
+     * transactions.
+     */
+    @Bean
+    public Cache<String, IdempotencyRecord> idempotencyCache(TransactionProperties properties, MeterRegistry meterRegistry) {
+        TransactionProperties.Idempotency settings = properties.getIdempotency();
+        Cache<String, IdempotencyRecord> cache = Caffeine.newBuilder()
+                .maximumSize(settings.getMaximumSize())
+                .expireAfterWrite(settings.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency-keys");
+    }
+}
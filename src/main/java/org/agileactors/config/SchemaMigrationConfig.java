@@ -0,0 +1,41 @@
+package org.agileactors.config;
+
+import org.agileactors.migration.SchemaMigrator;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.support.ResourcePatternResolver;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration of the database schema migrations.
+ */
+@Configuration
+public class SchemaMigrationConfig {
+
+    /**
+     * Creates the {@link SchemaMigrator}, which migrates the schema as soon as it is created.
+     *
+     * @param dataSource              The {@link DataSource} of the database to migrate.
+     * @param resourcePatternResolver The {@link ResourcePatternResolver} the migration scripts are looked up with.
+     * @param properties              The transaction service configuration properties.
+     * @return The {@link SchemaMigrator}.
+     */
+    @Bean(initMethod = "migrate")
+    public SchemaMigrator schemaMigrator(DataSource dataSource, ResourcePatternResolver resourcePatternResolver,
+                                         TransactionProperties properties) {
+        return new SchemaMigrator(dataSource, resourcePatternResolver, properties.getMigration().getLocations());
+    }
+
+    /**
+     * Makes the JPA entity manager factory wait for the schema migrations, so that Hibernate validates the migrated
+     * schema.
+     *
+     * @return The post processor adding the dependency.
+     */
+    @Bean
+    public static EntityManagerFactoryDependsOnPostProcessor entityManagerFactoryDependsOnSchemaMigrator() {
+        return new EntityManagerFactoryDependsOnPostProcessor(SchemaMigrator.class);
+    }
+}
@@ -0,0 +1,556 @@
+package org.agileactors.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.agileactors.enums.ConcurrencyMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties of the transaction service, bound from the {@code transaction} prefix.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction")
+public class TransactionProperties {
+
+    /**
+     * Settings of the concurrency control applied to transfers.
+     */
+    private final Concurrency concurrency = new Concurrency();
+
+    /**
+     * Settings of the striped account lock manager.
+     */
+    private final Locking locking = new Locking();
+
+    /**
+     * Settings of the optimistic retry loop.
+     */
+    private final Optimistic optimistic = new Optimistic();
+
+    /**
+     * Settings of batch transfers.
+     */
+    private final Batch batch = new Batch();
+
+    /**
+     * Settings of the transaction listing pagination.
+     */
+    private final Pagination pagination = new Pagination();
+
+    /**
+     * Settings of the transaction export.
+     */
+    private final Export export = new Export();
+
+    /**
+     * Settings of the account cache.
+     */
+    private final AccountCache accountCache = new AccountCache();
+
+    /**
+     * Settings of the idempotency key index.
+     */
+    private final Idempotency idempotency = new Idempotency();
+
+    /**
+     * Settings of the bulkhead guarding the JDBC connection pool.
+     */
+    private final Bulkhead bulkhead = new Bulkhead();
+
+    /**
+     * Settings of the virtual thread execution mode.
+     */
+    private final VirtualThreads virtualThreads = new VirtualThreads();
+
+    /**
+     * Settings of the in-memory ledger.
+     */
+    private final Ledger ledger = new Ledger();
+
+    /**
+     * Settings of the group commit of concurrent transfers.
+     */
+    private final GroupCommit groupCommit = new GroupCommit();
+
+    /**
+     * Settings of the splitting of hot accounts.
+     */
+    private final HotAccounts hotAccounts = new HotAccounts();
+
+    /**
+     * Settings of the journal of credits.
+     */
+    private final CreditJournal creditJournal = new CreditJournal();
+
+    /**
+     * Settings of the asynchronous submission of transfers.
+     */
+    private final AsyncTransfers asyncTransfers = new AsyncTransfers();
+
+    /**
+     * Settings of the admission control of transfers and transaction reads.
+     */
+    private final Admission admission = new Admission();
+
+    /**
+     * Settings of the logging of transfers.
+     */
+    private final Logging logging = new Logging();
+
+    /**
+     * Settings of the database schema migrations.
+     */
+    private final Migration migration = new Migration();
+
+    /**
+     * Settings of the concurrency control applied to transfers.
+     */
+    @Getter
+    @Setter
+    public static class Concurrency {
+
+        /**
+         * The {@link ConcurrencyMode} used by transfers.
+         */
+        private ConcurrencyMode mode = ConcurrencyMode.LOCKING;
+    }
+
+    /**
+     * Settings of the striped account lock manager.
+     */
+    @Getter
+    @Setter
+    public static class Locking {
+
+        /**
+         * The number of lock stripes the account ids are hashed onto. It is rounded up to a power of two.
+         */
+        private int stripes = 1024;
+    }
+
+    /**
+     * Settings of the optimistic retry loop.
+     */
+    @Getter
+    @Setter
+    public static class Optimistic {
+
+        /**
+         * The maximum number of attempts of a transfer, including the first one.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * The upper bound of the randomized pause before the first retry. It doubles on every further retry.
+         */
+        private Duration initialBackoff = Duration.ofMillis(5);
+
+        /**
+         * The upper bound of the randomized pause between two retries.
+         */
+        private Duration maxBackoff = Duration.ofMillis(100);
+    }
+
+    /**
+     * Settings of batch transfers.
+     */
+    @Getter
+    @Setter
+    public static class Batch {
+
+        /**
+         * The maximum number of transactions accepted in a single batch.
+         */
+        private int maxSize = 10_000;
+
+        /**
+         * The number of transactions committed together by a best-effort batch.
+         */
+        private int commitSize = 500;
+    }
+
+    /**
+     * Settings of the transaction listing pagination.
+     */
+    @Getter
+    @Setter
+    public static class Pagination {
+
+        /**
+         * The number of transactions returned in a page when the request does not specify a limit.
+         */
+        private int defaultLimit = 100;
+
+        /**
+         * The maximum number of transactions returned in a page. Larger limits are capped to it.
+         */
+        private int maxLimit = 1000;
+    }
+
+    /**
+     * Settings of the transaction export.
+     */
+    @Getter
+    @Setter
+    public static class Export {
+
+        /**
+         * The number of rows fetched from the database at a time while exporting transactions.
+         */
+        private int fetchSize = 1000;
+    }
+
+    /**
+     * Settings of the account cache.
+     */
+    @Getter
+    @Setter
+    public static class AccountCache {
+
+        /**
+         * The maximum number of cached accounts. The least recently used accounts are evicted beyond it.
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * The time after which a cached account is evicted, bounding how long a balance changed outside the service
+         * can be served from the cache.
+         */
+        private Duration expireAfterWrite = Duration.ofMinutes(5);
+    }
+
+    /**
+     * Settings of the idempotency key index.
+     */
+    @Getter
+    @Setter
+    public static class Idempotency {
+
+        /**
+         * The maximum number of idempotency keys kept in memory. Older keys are still found in the database.
+         */
+        private long maximumSize = 100_000;
+
+        /**
+         * The time after which an idempotency key is evicted from memory.
+         */
+        private Duration expireAfterWrite = Duration.ofHours(24);
+    }
+
+    /**
+     * Settings of the bulkhead guarding the JDBC connection pool.
+     */
+    @Getter
+    @Setter
+    public static class Bulkhead {
+
+        /**
+         * The maximum number of requests holding a database connection at the same time. When zero, it is the
+         * maximum size of the JDBC connection pool less {@link #reservedConnections}.
+         */
+        private int maxConcurrent = 0;
+
+        /**
+         * The connections of the JDBC connection pool kept for the background workers, one each for the ledger
+         * flusher, the credit aggregator and the hot account detector. Only used when {@link #maxConcurrent} is zero.
+         */
+        private int reservedConnections = 3;
+
+        /**
+         * The time a request waits for a database connection before it is rejected as the service being busy.
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Settings of the virtual thread execution mode.
+     */
+    @Getter
+    @Setter
+    public static class VirtualThreads {
+
+        /**
+         * Whether requests, including asynchronous ones, are served on virtual threads instead of the platform
+         * thread pool. It requires Java 21 or later, and is ignored with a warning on older runtimes.
+         */
+        private boolean enabled = false;
+    }
+
+    /**
+     * Settings of the in-memory ledger used in {@link ConcurrencyMode#LEDGER} and {@link ConcurrencyMode#SHARDED} mode.
+     */
+    @Getter
+    @Setter
+    public static class Ledger {
+
+        /**
+         * The directory holding the segments of the write-ahead log.
+         */
+        private Path directory = Path.of("data/ledger");
+
+        /**
+         * The size a log segment may grow to before a new segment is started. Segments are deleted once all of their
+         * records have been persisted to the database.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        /**
+         * The pause between two flushes of the durable log records to the database, which bounds how far the
+         * database lags behind the ledger.
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        /**
+         * The maximum number of log records persisted to the database in a single database transaction.
+         */
+        private int flushBatchSize = 5000;
+
+        /**
+         * The number of shards the accounts are partitioned into in {@link ConcurrencyMode#SHARDED} mode. When zero, it
+         * is the number of available processors.
+         */
+        private int shards = 0;
+
+        /**
+         * The maximum number of new transfers waiting for a shard. It is rounded up to a power of two.
+         */
+        private int ringBufferSize = 4096;
+
+        /**
+         * The time a new transfer waits for room on a full shard before it is rejected as the service being busy.
+         */
+        private Duration submitTimeout = Duration.ofSeconds(5);
+    }
+
+    /**
+     * Settings of the group commit of concurrent transfers in the database {@link ConcurrencyMode}s.
+     */
+    @Getter
+    @Setter
+    public static class GroupCommit {
+
+        /**
+         * Whether single transfers arriving concurrently are committed together in a single database transaction.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The longest time the first transfer of a group waits for others to join it. It only waits while other
+         * transfers are in flight, so a transfer that arrives alone does not wait.
+         */
+        private Duration window = Duration.ofMillis(1);
+
+        /**
+         * The number of transfers that closes a group before the window elapses.
+         */
+        private int maxSize = 64;
+    }
+
+    /**
+     * Settings of the splitting of hot accounts into balance slots in {@link ConcurrencyMode#ATOMIC} mode.
+     */
+    @Getter
+    @Setter
+    public static class HotAccounts {
+
+        /**
+         * Whether accounts taking part in many transfers are split into balance slots, so their transfers update
+         * different rows instead of all waiting for the lock of the account row.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The number of balance slots a hot account is split into.
+         */
+        private int slots = 8;
+
+        /**
+         * The number of transfers within a detection window that makes an account hot. A split account is merged back
+         * once it takes part in fewer than half as many.
+         */
+        private long threshold = 1000;
+
+        /**
+         * The period over which the transfers of every account are counted.
+         */
+        private Duration window = Duration.ofSeconds(1);
+
+        /**
+         * The maximum number of accounts split at the same time.
+         */
+        private int maxAccounts = 64;
+    }
+
+    /**
+     * Settings of the journal of credits in {@link ConcurrencyMode#LOCKING} and {@link ConcurrencyMode#OPTIMISTIC} mode.
+     */
+    @Getter
+    @Setter
+    public static class CreditJournal {
+
+        /**
+         * Whether the credits of target accounts are appended to a journal instead of updating their balance, and are
+         * added to the balances in batches in the background.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The period at which the journaled credits are added to the balances.
+         */
+        private Duration flushInterval = Duration.ofMillis(100);
+
+        /**
+         * The maximum number of journaled credits read from the journal at a time.
+         */
+        private int batchSize = 1000;
+
+        /**
+         * The maximum number of accounts whose credits are settled in a single database transaction. In
+         * {@link ConcurrencyMode#LOCKING} mode their locks are held together, so a smaller group stalls fewer transfers.
+         */
+        private int lockGroupSize = 16;
+    }
+
+    /**
+     * Settings of the asynchronous submission of transfers.
+     */
+    @Getter
+    @Setter
+    public static class AsyncTransfers {
+
+        /**
+         * The maximum number of accepted transfers waiting to be performed. Further submissions are rejected as the
+         * service being busy.
+         */
+        private int queueCapacity = 10_000;
+
+        /**
+         * The number of threads performing the accepted transfers.
+         */
+        private int workers = 2;
+
+        /**
+         * The maximum number of accepted transfers a worker takes from the queue at a time. They are committed in
+         * chunks of {@code transaction.batch.commit-size} transfers.
+         */
+        private int batchSize = 500;
+
+        /**
+         * The maximum number of performed submissions whose final state is kept in memory. The states of pending
+         * submissions are always kept until their transfers have been performed.
+         */
+        private long statusMaximumSize = 100_000;
+
+        /**
+         * The time after which the final state of a submission is evicted from memory.
+         */
+        private Duration statusExpireAfterWrite = Duration.ofHours(1);
+    }
+
+    /**
+     * Settings of the admission control of transfers and transaction reads.
+     */
+    @Getter
+    @Setter
+    public static class Admission {
+
+        /**
+         * Whether calls beyond an adaptive concurrency limit are rejected with {@code 429 Too Many Requests}.
+         */
+        private boolean enabled = false;
+
+        /**
+         * The time a rejected client is told to wait before retrying, in the {@code Retry-After} header. It is sent with
+         * every {@code 503 Service Unavailable} response too, whether admission control is enabled or not.
+         */
+        private Duration retryAfter = Duration.ofSeconds(1);
+
+        /**
+         * The limits of the calls performing transfers.
+         */
+        private final Limit writes = new Limit(20, 4, 200);
+
+        /**
+         * The limits of the calls reading transactions.
+         */
+        private final Limit reads = new Limit(50, 8, 500);
+    }
+
+    /**
+     * Settings of an adaptive concurrency limit.
+     */
+    @Getter
+    @Setter
+    public static class Limit {
+
+        /**
+         * The number of calls allowed in flight before any latency has been observed.
+         */
+        private int initialLimit;
+
+        /**
+         * The number of calls always allowed in flight, however slow they are.
+         */
+        private int minLimit;
+
+        /**
+         * The number of calls never exceeded, however fast they are.
+         */
+        private int maxLimit;
+
+        /**
+         * How many times the usual latency the recent latency may reach before the limit shrinks.
+         */
+        private double tolerance = 1.5;
+
+        /**
+         * Constructs a {@link Limit} with the given defaults.
+         *
+         * @param initialLimit The number of calls allowed in flight before any latency has been observed.
+         * @param minLimit     The number of calls always allowed in flight.
+         * @param maxLimit     The number of calls never exceeded.
+         */
+        public Limit(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+
+    /**
+     * Settings of the logging of transfers.
+     */
+    @Getter
+    @Setter
+    public static class Logging {
+
+        /**
+         * The fraction of performed transfers, between 0 and 1, whose summary event is logged. Rejected and failed
+         * transfers are always logged.
+         */
+        private double summarySampleRate = 1.0;
+    }
+
+    /**
+     * Settings of the database schema migrations.
+     */
+    @Getter
+    @Setter
+    public static class Migration {
+
+        /**
+         * The locations of the {@code V<version>__<description>.sql} migration scripts. Versions must be unique
+         * across all locations, and a location added to a migrated database must not hold versions older than the
+         * latest applied one.
+         */
+        private List<String> locations = new ArrayList<>(List.of("classpath:db/migration"));
+    }
+}
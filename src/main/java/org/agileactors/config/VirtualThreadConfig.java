@@ -0,0 +1,123 @@
+package org.agileactors.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ConfigurationCondition;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Configuration of the virtual thread execution mode, enabled by {@code transaction.virtual-threads.enabled}.
+ * Tomcat serves every request on a new virtual thread instead of its bounded platform thread pool, and so does the
+ * {@code applicationTaskExecutor} that runs asynchronous requests such as the transaction export. A request blocked on
+ * JDBC then only parks its virtual thread, so throughput is bounded by the database connections, which
+ * {@link org.agileactors.concurrency.ConnectionBulkhead} guards, rather than by the request threads.
+ * The build targets Java 17, so the virtual thread executor is looked up at runtime. On older runtimes the mode is
+ * skipped with a warning and requests keep being served on the platform thread pools.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.virtual-threads", name = "enabled", havingValue = "true")
+@Conditional(VirtualThreadConfig.OnVirtualThreadsSupported.class)
+public class VirtualThreadConfig {
+    private static final String FACTORY_METHOD = "newVirtualThreadPerTaskExecutor";
+
+    /**
+     * Creates the executor starting a new virtual thread for every task.
+     *
+     * @return The virtual thread {@link ExecutorService}.
+     * @throws IllegalStateException when the runtime does not support virtual threads
+     */
+    @Bean
+    public ExecutorService virtualThreadExecutor() {
+        return newVirtualThreadPerTaskExecutor()
+                .orElseThrow(() -> new IllegalStateException("Virtual threads require Java 21 or later"));
+    }
+
+    /**
+     * Makes Tomcat process requests on virtual threads.
+     *
+     * @param virtualThreadExecutor The virtual thread {@link ExecutorService}.
+     * @return The {@link TomcatProtocolHandlerCustomizer} replacing the executor of the protocol handler.
+     */
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    /**
+     * Replaces the auto-configured thread pool running asynchronous requests.
+     *
+     * @param virtualThreadExecutor The virtual thread {@link ExecutorService}.
+     * @return The {@link AsyncTaskExecutor} running every task on a new virtual thread.
+     */
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    /**
+     * Looks up and creates the executor starting a new virtual thread for every task, which the Java 17 API does not
+     * have.
+     *
+     * @return An {@link Optional} containing the virtual thread {@link ExecutorService}, or an empty Optional if the
+     * runtime does not support virtual threads.
+     * @throws IllegalStateException when the executor exists but could not be created
+     */
+    public static Optional<ExecutorService> newVirtualThreadPerTaskExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod(FACTORY_METHOD).invoke(null));
+        } catch (NoSuchMethodException ex) {
+            return Optional.empty();
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Could not create the virtual thread executor", ex);
+        }
+    }
+
+    /**
+     * Tells whether the runtime supports virtual threads, without creating an executor.
+     *
+     * @return true from Java 21 on, false on older runtimes.
+     */
+    public static boolean isSupported() {
+        try {
+            Executors.class.getMethod(FACTORY_METHOD);
+            return true;
+        } catch (NoSuchMethodException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Matches when the runtime supports virtual threads, and warns that the mode is skipped when it does not. It is
+     * evaluated after {@code transaction.virtual-threads.enabled}, so the warning is only logged when the mode is
+     * enabled.
+     */
+    static class OnVirtualThreadsSupported implements ConfigurationCondition {
+
+        @Override
+        public ConfigurationPhase getConfigurationPhase() {
+            return ConfigurationPhase.PARSE_CONFIGURATION;
+        }
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            if (isSupported()) {
+                return true;
+            }
+            log.warn("Virtual threads require Java 21 or later, serving requests on platform threads instead. Java={}", Runtime.version());
+            return false;
+        }
+    }
+}
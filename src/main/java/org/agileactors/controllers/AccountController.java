@@ -0,0 +1,80 @@
+package org.agileactors.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.dtos.AccountResponseDto;
+import org.agileactors.dtos.TransactionPageDto;
+import org.agileactors.dtos.TransactionPageRequestDto;
+import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.enums.Currency;
+import org.agileactors.services.interfaces.AccountService;
+import org.agileactors.services.interfaces.TransactionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Controller class for reading accounts and their transactions.
+ * Every read waits for the {@link ConnectionBulkhead} before it takes a database connection.
+ */
+@RestController
+@RequiredArgsConstructor
+public class AccountController {
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final ConnectionBulkhead connectionBulkhead;
+
+    /**
+     * Retrieves an account with its balance and the running totals of its transactions.
+     *
+     * @param accountId the ID of the account
+     * @return the {@link AccountResponseDto} if found, otherwise a {@link ResponseEntity#notFound()} response
+     */
+    @GetMapping("/accounts/{accountId}")
+    public ResponseEntity<AccountResponseDto> getAccount(@PathVariable Long accountId) {
+        try (ConnectionBulkhead.Permit ignored = connectionBulkhead.acquire()) {
+            return accountService.getAccount(accountId).map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
+        }
+    }
+
+    /**
+     * Retrieves a page of the transactions an account is either the source or the target of, ordered by transaction
+     * date and optionally filtered by currency and date range. When more transactions follow, the cursor of the next
+     * page is returned in the {@value TransactionController#NEXT_CURSOR_HEADER} header.
+     *
+     * @param accountId the ID of the account
+     * @param currency  the {@link Currency} of the transactions
+     * @param from      the inclusive lower bound of the transaction date
+     * @param to        the exclusive upper bound of the transaction date
+     * @param cursor    the cursor returned with the previous page
+     * @param limit     the maximum number of transactions of the page
+     * @return {@link List} of {@link TransactionResponseDto}, or a {@link ResponseEntity#notFound()} response if the
+     * account does not exist
+     */
+    @GetMapping("/accounts/{accountId}/transactions")
+    public ResponseEntity<List<TransactionResponseDto>> getAccountTransactions(@PathVariable Long accountId,
+                                                                               @RequestParam(required = false) Currency currency,
+                                                                               @RequestParam(required = false) Instant from,
+                                                                               @RequestParam(required = false) Instant to,
+                                                                               @RequestParam(required = false) String cursor,
+                                                                               @RequestParam(required = false) Integer limit) {
+        TransactionPageDto page;
+        try (ConnectionBulkhead.Permit ignored = connectionBulkhead.acquire()) {
+            if (accountService.getAccountById(accountId).isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
+            page = transactionService.getTransactions(new TransactionPageRequestDto(accountId, currency, from, to, cursor, limit));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(TransactionController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getTransactions());
+    }
+}
@@ -1,69 +1,237 @@
 package org.agileactors.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.agileactors.concurrency.AdaptiveConcurrencyLimiter;
+import org.agileactors.concurrency.AsyncTransferQueue;
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.concurrency.LoadShedder;
+import org.agileactors.dtos.TransactionBatchResultDto;
+import org.agileactors.dtos.TransactionCursor;
+import org.agileactors.dtos.TransactionPageDto;
+import org.agileactors.dtos.TransactionPageRequestDto;
 import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.dtos.TransactionSubmissionDto;
 import org.agileactors.entities.TransactionEntity;
-import org.agileactors.services.TransactionServiceImpl;
+import org.agileactors.enums.BatchMode;
+import org.agileactors.enums.Currency;
+import org.agileactors.services.interfaces.TransactionService;
+import org.agileactors.utils.TransactionMapperUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 /**
  * Controller class for managing transactions.
+ * Transfers and transaction reads are admitted by the {@link LoadShedder} before they reach the
+ * {@link TransactionService}, so excess requests are rejected with {@code 429 Too Many Requests} without holding a
+ * request thread while the database is slow. Reads and exports then wait for the {@link ConnectionBulkhead} before their
+ * read-only transaction takes a database connection, like transfers do in the service.
  */
 @RestController
 @RequiredArgsConstructor
 public class TransactionController {
-    private final TransactionServiceImpl transactionService;
+    /**
+     * The response header carrying the cursor of the next page of transactions.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * The request header carrying the key that makes retries of a transaction idempotent.
+     */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private final TransactionService transactionService;
+    private final AsyncTransferQueue asyncTransferQueue;
+    private final LoadShedder loadShedder;
+    private final ConnectionBulkhead connectionBulkhead;
+    private final ObjectMapper objectMapper;
 
     /**
      * Creates a new transaction based on the provided {@link TransactionRequestDto}.
+     * When the request carries an {@value #IDEMPOTENCY_KEY_HEADER} header that has already been used, the transaction is
+     * not performed again and the URI of the original transaction is returned instead.
      *
      * @param transactionRequest the transaction request containing the details of the transaction
+     * @param idempotencyKey     the key making retries of the transaction idempotent
      * @return a {@link ResponseEntity} with the URI of the created transaction and a success message
      */
-    @Transactional
     @PostMapping("/transactions")
-    public ResponseEntity<String> makeTransaction(@Valid @RequestBody TransactionRequestDto transactionRequest) {
+    public ResponseEntity<String> makeTransaction(@Valid @RequestBody TransactionRequestDto transactionRequest,
+                                                  @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         TransactionEntity transaction = TransactionEntity.builder()
                 .sourceAccountId(transactionRequest.getSourceAccountId())
                 .targetAccountId(transactionRequest.getTargetAccountId())
                 .amount(transactionRequest.getAmount())
                 .currency(transactionRequest.getCurrency())
+                .idempotencyKey(idempotencyKey)
                 .build();
 
-        transactionService.performTransaction(transaction);
+        try (AdaptiveConcurrencyLimiter.Permit ignored = loadShedder.admitWrite()) {
+            transactionService.performTransaction(transaction);
+        }
         return ResponseEntity.created(URI.create("/transactions/" + transaction.getId())).body("Transaction successful");
     }
 
     /**
-     * Retrieves all transactions.
+     * Accepts a new transaction based on the provided {@link TransactionRequestDto}, to be performed asynchronously.
+     * The request is validated right away, while the transaction is only queued; its state is polled with
+     * {@link #getTransaction} at the returned URI. An {@value #IDEMPOTENCY_KEY_HEADER} header is validated right away
+     * too, and honored once the transaction is performed.
+     *
+     * @param transactionRequest the transaction request containing the details of the transaction
+     * @param idempotencyKey     the key making retries of the transaction idempotent
+     * @return a {@link ResponseEntity} with the URI and the {@link TransactionSubmissionDto} of the pending transaction
+     */
+    @PostMapping("/transactions/async")
+    public ResponseEntity<TransactionSubmissionDto> submitTransaction(@Valid @RequestBody TransactionRequestDto transactionRequest,
+                                                                      @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        // A transfer queued with an invalid key could only be rejected once the client is no longer waiting
+        transactionService.validateIdempotencyKey(idempotencyKey);
+        TransactionEntity transaction = TransactionMapperUtils.mapTransactionRequestDtoToTransactionEntity(transactionRequest);
+        transaction.setIdempotencyKey(idempotencyKey);
+
+        TransactionSubmissionDto submission = asyncTransferQueue.submit(transaction);
+        return ResponseEntity.accepted().location(URI.create("/transactions/" + submission.getId())).body(submission);
+    }
+
+    /**
+     * Creates a batch of transactions based on the provided {@link TransactionRequestDto} array.
+     * Every item is validated on its own, so invalid or rejected items do not fail the whole batch.
      *
+     * @param mode                the {@link BatchMode} of the batch, best-effort by default
+     * @param transactionRequests the transaction requests containing the details of every transaction
+     * @return a {@link ResponseEntity} with a {@link TransactionBatchResultDto} for every transaction request
+     */
+    @PostMapping("/transactions/batch")
+    public ResponseEntity<List<TransactionBatchResultDto>> makeTransactions(@RequestParam(defaultValue = "BEST_EFFORT") BatchMode mode,
+                                                                            @RequestBody List<TransactionRequestDto> transactionRequests) {
+        List<TransactionBatchResultDto> results;
+        try (AdaptiveConcurrencyLimiter.Permit ignored = loadShedder.admitWrite()) {
+            results = transactionService.performTransactions(transactionRequests, mode);
+        }
+
+        return ResponseEntity.ok(results);
+    }
+
+    /**
+     * Retrieves a page of transactions ordered by transaction date, optionally filtered by account, currency and date
+     * range. When more transactions follow, the cursor of the next page is returned in the {@value #NEXT_CURSOR_HEADER}
+     * header.
+     *
+     * @param accountId the ID of an account that must be either the source or the target of the transactions
+     * @param currency  the {@link Currency} of the transactions
+     * @param from      the inclusive lower bound of the transaction date
+     * @param to        the exclusive upper bound of the transaction date
+     * @param cursor    the cursor returned with the previous page
+     * @param limit     the maximum number of transactions of the page
      * @return {@link List} of {@link TransactionResponseDto}
      */
     @GetMapping("/transactions")
-    public ResponseEntity<List<TransactionResponseDto>> getAllTransactions() {
-        List<TransactionResponseDto> transactions = transactionService.getAllTransactions();
+    public ResponseEntity<List<TransactionResponseDto>> getAllTransactions(@RequestParam(required = false) Long accountId,
+                                                                           @RequestParam(required = false) Currency currency,
+                                                                           @RequestParam(required = false) Instant from,
+                                                                           @RequestParam(required = false) Instant to,
+                                                                           @RequestParam(required = false) String cursor,
+                                                                           @RequestParam(required = false) Integer limit) {
+        TransactionPageDto page;
+        try (AdaptiveConcurrencyLimiter.Permit ignored = loadShedder.admitRead();
+             ConnectionBulkhead.Permit connection = connectionBulkhead.acquire()) {
+            page = transactionService.getTransactions(new TransactionPageRequestDto(accountId, currency, from, to, cursor, limit));
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getTransactions());
+    }
+
+    /**
+     * Exports transactions as newline-delimited JSON, one {@link TransactionResponseDto} per line, ordered by transaction
+     * date and optionally filtered like {@link #getAllTransactions}. The response is written while the transactions are
+     * read from the database, so it is not size-limited and is gzip-compressed when the client accepts it.
+     *
+     * @param accountId the ID of an account that must be either the source or the target of the transactions
+     * @param currency  the {@link Currency} of the transactions
+     * @param from      the inclusive lower bound of the transaction date
+     * @param to        the exclusive upper bound of the transaction date
+     * @param cursor    the cursor returned with a page of {@link #getAllTransactions}, to export the transactions
+     *                  after it
+     * @param limit     the maximum number of exported transactions
+     * @return a {@link ResponseEntity} streaming the transactions
+     */
+    @GetMapping(value = "/transactions/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTransactions(@RequestParam(required = false) Long accountId,
+                                                                    @RequestParam(required = false) Currency currency,
+                                                                    @RequestParam(required = false) Instant from,
+                                                                    @RequestParam(required = false) Instant to,
+                                                                    @RequestParam(required = false) String cursor,
+                                                                    @RequestParam(required = false) Integer limit) {
+        TransactionPageRequestDto pageRequest = new TransactionPageRequestDto(accountId, currency, from, to, cursor, limit);
+        if (cursor != null) {
+            // Rejects a malformed cursor with a 400 before the response is committed
+            TransactionCursor.decode(cursor);
+        }
 
-        return ResponseEntity.ok(transactions);
+        StreamingResponseBody body = outputStream -> {
+            try (ConnectionBulkhead.Permit connection = connectionBulkhead.acquire();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                transactionService.exportTransactions(pageRequest, transaction -> {
+                    try {
+                        generator.writeObject(transaction);
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     /**
-     * Retrieves a transaction with the given transaction {@link UUID}.
+     * Retrieves a transaction with the given transaction {@link UUID}, or the state of a transaction submitted with
+     * {@link #submitTransaction} with the given submission {@link UUID}. A pending transaction is answered with
+     * {@link HttpStatus#ACCEPTED} (202), a rejected one or one whose outcome is unknown with {@link HttpStatus#OK}
+     * (200), and a completed one with
+     * {@link HttpStatus#SEE_OTHER} (303) redirecting to the created transaction; all three carry a
+     * {@link TransactionSubmissionDto}.
      *
-     * @param transactionId the {@link UUID} of the transaction
-     * @return the {@link TransactionResponseDto} if found, otherwise a {@link ResponseEntity#notFound()} response
+     * @param transactionId the {@link UUID} of the transaction or of the submission
+     * @return the {@link TransactionResponseDto} or the {@link TransactionSubmissionDto} if found, otherwise a
+     * {@link ResponseEntity#notFound()} response
      */
     @GetMapping("/transactions/{transactionId}")
-    public ResponseEntity<TransactionResponseDto> getTransaction(@PathVariable UUID transactionId) {
-        Optional<TransactionResponseDto> response = transactionService.getTransaction(transactionId);
+    public ResponseEntity<?> getTransaction(@PathVariable UUID transactionId) {
+        Optional<TransactionSubmissionDto> submission = asyncTransferQueue.getSubmission(transactionId);
+        if (submission.isPresent()) {
+            return switch (submission.get().getStatus()) {
+                case PENDING -> ResponseEntity.accepted().body(submission.get());
+                case COMPLETED -> ResponseEntity.status(HttpStatus.SEE_OTHER)
+                        .location(URI.create("/transactions/" + submission.get().getTransactionId()))
+                        .body(submission.get());
+                case REJECTED, UNKNOWN -> ResponseEntity.ok(submission.get());
+            };
+        }
+        Optional<TransactionResponseDto> response;
+        try (AdaptiveConcurrencyLimiter.Permit ignored = loadShedder.admitRead();
+             ConnectionBulkhead.Permit connection = connectionBulkhead.acquire()) {
+            response = transactionService.getTransaction(transactionId);
+        }
         return response.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 }
\ No newline at end of file
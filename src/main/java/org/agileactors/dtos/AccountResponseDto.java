@@ -0,0 +1,59 @@
+package org.agileactors.dtos;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.*;
+import org.agileactors.enums.Currency;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+/**
+ * Data Transfer Object (DTO) representing an account response, with the balance of the account and the running totals
+ * of its transactions.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountResponseDto {
+
+    /**
+     * The ID of the account.
+     */
+    private Long id;
+
+    /**
+     * The balance of the account.
+     */
+    private BigDecimal balance;
+
+    /**
+     * The {@link Currency} of the account.
+     */
+    private Currency currency;
+
+    /**
+     * The date and time when the account was created in the format of "dd/MM/yyyy HH:mm:ss".
+     */
+    @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
+    private Timestamp createdAt;
+
+    /**
+     * The number of transactions the account is the target of.
+     */
+    private long incomingCount;
+
+    /**
+     * The total amount the account has received.
+     */
+    private BigDecimal totalIn;
+
+    /**
+     * The number of transactions the account is the source of.
+     */
+    private long outgoingCount;
+
+    /**
+     * The total amount the account has sent.
+     */
+    private BigDecimal totalOut;
+}
@@ -0,0 +1,46 @@
+package org.agileactors.dtos;
+
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * The transaction created with an idempotency key, together with the request it was created from, so a retry can be
+ * told apart from another request that reuses the key.
+ *
+ * @param transactionId   The {@link UUID} of the created transaction.
+ * @param sourceAccountId The ID of the source account of the request.
+ * @param targetAccountId The ID of the target account of the request.
+ * @param amount          The amount of the request.
+ * @param currency        The {@link Currency} of the request.
+ */
+public record IdempotencyRecord(UUID transactionId, Long sourceAccountId, Long targetAccountId, BigDecimal amount,
+                                Currency currency) {
+
+    /**
+     * Creates the record of a transaction created with an idempotency key.
+     *
+     * @param transactionId The {@link UUID} of the created transaction.
+     * @param transaction   The {@link TransactionEntity} of the request.
+     * @return The {@link IdempotencyRecord} of the transaction.
+     */
+    public static IdempotencyRecord of(UUID transactionId, TransactionEntity transaction) {
+        return new IdempotencyRecord(transactionId, transaction.getSourceAccountId(), transaction.getTargetAccountId(),
+                transaction.getAmount(), transaction.getCurrency());
+    }
+
+    /**
+     * Tells whether a transaction carrying the same idempotency key is a retry of the recorded request.
+     *
+     * @param transaction The {@link TransactionEntity} carrying the idempotency key.
+     * @return true if the accounts, the amount and the currency are the same.
+     */
+    public boolean matches(TransactionEntity transaction) {
+        return sourceAccountId.equals(transaction.getSourceAccountId())
+                && targetAccountId.equals(transaction.getTargetAccountId())
+                && amount.compareTo(transaction.getAmount()) == 0
+                && currency == transaction.getCurrency();
+    }
+}
@@ -0,0 +1,41 @@
+package org.agileactors.dtos;
+
+import lombok.*;
+import org.agileactors.enums.BatchItemStatus;
+import org.agileactors.enums.TransactionErrorCode;
+
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) representing the outcome of a single item of a batch of transactions.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionBatchResultDto {
+
+    /**
+     * The position of the item in the batch request, starting at 0.
+     */
+    private int index;
+
+    /**
+     * The {@link BatchItemStatus} of the item.
+     */
+    private BatchItemStatus status;
+
+    /**
+     * The {@link UUID} of the created transaction, if the item was committed.
+     */
+    private UUID id;
+
+    /**
+     * The {@link TransactionErrorCode} of the item, if it was rejected.
+     */
+    private TransactionErrorCode errorCode;
+
+    /**
+     * The error message of the item, if it was rejected.
+     */
+    private String message;
+}
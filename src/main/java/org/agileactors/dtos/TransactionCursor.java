@@ -0,0 +1,59 @@
+package org.agileactors.dtos;
+
+import org.agileactors.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Position of a transaction in the {@code (transactionDate, id)} order used to page through transactions.
+ * It is exchanged with clients as an opaque, URL-safe string.
+ *
+ * @param transactionDate The timestamp of the transaction.
+ * @param id              The {@link UUID} of the transaction.
+ */
+public record TransactionCursor(Timestamp transactionDate, UUID id) {
+
+    /**
+     * Orders transactions the way the database does, comparing the ids as unsigned values.
+     */
+    public static final Comparator<TransactionCursor> ORDER = Comparator.comparing(TransactionCursor::transactionDate)
+            .thenComparing(TransactionCursor::id, (left, right) -> {
+                int result = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+                return result != 0 ? result : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+            });
+
+    /**
+     * Encodes the cursor to its opaque string representation.
+     *
+     * @return The encoded cursor.
+     */
+    public String encode() {
+        String value = transactionDate.getTime() / 1000 + ":" + transactionDate.getNanos() + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor from its opaque string representation.
+     *
+     * @param cursor The encoded cursor.
+     * @return The decoded {@link TransactionCursor}.
+     * @throws InvalidCursorException when the cursor is malformed
+     */
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Unexpected number of parts");
+            }
+            Timestamp transactionDate = new Timestamp(Long.parseLong(parts[0]) * 1000);
+            transactionDate.setNanos(Integer.parseInt(parts[1]));
+            return new TransactionCursor(transactionDate, UUID.fromString(parts[2]));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException("The cursor is not valid");
+        }
+    }
+}
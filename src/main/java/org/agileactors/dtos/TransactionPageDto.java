@@ -0,0 +1,24 @@
+package org.agileactors.dtos;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Data Transfer Object (DTO) representing a page of transactions.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionPageDto {
+
+    /**
+     * The transactions of the page, ordered by transaction date and id.
+     */
+    private List<TransactionResponseDto> transactions;
+
+    /**
+     * The cursor of the next page, or null if this is the last page.
+     */
+    private String nextCursor;
+}
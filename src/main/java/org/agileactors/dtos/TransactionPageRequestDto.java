@@ -0,0 +1,45 @@
+package org.agileactors.dtos;
+
+import lombok.*;
+import org.agileactors.enums.Currency;
+
+import java.time.Instant;
+
+/**
+ * Data Transfer Object (DTO) representing a request for a page of transactions.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionPageRequestDto {
+
+    /**
+     * The ID of an account that must be either the source or the target of the transactions, if any.
+     */
+    private Long accountId;
+
+    /**
+     * The {@link Currency} of the transactions, if any.
+     */
+    private Currency currency;
+
+    /**
+     * The inclusive lower bound of the transaction date, if any.
+     */
+    private Instant from;
+
+    /**
+     * The exclusive upper bound of the transaction date, if any.
+     */
+    private Instant to;
+
+    /**
+     * The cursor returned with the previous page, or null for the first page.
+     */
+    private String cursor;
+
+    /**
+     * The maximum number of transactions of the page, or null for the default.
+     */
+    private Integer limit;
+}
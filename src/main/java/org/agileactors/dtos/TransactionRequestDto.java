@@ -1,5 +1,6 @@
 package org.agileactors.dtos;
 
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
@@ -28,10 +29,12 @@ public class TransactionRequestDto {
     private Long targetAccountId;
 
     /**
-     * The amount to be transferred in the transaction. Minimum value is 1.
+     * The amount to be transferred in the transaction. Minimum value is 1. It should fit in a {@code long} number of
+     * minor units of its currency, e.g. cents.
      */
     @NotNull(message = "amount is required")
     @Min(value = 1, message = "amount to be transferred should be more than 0")
+    @Digits(integer = 15, fraction = 2, message = "amount should have at most 15 integer digits and 2 decimal places")
     private BigDecimal amount;
 
     /**
@@ -0,0 +1,41 @@
+package org.agileactors.dtos;
+
+import lombok.*;
+import org.agileactors.enums.SubmissionStatus;
+import org.agileactors.enums.TransactionErrorCode;
+
+import java.util.UUID;
+
+/**
+ * Data Transfer Object (DTO) representing the state of a transaction submitted asynchronously.
+ */
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionSubmissionDto {
+
+    /**
+     * The {@link UUID} of the submission, which the state of the transaction is polled with.
+     */
+    private UUID id;
+
+    /**
+     * The {@link SubmissionStatus} of the transaction.
+     */
+    private SubmissionStatus status;
+
+    /**
+     * The {@link UUID} of the created transaction, if it was committed.
+     */
+    private UUID transactionId;
+
+    /**
+     * The {@link TransactionErrorCode} of the transaction, if it was rejected or its outcome is unknown.
+     */
+    private TransactionErrorCode errorCode;
+
+    /**
+     * The error message of the transaction, if it was rejected or its outcome is unknown.
+     */
+    private String message;
+}
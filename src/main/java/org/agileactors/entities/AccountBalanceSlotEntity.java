@@ -0,0 +1,100 @@
+package org.agileactors.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.agileactors.enums.Currency;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Entity representing a slot of the balance of a hot account.
+ * While an account is split, its balance is the balance of its {@link AccountEntity} row plus the balances of all its
+ * slots, so concurrent transfers can credit and debit different slot rows instead of all waiting for the lock of the
+ * account row. The slots also hold the running totals of the transfers that hit them, which belong to the
+ * {@link AccountStatsEntity} of the account, so these transfers do not wait for the lock of its statistics row either.
+ * An account that is not split has no slots.
+ */
+@Entity
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@IdClass(AccountBalanceSlotEntity.Key.class)
+@Table(name = "ACCOUNT_BALANCE_SLOT")
+public class AccountBalanceSlotEntity {
+
+    /**
+     * The unique identifier of the account.
+     */
+    @Id
+    private Long accountId;
+
+    /**
+     * The number of the slot, from 0 to the number of slots of the account minus 1.
+     */
+    @Id
+    private int slot;
+
+    /**
+     * The {@link Currency} of the slot, which is the currency of the account.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Currency currency;
+
+    /**
+     * The part of the balance of the account held by the slot.
+     */
+    @Column(nullable = false)
+    private BigDecimal balance;
+
+    /**
+     * The number of transactions the account is the target of that have been credited to the slot.
+     */
+    @Column(nullable = false)
+    private long incomingCount;
+
+    /**
+     * The total amount credited to the slot with them.
+     */
+    @Column(nullable = false)
+    private BigDecimal totalIn;
+
+    /**
+     * The number of transactions the account is the source of that have been debited from the slot.
+     */
+    @Column(nullable = false)
+    private long outgoingCount;
+
+    /**
+     * The total amount debited from the slot with them.
+     */
+    @Column(nullable = false)
+    private BigDecimal totalOut;
+
+    /**
+     * The primary key of an {@link AccountBalanceSlotEntity}.
+     */
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+
+        /**
+         * The unique identifier of the account.
+         */
+        private Long accountId;
+
+        /**
+         * The number of the slot.
+         */
+        private int slot;
+    }
+}
@@ -0,0 +1,51 @@
+package org.agileactors.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.agileactors.enums.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * Entity representing a credit of an account that has been journaled but not yet added to its balance.
+ * While the credit journal is enabled, the balance of an account is the balance of its {@link AccountEntity} row plus
+ * its journaled credits, so a transfer appends a row for its target account instead of updating the account row. The
+ * credits are added to the balances and the running totals of their accounts in batches, and their rows deleted.
+ */
+@Entity
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "ACCOUNT_CREDIT")
+public class AccountCreditEntity {
+
+    /**
+     * The unique identifier of the credit. It is autogenerated.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * The unique identifier of the credited account.
+     */
+    @Column(nullable = false)
+    private Long accountId;
+
+    /**
+     * The {@link Currency} of the credit, which is the currency of the account.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Currency currency;
+
+    /**
+     * The amount added to the balance of the account.
+     */
+    @Column(nullable = false)
+    private BigDecimal amount;
+}
@@ -46,4 +46,23 @@ public class AccountEntity {
     @CreationTimestamp
     @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
     private Timestamp createdAt;
+
+    /**
+     * The version of the account, incremented on every update. It is used to detect concurrent balance updates.
+     */
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    /**
+     * Constructs an {@link AccountEntity} that has not been versioned yet.
+     *
+     * @param id        The unique identifier of the account.
+     * @param balance   The balance of the account.
+     * @param currency  The {@link Currency} of the account.
+     * @param createdAt The timestamp when the account was created.
+     */
+    public AccountEntity(Long id, BigDecimal balance, Currency currency, Timestamp createdAt) {
+        this(id, balance, currency, createdAt, 0L);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,61 @@
+package org.agileactors.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.agileactors.enums.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * Entity representing the running totals of the transactions of an account.
+ * It is updated in the database transaction of every transfer of the account, so reading it costs a single primary key
+ * lookup however many transactions the account has. An account without transactions has no row.
+ */
+@Entity
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "ACCOUNT_STATS")
+public class AccountStatsEntity {
+
+    /**
+     * The unique identifier of the account.
+     */
+    @Id
+    private Long accountId;
+
+    /**
+     * The {@link Currency} of the totals, which is the currency of the account and of all its transactions.
+     */
+    @Column(nullable = false)
+    @Enumerated(EnumType.STRING)
+    private Currency currency;
+
+    /**
+     * The number of transactions the account is the target of.
+     */
+    @Column(nullable = false)
+    private long incomingCount;
+
+    /**
+     * The total amount the account has received.
+     */
+    @Column(nullable = false)
+    private BigDecimal totalIn;
+
+    /**
+     * The number of transactions the account is the source of.
+     */
+    @Column(nullable = false)
+    private long outgoingCount;
+
+    /**
+     * The total amount the account has sent.
+     */
+    @Column(nullable = false)
+    private BigDecimal totalOut;
+}
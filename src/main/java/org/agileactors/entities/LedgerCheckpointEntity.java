@@ -0,0 +1,35 @@
+package org.agileactors.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Entity representing how far the write-ahead log of the in-memory ledger has been persisted to the database.
+ * It has a single row, which is updated in the same database transaction as the persisted rows.
+ */
+@Entity
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(name = "LEDGER_CHECKPOINT")
+public class LedgerCheckpointEntity {
+
+    /**
+     * The unique identifier of the checkpoint. There is only one checkpoint, with id 1.
+     */
+    @Id
+    private Integer id;
+
+    /**
+     * The log sequence number of the last log record persisted to the database.
+     */
+    @Column(nullable = false)
+    private long lsn;
+}
@@ -0,0 +1,17 @@
+package org.agileactors.entities;
+
+import org.agileactors.utils.TimeOrderedUuidUtils;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate generator behind {@link TimeOrderedUuid}. The ids are generated in-process when an entity is persisted,
+ * without a database round trip.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return TimeOrderedUuidUtils.next();
+    }
+}
@@ -1,6 +1,7 @@
 package org.agileactors.entities;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 import org.agileactors.enums.Currency;
@@ -20,14 +21,25 @@ import java.util.UUID;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "TRANSACTION")
+@Table(name = "TRANSACTION", indexes = {
+        @Index(name = "IDX_TRANSACTION_DATE_ID", columnList = "transactionDate, id"),
+        @Index(name = "IDX_TRANSACTION_SOURCE_DATE_ID", columnList = "sourceAccountId, transactionDate, id"),
+        @Index(name = "IDX_TRANSACTION_TARGET_DATE_ID", columnList = "targetAccountId, transactionDate, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "UK_TRANSACTION_IDEMPOTENCY_KEY", columnNames = "idempotencyKey")
+})
 public class TransactionEntity {
+    /**
+     * The maximum length of an idempotency key.
+     */
+    public static final int IDEMPOTENCY_KEY_MAX_LENGTH = 255;
 
     /**
-     * The unique identifier of the transaction.
+     * The unique identifier of the transaction. It is a time-ordered UUID, so transactions created later have greater
+     * ids.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     /**
@@ -61,4 +73,11 @@ public class TransactionEntity {
     @CreationTimestamp
     @JsonFormat(pattern = "dd/MM/yyyy HH:mm:ss")
     private Timestamp transactionDate;
+
+    /**
+     * The key the client sent to make retries of the transaction idempotent, or null if it did not send one.
+     */
+    @JsonIgnore
+    @Column(length = TransactionEntity.IDEMPOTENCY_KEY_MAX_LENGTH)
+    private String idempotencyKey;
 }
@@ -0,0 +1,21 @@
+package org.agileactors.enums;
+
+/**
+ * Enum representing the outcome of a single item of a batch of transactions.
+ */
+public enum BatchItemStatus {
+    /**
+     * The transaction was committed.
+     */
+    CREATED,
+
+    /**
+     * The transaction was rejected and had no effect.
+     */
+    REJECTED,
+
+    /**
+     * The transaction was valid but was rolled back, because another item of an all-or-nothing batch was rejected.
+     */
+    ROLLED_BACK
+}
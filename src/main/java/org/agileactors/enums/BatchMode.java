@@ -0,0 +1,16 @@
+package org.agileactors.enums;
+
+/**
+ * Enum representing how a batch of transactions is committed.
+ */
+public enum BatchMode {
+    /**
+     * The whole batch is committed in a single database transaction, and nothing is committed if any item fails.
+     */
+    ALL_OR_NOTHING,
+
+    /**
+     * The batch is committed in chunks, and failing items are rejected without affecting the others.
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,36 @@
+package org.agileactors.enums;
+
+/**
+ * Enum representing the strategies used to keep concurrent transfers on the same account consistent.
+ */
+public enum ConcurrencyMode {
+    /**
+     * Transfers acquire in-process striped locks on both accounts for the whole database transaction.
+     */
+    LOCKING,
+
+    /**
+     * Transfers run without locks and rely on the account version column to detect conflicting updates,
+     * retrying the whole transfer when a conflict is detected.
+     */
+    OPTIMISTIC,
+
+    /**
+     * Transfers validate and move the amount with conditional update statements executed by the database,
+     * without loading the accounts.
+     */
+    ATOMIC,
+
+    /**
+     * Transfers run one at a time against the balances held in memory by the
+     * {@link org.agileactors.ledger.LedgerEngine}, are made durable in its write-ahead log and are persisted to the
+     * database asynchronously.
+     */
+    LEDGER,
+
+    /**
+     * Like {@link #LEDGER}, but the accounts are partitioned into shards, each owned by a single thread, and transfers
+     * are routed to the shards of their accounts, so transfers on different shards run in parallel without locks.
+     */
+    SHARDED
+}
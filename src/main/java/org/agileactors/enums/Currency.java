@@ -7,15 +7,30 @@ public enum Currency {
     /**
      * Euro (EUR) currency.
      */
-    EUR,
+    EUR(2),
 
     /**
      * British Pound Sterling (GBP) currency.
      */
-    GBP,
+    GBP(2),
 
     /**
      * United States Dollar (USD) currency.
      */
-    USD
+    USD(2);
+
+    private final int fractionDigits;
+
+    Currency(int fractionDigits) {
+        this.fractionDigits = fractionDigits;
+    }
+
+    /**
+     * Retrieves the number of digits of the minor unit of the currency, e.g. 2 for the cents of the Euro.
+     *
+     * @return The number of digits after the decimal point of an amount in the currency.
+     */
+    public int getFractionDigits() {
+        return fractionDigits;
+    }
 }
@@ -0,0 +1,28 @@
+package org.agileactors.enums;
+
+/**
+ * Enum representing the state of a transaction submitted asynchronously.
+ */
+public enum SubmissionStatus {
+    /**
+     * The transaction has been accepted and waits to be performed.
+     */
+    PENDING,
+
+    /**
+     * The transaction has been committed.
+     */
+    COMPLETED,
+
+    /**
+     * The transaction was rejected and had no effect.
+     */
+    REJECTED,
+
+    /**
+     * Performing the transaction failed unexpectedly, so it may or may not have been committed. Its effect should be
+     * checked, for example through the transactions of its source account, before it is submitted again without an
+     * idempotency key.
+     */
+    UNKNOWN
+}
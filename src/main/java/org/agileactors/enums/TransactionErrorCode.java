@@ -0,0 +1,102 @@
+package org.agileactors.enums;
+
+import org.agileactors.exceptions.*;
+
+/**
+ * Enum representing the reasons a transaction can fail for.
+ */
+public enum TransactionErrorCode {
+    /**
+     * The request did not pass validation.
+     */
+    INVALID_REQUEST(true),
+
+    /**
+     * Source and target accounts are the same.
+     */
+    SAME_ACCOUNT(true),
+
+    /**
+     * Source or target account does not exist.
+     */
+    ACCOUNT_NOT_FOUND(true),
+
+    /**
+     * Source account does not have enough balance.
+     */
+    INSUFFICIENT_BALANCE(true),
+
+    /**
+     * Source or target account currency is not the transaction currency.
+     */
+    CURRENCY_MISMATCH(true),
+
+    /**
+     * The idempotency key was already used by a transaction with different accounts, amount or currency.
+     */
+    IDEMPOTENCY_KEY_REUSED(true),
+
+    /**
+     * The transaction kept conflicting with concurrent updates of the same accounts.
+     */
+    CONCURRENT_UPDATE(false),
+
+    /**
+     * The service was too busy to get a database connection for the transaction in time.
+     */
+    SERVICE_BUSY(false),
+
+    /**
+     * The transaction failed for an unexpected reason.
+     */
+    INTERNAL_ERROR(false);
+
+    private final boolean rejection;
+
+    TransactionErrorCode(boolean rejection) {
+        this.rejection = rejection;
+    }
+
+    /**
+     * Returns whether the error is a business rejection, which is detected before the transaction changes any state.
+     *
+     * @return true if the error is a business rejection.
+     */
+    public boolean isRejection() {
+        return rejection;
+    }
+
+    /**
+     * Maps an exception thrown while performing a transaction to its {@link TransactionErrorCode}.
+     *
+     * @param ex The exception that occurred.
+     * @return The corresponding {@link TransactionErrorCode}.
+     */
+    public static TransactionErrorCode of(Throwable ex) {
+        if (ex instanceof InvalidIdempotencyKeyException) {
+            return INVALID_REQUEST;
+        }
+        if (ex instanceof SameAccountTransferException) {
+            return SAME_ACCOUNT;
+        }
+        if (ex instanceof AccountNotFoundException) {
+            return ACCOUNT_NOT_FOUND;
+        }
+        if (ex instanceof InsufficientBalanceException) {
+            return INSUFFICIENT_BALANCE;
+        }
+        if (ex instanceof CurrencyMismatchException) {
+            return CURRENCY_MISMATCH;
+        }
+        if (ex instanceof IdempotencyKeyReusedException) {
+            return IDEMPOTENCY_KEY_REUSED;
+        }
+        if (ex instanceof ConcurrentUpdateException) {
+            return CONCURRENT_UPDATE;
+        }
+        if (ex instanceof ServiceBusyException) {
+            return SERVICE_BUSY;
+        }
+        return INTERNAL_ERROR;
+    }
+}
@@ -0,0 +1,37 @@
+package org.agileactors.enums;
+
+/**
+ * Enum representing the stages a transaction goes through while it is being performed.
+ */
+public enum TransactionStage {
+    /**
+     * Source and target accounts are loaded, from the cache or the database.
+     */
+    ACCOUNT_LOOKUP,
+
+    /**
+     * The transaction is validated against both accounts.
+     */
+    VALIDATION,
+
+    /**
+     * The amount is moved between the balances of both accounts.
+     */
+    BALANCE_UPDATE,
+
+    /**
+     * The transaction is added to the running totals of both accounts.
+     */
+    ACCOUNT_STATS_UPDATE,
+
+    /**
+     * The transaction is persisted. Its insert statement is only sent to the database when the database transaction
+     * is flushed, so it is mostly timed by the {@link #COMMIT} stage.
+     */
+    TRANSACTION_INSERT,
+
+    /**
+     * The database transaction is flushed and committed.
+     */
+    COMMIT
+}
@@ -0,0 +1,16 @@
+package org.agileactors.exceptions;
+
+/**
+ * Exception thrown when a batch of transactions has more items than allowed.
+ */
+public class BatchTooLargeException extends RuntimeException {
+
+    /**
+     * Constructs a {@link BatchTooLargeException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     */
+    public BatchTooLargeException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,16 @@
+package org.agileactors.exceptions;
+
+/**
+ * Exception thrown when a transaction keeps conflicting with concurrent updates of the same accounts.
+ */
+public class ConcurrentUpdateException extends RuntimeException {
+
+    /**
+     * Constructs a {@link ConcurrentUpdateException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     */
+    public ConcurrentUpdateException(String errorMessage) {
+        super(errorMessage);
+    }
+}
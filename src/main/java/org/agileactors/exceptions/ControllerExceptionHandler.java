@@ -1,28 +1,56 @@
 package org.agileactors.exceptions;
 
+import lombok.RequiredArgsConstructor;
+import org.agileactors.config.TransactionProperties;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.ObjectError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import java.time.Duration;
+import java.util.stream.Collectors;
+
 /**
  * Global exception handler for the controller layer.
  */
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class ControllerExceptionHandler {
+    private final TransactionProperties transactionProperties;
 
     /**
      * Handles exceptions related to bad requests (e.g., SameAccountTransferException,
-     * InsufficientBalanceException, WrongCurrencyException).
+     * InsufficientBalanceException, WrongCurrencyException, BatchTooLargeException, InvalidCursorException,
+     * InvalidIdempotencyKeyException).
      *
      * @param ex The exception that occurred.
      * @return A {@link ResponseEntity} with a status of {@link HttpStatus#BAD_REQUEST} (400) and an error message.
      */
-    @ExceptionHandler({SameAccountTransferException.class, InsufficientBalanceException.class, CurrencyMismatchException.class})
+    @ExceptionHandler({SameAccountTransferException.class, InsufficientBalanceException.class, CurrencyMismatchException.class, BatchTooLargeException.class, InvalidCursorException.class, InvalidIdempotencyKeyException.class})
     public ResponseEntity<String> handleBadRequestException(RuntimeException ex) {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
     }
 
+    /**
+     * Handles request bodies that violate the constraints of their DTO, e.g. an amount with more decimal places than its
+     * currency.
+     *
+     * @param ex The MethodArgumentNotValidException that occurred.
+     * @return A {@link ResponseEntity} with a status of {@link HttpStatus#BAD_REQUEST} (400) and the violated
+     * constraint messages.
+     */
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<String> handleValidationException(MethodArgumentNotValidException ex) {
+        String violations = ex.getBindingResult().getAllErrors().stream()
+                .map(ObjectError::getDefaultMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(violations);
+    }
+
     /**
      * Handles exceptions related to account not found.
      *
@@ -34,6 +62,59 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
     }
 
+    /**
+     * Handles requests reusing an idempotency key that a different transaction was created with.
+     *
+     * @param ex The IdempotencyKeyReusedException that occurred.
+     * @return A {@link ResponseEntity} with a status of {@link HttpStatus#UNPROCESSABLE_ENTITY} (422) and an error
+     * message.
+     */
+    @ExceptionHandler(IdempotencyKeyReusedException.class)
+    public ResponseEntity<String> handleUnprocessableEntityException(IdempotencyKeyReusedException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+    }
+
+    /**
+     * Handles exceptions related to transactions that kept conflicting with concurrent updates.
+     *
+     * @param ex The ConcurrentUpdateException that occurred.
+     * @return A {@link ResponseEntity} with a status of {@link HttpStatus#CONFLICT} (409) and an error message.
+     */
+    @ExceptionHandler(ConcurrentUpdateException.class)
+    public ResponseEntity<String> handleConflictException(ConcurrentUpdateException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    /**
+     * Handles exceptions related to transactions that could not get a database connection or a place in a queue in
+     * time.
+     *
+     * @param ex The ServiceBusyException that occurred.
+     * @return A {@link ResponseEntity} with a status of {@link HttpStatus#SERVICE_UNAVAILABLE} (503), a
+     * {@value HttpHeaders#RETRY_AFTER} header of {@code transaction.admission.retry-after} in whole seconds and an error
+     * message.
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<String> handleServiceUnavailableException(ServiceBusyException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(transactionProperties.getAdmission().getRetryAfter()))
+                .body(ex.getMessage());
+    }
+
+    /**
+     * Handles requests shed by the adaptive concurrency limits.
+     *
+     * @param ex The RequestLimitExceededException that occurred.
+     * @return A {@link ResponseEntity} with a status of {@link HttpStatus#TOO_MANY_REQUESTS} (429), a
+     * {@value HttpHeaders#RETRY_AFTER} header in whole seconds and an error message.
+     */
+    @ExceptionHandler(RequestLimitExceededException.class)
+    public ResponseEntity<String> handleTooManyRequestsException(RequestLimitExceededException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, retryAfterSeconds(ex.getRetryAfter()))
+                .body(ex.getMessage());
+    }
+
     /**
      * Handles general exceptions that are not explicitly caught.
      *
@@ -44,4 +125,8 @@ public class ControllerExceptionHandler {
     public ResponseEntity<String> handleInternalServerError(Exception ex) {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(ex.getMessage());
     }
+
+    private static String retryAfterSeconds(Duration retryAfter) {
+        return String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000));
+    }
 }
\ No newline at end of file
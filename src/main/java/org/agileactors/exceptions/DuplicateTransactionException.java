@@ -0,0 +1,29 @@
+package org.agileactors.exceptions;
+
+import lombok.Getter;
+import org.agileactors.dtos.IdempotencyRecord;
+
+/**
+ * Exception thrown when a transaction has an idempotency key that an earlier transaction has already been performed
+ * with, but that transaction has not been persisted to the database yet.
+ */
+@Getter
+public class DuplicateTransactionException extends RuntimeException {
+
+    /**
+     * The {@link IdempotencyRecord} of the transaction originally performed with the idempotency key.
+     */
+    private final IdempotencyRecord original;
+
+    /**
+     * Constructs a {@link DuplicateTransactionException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     * @param original     The {@link IdempotencyRecord} of the transaction originally performed with the idempotency
+     *                     key.
+     */
+    public DuplicateTransactionException(String errorMessage, IdempotencyRecord original) {
+        super(errorMessage);
+        this.original = original;
+    }
+}
@@ -0,0 +1,17 @@
+package org.agileactors.exceptions;
+
+/**
+ * Exception thrown when an idempotency key that has already been used is sent with a different request, which is
+ * therefore not a retry of the transaction created with the key.
+ */
+public class IdempotencyKeyReusedException extends RuntimeException {
+
+    /**
+     * Constructs an {@link IdempotencyKeyReusedException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     */
+    public IdempotencyKeyReusedException(String errorMessage) {
+        super(errorMessage);
+    }
+}
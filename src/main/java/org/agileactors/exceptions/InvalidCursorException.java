@@ -0,0 +1,16 @@
+package org.agileactors.exceptions;
+
+/**
+ * Exception thrown when a pagination cursor cannot be decoded.
+ */
+public class InvalidCursorException extends RuntimeException {
+
+    /**
+     * Constructs an {@link InvalidCursorException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     */
+    public InvalidCursorException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,16 @@
+package org.agileactors.exceptions;
+
+/**
+ * Exception thrown when an idempotency key is empty or too long.
+ */
+public class InvalidIdempotencyKeyException extends RuntimeException {
+
+    /**
+     * Constructs an {@link InvalidIdempotencyKeyException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     */
+    public InvalidIdempotencyKeyException(String errorMessage) {
+        super(errorMessage);
+    }
+}
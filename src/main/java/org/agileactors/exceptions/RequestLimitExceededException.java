@@ -0,0 +1,29 @@
+package org.agileactors.exceptions;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when a request is shed because the service already has as many requests in flight as its adaptive
+ * concurrency limit allows.
+ */
+@Getter
+public class RequestLimitExceededException extends ServiceBusyException {
+
+    /**
+     * The time the client should wait before retrying the request.
+     */
+    private final Duration retryAfter;
+
+    /**
+     * Constructs a {@link RequestLimitExceededException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     * @param retryAfter   The time the client should wait before retrying the request.
+     */
+    public RequestLimitExceededException(String errorMessage, Duration retryAfter) {
+        super(errorMessage);
+        this.retryAfter = retryAfter;
+    }
+}
@@ -0,0 +1,16 @@
+package org.agileactors.exceptions;
+
+/**
+ * Exception thrown when a transaction cannot get a database connection in time because the service is overloaded.
+ */
+public class ServiceBusyException extends RuntimeException {
+
+    /**
+     * Constructs a {@link ServiceBusyException} with the specified error message.
+     *
+     * @param errorMessage The error message describing the reason for the exception.
+     */
+    public ServiceBusyException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,101 @@
+package org.agileactors.ledger;
+
+import lombok.Getter;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.utils.MoneyUtils;
+
+import java.sql.Timestamp;
+
+/**
+ * An account held in memory by the {@link LedgerEngine}, with its balance in minor units of its {@link Currency}.
+ * Debits and credits are plain {@code long} arithmetic, so moving an amount allocates nothing. The balance is converted
+ * from and to {@link java.math.BigDecimal} only when the account is loaded from or handed out as an
+ * {@link AccountEntity}. The id, currency and creation time never change, so any thread may read them; the balance
+ * must only be used by the thread owning the account.
+ */
+public class LedgerAccount {
+    @Getter
+    private final Long id;
+    @Getter
+    private final Currency currency;
+    private final Timestamp createdAt;
+    private final long version;
+    private long balance;
+
+    /**
+     * Constructs a {@link LedgerAccount}.
+     *
+     * @param id        The unique identifier of the account.
+     * @param balance   The balance of the account, in minor units of its currency.
+     * @param currency  The {@link Currency} of the account.
+     * @param createdAt The timestamp when the account was created.
+     * @param version   The version of the account when it was loaded.
+     */
+    public LedgerAccount(Long id, long balance, Currency currency, Timestamp createdAt, long version) {
+        this.id = id;
+        this.balance = balance;
+        this.currency = currency;
+        this.createdAt = createdAt;
+        this.version = version;
+    }
+
+    /**
+     * Converts an {@link AccountEntity} loaded from the database.
+     *
+     * @param account The account.
+     * @return The corresponding {@link LedgerAccount}.
+     * @throws ArithmeticException when the balance cannot be represented in minor units
+     */
+    public static LedgerAccount of(AccountEntity account) {
+        return new LedgerAccount(account.getId(), MoneyUtils.toMinorUnits(account.getBalance(), account.getCurrency()),
+                account.getCurrency(), account.getCreatedAt(), account.getVersion());
+    }
+
+    /**
+     * Converts the account to a detached {@link AccountEntity}.
+     *
+     * @return A copy of the account, with its balance as a decimal amount.
+     */
+    public AccountEntity toEntity() {
+        return new AccountEntity(id, MoneyUtils.toAmount(balance, currency), currency, createdAt, version);
+    }
+
+    /**
+     * Retrieves the balance of the account.
+     *
+     * @return The balance, in minor units of the currency of the account.
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    /**
+     * Takes an amount from the balance. The balance is not checked against the amount, transfers are validated first.
+     *
+     * @param amount The amount, in minor units.
+     * @throws ArithmeticException when the balance would overflow
+     */
+    public void debit(long amount) {
+        balance = Math.subtractExact(balance, amount);
+    }
+
+    /**
+     * Adds an amount to the balance.
+     *
+     * @param amount The amount, in minor units.
+     * @throws ArithmeticException when the balance would overflow
+     */
+    public void credit(long amount) {
+        balance = Math.addExact(balance, amount);
+    }
+
+    /**
+     * Restores a balance the account had before, when the unit of work that changed it is undone.
+     *
+     * @param balance The balance, in minor units.
+     */
+    void restore(long balance) {
+        this.balance = balance;
+    }
+}
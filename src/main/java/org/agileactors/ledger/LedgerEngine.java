@@ -0,0 +1,710 @@
+package org.agileactors.ledger;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.dtos.IdempotencyRecord;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.enums.Currency;
+import org.agileactors.exceptions.DuplicateTransactionException;
+import org.agileactors.exceptions.ServiceBusyException;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.agileactors.utils.MoneyUtils;
+import org.agileactors.utils.TimeOrderedUuidUtils;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory ledger that performs transfers in {@link ConcurrencyMode#LEDGER} and {@link ConcurrencyMode#SHARDED} mode.
+ * The balances live in an in-memory account table, loaded from the database the first time an account is used, as
+ * {@link LedgerAccount}s holding them in minor units, so transfers move amounts with {@code long} arithmetic.
+ * Every transfer is appended to the {@link WriteAheadLog} and is done once it is durable, so transfers running close
+ * together share one {@code fsync}. The transactions and the amounts they moved are written to the database
+ * asynchronously, in bulk, together with the log sequence number they have been persisted up to. On start, the records
+ * of the log after that checkpoint are persisted first, so the database snapshot plus the log always rebuild the state
+ * of the ledger. While the ledger runs, it owns the balances: they must not be changed in the database by anyone else.
+ * <p>
+ * In {@link ConcurrencyMode#LEDGER} mode, units of work run one at a time against the whole account table. In
+ * {@link ConcurrencyMode#SHARDED} mode, the account table is partitioned into {@link LedgerShard}s, each owned by a
+ * single thread, and single transfers are routed to the shards of their accounts. A transfer between two shards first
+ * reads the target account on the target shard, then validates the transfer and reserves the amount on the source
+ * shard, and finally credits and logs it on the target shard. A reserved amount can no longer be spent, and the target
+ * account can no longer reject the credit, so the transfer can neither overdraw the source account nor fail halfway.
+ * Units of work pause all shards while they run.
+ */
+@Slf4j
+@Component
+public class LedgerEngine implements SmartLifecycle {
+    private static final String INSERT_TRANSACTION = "INSERT INTO TRANSACTION " +
+            "(id, source_account_id, target_account_id, amount, currency, transaction_date, idempotency_key) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_BALANCE = "UPDATE ACCOUNT SET balance = balance + ?, version = version + 1 WHERE id = ?";
+    private static final String UPDATE_STATS = "UPDATE ACCOUNT_STATS SET incoming_count = incoming_count + ?, " +
+            "total_in = total_in + ?, outgoing_count = outgoing_count + ?, total_out = total_out + ? WHERE account_id = ?";
+    private static final String INSERT_STATS = "INSERT INTO ACCOUNT_STATS " +
+            "(incoming_count, total_in, outgoing_count, total_out, account_id, currency) VALUES (?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_CHECKPOINT = "SELECT lsn FROM LEDGER_CHECKPOINT WHERE id = 1";
+    private static final String INSERT_CHECKPOINT = "INSERT INTO LEDGER_CHECKPOINT (id, lsn) VALUES (1, 0)";
+    private static final String UPDATE_CHECKPOINT = "UPDATE LEDGER_CHECKPOINT SET lsn = ? WHERE id = 1";
+    private static final long SUBMIT_PAUSE_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final TransactionProperties.Ledger settings;
+    private final boolean enabled;
+    private final boolean sharded;
+    private final AccountEntityRepository accountEntityRepository;
+    private final TransactionEntityRepository transactionEntityRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionOperations transactionOperations;
+    private final DistributionSummary groupSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LedgerShard[] shards;
+    private final Map<String, IdempotencyRecord> pendingKeys = new ConcurrentHashMap<>();
+    private final List<TransactionEntity> unitTransactions = new ArrayList<>();
+    private final Map<Long, Long> unitUndo = new HashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private long nextLsn;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final Queue<LogRecord> unflushed = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger unflushedCount = new AtomicInteger();
+    private final List<LogRecord> flushing = new ArrayList<>();
+    private volatile long persistedLsn;
+
+    private WriteAheadLog writeAheadLog;
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    /**
+     * Constructs a {@link LedgerEngine}.
+     *
+     * @param properties                  The transaction service configuration properties.
+     * @param accountEntityRepository     The repository the accounts are loaded from.
+     * @param transactionEntityRepository The repository persisted idempotency keys are looked up in.
+     * @param jdbcTemplate                The {@link JdbcTemplate} the ledger is persisted with.
+     * @param transactionOperations       The {@link TransactionOperations} every bulk write runs in.
+     * @param meterRegistry               The {@link MeterRegistry} the ledger meters are registered to.
+     */
+    public LedgerEngine(TransactionProperties properties, AccountEntityRepository accountEntityRepository,
+                        TransactionEntityRepository transactionEntityRepository, JdbcTemplate jdbcTemplate,
+                        TransactionOperations transactionOperations, MeterRegistry meterRegistry) {
+        ConcurrencyMode mode = properties.getConcurrency().getMode();
+        this.settings = properties.getLedger();
+        this.enabled = mode == ConcurrencyMode.LEDGER || mode == ConcurrencyMode.SHARDED;
+        this.sharded = mode == ConcurrencyMode.SHARDED;
+        this.accountEntityRepository = accountEntityRepository;
+        this.transactionEntityRepository = transactionEntityRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionOperations = transactionOperations;
+        this.groupSize = DistributionSummary.builder("transaction.ledger.group.size")
+                .description("Log records made durable by a single fsync")
+                .register(meterRegistry);
+        Gauge.builder("transaction.ledger.unflushed", unflushedCount, AtomicInteger::get)
+                .description("Durable log records that have not been persisted to the database yet")
+                .register(meterRegistry);
+
+        int shardCount = !sharded ? 1
+                : settings.getShards() > 0 ? settings.getShards() : Runtime.getRuntime().availableProcessors();
+        this.shards = new LedgerShard[shardCount];
+        for (int index = 0; index < shardCount; index++) {
+            shards[index] = new LedgerShard(index, settings.getRingBufferSize(), meterRegistry);
+        }
+    }
+
+    /**
+     * Persists the log records after the database checkpoint, then opens the log for appending, starts the shards and
+     * starts the periodic flush to the database.
+     */
+    @Override
+    public void start() {
+        Long storedCheckpoint = readCheckpoint();
+        long checkpoint = storedCheckpoint != null ? storedCheckpoint : 0;
+        List<LogRecord> records;
+        writeAheadLog = new WriteAheadLog(settings.getDirectory(), settings.getSegmentSize().toBytes(), this::durable);
+        try {
+            records = writeAheadLog.open(checkpoint + 1);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open the ledger log in " + settings.getDirectory(), ex);
+        }
+        if (storedCheckpoint == null && !records.isEmpty()) {
+            // The checkpoint is created before anything is logged, so the log was written against another database
+            writeAheadLog.close();
+            throw new IllegalStateException("The ledger log in " + settings.getDirectory() + " does not belong to this database");
+        }
+
+        long lastLsn = checkpoint;
+        int recovered = 0;
+        for (LogRecord record : records) {
+            if (record.lsn() > checkpoint) {
+                unflushed.add(record);
+                unflushedCount.incrementAndGet();
+                recovered++;
+            }
+            lastLsn = Math.max(lastLsn, record.lsn());
+        }
+        persistedLsn = checkpoint;
+        nextLsn = lastLsn + 1;
+        // The accounts are loaded from the database, so it must have caught up with the log before any is loaded
+        flush();
+        log.info("Ledger started. Checkpoint={}, RecoveredRecords={}, NextLsn={}, Shards={}", checkpoint, recovered, nextLsn, sharded ? shards.length : 0);
+
+        running = true;
+        if (sharded) {
+            for (LedgerShard shard : shards) {
+                shard.start(() -> !running && inFlight.get() == 0);
+            }
+        }
+        long interval = settings.getFlushInterval().toMillis();
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops accepting transfers, lets the shards finish the transfers under way, closes the log and persists everything
+     * that is still unflushed.
+     */
+    @Override
+    public void stop() {
+        lock.lock();
+        try {
+            running = false;
+        } finally {
+            lock.unlock();
+        }
+        for (LedgerShard shard : shards) {
+            try {
+                shard.wake();
+                shard.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(settings.getFlushInterval().toMillis() * 10, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        writeAheadLog.close();
+        flushQuietly();
+        log.info("Ledger stopped. PersistedLsn={}", persistedLsn);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * The ledger is only started in {@link ConcurrencyMode#LEDGER} and {@link ConcurrencyMode#SHARDED} mode.
+     */
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    /**
+     * The ledger starts before and stops after the web server, so it never serves requests while it is not running.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    /**
+     * Runs a unit of work against the ledger, excluding all other units of work and pausing all shards. When the unit
+     * of work fails, every change it made to the ledger is undone. Otherwise, its transfers are appended to the log and
+     * the call returns once they are durable.
+     *
+     * @param work The unit of work.
+     * @throws ServiceBusyException when the ledger is not running or could not write its log
+     */
+    public void runAtomically(Runnable work) {
+        CompletableFuture<Void> durable;
+        lock.lock();
+        try {
+            if (!running) {
+                throw new ServiceBusyException("The ledger is not available, please retry the transaction");
+            }
+            CountDownLatch resume = pauseShards();
+            try {
+                work.run();
+                // Logged before the shards resume, so no transfer spending these balances is logged before them
+                durable = unitTransactions.isEmpty() ? CompletableFuture.completedFuture(null) : log(unitTransactions);
+            } catch (RuntimeException ex) {
+                unitUndo.forEach((accountId, balance) -> accountOf(accountId).restore(balance));
+                unitTransactions.forEach(this::release);
+                throw ex;
+            } finally {
+                unitTransactions.clear();
+                unitUndo.clear();
+                resume.countDown();
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(durable);
+    }
+
+    /**
+     * Tells whether the current thread is running a unit of work.
+     *
+     * @return Whether the current thread is running a unit of work.
+     */
+    public boolean isInUnitOfWork() {
+        return lock.isHeldByCurrentThread();
+    }
+
+    /**
+     * Retrieves the current state of an account. It must be called from a unit of work.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing a copy of the {@link AccountEntity}, or an empty Optional if not found.
+     */
+    public Optional<AccountEntity> getAccount(Long id) {
+        return Optional.ofNullable(load(id)).map(LedgerAccount::toEntity);
+    }
+
+    /**
+     * Validates a transaction against its accounts and moves its amount between them, assigning the transaction its id
+     * and date. It must be called from a unit of work.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @param checkedLsn  The persisted log sequence number read before the idempotency key of the transaction was
+     *                    looked up in the database, or -1 if it was not.
+     * @param validator   Validates the transaction against its accounts.
+     * @throws DuplicateTransactionException when the idempotency key has already been used
+     * @throws ArithmeticException           when the amount cannot be represented in minor units, or a balance would
+     *                                       overflow
+     */
+    public void transfer(TransactionEntity transaction, long checkedLsn, TransferValidator validator) {
+        long amount = MoneyUtils.toMinorUnits(transaction.getAmount(), transaction.getCurrency());
+        UUID id = TimeOrderedUuidUtils.next();
+        claim(transaction, id, checkedLsn);
+        try {
+            LedgerAccount sourceAccount = load(transaction.getSourceAccountId());
+            LedgerAccount targetAccount = load(transaction.getTargetAccountId());
+            validator.validate(transaction, amount, sourceAccount, targetAccount);
+            unitUndo.putIfAbsent(sourceAccount.getId(), sourceAccount.getBalance());
+            unitUndo.putIfAbsent(targetAccount.getId(), targetAccount.getBalance());
+            sourceAccount.debit(amount);
+            targetAccount.credit(amount);
+        } catch (RuntimeException ex) {
+            release(transaction.getIdempotencyKey(), id);
+            throw ex;
+        }
+        transaction.setId(id);
+        transaction.setTransactionDate(new Timestamp(System.currentTimeMillis()));
+        unitTransactions.add(transaction);
+    }
+
+    /**
+     * Routes a transfer to the shards of its accounts, which validate it and move the amount between the accounts,
+     * assigning the transaction its id and date. It must only be called in {@link ConcurrencyMode#SHARDED} mode.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @param checkedLsn  The persisted log sequence number read before the idempotency key of the transaction was
+     *                    looked up in the database, or -1 if it was not.
+     * @param validator   Validates the transaction against its accounts, on the source shard.
+     * @return A {@link CompletableFuture} completed once the transfer is durable, or completed exceptionally with the
+     * exception that rejected it. A {@link DuplicateTransactionException} rejects an idempotency key already used.
+     * @throws ServiceBusyException when the ledger is not running or the target shard did not accept the transfer in time
+     * @throws ArithmeticException  when the amount cannot be represented in minor units
+     */
+    public CompletableFuture<Void> submit(TransactionEntity transaction, long checkedLsn, TransferValidator validator) {
+        long amount = MoneyUtils.toMinorUnits(transaction.getAmount(), transaction.getCurrency());
+        inFlight.incrementAndGet();
+        if (!running) {
+            inFlight.decrementAndGet();
+            throw new ServiceBusyException("The ledger is not available, please retry the transaction");
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        done.whenComplete((result, ex) -> inFlight.decrementAndGet());
+        LedgerShard sourceShard = shardOf(transaction.getSourceAccountId());
+        LedgerShard targetShard = shardOf(transaction.getTargetAccountId());
+
+        Runnable prepare = () -> {
+            try {
+                LedgerAccount targetAccount = load(transaction.getTargetAccountId());
+                if (sourceShard == targetShard) {
+                    reserve(transaction, amount, checkedLsn, validator, targetAccount, targetShard, done);
+                } else {
+                    sourceShard.forward(() -> reserve(transaction, amount, checkedLsn, validator, targetAccount, targetShard, done));
+                }
+            } catch (RuntimeException ex) {
+                done.completeExceptionally(ex);
+            }
+        };
+
+        long deadline = System.nanoTime() + settings.getSubmitTimeout().toNanos();
+        while (!targetShard.submit(prepare)) {
+            if (System.nanoTime() - deadline > 0) {
+                done.completeExceptionally(new ServiceBusyException("The service is busy, please retry the transaction"));
+                break;
+            }
+            LockSupport.parkNanos(SUBMIT_PAUSE_NANOS);
+        }
+        return done;
+    }
+
+    /**
+     * Validates a transfer on the source shard and takes the amount from the source account, then has the target
+     * shard commit it.
+     */
+    private void reserve(TransactionEntity transaction, long amount, long checkedLsn, TransferValidator validator,
+                         LedgerAccount targetAccount, LedgerShard targetShard, CompletableFuture<Void> done) {
+        try {
+            UUID id = TimeOrderedUuidUtils.next();
+            claim(transaction, id, checkedLsn);
+            try {
+                LedgerAccount sourceAccount = load(transaction.getSourceAccountId());
+                validator.validate(transaction, amount, sourceAccount, targetAccount);
+                sourceAccount.debit(amount);
+            } catch (RuntimeException ex) {
+                release(transaction.getIdempotencyKey(), id);
+                throw ex;
+            }
+            transaction.setId(id);
+            transaction.setTransactionDate(new Timestamp(System.currentTimeMillis()));
+        } catch (RuntimeException ex) {
+            done.completeExceptionally(ex);
+            return;
+        }
+
+        LedgerShard sourceShard = shardOf(transaction.getSourceAccountId());
+        if (targetShard == sourceShard) {
+            commit(transaction, amount, sourceShard, done);
+        } else {
+            targetShard.forward(() -> commit(transaction, amount, sourceShard, done));
+        }
+    }
+
+    /**
+     * Credits the target account of a reserved transfer on the target shard, and logs the transfer. A credit that would
+     * overflow the target balance hands the reserved amount back to the source account instead.
+     */
+    private void commit(TransactionEntity transaction, long amount, LedgerShard sourceShard, CompletableFuture<Void> done) {
+        try {
+            load(transaction.getTargetAccountId()).credit(amount);
+        } catch (ArithmeticException ex) {
+            Runnable refund = () -> load(transaction.getSourceAccountId()).credit(amount);
+            if (sourceShard == shardOf(transaction.getTargetAccountId())) {
+                refund.run();
+            } else {
+                sourceShard.forward(refund);
+            }
+            release(transaction);
+            done.completeExceptionally(ex);
+            return;
+        }
+        log(List.of(transaction)).whenComplete((result, ex) -> {
+            if (ex == null) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(failed(ex));
+            }
+        });
+    }
+
+    /**
+     * Retrieves the log sequence number the database has been persisted up to. A transaction that is not found in the
+     * database may have been persisted since this number was read.
+     *
+     * @return The log sequence number of the last persisted log record.
+     */
+    public long getPersistedLsn() {
+        return persistedLsn;
+    }
+
+    /**
+     * Persists all durable log records to the database, in database transactions of up to
+     * {@code transaction.ledger.flush-batch-size} records that also move the checkpoint forward. Log segments that are
+     * no longer needed are deleted afterwards.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            while (true) {
+                // Records of a failed flush are retried first, so they are never persisted out of order
+                while (flushing.size() < settings.getFlushBatchSize() && !unflushed.isEmpty()) {
+                    flushing.add(unflushed.poll());
+                }
+                if (flushing.isEmpty()) {
+                    return;
+                }
+                persist(flushing);
+                long lastLsn = flushing.get(flushing.size() - 1).lsn();
+                // Moved before the keys are forgotten, so a claim that misses a key always notices the move
+                persistedLsn = lastLsn;
+                flushing.stream().filter(record -> record.idempotencyKey() != null)
+                        .forEach(record -> release(record.idempotencyKey(), record.transactionId()));
+                unflushedCount.addAndGet(-flushing.size());
+                flushing.clear();
+                writeAheadLog.deleteSegmentsUpTo(lastLsn);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            log.error("Could not persist the ledger, retrying with the next flush. Unflushed={}", unflushedCount.get(), ex);
+        }
+    }
+
+    /**
+     * Inserts the transactions, moves their amounts between the balances and adds them to the running totals of the
+     * accounts, in a single database transaction that also moves the checkpoint to the last record. Every account is
+     * updated once with the sum of its records; the totals of an account without transactions so far are inserted.
+     *
+     * @param records The records to persist, in log order.
+     */
+    private void persist(List<LogRecord> records) {
+        Map<Long, AccountDelta> deltas = new TreeMap<>();
+        for (LogRecord record : records) {
+            deltas.merge(record.sourceAccountId(), new AccountDelta(0, 0, 1, record.amount(), record.currency()), AccountDelta::plus);
+            deltas.merge(record.targetAccountId(), new AccountDelta(1, record.amount(), 0, 0, record.currency()), AccountDelta::plus);
+        }
+        List<Map.Entry<Long, AccountDelta>> updates = new ArrayList<>(deltas.entrySet());
+
+        transactionOperations.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_TRANSACTION, records, records.size(), (statement, record) -> {
+                statement.setObject(1, record.transactionId());
+                statement.setLong(2, record.sourceAccountId());
+                statement.setLong(3, record.targetAccountId());
+                statement.setBigDecimal(4, MoneyUtils.toAmount(record.amount(), record.currency()));
+                statement.setString(5, record.currency().name());
+                statement.setTimestamp(6, record.transactionDate());
+                statement.setString(7, record.idempotencyKey());
+            });
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE, updates, updates.size(), (statement, update) -> {
+                AccountDelta delta = update.getValue();
+                statement.setBigDecimal(1, MoneyUtils.toAmount(Math.subtractExact(delta.totalIn(), delta.totalOut()), delta.currency()));
+                statement.setLong(2, update.getKey());
+            });
+            int[][] updatedStats = jdbcTemplate.batchUpdate(UPDATE_STATS, updates, updates.size(), this::setStats);
+            List<Map.Entry<Long, AccountDelta>> inserts = new ArrayList<>();
+            for (int index = 0; index < updates.size(); index++) {
+                if (updatedStats[0][index] == 0) {
+                    inserts.add(updates.get(index));
+                }
+            }
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_STATS, inserts, inserts.size(), (statement, insert) -> {
+                    setStats(statement, insert);
+                    statement.setString(6, insert.getValue().currency().name());
+                });
+            }
+            jdbcTemplate.update(UPDATE_CHECKPOINT, records.get(records.size() - 1).lsn());
+        });
+        log.debug("Ledger persisted. Records={}, Accounts={}", records.size(), updates.size());
+    }
+
+    private void setStats(PreparedStatement statement, Map.Entry<Long, AccountDelta> update) throws SQLException {
+        AccountDelta delta = update.getValue();
+        statement.setLong(1, delta.incomingCount());
+        statement.setBigDecimal(2, MoneyUtils.toAmount(delta.totalIn(), delta.currency()));
+        statement.setLong(3, delta.outgoingCount());
+        statement.setBigDecimal(4, MoneyUtils.toAmount(delta.totalOut(), delta.currency()));
+        statement.setLong(5, update.getKey());
+    }
+
+    /**
+     * Reads the checkpoint of the database, creating it when the ledger has never been started against the database.
+     *
+     * @return The log sequence number the database has been persisted up to, or null if the checkpoint was created.
+     */
+    private Long readCheckpoint() {
+        List<Long> checkpoint = jdbcTemplate.queryForList(SELECT_CHECKPOINT, Long.class);
+        if (checkpoint.isEmpty()) {
+            jdbcTemplate.update(INSERT_CHECKPOINT);
+            return null;
+        }
+        return checkpoint.get(0);
+    }
+
+    /**
+     * Appends transfers to the log, numbering them in the order they are appended in.
+     *
+     * @param transactions The transfers to append.
+     * @return A {@link CompletableFuture} completed once the transfers are durable.
+     */
+    private CompletableFuture<Void> log(List<TransactionEntity> transactions) {
+        appendLock.lock();
+        try {
+            List<LogRecord> records = new ArrayList<>(transactions.size());
+            for (TransactionEntity transaction : transactions) {
+                records.add(new LogRecord(nextLsn++, transaction.getId(), transaction.getSourceAccountId(),
+                        transaction.getTargetAccountId(),
+                        MoneyUtils.toMinorUnits(transaction.getAmount(), transaction.getCurrency()), transaction.getCurrency(),
+                        transaction.getTransactionDate(), transaction.getIdempotencyKey()));
+            }
+            return writeAheadLog.append(records);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Called by the log writer with every group of records that has become durable.
+     *
+     * @param records The durable records, in log order.
+     */
+    private void durable(List<LogRecord> records) {
+        unflushed.addAll(records);
+        unflushedCount.addAndGet(records.size());
+        groupSize.record(records.size());
+    }
+
+    private void awaitDurable(CompletableFuture<Void> durable) {
+        try {
+            durable.join();
+        } catch (CompletionException ex) {
+            throw failed(ex.getCause());
+        }
+    }
+
+    private ServiceBusyException failed(Throwable cause) {
+        // The balances no longer match the log, only a restart can rebuild them from it
+        running = false;
+        log.error("Ledger could not write its log, it stops accepting transactions", cause);
+        return new ServiceBusyException("The ledger is not available, please retry the transaction");
+    }
+
+    /**
+     * Claims the idempotency key of a transaction for it, unless the key has already been used. A key that is not among
+     * the keys of unpersisted transactions is looked up in the database again when a flush has persisted transactions
+     * since the caller looked it up.
+     *
+     * @param transaction The {@link TransactionEntity} carrying the idempotency key, if any.
+     * @param id          The id of the transaction.
+     * @param checkedLsn  The persisted log sequence number read before the key was looked up in the database.
+     * @throws DuplicateTransactionException when the key has already been used
+     */
+    private void claim(TransactionEntity transaction, UUID id, long checkedLsn) {
+        String idempotencyKey = transaction.getIdempotencyKey();
+        if (idempotencyKey == null) {
+            return;
+        }
+        IdempotencyRecord claimed = IdempotencyRecord.of(id, transaction);
+        IdempotencyRecord original = pendingKeys.putIfAbsent(idempotencyKey, claimed);
+        if (original == null && persistedLsn != checkedLsn) {
+            original = transactionEntityRepository.findIdempotencyRecordByIdempotencyKey(idempotencyKey).orElse(null);
+            if (original != null) {
+                pendingKeys.remove(idempotencyKey, claimed);
+            }
+        }
+        if (original != null) {
+            throw new DuplicateTransactionException("Transaction already performed", original);
+        }
+    }
+
+    private void release(TransactionEntity transaction) {
+        release(transaction.getIdempotencyKey(), transaction.getId());
+    }
+
+    private void release(String idempotencyKey, UUID id) {
+        if (idempotencyKey != null) {
+            pendingKeys.computeIfPresent(idempotencyKey, (key, claimed) -> claimed.transactionId().equals(id) ? null : claimed);
+        }
+    }
+
+    /**
+     * Pauses all shard threads, so the current thread has exclusive access to all accounts.
+     *
+     * @return The latch to count down to resume the shards.
+     */
+    private CountDownLatch pauseShards() {
+        CountDownLatch resume = new CountDownLatch(1);
+        if (!sharded) {
+            return resume;
+        }
+        CountDownLatch paused = new CountDownLatch(shards.length);
+        for (LedgerShard shard : shards) {
+            shard.forward(() -> {
+                paused.countDown();
+                awaitUninterruptibly(resume);
+            });
+        }
+        awaitUninterruptibly(paused);
+        return resume;
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private LedgerShard shardOf(Long accountId) {
+        return shards[Math.floorMod(Long.hashCode(accountId * 0x9E3779B97F4A7C15L), shards.length)];
+    }
+
+    private LedgerAccount accountOf(Long accountId) {
+        return shardOf(accountId).accounts().get(accountId);
+    }
+
+    private LedgerAccount load(Long accountId) {
+        return shardOf(accountId).accounts().computeIfAbsent(accountId,
+                id -> accountEntityRepository.findDetachedById(id).map(LedgerAccount::of).orElse(null));
+    }
+
+    /**
+     * The transactions a flush adds to an account.
+     *
+     * @param incomingCount The number of transactions the account is the target of.
+     * @param totalIn       The total amount the account receives, in minor units of the currency.
+     * @param outgoingCount The number of transactions the account is the source of.
+     * @param totalOut      The total amount the account sends, in minor units of the currency.
+     * @param currency      The {@link Currency} of the account.
+     */
+    private record AccountDelta(long incomingCount, long totalIn, long outgoingCount, long totalOut, Currency currency) {
+        AccountDelta plus(AccountDelta other) {
+            return new AccountDelta(incomingCount + other.incomingCount, Math.addExact(totalIn, other.totalIn),
+                    outgoingCount + other.outgoingCount, Math.addExact(totalOut, other.totalOut), currency);
+        }
+    }
+}
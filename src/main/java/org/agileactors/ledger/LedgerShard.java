@@ -0,0 +1,161 @@
+package org.agileactors.ledger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A partition of the accounts of the {@link LedgerEngine}, owned by a single thread.
+ * Only the shard thread reads or writes the accounts of the shard, so the steps it runs need no locks. New transfers
+ * are submitted through a bounded {@link RingBuffer}; steps forwarded by other shards go through an unbounded queue
+ * that is drained first, so a transfer that has already reserved its amount is never held up behind new ones, and two
+ * shards forwarding steps to each other can never block each other.
+ */
+@Slf4j
+class LedgerShard {
+    private static final int SPINS = 64;
+    private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int index;
+    private final Map<Long, LedgerAccount> accounts = new HashMap<>();
+    private final RingBuffer<Step> submitted;
+    private final Queue<Step> forwarded = new ConcurrentLinkedQueue<>();
+    private final Timer latency;
+    private Thread thread;
+    private volatile boolean parked;
+
+    /**
+     * Constructs a {@link LedgerShard}.
+     *
+     * @param index          The index of the shard, used to tag its meters.
+     * @param ringBufferSize The maximum number of submitted steps waiting for the shard.
+     * @param meterRegistry  The {@link MeterRegistry} the shard meters are registered to.
+     */
+    LedgerShard(int index, int ringBufferSize, MeterRegistry meterRegistry) {
+        this.index = index;
+        this.submitted = new RingBuffer<>(ringBufferSize);
+        String shard = Integer.toString(index);
+        this.latency = Timer.builder("transaction.shard.latency")
+                .description("Time from queueing a step of a transfer on a shard until the shard has run it")
+                .tag("shard", shard)
+                .register(meterRegistry);
+        Gauge.builder("transaction.shard.queue.depth", this, LedgerShard::depth)
+                .description("Steps of transfers waiting for a shard")
+                .tag("shard", shard)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Retrieves the accounts owned by the shard. They must only be used by the shard thread, or while it is paused.
+     *
+     * @return The accounts by id.
+     */
+    Map<Long, LedgerAccount> accounts() {
+        return accounts;
+    }
+
+    /**
+     * Starts the shard thread.
+     *
+     * @param stopped Tells the shard thread to exit once it has nothing left to run.
+     */
+    void start(BooleanSupplier stopped) {
+        thread = new Thread(() -> run(stopped), "ledger-shard-" + index);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Waits for the shard thread to exit.
+     */
+    void join() throws InterruptedException {
+        if (thread != null) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Queues a step of a new transfer, unless the ring buffer is full.
+     *
+     * @param work The step to run on the shard thread.
+     * @return Whether the step has been queued.
+     */
+    boolean submit(Runnable work) {
+        if (!submitted.offer(new Step(work, System.nanoTime()))) {
+            return false;
+        }
+        wake();
+        return true;
+    }
+
+    /**
+     * Queues a step of a transfer that is already under way.
+     *
+     * @param work The step to run on the shard thread.
+     */
+    void forward(Runnable work) {
+        forwarded.add(new Step(work, System.nanoTime()));
+        wake();
+    }
+
+    /**
+     * Wakes up the shard thread when it is waiting for steps. The flag is read after the step has been queued and the
+     * shard thread checks its queues after raising it, so either the step is seen or the thread is woken up.
+     */
+    void wake() {
+        if (parked) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private int depth() {
+        return submitted.size() + forwarded.size();
+    }
+
+    private void run(BooleanSupplier stopped) {
+        int idle = 0;
+        while (true) {
+            Step step = forwarded.poll();
+            if (step == null) {
+                step = submitted.poll();
+            }
+            if (step != null) {
+                idle = 0;
+                try {
+                    step.work().run();
+                } catch (RuntimeException ex) {
+                    log.error("Ledger shard step failed. Shard={}", index, ex);
+                }
+                latency.record(System.nanoTime() - step.queuedAt(), TimeUnit.NANOSECONDS);
+            } else if (stopped.getAsBoolean()) {
+                return;
+            } else if (++idle < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                parked = true;
+                if (forwarded.isEmpty() && submitted.size() == 0) {
+                    LockSupport.parkNanos(this, MAX_PARK_NANOS);
+                }
+                parked = false;
+            }
+        }
+    }
+
+    /**
+     * A step of a transfer queued on the shard.
+     *
+     * @param work     The step to run on the shard thread.
+     * @param queuedAt The time the step was queued at, as returned by {@link System#nanoTime()}.
+     */
+    private record Step(Runnable work, long queuedAt) {
+    }
+}
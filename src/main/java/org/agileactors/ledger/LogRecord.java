@@ -0,0 +1,70 @@
+package org.agileactors.ledger;
+
+import org.agileactors.enums.Currency;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.UUID;
+
+/**
+ * A transfer appended to the write-ahead log of the {@link LedgerEngine}.
+ * It has already been validated, so persisting it only moves the amount between the balances. Amounts commute, so
+ * transfers of different shards may be logged in any order.
+ *
+ * @param lsn             The log sequence number, increasing by one with every record.
+ * @param transactionId   The unique identifier of the transaction.
+ * @param sourceAccountId The ID of the source account.
+ * @param targetAccountId The ID of the target account.
+ * @param amount          The amount moved between the accounts, in minor units of the currency.
+ * @param currency        The {@link Currency} of the transaction.
+ * @param transactionDate The timestamp when the transaction occurred.
+ * @param idempotencyKey  The idempotency key of the transaction, or null if it has none.
+ */
+public record LogRecord(long lsn, UUID transactionId, long sourceAccountId, long targetAccountId, long amount,
+                        Currency currency, Timestamp transactionDate, String idempotencyKey) {
+
+    /**
+     * Writes the record in its binary format.
+     *
+     * @param out The {@link DataOutput} to write to.
+     * @throws IOException when writing fails
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(lsn);
+        out.writeLong(transactionId.getMostSignificantBits());
+        out.writeLong(transactionId.getLeastSignificantBits());
+        out.writeLong(sourceAccountId);
+        out.writeLong(targetAccountId);
+        out.writeLong(amount);
+        out.writeUTF(currency.name());
+        out.writeLong(transactionDate.getTime());
+        out.writeInt(transactionDate.getNanos());
+        out.writeBoolean(idempotencyKey != null);
+        if (idempotencyKey != null) {
+            out.writeUTF(idempotencyKey);
+        }
+    }
+
+    /**
+     * Reads a record written by {@link #writeTo(DataOutput)}.
+     *
+     * @param in The {@link DataInput} to read from.
+     * @return The {@link LogRecord}.
+     * @throws IOException when reading fails
+     */
+    public static LogRecord readFrom(DataInput in) throws IOException {
+        long lsn = in.readLong();
+        UUID transactionId = new UUID(in.readLong(), in.readLong());
+        long sourceAccountId = in.readLong();
+        long targetAccountId = in.readLong();
+        long amount = in.readLong();
+        Currency currency = Currency.valueOf(in.readUTF());
+        Timestamp transactionDate = new Timestamp(in.readLong());
+        transactionDate.setNanos(in.readInt());
+        String idempotencyKey = in.readBoolean() ? in.readUTF() : null;
+        return new LogRecord(lsn, transactionId, sourceAccountId, targetAccountId, amount, currency, transactionDate,
+                idempotencyKey);
+    }
+}
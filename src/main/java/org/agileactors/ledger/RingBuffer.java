@@ -0,0 +1,102 @@
+package org.agileactors.ledger;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free ring buffer for many producers and a single consumer.
+ * Every slot carries a sequence number telling whether it is free for the producer claiming the current tail or
+ * filled for the consumer reading the current head, so producers only contend on a compare-and-set of the tail and
+ * the consumer never contends at all.
+ *
+ * @param <E> The type of the elements.
+ */
+public class RingBuffer<E> {
+    private final int mask;
+    private final AtomicReferenceArray<E> elements;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    /**
+     * Constructs a {@link RingBuffer}.
+     *
+     * @param capacity The maximum number of elements. It is rounded up to a power of two.
+     */
+    public RingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity should be between 1 and 2^30, but was " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        size = Math.max(size, 1);
+        this.mask = size - 1;
+        this.elements = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int slot = 0; slot < size; slot++) {
+            sequences.set(slot, slot);
+        }
+    }
+
+    /**
+     * Adds an element at the tail, unless the buffer is full. It may be called by any thread.
+     *
+     * @param element The element to add.
+     * @return Whether the element has been added.
+     */
+    public boolean offer(E element) {
+        long position = tail.get();
+        while (true) {
+            int slot = (int) (position & mask);
+            long available = sequences.get(slot) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    elements.lazySet(slot, element);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the element at the head. It must only be called by the consumer thread.
+     *
+     * @return The element at the head, or null if the buffer is empty.
+     */
+    public E poll() {
+        long position = head;
+        int slot = (int) (position & mask);
+        if (sequences.get(slot) != position + 1) {
+            return null;
+        }
+        E element = elements.get(slot);
+        elements.lazySet(slot, null);
+        sequences.set(slot, position + mask + 1);
+        head = position + 1;
+        return element;
+    }
+
+    /**
+     * Estimates the number of elements in the buffer. It is exact when no element is being added or removed.
+     *
+     * @return The number of elements in the buffer.
+     */
+    public int size() {
+        return (int) Math.max(0, Math.min(tail.get() - head, mask + 1));
+    }
+
+    /**
+     * Retrieves the maximum number of elements in the buffer.
+     *
+     * @return The capacity of the buffer.
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+}
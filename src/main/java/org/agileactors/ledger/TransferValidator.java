@@ -0,0 +1,21 @@
+package org.agileactors.ledger;
+
+import org.agileactors.entities.TransactionEntity;
+
+/**
+ * Validates a transfer against the state of its accounts before the {@link LedgerEngine} moves the amount.
+ */
+@FunctionalInterface
+public interface TransferValidator {
+
+    /**
+     * Validates the transaction against the source and target accounts, throwing the exception that rejects it.
+     * The target account may be owned by another shard, so only its id and currency may be read.
+     *
+     * @param transaction   The {@link TransactionEntity} containing transaction details.
+     * @param amount        The amount of the transaction, in minor units of its currency.
+     * @param sourceAccount The source account, or null if it does not exist.
+     * @param targetAccount The target account, or null if it does not exist.
+     */
+    void validate(TransactionEntity transaction, long amount, LedgerAccount sourceAccount, LedgerAccount targetAccount);
+}
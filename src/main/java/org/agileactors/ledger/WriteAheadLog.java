@@ -0,0 +1,289 @@
+package org.agileactors.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented log of {@link LogRecord}s with group commit.
+ * Appends are queued and written by a single writer thread, which writes everything queued since its last write and
+ * makes it durable with a single {@code fsync}, so concurrent appends share the cost of syncing the disk. Every record
+ * is framed with its length and a CRC32 checksum, so a record torn by a crash is detected and cut off when the log is
+ * opened again. The log is split into segments named after the log sequence number of their first record, which are
+ * deleted once all of their records have been persisted elsewhere.
+ */
+@Slf4j
+public class WriteAheadLog implements AutoCloseable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final Consumer<List<LogRecord>> onDurable;
+    private final BlockingQueue<Append> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+    private final CompletableFuture<Void> closed = new CompletableFuture<>();
+    private Thread writer;
+    private FileChannel channel;
+    private volatile IOException failure;
+
+    /**
+     * Constructs a {@link WriteAheadLog}. It must be opened before records are appended.
+     *
+     * @param directory   The directory holding the segments.
+     * @param segmentSize The size a segment may grow to before a new segment is started.
+     * @param onDurable   Called by the writer thread with every group of records that has just become durable, in log
+     *                    order, before the appends of the group complete.
+     */
+    public WriteAheadLog(Path directory, long segmentSize, Consumer<List<LogRecord>> onDurable) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.onDurable = onDurable;
+    }
+
+    /**
+     * Reads all records of the log and starts the writer thread. A torn record at the end of the last segment, and
+     * everything after it, is cut off.
+     *
+     * @param nextLsn The log sequence number of the next record, used to name a new segment if there is none.
+     * @return The records of the log, in log order.
+     * @throws IOException when the log cannot be read
+     */
+    public List<LogRecord> open(long nextLsn) throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(WriteAheadLog::isSegment).forEach(segment -> segments.put(firstLsnOf(segment), segment));
+        }
+
+        List<LogRecord> records = new ArrayList<>();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            boolean last = segment.getKey().equals(segments.lastKey());
+            read(segment.getValue(), last, records);
+        }
+
+        long lastLsn = records.isEmpty() ? nextLsn - 1 : Math.max(nextLsn - 1, records.get(records.size() - 1).lsn());
+        if (segments.isEmpty()) {
+            startSegment(lastLsn + 1);
+        } else {
+            channel = FileChannel.open(segments.lastEntry().getValue(), StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        writer = new Thread(this::write, "ledger-wal-writer");
+        writer.setDaemon(true);
+        writer.start();
+        return records;
+    }
+
+    /**
+     * Queues records to be appended to the log. Records must be appended in log order, so concurrent callers must
+     * serialize their calls.
+     *
+     * @param records The records to append.
+     * @return A {@link CompletableFuture} completed once the records are durable, or completed exceptionally when
+     * they could not be written.
+     */
+    public CompletableFuture<Void> append(List<LogRecord> records) {
+        Append append = new Append(records, new CompletableFuture<>());
+        if (failure != null) {
+            append.durable().completeExceptionally(failure);
+        } else if (closed.isDone()) {
+            append.durable().completeExceptionally(new IllegalStateException("The log is closed"));
+        } else {
+            queue.add(append);
+        }
+        return append.durable();
+    }
+
+    /**
+     * Deletes the segments whose records are all at or before the given log sequence number. The segment being written
+     * is never deleted.
+     *
+     * @param lsn The log sequence number up to which the records are no longer needed.
+     */
+    public void deleteSegmentsUpTo(long lsn) {
+        Long current = segments.lastKey();
+        for (Map.Entry<Long, Path> segment : segments.headMap(current).entrySet()) {
+            Long next = segments.higherKey(segment.getKey());
+            if (next == null || next > lsn + 1) {
+                return;
+            }
+            try {
+                Files.deleteIfExists(segment.getValue());
+                segments.remove(segment.getKey());
+            } catch (IOException ex) {
+                log.warn("Could not delete log segment. Segment={}", segment.getValue(), ex);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes the appends queued so far, then stops the writer thread and closes the log.
+     */
+    @Override
+    public void close() {
+        if (writer == null || !closed.complete(null)) {
+            return;
+        }
+        queue.add(new Append(null, new CompletableFuture<>()));
+        try {
+            writer.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        List<Append> batch = new ArrayList<>();
+        List<LogRecord> records = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch);
+            boolean closing = batch.get(batch.size() - 1).records() == null;
+            if (closing) {
+                batch.remove(batch.size() - 1);
+            }
+
+            try {
+                batch.forEach(append -> records.addAll(append.records()));
+                if (!records.isEmpty()) {
+                    ByteBuffer buffer = encode(records);
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    channel.force(false);
+                    onDurable.accept(List.copyOf(records));
+                    if (channel.size() >= segmentSize) {
+                        channel.close();
+                        startSegment(records.get(records.size() - 1).lsn() + 1);
+                    }
+                }
+                batch.forEach(append -> append.durable().complete(null));
+            } catch (IOException ex) {
+                log.error("Could not write the log, rejecting all further appends", ex);
+                failure = ex;
+                batch.forEach(append -> append.durable().completeExceptionally(ex));
+                queue.forEach(append -> append.durable().completeExceptionally(ex));
+                closing = true;
+            }
+            batch.clear();
+            records.clear();
+
+            if (closing) {
+                closeChannel();
+                return;
+            }
+        }
+    }
+
+    private void startSegment(long firstLsn) throws IOException {
+        Path segment = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstLsn, SEGMENT_SUFFIX));
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(firstLsn, segment);
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            log.warn("Could not close the log", ex);
+        }
+    }
+
+    private static ByteBuffer encode(List<LogRecord> records) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.size() * 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(128);
+        DataOutputStream payloadOut = new DataOutputStream(payload);
+        CRC32 crc = new CRC32();
+        for (LogRecord record : records) {
+            payload.reset();
+            record.writeTo(payloadOut);
+            crc.reset();
+            crc.update(payload.toByteArray());
+            out.writeInt(payload.size());
+            out.writeInt((int) crc.getValue());
+            payload.writeTo(out);
+        }
+        return ByteBuffer.wrap(bytes.toByteArray());
+    }
+
+    private static void read(Path segment, boolean last, List<LogRecord> records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > MAX_RECORD_SIZE || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                buffer.position(start);
+                break;
+            }
+            records.add(LogRecord.readFrom(new DataInputStream(new java.io.ByteArrayInputStream(payload))));
+        }
+
+        if (buffer.hasRemaining()) {
+            if (!last) {
+                throw new IOException("Log segment " + segment + " is corrupted at offset " + buffer.position());
+            }
+            // Only the last write can have been torn by a crash, and it was never acknowledged
+            log.warn("Cutting off a torn record at the end of the log. Segment={}, Offset={}, Bytes={}", segment, buffer.position(), buffer.remaining());
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+                channel.truncate(buffer.position());
+                channel.force(true);
+            }
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long firstLsnOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Records queued to be appended, or the end of the log when the records are null.
+     *
+     * @param records The records to append.
+     * @param durable Completed once the records are durable.
+     */
+    private record Append(List<LogRecord> records, CompletableFuture<Void> durable) {
+    }
+}
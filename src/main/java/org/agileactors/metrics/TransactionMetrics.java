@@ -0,0 +1,107 @@
+package org.agileactors.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.agileactors.enums.TransactionErrorCode;
+import org.agileactors.enums.TransactionStage;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each {@link TransactionStage} of a transaction takes and how transactions end.
+ * The stages are timed by {@code transaction.stage}, tagged with the stage, and whole transactions by
+ * {@code transaction.duration}. Transactions, including the items of batches, are counted by
+ * {@code transaction.outcomes}, tagged with {@code success}, {@code replayed} or the lower-case
+ * {@link TransactionErrorCode} they failed with. The meters are registered up front, so recording never has to look them up.
+ */
+@Component
+public class TransactionMetrics {
+    private static final String SUCCESS = "success";
+    private static final String REPLAYED = "replayed";
+
+    private final Map<TransactionStage, Timer> stageTimers = new EnumMap<>(TransactionStage.class);
+    private final Map<TransactionErrorCode, Counter> failures = new EnumMap<>(TransactionErrorCode.class);
+    private final Counter successes;
+    private final Counter replays;
+    private final Timer duration;
+
+    /**
+     * Constructs a {@link TransactionMetrics}.
+     *
+     * @param meterRegistry The {@link MeterRegistry} the meters are registered to.
+     */
+    public TransactionMetrics(MeterRegistry meterRegistry) {
+        for (TransactionStage stage : TransactionStage.values()) {
+            stageTimers.put(stage, Timer.builder("transaction.stage")
+                    .description("Time spent in each stage of a transaction")
+                    .tag("stage", tagValue(stage))
+                    .register(meterRegistry));
+        }
+        for (TransactionErrorCode errorCode : TransactionErrorCode.values()) {
+            failures.put(errorCode, outcomeCounter(meterRegistry, tagValue(errorCode)));
+        }
+        this.successes = outcomeCounter(meterRegistry, SUCCESS);
+        this.replays = outcomeCounter(meterRegistry, REPLAYED);
+        this.duration = Timer.builder("transaction.duration")
+                .description("Time spent performing a transaction, from its validation to its commit")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the time spent in a stage of a transaction.
+     *
+     * @param stage The {@link TransactionStage}.
+     * @param nanos The time spent in the stage, in nanoseconds.
+     */
+    public void recordStage(TransactionStage stage, long nanos) {
+        stageTimers.get(stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records the time spent performing a single transaction, from its validation to its commit or failure.
+     *
+     * @param nanos The time spent performing the transaction, in nanoseconds.
+     */
+    public void recordDuration(long nanos) {
+        duration.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a transaction that has been performed.
+     */
+    public void recordSuccess() {
+        successes.increment();
+    }
+
+    /**
+     * Records a transaction that was answered with the transaction originally created with its idempotency key.
+     */
+    public void recordReplay() {
+        replays.increment();
+    }
+
+    /**
+     * Records a transaction that has failed.
+     *
+     * @param errorCode The {@link TransactionErrorCode} the transaction failed with.
+     */
+    public void recordFailure(TransactionErrorCode errorCode) {
+        failures.get(errorCode).increment();
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("transaction.outcomes")
+                .description("Transactions by the outcome they ended with")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
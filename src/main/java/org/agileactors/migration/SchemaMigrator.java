@@ -0,0 +1,174 @@
+package org.agileactors.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Brings the database schema up to date by applying versioned SQL scripts named {@code V<version>__<description>.sql}.
+ * Every applied script is recorded in the {@code SCHEMA_VERSION} table together with a checksum of its content, so
+ * each script is applied only once, in version order. A script that was changed after it was applied, or a new script
+ * whose version is lower than the latest applied one, e.g. from a location added to an existing database, stops the
+ * application from starting before any script is applied. Each script and its record are committed together where the
+ * database supports transactional DDL; H2 commits every DDL statement, so a script that fails half-way has to be
+ * cleaned up by hand.
+ */
+@Slf4j
+public class SchemaMigrator {
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(\\w+)\\.sql");
+
+    private final DataSource dataSource;
+    private final ResourcePatternResolver resourcePatternResolver;
+    private final List<String> locations;
+
+    /**
+     * Constructs a {@link SchemaMigrator}.
+     *
+     * @param dataSource              The {@link DataSource} of the database to migrate.
+     * @param resourcePatternResolver The {@link ResourcePatternResolver} the scripts are looked up with.
+     * @param locations               The locations of the scripts, e.g. {@code classpath:db/migration}.
+     */
+    public SchemaMigrator(DataSource dataSource, ResourcePatternResolver resourcePatternResolver, List<String> locations) {
+        this.dataSource = dataSource;
+        this.resourcePatternResolver = resourcePatternResolver;
+        this.locations = List.copyOf(locations);
+    }
+
+    /**
+     * Applies the scripts that have not been applied yet.
+     *
+     * @return The number of scripts applied.
+     * @throws IllegalStateException if two scripts share a version, an applied script has changed, a new script is
+     *                               older than the latest applied one, or a script fails.
+     */
+    public int migrate() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS SCHEMA_VERSION (version INTEGER NOT NULL PRIMARY KEY, "
+                + "description VARCHAR(255) NOT NULL, checksum BIGINT NOT NULL, installed_at TIMESTAMP NOT NULL)");
+        Map<Integer, Long> applied = new HashMap<>();
+        jdbcTemplate.query("SELECT version, checksum FROM SCHEMA_VERSION",
+                (RowCallbackHandler) resultSet -> applied.put(resultSet.getInt("version"), resultSet.getLong("checksum")));
+
+        int latest = applied.keySet().stream().mapToInt(Integer::intValue).max().orElse(0);
+        List<Script> pending = new ArrayList<>();
+        for (Script script : scripts()) {
+            Long checksum = applied.get(script.version());
+            if (checksum == null) {
+                if (script.version() < latest) {
+                    throw new IllegalStateException("Migration script is older than the latest applied version. Version="
+                            + script.version() + ", Latest=" + latest + ", Script=" + script.resource().getDescription());
+                }
+                pending.add(script);
+            } else if (checksum != script.checksum()) {
+                throw new IllegalStateException("Migration script changed after it was applied. Version=" + script.version()
+                        + ", Script=" + script.resource().getDescription());
+            }
+        }
+
+        int count = 0;
+        for (Script script : pending) {
+            apply(script);
+            count++;
+        }
+        log.info("Database schema migrated. Applied={}, UpToDate={}", count, applied.size());
+        return count;
+    }
+
+    private List<Script> scripts() {
+        Map<Integer, Script> scripts = new HashMap<>();
+        for (String location : locations) {
+            Resource[] resources;
+            try {
+                resources = resourcePatternResolver.getResources(location + "/*.sql");
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Could not list migration scripts in " + location, ex);
+            }
+            for (Resource resource : resources) {
+                Matcher matcher = SCRIPT_NAME.matcher(resource.getFilename() == null ? "" : resource.getFilename());
+                if (!matcher.matches()) {
+                    throw new IllegalStateException("Migration script is not named V<version>__<description>.sql. Script="
+                            + resource.getDescription());
+                }
+                Script script = new Script(Integer.parseInt(matcher.group(1)), matcher.group(2).replace('_', ' '),
+                        checksumOf(resource), resource);
+                Script duplicate = scripts.put(script.version(), script);
+                if (duplicate != null) {
+                    throw new IllegalStateException("Migration scripts share a version. Version=" + script.version()
+                            + ", Scripts=" + duplicate.resource().getDescription() + ", " + resource.getDescription());
+                }
+            }
+        }
+        List<Script> sorted = new ArrayList<>(scripts.values());
+        sorted.sort(Comparator.comparingInt(Script::version));
+        return sorted;
+    }
+
+    private void apply(Script script) {
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                ScriptUtils.executeSqlScript(connection, new EncodedResource(script.resource(), StandardCharsets.UTF_8));
+                try (PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO SCHEMA_VERSION (version, description, checksum, installed_at) VALUES (?, ?, ?, CURRENT_TIMESTAMP)")) {
+                    statement.setInt(1, script.version());
+                    statement.setString(2, script.description());
+                    statement.setLong(3, script.checksum());
+                    statement.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            throw new IllegalStateException("Could not apply migration script. Version=" + script.version()
+                    + ", Script=" + script.resource().getDescription(), ex);
+        }
+        log.info("Migration script applied. Version={}, Description={}", script.version(), script.description());
+    }
+
+    private static long checksumOf(Resource resource) {
+        CRC32 crc = new CRC32();
+        try (InputStream input = resource.getInputStream()) {
+            crc.update(input.readAllBytes());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not read migration script " + resource.getDescription(), ex);
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * A versioned migration script.
+     *
+     * @param version     The version of the schema the script migrates to.
+     * @param description The description of the script, taken from its name.
+     * @param checksum    The CRC32 checksum of the content of the script.
+     * @param resource    The script.
+     */
+    private record Script(int version, String description, long checksum, Resource resource) {
+    }
+}
@@ -0,0 +1,133 @@
+package org.agileactors.repositories;
+
+import jakarta.persistence.LockModeType;
+import org.agileactors.entities.AccountBalanceSlotEntity;
+import org.agileactors.entities.AccountStatsEntity;
+import org.agileactors.enums.Currency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Repository interface for accessing the balance slots of hot accounts in the database.
+ */
+public interface AccountBalanceSlotEntityRepository extends JpaRepository<AccountBalanceSlotEntity, AccountBalanceSlotEntity.Key> {
+
+    /**
+     * Retrieves copies of the slots of an account in slot order, which are not managed by the persistence context, and
+     * locks their rows until the end of the database transaction.
+     *
+     * @param accountId The unique identifier of the account.
+     * @return The slots of the account, which is empty if the account is not split.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new org.agileactors.entities.AccountBalanceSlotEntity(s.accountId, s.slot, s.currency, s.balance, " +
+            "s.incomingCount, s.totalIn, s.outgoingCount, s.totalOut) FROM AccountBalanceSlotEntity s WHERE s.accountId = :accountId ORDER BY s.slot")
+    List<AccountBalanceSlotEntity> findDetachedByAccountIdForUpdate(@Param("accountId") Long accountId);
+
+    /**
+     * Retrieves the running totals held by the slots of every split account, summed per account.
+     *
+     * @return The totals of the slots of each split account, as {@link AccountStatsEntity} instances that are not
+     * managed by the persistence context.
+     */
+    @Query("SELECT new org.agileactors.entities.AccountStatsEntity(s.accountId, s.currency, SUM(s.incomingCount), SUM(s.totalIn), " +
+            "SUM(s.outgoingCount), SUM(s.totalOut)) FROM AccountBalanceSlotEntity s GROUP BY s.accountId, s.currency ORDER BY s.accountId")
+    List<AccountStatsEntity> sumTotalsByAccount();
+
+    /**
+     * Inserts an empty slot of an account in a single statement, with the currency of the account, unless the account
+     * does not exist or already has the slot.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slot      The number of the slot.
+     * @return The number of inserted rows.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ACCOUNT_BALANCE_SLOT (account_id, slot, currency, balance, incoming_count, total_in, outgoing_count, total_out) " +
+            "SELECT a.id, :slot, a.currency, 0, 0, 0, 0, 0 FROM ACCOUNT a WHERE a.id = :accountId " +
+            "AND NOT EXISTS (SELECT 1 FROM ACCOUNT_BALANCE_SLOT s WHERE s.account_id = :accountId AND s.slot = :slot)", nativeQuery = true)
+    int insert(@Param("accountId") Long accountId, @Param("slot") int slot);
+
+    /**
+     * Sets the balance of a slot in a single statement.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slot      The number of the slot.
+     * @param balance   The new balance of the slot.
+     * @return The number of updated rows, which is 0 when the account does not have the slot.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT_BALANCE_SLOT SET balance = :balance WHERE account_id = :accountId AND slot = :slot", nativeQuery = true)
+    int updateBalance(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("balance") BigDecimal balance);
+
+    /**
+     * Subtracts the amount from the balance of a slot in a single statement, provided that the slot has the given
+     * currency and a balance of at least the amount.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slot      The number of the slot.
+     * @param amount    The amount to subtract.
+     * @param currency  The {@link Currency} the slot must have.
+     * @return The number of updated rows, which is 0 when the account does not have the slot or a condition does not
+     * hold.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT_BALANCE_SLOT SET balance = balance - :amount " +
+            "WHERE account_id = :accountId AND slot = :slot AND currency = :#{#currency.name()} AND balance >= :amount", nativeQuery = true)
+    int debit(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("amount") BigDecimal amount, @Param("currency") Currency currency);
+
+    /**
+     * Adds the amount to the balance of a slot in a single statement, provided that the slot has the given currency.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slot      The number of the slot.
+     * @param amount    The amount to add.
+     * @param currency  The {@link Currency} the slot must have.
+     * @return The number of updated rows, which is 0 when the account does not have the slot or has another currency.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT_BALANCE_SLOT SET balance = balance + :amount " +
+            "WHERE account_id = :accountId AND slot = :slot AND currency = :#{#currency.name()}", nativeQuery = true)
+    int credit(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("amount") BigDecimal amount, @Param("currency") Currency currency);
+
+    /**
+     * Adds transactions to the running totals of a slot in a single statement.
+     *
+     * @param accountId     The unique identifier of the account.
+     * @param slot          The number of the slot.
+     * @param incomingCount The number of transactions the account is the target of.
+     * @param totalIn       The total amount the slot has been credited with them.
+     * @param outgoingCount The number of transactions the account is the source of.
+     * @param totalOut      The total amount the slot has been debited with them.
+     * @return The number of updated rows, which is 0 when the account does not have the slot.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT_BALANCE_SLOT SET incoming_count = incoming_count + :incomingCount, total_in = total_in + :totalIn, " +
+            "outgoing_count = outgoing_count + :outgoingCount, total_out = total_out + :totalOut " +
+            "WHERE account_id = :accountId AND slot = :slot", nativeQuery = true)
+    int addTotals(@Param("accountId") Long accountId, @Param("slot") int slot, @Param("incomingCount") long incomingCount,
+                  @Param("totalIn") BigDecimal totalIn, @Param("outgoingCount") long outgoingCount, @Param("totalOut") BigDecimal totalOut);
+
+    /**
+     * Deletes all slots of an account in a single statement.
+     *
+     * @param accountId The unique identifier of the account.
+     * @return The number of deleted rows.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM ACCOUNT_BALANCE_SLOT WHERE account_id = :accountId", nativeQuery = true)
+    int deleteByAccountId(@Param("accountId") Long accountId);
+}
@@ -0,0 +1,52 @@
+package org.agileactors.repositories;
+
+import org.agileactors.entities.AccountCreditEntity;
+import org.agileactors.enums.Currency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for accessing the journaled credits of accounts in the database.
+ */
+public interface AccountCreditEntityRepository extends JpaRepository<AccountCreditEntity, Long> {
+
+    /**
+     * Appends a credit of an account to the journal in a single statement, without reading or locking the account.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param amount    The amount of the credit.
+     * @param currency  The {@link Currency} of the account.
+     * @return The number of inserted rows.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ACCOUNT_CREDIT (account_id, currency, amount) VALUES (:accountId, :#{#currency.name()}, :amount)", nativeQuery = true)
+    int insert(@Param("accountId") Long accountId, @Param("amount") BigDecimal amount, @Param("currency") Currency currency);
+
+    /**
+     * Retrieves the accounts of the oldest journaled credits.
+     *
+     * @param limit The maximum number of credits to look at.
+     * @return The unique identifiers of the accounts, which is empty if the journal is empty.
+     */
+    @Query(value = "SELECT DISTINCT c.account_id FROM (SELECT account_id FROM ACCOUNT_CREDIT ORDER BY id FETCH FIRST :limit ROWS ONLY) c", nativeQuery = true)
+    List<Long> findOldestAccountIds(@Param("limit") int limit);
+
+    /**
+     * Retrieves the oldest journaled credits of the given accounts, detached from the persistence context.
+     *
+     * @param accountIds The unique identifiers of the accounts.
+     * @param limit      The maximum number of credits to retrieve.
+     * @return The credits in the order they were journaled.
+     */
+    @Query("SELECT new org.agileactors.entities.AccountCreditEntity(c.id, c.accountId, c.currency, c.amount) " +
+            "FROM AccountCreditEntity c WHERE c.accountId IN :accountIds ORDER BY c.id LIMIT :limit")
+    List<AccountCreditEntity> findOldestByAccountIds(@Param("accountIds") Collection<Long> accountIds, @Param("limit") int limit);
+}
@@ -1,9 +1,20 @@
 package org.agileactors.repositories;
 
+import jakarta.persistence.LockModeType;
 import lombok.NonNull;
+import org.agileactors.dtos.AccountResponseDto;
 import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,6 +22,41 @@ import java.util.Optional;
  */
 public interface AccountEntityRepository extends JpaRepository<AccountEntity, Long> {
 
+    /**
+     * The sum of the balances of the slots of the account {@code a}, which is 0 when it is not split.
+     */
+    String SLOT_BALANCES = "COALESCE((SELECT SUM(s.balance) FROM AccountBalanceSlotEntity s WHERE s.accountId = a.id), 0)";
+
+    /**
+     * The number of the transactions the account {@code a} is the target of that have been credited to its slots.
+     */
+    String SLOT_INCOMING_COUNT = "COALESCE((SELECT SUM(s.incomingCount) FROM AccountBalanceSlotEntity s WHERE s.accountId = a.id), 0L)";
+
+    /**
+     * The total amount credited to the slots of the account {@code a}.
+     */
+    String SLOT_TOTAL_IN = "COALESCE((SELECT SUM(s.totalIn) FROM AccountBalanceSlotEntity s WHERE s.accountId = a.id), 0)";
+
+    /**
+     * The number of the transactions the account {@code a} is the source of that have been debited from its slots.
+     */
+    String SLOT_OUTGOING_COUNT = "COALESCE((SELECT SUM(s.outgoingCount) FROM AccountBalanceSlotEntity s WHERE s.accountId = a.id), 0L)";
+
+    /**
+     * The total amount debited from the slots of the account {@code a}.
+     */
+    String SLOT_TOTAL_OUT = "COALESCE((SELECT SUM(s.totalOut) FROM AccountBalanceSlotEntity s WHERE s.accountId = a.id), 0)";
+
+    /**
+     * The total amount of the journaled credits of the account {@code a}, which is 0 when it has none.
+     */
+    String JOURNALED_CREDITS = "COALESCE((SELECT SUM(c.amount) FROM AccountCreditEntity c WHERE c.accountId = a.id), 0)";
+
+    /**
+     * The number of the journaled credits of the account {@code a}.
+     */
+    String JOURNALED_CREDIT_COUNT = "(SELECT COUNT(c) FROM AccountCreditEntity c WHERE c.accountId = a.id)";
+
     /**
      * Retrieves an account entity by its unique identifier.
      *
@@ -19,4 +65,119 @@ public interface AccountEntityRepository extends JpaRepository<AccountEntity, Lo
      */
     @NonNull
     Optional<AccountEntity> findById(@NonNull Long id);
-}
\ No newline at end of file
+
+    /**
+     * Retrieves a copy of an account entity by its unique identifier, which is not managed by the persistence context,
+     * so it always reflects the database row and can be shared safely.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountEntity}, or an empty Optional if not found.
+     */
+    @Query("SELECT new org.agileactors.entities.AccountEntity(a.id, a.balance, a.currency, a.createdAt, a.version) " +
+            "FROM AccountEntity a WHERE a.id = :id")
+    Optional<AccountEntity> findDetachedById(@Param("id") Long id);
+
+    /**
+     * Retrieves a copy of an account entity by its unique identifier, like {@link #findDetachedById(Long)}, and locks
+     * its row until the end of the database transaction.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountEntity}, or an empty Optional if not found.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new org.agileactors.entities.AccountEntity(a.id, a.balance, a.currency, a.createdAt, a.version) " +
+            "FROM AccountEntity a WHERE a.id = :id")
+    Optional<AccountEntity> findDetachedByIdForUpdate(@Param("id") Long id);
+
+    /**
+     * Locks the rows of the given accounts in ascending id order until the end of the database transaction.
+     *
+     * @param ids The unique identifiers of the accounts.
+     * @return The unique identifiers of the accounts that exist, in ascending order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM AccountEntity a WHERE a.id IN :ids ORDER BY a.id")
+    List<Long> findIdsForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Retrieves a copy of an account entity by its unique identifier, whose balance includes the balances of the slots
+     * of the account, so it is the whole balance of the account while it is split. It must not be written back.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountEntity}, or an empty Optional if not found.
+     */
+    @Query("SELECT new org.agileactors.entities.AccountEntity(a.id, a.balance + " + SLOT_BALANCES + ", a.currency, a.createdAt, a.version) " +
+            "FROM AccountEntity a WHERE a.id = :id")
+    Optional<AccountEntity> findConsolidatedById(@Param("id") Long id);
+
+    /**
+     * Retrieves an account together with the running totals of its transactions, in a single statement joining both
+     * rows by primary key, so the balance and the totals always reflect the same committed transfers. The balance
+     * and the totals include the balances and the totals of the slots of the account while it is split, and the
+     * balance and the incoming totals include its journaled credits.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountResponseDto}, or an empty Optional if not found.
+     */
+    @Query("SELECT new org.agileactors.dtos.AccountResponseDto(a.id, a.balance + " + SLOT_BALANCES + " + " + JOURNALED_CREDITS + ", a.currency, a.createdAt, " +
+            "COALESCE(s.incomingCount, 0L) + " + SLOT_INCOMING_COUNT + " + " + JOURNALED_CREDIT_COUNT + ", " +
+            "COALESCE(s.totalIn, 0) + " + SLOT_TOTAL_IN + " + " + JOURNALED_CREDITS + ", " +
+            "COALESCE(s.outgoingCount, 0L) + " + SLOT_OUTGOING_COUNT + ", COALESCE(s.totalOut, 0) + " + SLOT_TOTAL_OUT + ") " +
+            "FROM AccountEntity a LEFT JOIN AccountStatsEntity s ON s.accountId = a.id WHERE a.id = :id")
+    Optional<AccountResponseDto> findSnapshotById(@Param("id") Long id);
+
+    /**
+     * Sets the balance of an account in a single statement, provided that the account still has the given version.
+     *
+     * @param id      The unique identifier of the account.
+     * @param balance The new balance.
+     * @param version The version the account must have.
+     * @return The number of updated rows, which is 0 when the account does not exist or has been updated since.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE AccountEntity a SET a.balance = :balance, a.version = a.version + 1 WHERE a.id = :id AND a.version = :version")
+    int updateBalance(@Param("id") Long id, @Param("balance") BigDecimal balance, @Param("version") long version);
+
+    /**
+     * Subtracts the amount from the balance of an account in a single statement, provided that the account has the
+     * given currency and a balance of at least the amount.
+     *
+     * @param id       The unique identifier of the account.
+     * @param amount   The amount to subtract.
+     * @param currency The {@link Currency} the account must have.
+     * @return The number of updated rows, which is 0 when the account does not exist or a condition does not hold.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT SET balance = balance - :amount, version = version + 1 " +
+            "WHERE id = :id AND currency = :#{#currency.name()} AND balance >= :amount", nativeQuery = true)
+    int debit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("currency") Currency currency);
+
+    /**
+     * Adds the amount to the balance of an account in a single statement, provided that the account has the given
+     * currency.
+     *
+     * @param id       The unique identifier of the account.
+     * @param amount   The amount to add.
+     * @param currency The {@link Currency} the account must have.
+     * @return The number of updated rows, which is 0 when the account does not exist or has another currency.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT SET balance = balance + :amount, version = version + 1 " +
+            "WHERE id = :id AND currency = :#{#currency.name()}", nativeQuery = true)
+    int credit(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("currency") Currency currency);
+
+    /**
+     * Adds the balances of the slots of every split account to the balance of its account row, in a single statement.
+     * The slots must be deleted in the same database transaction.
+     *
+     * @return The number of updated accounts.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT a SET balance = balance + (SELECT SUM(s.balance) FROM ACCOUNT_BALANCE_SLOT s WHERE s.account_id = a.id), " +
+            "version = version + 1 WHERE a.id IN (SELECT s.account_id FROM ACCOUNT_BALANCE_SLOT s)", nativeQuery = true)
+    int addSlotBalances();
+}
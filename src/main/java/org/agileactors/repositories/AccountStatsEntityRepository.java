@@ -0,0 +1,51 @@
+package org.agileactors.repositories;
+
+import org.agileactors.entities.AccountStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Repository interface for accessing account statistics entities in the database.
+ */
+public interface AccountStatsEntityRepository extends JpaRepository<AccountStatsEntity, Long> {
+
+    /**
+     * Adds transactions to the statistics of an account in a single statement.
+     *
+     * @param accountId     The unique identifier of the account.
+     * @param incomingCount The number of transactions the account is the target of.
+     * @param totalIn       The total amount the account has received with them.
+     * @param outgoingCount The number of transactions the account is the source of.
+     * @param totalOut      The total amount the account has sent with them.
+     * @return The number of updated rows, which is 0 when the account has no statistics yet.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE ACCOUNT_STATS SET incoming_count = incoming_count + :incomingCount, total_in = total_in + :totalIn, " +
+            "outgoing_count = outgoing_count + :outgoingCount, total_out = total_out + :totalOut WHERE account_id = :accountId", nativeQuery = true)
+    int add(@Param("accountId") Long accountId, @Param("incomingCount") long incomingCount, @Param("totalIn") BigDecimal totalIn,
+            @Param("outgoingCount") long outgoingCount, @Param("totalOut") BigDecimal totalOut);
+
+    /**
+     * Inserts the first statistics of an account in a single statement, without reading it first.
+     *
+     * @param accountId     The unique identifier of the account.
+     * @param currency      The name of the {@link org.agileactors.enums.Currency} of the account.
+     * @param incomingCount The number of transactions the account is the target of.
+     * @param totalIn       The total amount the account has received with them.
+     * @param outgoingCount The number of transactions the account is the source of.
+     * @param totalOut      The total amount the account has sent with them.
+     * @return The number of inserted rows.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO ACCOUNT_STATS (account_id, currency, incoming_count, total_in, outgoing_count, total_out) " +
+            "VALUES (:accountId, :currency, :incomingCount, :totalIn, :outgoingCount, :totalOut)", nativeQuery = true)
+    int insert(@Param("accountId") Long accountId, @Param("currency") String currency, @Param("incomingCount") long incomingCount,
+               @Param("totalIn") BigDecimal totalIn, @Param("outgoingCount") long outgoingCount, @Param("totalOut") BigDecimal totalOut);
+}
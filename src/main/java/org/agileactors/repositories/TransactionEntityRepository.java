@@ -1,8 +1,11 @@
 package org.agileactors.repositories;
 
 import lombok.NonNull;
+import org.agileactors.dtos.IdempotencyRecord;
 import org.agileactors.entities.TransactionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Optional;
 import java.util.UUID;
@@ -10,7 +13,7 @@ import java.util.UUID;
 /**
  * Repository interface for accessing transaction entities in the database.
  */
-public interface TransactionEntityRepository extends JpaRepository<TransactionEntity, UUID> {
+public interface TransactionEntityRepository extends JpaRepository<TransactionEntity, UUID>, TransactionEntityRepositoryCustom {
 
     /**
      * Retrieves a transaction entity by its unique identifier.
@@ -20,4 +23,15 @@ public interface TransactionEntityRepository extends JpaRepository<TransactionEn
      */
     @NonNull
     Optional<TransactionEntity> findById(@NonNull UUID id);
+
+    /**
+     * Retrieves the transaction created with an idempotency key, together with the request it was created from.
+     *
+     * @param idempotencyKey The idempotency key the transaction was created with.
+     * @return An {@link Optional} containing the {@link IdempotencyRecord} of the transaction, or an empty Optional if
+     * not found.
+     */
+    @Query("SELECT new org.agileactors.dtos.IdempotencyRecord(t.id, t.sourceAccountId, t.targetAccountId, t.amount, t.currency) " +
+            "FROM TransactionEntity t WHERE t.idempotencyKey = :idempotencyKey")
+    Optional<IdempotencyRecord> findIdempotencyRecordByIdempotencyKey(@Param("idempotencyKey") String idempotencyKey);
 }
\ No newline at end of file
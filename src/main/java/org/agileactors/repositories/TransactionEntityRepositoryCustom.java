@@ -0,0 +1,56 @@
+package org.agileactors.repositories;
+
+import org.agileactors.dtos.TransactionCursor;
+import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.enums.Currency;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Custom repository fragment for querying transactions page by page, projected into {@link TransactionResponseDto}s.
+ */
+public interface TransactionEntityRepositoryCustom {
+
+    /**
+     * Retrieves a transaction by its unique identifier without loading the entity into the persistence context.
+     *
+     * @param id The unique identifier of the transaction.
+     * @return An {@link Optional} containing the {@link TransactionResponseDto}, or an empty Optional if not found.
+     */
+    Optional<TransactionResponseDto> findResponseById(UUID id);
+
+    /**
+     * Retrieves the transactions that follow the given cursor in {@code (transactionDate, id)} order.
+     * Every filter is optional and is ignored when null.
+     *
+     * @param accountId The ID of an account that must be either the source or the target of the transactions.
+     * @param currency  The {@link Currency} of the transactions.
+     * @param from      The inclusive lower bound of the transaction date.
+     * @param to        The exclusive upper bound of the transaction date.
+     * @param after     The {@link TransactionCursor} the page starts after, or null for the first page.
+     * @param limit     The maximum number of transactions to retrieve.
+     * @return A {@link List} of at most {@code limit} {@link TransactionResponseDto} ordered by transaction date and id.
+     */
+    List<TransactionResponseDto> findPage(Long accountId, Currency currency, Timestamp from, Timestamp to,
+                                         TransactionCursor after, int limit);
+
+    /**
+     * Streams the transactions that follow the given cursor in {@code (transactionDate, id)} order.
+     * Every filter is optional and is ignored when null. The stream holds a database cursor, so it must be consumed
+     * and closed within a transaction.
+     *
+     * @param accountId The ID of an account that must be either the source or the target of the transactions.
+     * @param currency  The {@link Currency} of the transactions.
+     * @param from      The inclusive lower bound of the transaction date.
+     * @param to        The exclusive upper bound of the transaction date.
+     * @param after     The {@link TransactionCursor} the stream starts after, or null to start from the first one.
+     * @param fetchSize The number of rows fetched from the database at a time.
+     * @return A {@link Stream} of {@link TransactionResponseDto} ordered by transaction date and id.
+     */
+    Stream<TransactionResponseDto> streamAll(Long accountId, Currency currency, Timestamp from, Timestamp to,
+                                           TransactionCursor after, int fetchSize);
+}
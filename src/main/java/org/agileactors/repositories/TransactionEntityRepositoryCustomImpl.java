@@ -0,0 +1,125 @@
+package org.agileactors.repositories;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.agileactors.dtos.TransactionCursor;
+import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+import org.hibernate.jpa.HibernateHints;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * Keyset implementation of {@link TransactionEntityRepositoryCustom}.
+ * Every page is a range scan over one of the {@code (transactionDate, id)} indexes of the TRANSACTION table, so its
+ * cost depends on the page size and not on the position of the page or the size of the table. The rows are selected
+ * straight into {@link TransactionResponseDto}s, so no entity is managed, snapshotted or dirty checked.
+ */
+public class TransactionEntityRepositoryCustomImpl implements TransactionEntityRepositoryCustom {
+    private static final Comparator<TransactionResponseDto> ORDER =
+            Comparator.comparing(t -> new TransactionCursor(t.getTransactionDate(), t.getId()), TransactionCursor.ORDER);
+
+    private static final String FIND_RESPONSE_BY_ID = "SELECT new org.agileactors.dtos.TransactionResponseDto(t.id, " +
+            "t.sourceAccountId, t.targetAccountId, t.amount, t.currency, t.transactionDate) FROM TransactionEntity t WHERE t.id = :id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     * The query is created on the {@link EntityManager} rather than declared with {@code @Query}, because Spring Data
+     * re-parses a declared query string on every call, which costs several times as much as running the query.
+     */
+    @Override
+    public Optional<TransactionResponseDto> findResponseById(UUID id) {
+        return entityManager.createQuery(FIND_RESPONSE_BY_ID, TransactionResponseDto.class)
+                .setParameter("id", id)
+                .getResultList().stream()
+                .findFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     * An account filter is resolved as two range scans, one over the source and one over the target account index,
+     * whose results are merged, instead of a single disjunction that could not use either index.
+     */
+    @Override
+    public List<TransactionResponseDto> findPage(Long accountId, Currency currency, Timestamp from, Timestamp to,
+                                            TransactionCursor after, int limit) {
+        if (accountId == null) {
+            return createQuery(null, currency, from, to, after).setMaxResults(limit).getResultList();
+        }
+        return Stream.concat(
+                        createQuery((cb, root) -> cb.equal(root.get("sourceAccountId"), accountId), currency, from, to, after)
+                                .setMaxResults(limit).getResultList().stream(),
+                        createQuery((cb, root) -> cb.equal(root.get("targetAccountId"), accountId), currency, from, to, after)
+                                .setMaxResults(limit).getResultList().stream())
+                .sorted(ORDER)
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The rows are read through a forward-only cursor and nothing is kept in the persistence context, so the memory
+     * use does not grow with the number of rows.
+     */
+    @Override
+    public Stream<TransactionResponseDto> streamAll(Long accountId, Currency currency, Timestamp from, Timestamp to,
+                                               TransactionCursor after, int fetchSize) {
+        BiFunction<CriteriaBuilder, Root<TransactionEntity>, Predicate> accountPredicate = accountId == null ? null
+                : (cb, root) -> cb.or(cb.equal(root.get("sourceAccountId"), accountId),
+                cb.equal(root.get("targetAccountId"), accountId));
+
+        return createQuery(accountPredicate, currency, from, to, after)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    private TypedQuery<TransactionResponseDto> createQuery(BiFunction<CriteriaBuilder, Root<TransactionEntity>, Predicate> accountPredicate,
+                                                      Currency currency, Timestamp from, Timestamp to, TransactionCursor after) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<TransactionResponseDto> query = cb.createQuery(TransactionResponseDto.class);
+        Root<TransactionEntity> root = query.from(TransactionEntity.class);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (accountPredicate != null) {
+            predicates.add(accountPredicate.apply(cb, root));
+        }
+        if (currency != null) {
+            predicates.add(cb.equal(root.get("currency"), currency));
+        }
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(root.<Timestamp>get("transactionDate"), from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(root.<Timestamp>get("transactionDate"), to));
+        }
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.greaterThan(root.<Timestamp>get("transactionDate"), after.transactionDate()),
+                    cb.and(cb.equal(root.<Timestamp>get("transactionDate"), after.transactionDate()),
+                            cb.greaterThan(root.<UUID>get("id"), after.id()))));
+        }
+
+        query.select(cb.construct(TransactionResponseDto.class, root.get("id"), root.get("sourceAccountId"),
+                        root.get("targetAccountId"), root.get("amount"), root.get("currency"), root.get("transactionDate")))
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(root.<Timestamp>get("transactionDate")), cb.asc(root.get("id")));
+
+        return entityManager.createQuery(query);
+    }
+}
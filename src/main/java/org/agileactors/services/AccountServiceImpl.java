@@ -1,42 +1,433 @@
 package org.agileactors.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.agileactors.dtos.AccountResponseDto;
+import org.agileactors.entities.AccountBalanceSlotEntity;
+import org.agileactors.entities.AccountCreditEntity;
 import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountBalanceSlotEntityRepository;
+import org.agileactors.repositories.AccountCreditEntityRepository;
 import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.AccountStatsEntityRepository;
 import org.agileactors.services.interfaces.AccountService;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Service implementation for managing account-related operations.
+ * Accounts are cached, so hot accounts do not hit the database on every transfer. The cache only ever holds committed
+ * copies of the accounts, which are never handed out: balances written by a database transaction are kept aside and
+ * only replace the cached copies once it commits. Every balance update is a compare-and-set on the account version,
+ * so a stale cached balance can never be written back; the update fails with a concurrency failure instead.
+ * The cached accounts only hold the balance of the account row; the balances of the slots of a split account and the
+ * journaled credits of an account are only known to the database.
  */
 @Slf4j
 @AllArgsConstructor
 @Service
 public class AccountServiceImpl implements AccountService {
+    /**
+     * The number of journaled credits deleted per statement, which keeps the id list under the bind parameter limits
+     * of the databases.
+     */
+    private static final int CREDIT_DELETE_CHUNK = 1000;
+
     private final AccountEntityRepository accountEntityRepository;
+    private final Cache<Long, AccountEntity> accountCache;
+    private final AccountStatsEntityRepository accountStatsEntityRepository;
+    private final AccountBalanceSlotEntityRepository accountBalanceSlotEntityRepository;
+    private final AccountCreditEntityRepository accountCreditEntityRepository;
 
     /**
      * {@inheritDoc}
-     * We cache the accounts, so we don't have to query the database every time
+     * We cache the accounts, so we don't have to query the database every time.
+     * The returned account is a copy that the caller may modify.
      */
-    @Cacheable("accounts")
     @Override
     public Optional<AccountEntity> getAccountById(Long id) {
-        return accountEntityRepository.findById(id);
+        Map<Long, AccountEntity> writes = currentWrites();
+        if (writes != null && writes.containsKey(id)) {
+            AccountEntity written = writes.get(id);
+            return written != null ? Optional.of(copyOf(written)) : accountEntityRepository.findDetachedById(id);
+        }
+        AccountEntity cached = accountCache.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(copyOf(cached));
+        }
+        return refreshAccountById(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The account read from the database replaces the cached copy, unless a newer version has been cached meanwhile
+     * or the current database transaction has written the account.
+     */
+    @Override
+    public Optional<AccountEntity> refreshAccountById(Long id) {
+        Optional<AccountEntity> account = accountEntityRepository.findDetachedById(id);
+        Map<Long, AccountEntity> writes = currentWrites();
+        if (writes == null || !writes.containsKey(id)) {
+            account.ifPresent(this::cache);
+        }
+        return account;
     }
 
     /**
      * {@inheritDoc}
+     * The balance is only written if the account still has the version it was read with. The cache is written
+     * through once the database transaction commits.
+     *
+     * @throws ObjectOptimisticLockingFailureException when the account has been updated since it was read
      */
     @Override
     public void updateAccountBalance(AccountEntity account, BigDecimal newBalance) {
+        if (accountEntityRepository.updateBalance(account.getId(), newBalance, account.getVersion()) != 1) {
+            accountCache.invalidate(account.getId());
+            throw new ObjectOptimisticLockingFailureException(AccountEntity.class, account.getId());
+        }
         account.setBalance(newBalance);
-        log.info("Updated balance for account={} to {}", account.getId(), newBalance);
-        accountEntityRepository.save(account);
+        account.setVersion(account.getVersion() + 1);
+        log.debug("Updated balance for account={} to {}", account.getId(), newBalance);
+
+        written(account.getId(), copyOf(account));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The account is evicted from the cache once the database transaction commits, since its new balance is only known
+     * to the database.
+     */
+    @Override
+    public boolean debit(Long accountId, BigDecimal amount, Currency currency) {
+        boolean debited = accountEntityRepository.debit(accountId, amount, currency) == 1;
+        written(accountId, null);
+        return debited;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The account is evicted from the cache once the database transaction commits, since its new balance is only known
+     * to the database.
+     */
+    @Override
+    public boolean credit(Long accountId, BigDecimal amount, Currency currency) {
+        boolean credited = accountEntityRepository.credit(accountId, amount, currency) == 1;
+        written(accountId, null);
+        return credited;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void recordTransfer(TransactionEntity transaction) {
+        recordTransfer(transaction, -1, -1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The totals are added with one update statement per account, in ascending account id order like the balances.
+     * The totals of an account updated on a slot are added to that slot, whose row the database transaction already
+     * holds the lock of, so the transfers of a split account do not wait for each other on its statistics row. The
+     * other totals are added to the statistics row, which the first transaction of an account inserts instead; two
+     * transactions can never both insert it, since the database transaction already holds the lock of the account row
+     * it has updated.
+     */
+    @Override
+    public void recordTransfer(TransactionEntity transaction, int sourceSlot, int targetSlot) {
+        if (transaction.getSourceAccountId() < transaction.getTargetAccountId()) {
+            addTotals(transaction.getSourceAccountId(), sourceSlot, transaction.getCurrency(), 0, BigDecimal.ZERO, 1, transaction.getAmount());
+            addTotals(transaction.getTargetAccountId(), targetSlot, transaction.getCurrency(), 1, transaction.getAmount(), 0, BigDecimal.ZERO);
+        } else {
+            addTotals(transaction.getTargetAccountId(), targetSlot, transaction.getCurrency(), 1, transaction.getAmount(), 0, BigDecimal.ZERO);
+            addTotals(transaction.getSourceAccountId(), sourceSlot, transaction.getCurrency(), 0, BigDecimal.ZERO, 1, transaction.getAmount());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The account is read from the database, not from the cache, so the balance matches the totals.
+     */
+    @Override
+    public Optional<AccountResponseDto> getAccount(Long id) {
+        return accountEntityRepository.findSnapshotById(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<AccountEntity> getConsolidatedAccountById(Long id) {
+        return accountEntityRepository.findConsolidatedById(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean addSlots(Long accountId, int slots) {
+        if (accountEntityRepository.findDetachedById(accountId).isEmpty()) {
+            return false;
+        }
+        for (int slot = 0; slot < slots; slot++) {
+            accountBalanceSlotEntityRepository.insert(accountId, slot);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean debitSlot(Long accountId, int slot, BigDecimal amount, Currency currency) {
+        return accountBalanceSlotEntityRepository.debit(accountId, slot, amount, currency) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean creditSlot(Long accountId, int slot, BigDecimal amount, Currency currency) {
+        return accountBalanceSlotEntityRepository.credit(accountId, slot, amount, currency) == 1;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The account row is locked before the slots, like every other statement that touches both. The cents that cannot
+     * be spread evenly stay on the account row. The running totals of deleted slots are added to the statistics of the
+     * account under the lock of the account row.
+     */
+    @Override
+    public int rebalance(Long accountId, int slots, BigDecimal amount, Currency currency) {
+        Optional<AccountEntity> accountOptional = accountEntityRepository.findDetachedByIdForUpdate(accountId);
+        if (accountOptional.isEmpty() || (currency != null && accountOptional.get().getCurrency() != currency)) {
+            return -1;
+        }
+        AccountEntity account = accountOptional.get();
+        List<AccountBalanceSlotEntity> currentSlots = accountBalanceSlotEntityRepository.findDetachedByAccountIdForUpdate(accountId);
+        BigDecimal total = account.getBalance();
+        for (AccountBalanceSlotEntity slot : currentSlots) {
+            total = total.add(slot.getBalance());
+        }
+        if (total.compareTo(amount) < 0) {
+            return -1;
+        }
+
+        BigDecimal rest = total.subtract(amount);
+        long spreadSlots = currentSlots.stream().filter(slot -> slot.getSlot() < slots).count();
+        BigDecimal share = BigDecimal.ZERO;
+        if (spreadSlots == 0) {
+            if (!currentSlots.isEmpty()) {
+                accountBalanceSlotEntityRepository.deleteByAccountId(accountId);
+                addSlotTotals(account, currentSlots);
+            }
+        } else {
+            share = rest.divide(BigDecimal.valueOf(spreadSlots), rest.scale(), RoundingMode.DOWN);
+            for (AccountBalanceSlotEntity slot : currentSlots) {
+                BigDecimal balance = slot.getSlot() < slots ? share : BigDecimal.ZERO;
+                if (balance.compareTo(slot.getBalance()) != 0) {
+                    accountBalanceSlotEntityRepository.updateBalance(accountId, slot.getSlot(), balance);
+                }
+            }
+        }
+        BigDecimal accountBalance = rest.subtract(share.multiply(BigDecimal.valueOf(spreadSlots)));
+        if (accountBalance.compareTo(account.getBalance()) != 0) {
+            updateAccountBalance(account, accountBalance);
+        }
+        log.debug("Rebalanced account={} over {} slots. amount={}, balance={}", accountId, spreadSlots, amount, rest);
+        return (int) spreadSlots;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The running totals of the slots are added to the statistics of the accounts. The cache is cleared, since the
+     * balances of the merged accounts are only known to the database.
+     */
+    @Override
+    public int mergeAllSlots() {
+        accountBalanceSlotEntityRepository.sumTotalsByAccount().forEach(totals -> addStats(totals.getAccountId(), totals.getCurrency(),
+                totals.getIncomingCount(), totals.getTotalIn(), totals.getOutgoingCount(), totals.getTotalOut()));
+        int merged = accountEntityRepository.addSlotBalances();
+        accountBalanceSlotEntityRepository.deleteAllInBatch();
+        accountCache.invalidateAll();
+        return merged;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasSlots() {
+        return accountBalanceSlotEntityRepository.count() > 0;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The journal row is inserted without touching the target account, so concurrent credits of the same account never
+     * wait for each other.
+     */
+    @Override
+    public void journalTransfer(TransactionEntity transaction) {
+        accountCreditEntityRepository.insert(transaction.getTargetAccountId(), transaction.getAmount(), transaction.getCurrency());
+        addStats(transaction.getSourceAccountId(), transaction.getCurrency(), 0, BigDecimal.ZERO, 1, transaction.getAmount());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Optional<AccountEntity> settleCreditsById(Long id) {
+        settleCredits(List.of(id), Integer.MAX_VALUE);
+        return accountEntityRepository.findDetachedById(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Long> getAccountsWithJournaledCredits(int limit) {
+        return accountCreditEntityRepository.findOldestAccountIds(limit);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The account rows are locked first, in ascending id order, so concurrent callers never settle the same credits.
+     * The credits are then read and deleted by id in the same database transaction, so a credit journaled meanwhile is
+     * left for the next call, and their totals are added to the accounts in the same order. The accounts are evicted
+     * from the cache once the database transaction commits.
+     */
+    @Override
+    public int settleCredits(Collection<Long> accountIds, int limit) {
+        accountEntityRepository.findIdsForUpdate(accountIds);
+        List<AccountCreditEntity> credits = accountCreditEntityRepository.findOldestByAccountIds(accountIds, limit);
+        List<Long> creditIds = credits.stream().map(AccountCreditEntity::getId).toList();
+        for (int from = 0; from < creditIds.size(); from += CREDIT_DELETE_CHUNK) {
+            accountCreditEntityRepository.deleteAllByIdInBatch(creditIds.subList(from, Math.min(from + CREDIT_DELETE_CHUNK, creditIds.size())));
+        }
+
+        Map<Long, Map<Currency, List<AccountCreditEntity>>> totals = credits.stream().collect(Collectors.groupingBy(
+                AccountCreditEntity::getAccountId, TreeMap::new, Collectors.groupingBy(AccountCreditEntity::getCurrency)));
+        totals.forEach((accountId, byCurrency) -> byCurrency.forEach((currency, accountCredits) -> {
+            BigDecimal amount = accountCredits.stream().map(AccountCreditEntity::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+            accountEntityRepository.credit(accountId, amount, currency);
+            written(accountId, null);
+            addStats(accountId, currency, accountCredits.size(), amount, 0, BigDecimal.ZERO);
+        }));
+        int settled = credits.size();
+        log.debug("Settled {} journaled credits of {} accounts", settled, accountIds.size());
+        return settled;
+    }
+
+    /**
+     * Adds transactions to the running totals of a slot of an account, or to its statistics if the account row has
+     * been updated instead, or the account no longer has the slot.
+     */
+    private void addTotals(Long accountId, int slot, Currency currency, long incomingCount, BigDecimal totalIn, long outgoingCount, BigDecimal totalOut) {
+        if (slot < 0 || accountBalanceSlotEntityRepository.addTotals(accountId, slot, incomingCount, totalIn, outgoingCount, totalOut) == 0) {
+            addStats(accountId, currency, incomingCount, totalIn, outgoingCount, totalOut);
+        }
+    }
+
+    private void addSlotTotals(AccountEntity account, List<AccountBalanceSlotEntity> slots) {
+        long incomingCount = 0;
+        BigDecimal totalIn = BigDecimal.ZERO;
+        long outgoingCount = 0;
+        BigDecimal totalOut = BigDecimal.ZERO;
+        for (AccountBalanceSlotEntity slot : slots) {
+            incomingCount += slot.getIncomingCount();
+            totalIn = totalIn.add(slot.getTotalIn());
+            outgoingCount += slot.getOutgoingCount();
+            totalOut = totalOut.add(slot.getTotalOut());
+        }
+        if (incomingCount > 0 || outgoingCount > 0) {
+            addStats(account.getId(), account.getCurrency(), incomingCount, totalIn, outgoingCount, totalOut);
+        }
+    }
+
+    private void addStats(Long accountId, Currency currency, long incomingCount, BigDecimal totalIn, long outgoingCount, BigDecimal totalOut) {
+        if (accountStatsEntityRepository.add(accountId, incomingCount, totalIn, outgoingCount, totalOut) == 0) {
+            accountStatsEntityRepository.insert(accountId, currency.name(), incomingCount, totalIn, outgoingCount, totalOut);
+        }
+    }
+
+    /**
+     * Records that the current database transaction has written an account. Without a database transaction, the
+     * write is applied to the cache right away.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param account   The written account, or null if only the database knows its new state.
+     */
+    private void written(Long accountId, AccountEntity account) {
+        Map<Long, AccountEntity> writes = currentWrites();
+        if (writes == null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            Map<Long, AccountEntity> transactionWrites = new HashMap<>();
+            TransactionSynchronizationManager.bindResource(this, transactionWrites);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    transactionWrites.forEach(AccountServiceImpl.this::publish);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(AccountServiceImpl.this);
+                }
+            });
+            writes = transactionWrites;
+        }
+
+        if (writes != null) {
+            writes.put(accountId, account);
+        } else {
+            publish(accountId, account);
+        }
+    }
+
+    /**
+     * Retrieves the accounts written by the current database transaction, which must not be visible to others yet.
+     *
+     * @return The written accounts by id, or null if the current database transaction has not written any.
+     */
+    @SuppressWarnings("unchecked")
+    private Map<Long, AccountEntity> currentWrites() {
+        return (Map<Long, AccountEntity>) TransactionSynchronizationManager.getResource(this);
+    }
+
+    private void publish(Long accountId, AccountEntity account) {
+        if (account != null) {
+            cache(account);
+        } else {
+            accountCache.invalidate(accountId);
+        }
+    }
+
+    /**
+     * Caches a copy of the account, unless a newer version of it is already cached.
+     *
+     * @param account The account to cache.
+     */
+    private void cache(AccountEntity account) {
+        accountCache.asMap().merge(account.getId(), copyOf(account),
+                (cached, updated) -> cached.getVersion() > updated.getVersion() ? cached : updated);
+    }
+
+    private static AccountEntity copyOf(AccountEntity account) {
+        return new AccountEntity(account.getId(), account.getBalance(), account.getCurrency(), account.getCreatedAt(), account.getVersion());
     }
 }
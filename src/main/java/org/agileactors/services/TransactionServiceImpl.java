@@ -1,26 +1,66 @@
 package org.agileactors.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.agileactors.concurrency.AccountLockManager;
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.concurrency.CreditAggregator;
+import org.agileactors.concurrency.GroupCommitter;
+import org.agileactors.concurrency.HotAccountSplitter;
+import org.agileactors.concurrency.OptimisticRetryExecutor;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.dtos.IdempotencyRecord;
+import org.agileactors.dtos.TransactionBatchResultDto;
+import org.agileactors.dtos.TransactionCursor;
+import org.agileactors.dtos.TransactionPageDto;
+import org.agileactors.dtos.TransactionPageRequestDto;
+import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
 import org.agileactors.entities.AccountEntity;
 import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.BatchItemStatus;
+import org.agileactors.enums.BatchMode;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.enums.TransactionErrorCode;
+import org.agileactors.enums.TransactionStage;
 import org.agileactors.exceptions.AccountNotFoundException;
+import org.agileactors.exceptions.BatchTooLargeException;
+import org.agileactors.exceptions.ConcurrentUpdateException;
 import org.agileactors.exceptions.InsufficientBalanceException;
+import org.agileactors.exceptions.IdempotencyKeyReusedException;
+import org.agileactors.exceptions.InvalidIdempotencyKeyException;
 import org.agileactors.exceptions.SameAccountTransferException;
+import org.agileactors.exceptions.ServiceBusyException;
 import org.agileactors.exceptions.CurrencyMismatchException;
+import org.agileactors.exceptions.DuplicateTransactionException;
+import org.agileactors.ledger.LedgerAccount;
+import org.agileactors.ledger.LedgerEngine;
+import org.agileactors.ledger.TransferValidator;
+import org.agileactors.metrics.TransactionMetrics;
 import org.agileactors.repositories.TransactionEntityRepository;
 import org.agileactors.services.interfaces.AccountService;
 import org.agileactors.services.interfaces.TransactionService;
+import org.agileactors.utils.MoneyUtils;
 import org.agileactors.utils.TransactionMapperUtils;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing transactions.
@@ -30,29 +70,778 @@ import java.util.stream.Collectors;
 @AllArgsConstructor
 @Service
 public class TransactionServiceImpl implements TransactionService {
+    /**
+     * Tells the {@link LedgerEngine} that the idempotency key of a transaction has not been looked up in the database.
+     */
+    private static final long UNCHECKED_LSN = -1;
+
     private final AccountService accountService;
     private final TransactionEntityRepository transactionEntityRepository;
+    private final Cache<String, IdempotencyRecord> idempotencyCache;
+    private final AccountLockManager accountLockManager;
+    private final ConnectionBulkhead connectionBulkhead;
+    private final GroupCommitter groupCommitter;
+    private final TransactionOperations transactionOperations;
+    private final OptimisticRetryExecutor optimisticRetryExecutor;
+    private final LedgerEngine ledgerEngine;
+    private final TransactionProperties transactionProperties;
+    private final Validator validator;
+    private final TransactionMetrics transactionMetrics;
+    private final HotAccountSplitter hotAccountSplitter;
+    private final CreditAggregator creditAggregator;
+    private final TransferValidator ledgerValidator = this::validate;
 
     /**
      * {@inheritDoc}
+     * In {@link ConcurrencyMode#LOCKING} mode the locks of both accounts are acquired before the database transaction
+     * begins and are released only after it has committed or rolled back, so concurrent transfers touching the same
+     * account never read a stale balance. In {@link ConcurrencyMode#OPTIMISTIC} mode no locks are taken; a conflicting
+     * update is detected through the account version and the whole transfer is retried in a new database transaction.
+     * In both modes the credit of the target account may be journaled instead, and settled later by the
+     * {@link CreditAggregator}. In {@link ConcurrencyMode#ATOMIC} mode the database validates and moves the amount with
+     * conditional updates; hot accounts may be split into balance slots by the {@link HotAccountSplitter}.
+     * In {@link ConcurrencyMode#LEDGER} mode the {@link LedgerEngine} performs the transfer in memory and makes it
+     * durable in its log; the transaction is persisted to the database shortly after. In {@link ConcurrencyMode#SHARDED}
+     * mode the transfer is routed to the shards of the ledger that own its accounts.
+     * When group commit is enabled, transfers arriving concurrently in the database modes share a database transaction.
+     * A transaction with an idempotency key that has already been performed is not performed again; its id is set to
+     * the id of the original transaction instead. The keys of recent transactions are looked up in memory, without
+     * locking. Older keys are caught by the unique idempotency key column, which fails the new transaction, and are then
+     * looked up in the database; so are the keys of concurrent retries, of which only one can commit. A key is only
+     * replayed for the same accounts, amount and currency as the original transaction; any other request reusing it
+     * is rejected.
      * The exceptions that are being thrown are handled by {@link org.agileactors.exceptions.ControllerExceptionHandler}.
      *
+     * @throws InvalidIdempotencyKeyException when the idempotency key is blank or too long
+     * @throws IdempotencyKeyReusedException  when the idempotency key was used by a different request
      * @throws SameAccountTransferException when source and target accounts are the same
      * @throws AccountNotFoundException when source or target account does not exist
      * @throws InsufficientBalanceException when source account does not have enough balance
      * @throws CurrencyMismatchException   when source and target account currencies are not the same
+     * @throws ConcurrentUpdateException  when the transfer kept conflicting with concurrent updates
+     * @throws ServiceBusyException       when no database connection became available in time, or the ledger is not
+     *                                    available
      */
-    @Transactional
     @Override
     public void performTransaction(TransactionEntity transaction) {
-        if (transaction.getSourceAccountId().equals(transaction.getTargetAccountId())) {
-            log.error("Source and target accounts are the same. Source={}, Target={}.", transaction.getSourceAccountId(), transaction.getTargetAccountId());
-            throw new SameAccountTransferException("Source and target accounts are the same.");
+        String idempotencyKey = transaction.getIdempotencyKey();
+        IdempotencyRecord original = idempotencyKey != null ? idempotencyCache.getIfPresent(idempotencyKey) : null;
+        if (original != null) {
+            try {
+                replay(transaction, original);
+            } catch (RuntimeException ex) {
+                transactionMetrics.recordFailure(TransactionErrorCode.of(ex));
+                throw ex;
+            }
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            validateIdempotencyKey(idempotencyKey);
+            if (transaction.getSourceAccountId().equals(transaction.getTargetAccountId())) {
+                log.error("Source and target accounts are the same. Source={}, Target={}.", transaction.getSourceAccountId(), transaction.getTargetAccountId());
+                throw new SameAccountTransferException("Source and target accounts are the same.");
+            }
+
+            long checkedLsn = UNCHECKED_LSN;
+            if (idempotencyKey != null && isLedgerMode()) {
+                // The ledger inserts transactions asynchronously, so the unique column cannot catch older keys
+                checkedLsn = ledgerEngine.getPersistedLsn();
+                original = transactionEntityRepository.findIdempotencyRecordByIdempotencyKey(idempotencyKey).orElse(null);
+                if (original != null) {
+                    idempotencyCache.put(idempotencyKey, original);
+                    replay(transaction, original);
+                    return;
+                }
+            }
+
+            try {
+                perform(transaction, checkedLsn);
+            } catch (RuntimeException ex) {
+                if (ex instanceof DuplicateTransactionException duplicate) {
+                    original = duplicate.getOriginal();
+                } else if (idempotencyKey != null) {
+                    original = transactionEntityRepository.findIdempotencyRecordByIdempotencyKey(idempotencyKey).orElse(null);
+                }
+                if (original == null) {
+                    throw ex;
+                }
+                idempotencyCache.put(idempotencyKey, original);
+                replay(transaction, original);
+                return;
+            }
+        } catch (RuntimeException ex) {
+            transactionMetrics.recordFailure(TransactionErrorCode.of(ex));
+            throw ex;
+        } finally {
+            transactionMetrics.recordDuration(System.nanoTime() - start);
+        }
+        if (idempotencyKey != null) {
+            idempotencyCache.put(idempotencyKey, IdempotencyRecord.of(transaction.getId(), transaction));
+        }
+        transactionMetrics.recordSuccess();
+        logSummary(transaction, System.nanoTime() - start);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > TransactionEntity.IDEMPOTENCY_KEY_MAX_LENGTH)) {
+            log.error("Idempotency key is not valid. Length={}", idempotencyKey.length());
+            throw new InvalidIdempotencyKeyException("Idempotency key should not be blank or longer than " + TransactionEntity.IDEMPOTENCY_KEY_MAX_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Logs the single summary event of a performed transaction, unless it is left out by the
+     * {@code transaction.logging.summary-sample-rate}.
+     *
+     * @param transaction The performed {@link TransactionEntity}.
+     * @param nanos       The time it took to perform the transaction.
+     */
+    private void logSummary(TransactionEntity transaction, long nanos) {
+        double sampleRate = transactionProperties.getLogging().getSummarySampleRate();
+        if (!log.isInfoEnabled() || sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        log.info("Transaction performed. Id={}, Source={}, Target={}, Amount={}, Currency={}, DurationMicros={}",
+                transaction.getId(), transaction.getSourceAccountId(), transaction.getTargetAccountId(),
+                transaction.getAmount(), transaction.getCurrency(), TimeUnit.NANOSECONDS.toMicros(nanos));
+    }
+
+    /**
+     * Performs a single transaction in its own unit of work, or, when group commit is enabled in a database
+     * {@link ConcurrencyMode}, together with the transactions arriving concurrently. A group that fails as a whole for
+     * any reason other than a rejected transaction is rolled back, and the transaction is then performed alone.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @param checkedLsn  The persisted log sequence number of the {@link LedgerEngine}, read before the idempotency key
+     *                    was looked up in the database, or {@link #UNCHECKED_LSN} if it was not.
+     */
+    private void perform(TransactionEntity transaction, long checkedLsn) {
+        if (transactionProperties.getGroupCommit().isEnabled() && !isLedgerMode()) {
+            if (groupCommitter.commit(transaction, this::performGroup)) {
+                return;
+            }
+            transaction.setId(null);
+        }
+        runInTransaction(List.of(transaction), status -> execute(transaction, checkedLsn));
+    }
+
+    /**
+     * Performs a group of transactions in a single database transaction, rejecting the transactions that fail a
+     * business rule. Such transactions fail before changing any state, so the others can still be committed.
+     *
+     * @param transactions The transactions to perform.
+     * @return The exceptions that rejected transactions, by transaction identity.
+     */
+    private Map<TransactionEntity, RuntimeException> performGroup(List<TransactionEntity> transactions) {
+        Map<TransactionEntity, RuntimeException> rejections = new IdentityHashMap<>();
+        runInTransaction(transactions, status -> {
+            rejections.clear();
+            for (TransactionEntity transaction : transactions) {
+                try {
+                    execute(transaction);
+                } catch (RuntimeException ex) {
+                    if (!TransactionErrorCode.of(ex).isRejection()) {
+                        throw ex;
+                    }
+                    rejections.put(transaction, ex);
+                }
+            }
+        });
+        return rejections;
+    }
+
+    /**
+     * Answers a transaction whose idempotency key has already been used with the original transaction, if it is a retry
+     * of the original request.
+     *
+     * @param transaction The {@link TransactionEntity} that is not performed.
+     * @param original    The {@link IdempotencyRecord} of the transaction originally created with the idempotency key.
+     * @throws IdempotencyKeyReusedException when the transaction is not a retry of the original request
+     */
+    private void replay(TransactionEntity transaction, IdempotencyRecord original) {
+        if (!original.matches(transaction)) {
+            log.error("Idempotency key was already used by a different request. OriginalId={}", original.transactionId());
+            throw new IdempotencyKeyReusedException("Idempotency key was already used by a different transaction");
         }
+        transaction.setId(original.transactionId());
+        transactionMetrics.recordReplay();
+        log.info("Transaction already performed, replaying it. Id={}", original.transactionId());
+    }
+
+    /**
+     * {@inheritDoc}
+     * Valid items are committed in chunks of {@code transaction.batch.commit-size} items in best-effort mode, or all in
+     * a single database transaction in all-or-nothing mode, so their inserts are sent to the database in JDBC batches.
+     * The accounts of a whole chunk are locked, or optimistically retried, together.
+     *
+     * @throws BatchTooLargeException when the batch has more items than {@code transaction.batch.max-size}
+     */
+    @Override
+    public List<TransactionBatchResultDto> performTransactions(List<TransactionRequestDto> transactionRequests, BatchMode mode) {
+        TransactionProperties.Batch batch = transactionProperties.getBatch();
+        if (transactionRequests.size() > batch.getMaxSize()) {
+            log.error("Batch has too many transactions. Size={}, maxSize={}", transactionRequests.size(), batch.getMaxSize());
+            throw new BatchTooLargeException("Batch should not have more than " + batch.getMaxSize() + " transactions");
+        }
+
+        TransactionBatchResultDto[] results = new TransactionBatchResultDto[transactionRequests.size()];
+        List<BatchItem> items = new ArrayList<>();
+        for (int index = 0; index < transactionRequests.size(); index++) {
+            TransactionRequestDto transactionRequest = transactionRequests.get(index);
+            String violation = validateRequest(transactionRequest);
+            if (violation != null) {
+                results[index] = new TransactionBatchResultDto(index, BatchItemStatus.REJECTED, null, TransactionErrorCode.INVALID_REQUEST, violation);
+            } else if (transactionRequest.getSourceAccountId().equals(transactionRequest.getTargetAccountId())) {
+                results[index] = sameAccount(index);
+            } else {
+                items.add(new BatchItem(index, TransactionMapperUtils.mapTransactionRequestDtoToTransactionEntity(transactionRequest)));
+            }
+        }
+
+        if (mode == BatchMode.ALL_OR_NOTHING) {
+            boolean rejected = items.size() < transactionRequests.size();
+            if (rejected) {
+                items.forEach(item -> results[item.index()] = rolledBack(item.index()));
+            } else {
+                performAllOrNothing(items, results);
+            }
+        } else {
+            performInChunks(items, results, result -> {
+            });
+        }
+
+        long created = 0;
+        for (TransactionBatchResultDto result : results) {
+            if (recordOutcome(result).getStatus() == BatchItemStatus.CREATED) {
+                created++;
+            }
+        }
+        log.info("Batch completed. Mode={}, Size={}, Created={}", mode, results.length, created);
+        return Arrays.asList(results);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The transactions without an idempotency key are committed in chunks of {@code transaction.batch.commit-size}
+     * transactions, like a best-effort batch.
+     */
+    @Override
+    public List<TransactionBatchResultDto> performAcceptedTransactions(List<TransactionEntity> transactions, Consumer<TransactionBatchResultDto> resultConsumer) {
+        TransactionBatchResultDto[] results = new TransactionBatchResultDto[transactions.size()];
+        List<BatchItem> items = new ArrayList<>();
+        for (int index = 0; index < transactions.size(); index++) {
+            TransactionEntity transaction = transactions.get(index);
+            if (transaction.getIdempotencyKey() != null) {
+                // Records its own outcome
+                try {
+                    performTransaction(transaction);
+                    results[index] = new TransactionBatchResultDto(index, BatchItemStatus.CREATED, transaction.getId(), null, null);
+                } catch (RuntimeException ex) {
+                    results[index] = new TransactionBatchResultDto(index, BatchItemStatus.REJECTED, null, TransactionErrorCode.of(ex), ex.getMessage());
+                }
+                resultConsumer.accept(results[index]);
+            } else if (transaction.getSourceAccountId().equals(transaction.getTargetAccountId())) {
+                results[index] = sameAccount(index);
+                resultConsumer.accept(recordOutcome(results[index]));
+            } else {
+                items.add(new BatchItem(index, transaction));
+            }
+        }
+
+        performInChunks(items, results, result -> resultConsumer.accept(recordOutcome(result)));
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Performs items in chunks of {@code transaction.batch.commit-size} items, each in its own database transaction,
+     * rejecting only the items that fail.
+     *
+     * @param items          The items to perform.
+     * @param results        The results of the batch, to be filled in for the items.
+     * @param resultConsumer The consumer of the results of a chunk, called once the chunk has been committed.
+     */
+    private void performInChunks(List<BatchItem> items, TransactionBatchResultDto[] results, Consumer<TransactionBatchResultDto> resultConsumer) {
+        int commitSize = transactionProperties.getBatch().getCommitSize();
+        for (int from = 0; from < items.size(); from += commitSize) {
+            List<BatchItem> chunk = items.subList(from, Math.min(from + commitSize, items.size()));
+            performBestEffort(chunk, results);
+            chunk.forEach(item -> resultConsumer.accept(results[item.index()]));
+        }
+    }
+
+    /**
+     * Records the outcome of a batch item in the metrics. Rolled back items were never rejected by themselves, so they
+     * have no outcome of their own.
+     *
+     * @param result The {@link TransactionBatchResultDto} of the item.
+     * @return The same result.
+     */
+    private TransactionBatchResultDto recordOutcome(TransactionBatchResultDto result) {
+        if (result.getStatus() == BatchItemStatus.CREATED) {
+            transactionMetrics.recordSuccess();
+        } else if (result.getStatus() == BatchItemStatus.REJECTED) {
+            transactionMetrics.recordFailure(result.getErrorCode());
+        }
+        return result;
+    }
+
+    /**
+     * Performs all items in a single database transaction, rolling all of them back when any of them is rejected.
+     *
+     * @param items   The items to perform.
+     * @param results The results of the batch, to be filled in for the items.
+     */
+    private void performAllOrNothing(List<BatchItem> items, TransactionBatchResultDto[] results) {
+        BatchItem[] failedItem = new BatchItem[1];
+        try {
+            runInTransaction(transactionsOf(items), status -> {
+                for (BatchItem item : items) {
+                    failedItem[0] = item;
+                    execute(item.transaction());
+                }
+                failedItem[0] = null;
+            });
+        } catch (RuntimeException ex) {
+            // Without a failed item the commit itself failed, which affects every item
+            TransactionErrorCode errorCode = TransactionErrorCode.of(ex);
+            for (BatchItem item : items) {
+                results[item.index()] = item == failedItem[0] || failedItem[0] == null
+                        ? new TransactionBatchResultDto(item.index(), BatchItemStatus.REJECTED, null, errorCode, ex.getMessage())
+                        : rolledBack(item.index());
+            }
+            return;
+        }
+        items.forEach(item -> results[item.index()] = created(item));
+    }
+
+    /**
+     * Performs a chunk of items in a single database transaction, rejecting the items that fail a business rule.
+     * Such items fail before changing any state, so the others can still be committed. When the chunk fails for any
+     * other reason, it is rolled back and its items are retried one per database transaction to isolate the failure.
+     *
+     * @param chunk   The items to perform.
+     * @param results The results of the batch, to be filled in for the items.
+     */
+    private void performBestEffort(List<BatchItem> chunk, TransactionBatchResultDto[] results) {
+        Map<BatchItem, RuntimeException> rejections = new HashMap<>();
+        try {
+            runInTransaction(transactionsOf(chunk), status -> {
+                rejections.clear();
+                for (BatchItem item : chunk) {
+                    try {
+                        execute(item.transaction());
+                    } catch (RuntimeException ex) {
+                        if (!TransactionErrorCode.of(ex).isRejection()) {
+                            throw ex;
+                        }
+                        rejections.put(item, ex);
+                    }
+                }
+            });
+        } catch (RuntimeException ex) {
+            if (chunk.size() == 1) {
+                BatchItem item = chunk.get(0);
+                results[item.index()] = new TransactionBatchResultDto(item.index(), BatchItemStatus.REJECTED, null, TransactionErrorCode.of(ex), ex.getMessage());
+                return;
+            }
+            log.warn("Batch chunk failed, retrying its transactions one by one. Size={}", chunk.size(), ex);
+            chunk.forEach(item -> {
+                item.transaction().setId(null);
+                performBestEffort(List.of(item), results);
+            });
+            return;
+        }
+
+        for (BatchItem item : chunk) {
+            RuntimeException rejection = rejections.get(item);
+            results[item.index()] = rejection == null
+                    ? created(item)
+                    : new TransactionBatchResultDto(item.index(), BatchItemStatus.REJECTED, null, TransactionErrorCode.of(rejection), rejection.getMessage());
+        }
+    }
+
+    /**
+     * Runs a unit of work that performs the given transactions in a database transaction, under the concurrency control
+     * of the configured {@link ConcurrencyMode}.
+     * In {@link ConcurrencyMode#LOCKING} mode the locks of all involved accounts are acquired before the database
+     * transaction begins and are released only after it has committed or rolled back; only the source accounts are
+     * locked while the credits of the target accounts are journaled. In {@link ConcurrencyMode#OPTIMISTIC} mode the
+     * whole unit of work is retried in a new database transaction when it conflicts with a concurrent update. The same
+     * applies in {@link ConcurrencyMode#ATOMIC} mode while hot accounts are split, since a debit falling back over the
+     * slots can deadlock with a rebalance. In {@link ConcurrencyMode#LEDGER} mode the unit of work excludes all others.
+     * In {@link ConcurrencyMode#SHARDED} mode a single transaction is routed to the shards of its accounts, while a unit
+     * of work performing several transactions pauses all shards.
+     *
+     * @param transactions The transactions performed by the unit of work.
+     * @param work         The unit of work.
+     */
+    private void runInTransaction(List<TransactionEntity> transactions, Consumer<TransactionStatus> work) {
+        switch (transactionProperties.getConcurrency().getMode()) {
+            case OPTIMISTIC -> executeWithRetries(transactions, work);
+            case ATOMIC -> {
+                if (hotAccountSplitter.isEnabled()) {
+                    // A debit falling back over the slots can deadlock with a rebalance, which the database rolls back
+                    executeWithRetries(transactions, work);
+                } else {
+                    executeWithoutResult(work);
+                }
+            }
+            case LEDGER -> executeWithoutResult(work);
+            case SHARDED -> {
+                if (transactions.size() == 1) {
+                    work.accept(null);
+                } else {
+                    executeWithoutResult(work);
+                }
+            }
+            default -> {
+                // A journaled credit does not touch the target account, which can be credited concurrently
+                List<Long> accountIds = transactions.stream()
+                        .flatMap(transaction -> creditAggregator.isEnabled() ? Stream.of(transaction.getSourceAccountId())
+                                : Stream.of(transaction.getSourceAccountId(), transaction.getTargetAccountId()))
+                        .toList();
+                try (AccountLockManager.AccountLocks ignored = accountLockManager.lock(accountIds)) {
+                    executeWithoutResult(work);
+                } catch (ConcurrencyFailureException ex) {
+                    // Only possible when an account was updated outside the service, so the client may retry
+                    log.error("Transaction conflicted with a concurrent update of the accounts. Accounts={}", accountIds);
+                    throw new ConcurrentUpdateException("The accounts were updated concurrently, please retry the transaction");
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a unit of work in a new database transaction, and again in another one whenever it fails because of a
+     * concurrent update.
+     *
+     * @param transactions The transactions performed by the unit of work.
+     * @param work         The unit of work.
+     */
+    private void executeWithRetries(List<TransactionEntity> transactions, Consumer<TransactionStatus> work) {
+        optimisticRetryExecutor.execute(() -> {
+            // A rolled back attempt leaves the ids it assigned behind, the next attempt must persist new rows
+            transactions.forEach(transaction -> transaction.setId(null));
+            executeWithoutResult(work);
+        });
+    }
+
+    /**
+     * Runs a unit of work in a new database transaction, timing its commit as the {@link TransactionStage#COMMIT} stage.
+     * The database transaction only begins once the {@link ConnectionBulkhead} has granted it a connection.
+     * In {@link ConcurrencyMode#LEDGER} and {@link ConcurrencyMode#SHARDED} mode the unit of work runs in the
+     * {@link LedgerEngine} instead, without a database transaction, and commits once its log records are durable.
+     *
+     * @param work The unit of work.
+     */
+    private void executeWithoutResult(Consumer<TransactionStatus> work) {
+        long[] workEnd = new long[1];
+        if (isLedgerMode()) {
+            ledgerEngine.runAtomically(() -> {
+                work.accept(null);
+                workEnd[0] = System.nanoTime();
+            });
+        } else {
+            try (ConnectionBulkhead.Permit ignored = connectionBulkhead.acquire()) {
+                transactionOperations.executeWithoutResult(status -> {
+                    work.accept(status);
+                    workEnd[0] = System.nanoTime();
+                });
+            }
+        }
+        transactionMetrics.recordStage(TransactionStage.COMMIT, System.nanoTime() - workEnd[0]);
+    }
+
+    /**
+     * Performs a transaction within the current database transaction, using the configured {@link ConcurrencyMode}.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     */
+    private void execute(TransactionEntity transaction) {
+        execute(transaction, UNCHECKED_LSN);
+    }
+
+    /**
+     * Performs a transaction within the current database transaction, using the configured {@link ConcurrencyMode}.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @param checkedLsn  The persisted log sequence number of the {@link LedgerEngine}, read before the idempotency key
+     *                    was looked up in the database, or {@link #UNCHECKED_LSN} if it was not.
+     */
+    private void execute(TransactionEntity transaction, long checkedLsn) {
+        switch (transactionProperties.getConcurrency().getMode()) {
+            case ATOMIC -> transferAtomically(transaction);
+            case LEDGER -> transferInLedger(transaction, checkedLsn);
+            case SHARDED -> {
+                if (ledgerEngine.isInUnitOfWork()) {
+                    transferInLedger(transaction, checkedLsn);
+                } else {
+                    transferInShards(transaction, checkedLsn);
+                }
+            }
+            default -> transfer(transaction);
+        }
+    }
 
+    private boolean isLedgerMode() {
+        ConcurrencyMode mode = transactionProperties.getConcurrency().getMode();
+        return mode == ConcurrencyMode.LEDGER || mode == ConcurrencyMode.SHARDED;
+    }
+
+    private String validateRequest(TransactionRequestDto transactionRequest) {
+        if (transactionRequest == null) {
+            return "transaction is required";
+        }
+        Set<ConstraintViolation<TransactionRequestDto>> violations = validator.validate(transactionRequest);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static List<TransactionEntity> transactionsOf(List<BatchItem> items) {
+        return items.stream().map(BatchItem::transaction).toList();
+    }
+
+    private static TransactionBatchResultDto created(BatchItem item) {
+        return new TransactionBatchResultDto(item.index(), BatchItemStatus.CREATED, item.transaction().getId(), null, null);
+    }
+
+    private static TransactionBatchResultDto sameAccount(int index) {
+        return new TransactionBatchResultDto(index, BatchItemStatus.REJECTED, null, TransactionErrorCode.SAME_ACCOUNT, "Source and target accounts are the same.");
+    }
+
+    private static TransactionBatchResultDto rolledBack(int index) {
+        return new TransactionBatchResultDto(index, BatchItemStatus.ROLLED_BACK, null, null, null);
+    }
+
+    /**
+     * A valid item of a batch, together with its position in the batch request.
+     *
+     * @param index       The position of the item in the batch request.
+     * @param transaction The {@link TransactionEntity} of the item.
+     */
+    private record BatchItem(int index, TransactionEntity transaction) {
+    }
+
+    /**
+     * Validates the transaction against the current state of both accounts, moves the amount between them and adds the
+     * transaction to their running totals.
+     * It must be called within a database transaction, either holding the locks of both accounts or relying on the
+     * account version to detect concurrent updates. While the credit journal is enabled, only the source account is
+     * updated and the credit of the target account is journaled; the target account is only read to be validated.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     */
+    private void transfer(TransactionEntity transaction) {
+        long start = System.nanoTime();
         Optional<AccountEntity> sourceAccountOptional = accountService.getAccountById(transaction.getSourceAccountId());
         Optional<AccountEntity> targetAccountOptional = accountService.getAccountById(transaction.getTargetAccountId());
 
+        if (sourceAccountOptional.isPresent() && sourceAccountOptional.get().getBalance().compareTo(transaction.getAmount()) < 0) {
+            // A cached balance may lag behind a credit made outside the service, so it is confirmed before rejecting;
+            // so may the balance of the account row behind its journaled credits, which are settled first
+            sourceAccountOptional = creditAggregator.isEnabled()
+                    ? accountService.settleCreditsById(transaction.getSourceAccountId())
+                    : accountService.refreshAccountById(transaction.getSourceAccountId());
+        }
+        start = recordStage(TransactionStage.ACCOUNT_LOOKUP, start);
+        validate(transaction, sourceAccountOptional, targetAccountOptional);
+        start = recordStage(TransactionStage.VALIDATION, start);
+
+        AccountEntity sourceAccount = sourceAccountOptional.get();
+        AccountEntity targetAccount = targetAccountOptional.get();
+        if (creditAggregator.isEnabled()) {
+            BigDecimal newSourceAccountBalance = sourceAccount.getBalance().subtract(transaction.getAmount());
+            accountService.updateAccountBalance(sourceAccount, newSourceAccountBalance);
+            log.debug("Balance successfully updated. newSourceAccountBalance={}", newSourceAccountBalance);
+            start = recordStage(TransactionStage.BALANCE_UPDATE, start);
+            accountService.journalTransfer(transaction);
+            start = recordStage(TransactionStage.ACCOUNT_STATS_UPDATE, start);
+
+            transactionEntityRepository.save(transaction);
+            recordStage(TransactionStage.TRANSACTION_INSERT, start);
+            return;
+        }
+
+        BigDecimal newSourceAccountBalance = sourceAccount.getBalance().subtract(transaction.getAmount());
+        BigDecimal newTargetAccountBalance = targetAccount.getBalance().add(transaction.getAmount());
+        // The accounts are updated in ascending id order to keep concurrent transfers from deadlocking in the database
+        if (sourceAccount.getId() < targetAccount.getId()) {
+            accountService.updateAccountBalance(sourceAccount, newSourceAccountBalance);
+            accountService.updateAccountBalance(targetAccount, newTargetAccountBalance);
+        } else {
+            accountService.updateAccountBalance(targetAccount, newTargetAccountBalance);
+            accountService.updateAccountBalance(sourceAccount, newSourceAccountBalance);
+        }
+        log.debug("Balance successfully updated. newSourceAccountBalance={}, newTargetAccountBalance={}", newSourceAccountBalance, newTargetAccountBalance);
+        start = recordStage(TransactionStage.BALANCE_UPDATE, start);
+        accountService.recordTransfer(transaction);
+        start = recordStage(TransactionStage.ACCOUNT_STATS_UPDATE, start);
+
+        transactionEntityRepository.save(transaction);
+        recordStage(TransactionStage.TRANSACTION_INSERT, start);
+    }
+
+    /**
+     * Moves the amount between both accounts with one conditional update statement per account, so the accounts are
+     * neither loaded nor locked in-process. The accounts are updated in ascending id order to keep concurrent transfers
+     * from deadlocking in the database. When a statement updates no row, the half that was already applied is reverted
+     * on the same row and the accounts are loaded to report the reason, so a rejected transfer never leaves changes
+     * behind. A split account is updated on one of its slots through the {@link HotAccountSplitter}, and that slot keeps
+     * the running totals of the transfer. It must be called within a database transaction.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     */
+    private void transferAtomically(TransactionEntity transaction) {
+        long start = System.nanoTime();
+        int debited;
+        int credited;
+        if (transaction.getSourceAccountId() < transaction.getTargetAccountId()) {
+            debited = debit(transaction);
+            credited = debited != HotAccountSplitter.REJECTED ? credit(transaction) : HotAccountSplitter.REJECTED;
+        } else {
+            credited = credit(transaction);
+            debited = credited != HotAccountSplitter.REJECTED ? debit(transaction) : HotAccountSplitter.REJECTED;
+        }
+        start = recordStage(TransactionStage.BALANCE_UPDATE, start);
+
+        if (debited == HotAccountSplitter.REJECTED || credited == HotAccountSplitter.REJECTED) {
+            // The updated row is still locked by this database transaction, so reverting it cannot fail
+            if (debited != HotAccountSplitter.REJECTED) {
+                undoDebit(transaction, debited);
+            }
+            if (credited != HotAccountSplitter.REJECTED) {
+                undoCredit(transaction, credited);
+            }
+            // The balance of a split account is spread over its slots, only the database knows all of it
+            Optional<AccountEntity> sourceAccount = hotAccountSplitter.isEnabled()
+                    ? accountService.getConsolidatedAccountById(transaction.getSourceAccountId())
+                    : accountService.getAccountById(transaction.getSourceAccountId());
+            validate(transaction, sourceAccount, accountService.getAccountById(transaction.getTargetAccountId()));
+            // The accounts are valid now, so the debit was rejected by a balance that has been credited since
+            log.error("Insufficient balance for the transaction. transactionAmount={}", transaction.getAmount());
+            throw new InsufficientBalanceException("Insufficient balance for the transaction");
+        }
+        accountService.recordTransfer(transaction, debited, credited);
+        start = recordStage(TransactionStage.ACCOUNT_STATS_UPDATE, start);
+
+        transactionEntityRepository.save(transaction);
+        recordStage(TransactionStage.TRANSACTION_INSERT, start);
+    }
+
+    /**
+     * Has the {@link LedgerEngine} validate the transaction against the balances it holds and move the amount between
+     * them, timing the validation as the {@link TransactionStage#VALIDATION} stage and the whole transfer as the
+     * {@link TransactionStage#BALANCE_UPDATE} stage. It must be called from a unit of work of the ledger. A transaction
+     * whose idempotency key has already been used fails with a {@link DuplicateTransactionException}.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @param checkedLsn  The persisted log sequence number read before the idempotency key was looked up.
+     */
+    private void transferInLedger(TransactionEntity transaction, long checkedLsn) {
+        long start = System.nanoTime();
+        ledgerEngine.transfer(transaction, checkedLsn, ledgerValidator);
+        recordStage(TransactionStage.BALANCE_UPDATE, start);
+    }
+
+    /**
+     * Routes the transaction to the shards of the {@link LedgerEngine} owning its accounts and waits until it is
+     * durable. The shards validate it against the balances they own, timing the validation as the
+     * {@link TransactionStage#VALIDATION} stage; the whole wait is timed as the {@link TransactionStage#COMMIT} stage.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @param checkedLsn  The persisted log sequence number read before the idempotency key was looked up.
+     */
+    private void transferInShards(TransactionEntity transaction, long checkedLsn) {
+        long start = System.nanoTime();
+        try {
+            ledgerEngine.submit(transaction, checkedLsn, ledgerValidator).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        recordStage(TransactionStage.COMMIT, start);
+    }
+
+    /**
+     * Records the time spent in a stage of a transaction.
+     *
+     * @param stage The {@link TransactionStage} that has just ended.
+     * @param start The time the stage started at, as returned by {@link System#nanoTime()}.
+     * @return The time the stage ended at, which is when the next stage starts.
+     */
+    private long recordStage(TransactionStage stage, long start) {
+        long end = System.nanoTime();
+        transactionMetrics.recordStage(stage, end - start);
+        return end;
+    }
+
+    /**
+     * Debits the source account of the transaction.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @return The slot that has been debited, {@link HotAccountSplitter#ACCOUNT_ROW} if the account row has been
+     * debited, or {@link HotAccountSplitter#REJECTED} if nothing has.
+     */
+    private int debit(TransactionEntity transaction) {
+        if (hotAccountSplitter.isEnabled()) {
+            return hotAccountSplitter.debit(transaction.getSourceAccountId(), transaction.getAmount(), transaction.getCurrency());
+        }
+        return accountService.debit(transaction.getSourceAccountId(), transaction.getAmount(), transaction.getCurrency())
+                ? HotAccountSplitter.ACCOUNT_ROW : HotAccountSplitter.REJECTED;
+    }
+
+    /**
+     * Credits the target account of the transaction.
+     *
+     * @param transaction The {@link TransactionEntity} containing transaction details.
+     * @return The slot that has been credited, {@link HotAccountSplitter#ACCOUNT_ROW} if the account row has been
+     * credited, or {@link HotAccountSplitter#REJECTED} if nothing has.
+     */
+    private int credit(TransactionEntity transaction) {
+        if (hotAccountSplitter.isEnabled()) {
+            return hotAccountSplitter.credit(transaction.getTargetAccountId(), transaction.getAmount(), transaction.getCurrency());
+        }
+        return accountService.credit(transaction.getTargetAccountId(), transaction.getAmount(), transaction.getCurrency())
+                ? HotAccountSplitter.ACCOUNT_ROW : HotAccountSplitter.REJECTED;
+    }
+
+    private void undoDebit(TransactionEntity transaction, int slot) {
+        if (slot == HotAccountSplitter.ACCOUNT_ROW) {
+            accountService.credit(transaction.getSourceAccountId(), transaction.getAmount(), transaction.getCurrency());
+        } else {
+            accountService.creditSlot(transaction.getSourceAccountId(), slot, transaction.getAmount(), transaction.getCurrency());
+        }
+    }
+
+    private void undoCredit(TransactionEntity transaction, int slot) {
+        if (slot == HotAccountSplitter.ACCOUNT_ROW) {
+            accountService.debit(transaction.getTargetAccountId(), transaction.getAmount(), transaction.getCurrency());
+        } else {
+            accountService.debitSlot(transaction.getTargetAccountId(), slot, transaction.getAmount(), transaction.getCurrency());
+        }
+    }
+
+    /**
+     * Validates the transaction against the source and target accounts.
+     *
+     * @param transaction           The {@link TransactionEntity} containing transaction details.
+     * @param sourceAccountOptional The source account, if it exists.
+     * @param targetAccountOptional The target account, if it exists.
+     */
+    private void validate(TransactionEntity transaction, Optional<AccountEntity> sourceAccountOptional, Optional<AccountEntity> targetAccountOptional) {
         if (sourceAccountOptional.isEmpty() || targetAccountOptional.isEmpty()) {
             log.error("Source or target account does not exist. Source={}, Target={}.", transaction.getSourceAccountId(), transaction.getTargetAccountId());
             throw new AccountNotFoundException("Source or target account does not exist");
@@ -72,36 +861,101 @@ public class TransactionServiceImpl implements TransactionService {
                     sourceAccount.getCurrency(), targetAccount.getCurrency(), transaction.getCurrency());
             throw new CurrencyMismatchException("Source and target account currencies should be the same as the transaction currency");
         }
+    }
 
-        BigDecimal newSourceAccountBalance = sourceAccount.getBalance().subtract(transaction.getAmount());
-        BigDecimal newTargetAccountBalance = targetAccount.getBalance().add(transaction.getAmount());
-        accountService.updateAccountBalance(sourceAccount, newSourceAccountBalance);
-        accountService.updateAccountBalance(targetAccount, newTargetAccountBalance);
-        log.info("Balance successfully updated. newSourceAccountBalance={}, newTargetAccountBalance={}", newSourceAccountBalance, newTargetAccountBalance);
+    /**
+     * Validates the transaction against the source and target accounts held by the {@link LedgerEngine}, comparing
+     * minor units, and times the validation as the {@link TransactionStage#VALIDATION} stage.
+     *
+     * @param transaction   The {@link TransactionEntity} containing transaction details.
+     * @param amount        The amount of the transaction, in minor units of its currency.
+     * @param sourceAccount The source account, or null if it does not exist.
+     * @param targetAccount The target account, or null if it does not exist.
+     */
+    private void validate(TransactionEntity transaction, long amount, LedgerAccount sourceAccount, LedgerAccount targetAccount) {
+        long start = System.nanoTime();
+        if (sourceAccount == null || targetAccount == null) {
+            log.error("Source or target account does not exist. Source={}, Target={}.", transaction.getSourceAccountId(), transaction.getTargetAccountId());
+            throw new AccountNotFoundException("Source or target account does not exist");
+        }
 
-        transactionEntityRepository.save(transaction);
-        log.info("Transaction successful from Source={} to Target={} for Amount={}", sourceAccount.getId(), targetAccount.getId(), transaction.getAmount());
+        if (sourceAccount.getBalance() < amount) {
+            log.error("Insufficient balance for the transaction. Balance={}, transactionAmount={}",
+                    MoneyUtils.toAmount(sourceAccount.getBalance(), sourceAccount.getCurrency()), transaction.getAmount());
+            throw new InsufficientBalanceException("Insufficient balance for the transaction");
+        }
+
+        if (transaction.getCurrency() != sourceAccount.getCurrency() || transaction.getCurrency() != targetAccount.getCurrency()) {
+            log.error("Source and target account currencies should be the same as the transaction currency. " +
+                    "sourceCurrency={}, targetCurrency={}, transactionCurrency={}",
+                    sourceAccount.getCurrency(), targetAccount.getCurrency(), transaction.getCurrency());
+            throw new CurrencyMismatchException("Source and target account currencies should be the same as the transaction currency");
+        }
+        recordStage(TransactionStage.VALIDATION, start);
     }
 
     /**
      * {@inheritDoc}
+     * The transaction is selected straight into the response in a read-only transaction, without loading the entity.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<TransactionResponseDto> getTransaction(UUID id) {
-        Optional<TransactionEntity> transactionEntity = transactionEntityRepository.findById(id);
+        return transactionEntityRepository.findResponseById(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The transactions are selected straight into the responses in a read-only transaction, without loading entities.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionPageDto getTransactions(TransactionPageRequestDto pageRequest) {
+        TransactionProperties.Pagination settings = transactionProperties.getPagination();
+        int limit = pageRequest.getLimit() == null ? settings.getDefaultLimit()
+                : Math.max(1, Math.min(pageRequest.getLimit(), settings.getMaxLimit()));
+        TransactionCursor after = pageRequest.getCursor() == null ? null : TransactionCursor.decode(pageRequest.getCursor());
+
+        // One extra row tells whether a next page exists without a count query
+        List<TransactionResponseDto> transactions = transactionEntityRepository.findPage(pageRequest.getAccountId(),
+                pageRequest.getCurrency(), toTimestamp(pageRequest.getFrom()), toTimestamp(pageRequest.getTo()),
+                after, limit + 1);
 
-        return transactionEntity.map(TransactionMapperUtils::mapTransactionEntityToTransactionResponseDto);
+        String nextCursor = null;
+        if (transactions.size() > limit) {
+            transactions = transactions.subList(0, limit);
+            TransactionResponseDto last = transactions.get(limit - 1);
+            nextCursor = new TransactionCursor(last.getTransactionDate(), last.getId()).encode();
+        }
+        return new TransactionPageDto(transactions, nextCursor);
     }
 
     /**
      * {@inheritDoc}
+     * The transactions are read through a database cursor in a read-only transaction and are never collected, so the
+     * memory use is constant and a slow consumer slows down the reading.
      */
     @Override
-    public List<TransactionResponseDto> getAllTransactions() {
-        List<TransactionEntity> transactions = transactionEntityRepository.findAll();
-        return transactions.stream()
-                .map(TransactionMapperUtils::mapTransactionEntityToTransactionResponseDto)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public long exportTransactions(TransactionPageRequestDto pageRequest, Consumer<TransactionResponseDto> consumer) {
+        TransactionCursor after = pageRequest.getCursor() == null ? null : TransactionCursor.decode(pageRequest.getCursor());
+
+        long count = 0;
+        try (Stream<TransactionResponseDto> transactions = transactionEntityRepository.streamAll(pageRequest.getAccountId(),
+                pageRequest.getCurrency(), toTimestamp(pageRequest.getFrom()), toTimestamp(pageRequest.getTo()),
+                after, transactionProperties.getExport().getFetchSize())) {
+            Iterator<TransactionResponseDto> iterator = transactions.iterator();
+            while (iterator.hasNext() && (pageRequest.getLimit() == null || count < pageRequest.getLimit())) {
+                consumer.accept(iterator.next());
+                count++;
+            }
+        }
+        log.info("Transactions exported. Count={}", count);
+        return count;
+    }
+
+    private static Timestamp toTimestamp(Instant instant) {
+        return instant == null ? null : Timestamp.from(instant);
     }
 }
 
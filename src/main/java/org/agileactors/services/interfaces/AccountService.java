@@ -1,8 +1,13 @@
 package org.agileactors.services.interfaces;
 
+import org.agileactors.dtos.AccountResponseDto;
 import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,6 +23,14 @@ public interface AccountService {
      */
     Optional<AccountEntity> getAccountById(Long id);
 
+    /**
+     * Retrieves an account entity by its unique identifier from the database, bypassing any cached copy.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountEntity}, or an empty Optional if not found.
+     */
+    Optional<AccountEntity> refreshAccountById(Long id);
+
     /**
      * Updates the balance of an {@link AccountEntity}.
      *
@@ -25,4 +38,164 @@ public interface AccountService {
      * @param newBalance The new balance value to set.
      */
     void updateAccountBalance(AccountEntity account, BigDecimal newBalance);
+
+    /**
+     * Atomically debits an account, provided that it has the given {@link Currency} and enough balance.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param amount    The amount to debit.
+     * @param currency  The {@link Currency} the account must have.
+     * @return true if the account was debited, false if it does not exist or a condition does not hold.
+     */
+    boolean debit(Long accountId, BigDecimal amount, Currency currency);
+
+    /**
+     * Atomically credits an account, provided that it has the given {@link Currency}.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param amount    The amount to credit.
+     * @param currency  The {@link Currency} the account must have.
+     * @return true if the account was credited, false if it does not exist or has another currency.
+     */
+    boolean credit(Long accountId, BigDecimal amount, Currency currency);
+
+    /**
+     * Adds a performed transaction to the running totals of its source and target accounts. It must be called within
+     * the database transaction that has moved the amount between the balances of both accounts.
+     *
+     * @param transaction The performed {@link TransactionEntity}.
+     */
+    void recordTransfer(TransactionEntity transaction);
+
+    /**
+     * Adds a performed transaction to the running totals of its source and target accounts, like
+     * {@link #recordTransfer(TransactionEntity)}, keeping the totals of a split account on the slot the transfer has
+     * updated. It must be called within the database transaction that has moved the amount.
+     *
+     * @param transaction The performed {@link TransactionEntity}.
+     * @param sourceSlot  The slot of the source account that has been debited, or a negative number if its account row
+     *                    has been debited.
+     * @param targetSlot  The slot of the target account that has been credited, or a negative number if its account row
+     *                    has been credited.
+     */
+    void recordTransfer(TransactionEntity transaction, int sourceSlot, int targetSlot);
+
+    /**
+     * Retrieves an account together with the running totals of its transactions.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountResponseDto}, or an empty Optional if not found.
+     */
+    Optional<AccountResponseDto> getAccount(Long id);
+
+    /**
+     * Retrieves an account from the database with the balances of its slots added to its balance, so it is the whole
+     * balance of the account while it is split. The account is not cached and must not be written back.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountEntity}, or an empty Optional if not found.
+     */
+    Optional<AccountEntity> getConsolidatedAccountById(Long id);
+
+    /**
+     * Creates the missing slots of an account, with an empty balance and the currency of the account. It must be
+     * called within a database transaction.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slots     The number of slots the account must have.
+     * @return False if the account does not exist.
+     */
+    boolean addSlots(Long accountId, int slots);
+
+    /**
+     * Subtracts the amount from the balance of a slot of an account, provided that the slot has the given currency and
+     * a balance of at least the amount. It must be called within a database transaction.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slot      The number of the slot.
+     * @param amount    The amount to subtract.
+     * @param currency  The {@link Currency} the slot must have.
+     * @return True if the slot has been debited, false if the account does not have the slot or a condition does not
+     * hold.
+     */
+    boolean debitSlot(Long accountId, int slot, BigDecimal amount, Currency currency);
+
+    /**
+     * Adds the amount to the balance of a slot of an account, provided that the slot has the given currency. It must be
+     * called within a database transaction.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slot      The number of the slot.
+     * @param amount    The amount to add.
+     * @param currency  The {@link Currency} the slot must have.
+     * @return True if the slot has been credited, false if the account does not have the slot or has another currency.
+     */
+    boolean creditSlot(Long accountId, int slot, BigDecimal amount, Currency currency);
+
+    /**
+     * Subtracts the amount from the whole balance of an account, gathered from its account row and all its slots, and
+     * spreads what is left evenly over its first slots. With no slots, what is left goes to the account row and the
+     * slots are deleted. It locks the account row and all the slots until the end of the database transaction, which
+     * it must be called within.
+     *
+     * @param accountId The unique identifier of the account.
+     * @param slots     The number of slots to spread the balance over, or 0 to merge the account.
+     * @param amount    The amount to subtract, which may be zero.
+     * @param currency  The {@link Currency} the account must have, or null if any currency will do.
+     * @return The number of slots the balance has been spread over, or -1 if the account does not exist, has another
+     * currency or a balance lower than the amount, in which case nothing has changed.
+     */
+    int rebalance(Long accountId, int slots, BigDecimal amount, Currency currency);
+
+    /**
+     * Merges every split account, adding the balances of its slots to its account row and deleting the slots. It must
+     * be called within a database transaction.
+     *
+     * @return The number of merged accounts.
+     */
+    int mergeAllSlots();
+
+    /**
+     * Tells whether any account is split into slots, without locking anything.
+     *
+     * @return True if at least one slot exists.
+     */
+    boolean hasSlots();
+
+    /**
+     * Appends the credit of the target account of a performed transaction to the credit journal and adds the
+     * transaction to the running totals of its source account. The balance and the running totals of the target account
+     * are left untouched until the credit is settled. It must be called within the database transaction that has
+     * debited the source account.
+     *
+     * @param transaction The performed {@link TransactionEntity}.
+     */
+    void journalTransfer(TransactionEntity transaction);
+
+    /**
+     * Settles the journaled credits of an account, adding them to its balance and running totals, and retrieves the
+     * account from the database afterward. It must be called within a database transaction.
+     *
+     * @param id The unique identifier of the account.
+     * @return An {@link Optional} containing the {@link AccountEntity}, or an empty Optional if not found.
+     */
+    Optional<AccountEntity> settleCreditsById(Long id);
+
+    /**
+     * Retrieves the accounts of the oldest journaled credits.
+     *
+     * @param limit The maximum number of credits to look at.
+     * @return The unique identifiers of the accounts, which is empty if no credit is journaled.
+     */
+    List<Long> getAccountsWithJournaledCredits(int limit);
+
+    /**
+     * Settles journaled credits of the given accounts, adding them to their balances and running totals. It must be
+     * called within a database transaction.
+     *
+     * @param accountIds The unique identifiers of the accounts.
+     * @param limit      The maximum number of credits to settle.
+     * @return The number of settled credits.
+     */
+    int settleCredits(Collection<Long> accountIds, int limit);
 }
@@ -1,11 +1,17 @@
 package org.agileactors.services.interfaces;
 
+import org.agileactors.dtos.TransactionBatchResultDto;
+import org.agileactors.dtos.TransactionPageDto;
+import org.agileactors.dtos.TransactionPageRequestDto;
+import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
 import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.BatchMode;
 
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Service interface for managing transaction-related operations.
@@ -19,6 +25,39 @@ public interface TransactionService {
      */
     void performTransaction(TransactionEntity transaction);
 
+    /**
+     * Performs a batch of transactions and reports the outcome of each one of them.
+     * Invalid or rejected items never fail the whole batch, unless the {@link BatchMode} is
+     * {@link BatchMode#ALL_OR_NOTHING}, in which case the valid items are rolled back.
+     *
+     * @param transactionRequests The {@link TransactionRequestDto} of every transaction of the batch.
+     * @param mode                The {@link BatchMode} of the batch.
+     * @return A {@link List} of {@link TransactionBatchResultDto}, one for every request in the same order.
+     */
+    List<TransactionBatchResultDto> performTransactions(List<TransactionRequestDto> transactionRequests, BatchMode mode);
+
+    /**
+     * Performs transactions that have been accepted for asynchronous processing and reports the outcome of each one of
+     * them, like a best-effort batch. Transactions carrying an idempotency key are performed one by one, like
+     * {@link #performTransaction(TransactionEntity)}, so a key that has already been used replays the original
+     * transaction.
+     * The outcome of a transaction is passed to the consumer as soon as it is known, so the outcomes of the transactions
+     * already committed are not lost when a later one fails unexpectedly.
+     *
+     * @param transactions   The {@link TransactionEntity} of every accepted transaction.
+     * @param resultConsumer The consumer of the {@link TransactionBatchResultDto} of every transaction.
+     * @return A {@link List} of {@link TransactionBatchResultDto}, one for every transaction in the same order.
+     */
+    List<TransactionBatchResultDto> performAcceptedTransactions(List<TransactionEntity> transactions, Consumer<TransactionBatchResultDto> resultConsumer);
+
+    /**
+     * Validates the idempotency key of a transaction.
+     *
+     * @param idempotencyKey The idempotency key, or null if the transaction has none.
+     * @throws org.agileactors.exceptions.InvalidIdempotencyKeyException when the idempotency key is blank or too long
+     */
+    void validateIdempotencyKey(String idempotencyKey);
+
     /**
      * Retrieves a {@link org.agileactors.dtos.TransactionResponseDto} by its unique identifier.
      *
@@ -28,9 +67,22 @@ public interface TransactionService {
     Optional<TransactionResponseDto> getTransaction(UUID id);
 
     /**
-     * Retrieves a list of all {@link TransactionResponseDto}.
+     * Retrieves a page of {@link TransactionResponseDto} matching the filters of the given page request.
+     *
+     * @param pageRequest The {@link TransactionPageRequestDto} with the filters, the cursor and the limit of the page.
+     * @return A {@link TransactionPageDto} with the transactions and the cursor of the next page.
+     */
+    TransactionPageDto getTransactions(TransactionPageRequestDto pageRequest);
+
+    /**
+     * Streams every {@link TransactionResponseDto} matching the filters of the given page request to the given consumer,
+     * in the order of {@link #getTransactions(TransactionPageRequestDto)}. The cursor is honored, so an export can
+     * start after a page already read with {@link #getTransactions(TransactionPageRequestDto)}, and the limit is not
+     * capped.
      *
-     * @return A {@link List} of {@link TransactionResponseDto}.
+     * @param pageRequest The {@link TransactionPageRequestDto} with the filters, the cursor and the limit of the export.
+     * @param consumer    The {@link Consumer} every {@link TransactionResponseDto} is passed to as soon as it is read.
+     * @return The number of exported transactions.
      */
-    List<TransactionResponseDto> getAllTransactions();
+    long exportTransactions(TransactionPageRequestDto pageRequest, Consumer<TransactionResponseDto> consumer);
 }
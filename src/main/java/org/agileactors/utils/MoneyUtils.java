@@ -0,0 +1,38 @@
+package org.agileactors.utils;
+
+import lombok.experimental.UtilityClass;
+import org.agileactors.enums.Currency;
+
+import java.math.BigDecimal;
+
+/**
+ * Utility class for converting amounts between {@link BigDecimal} and a {@code long} number of minor units of their
+ * {@link Currency}, e.g. cents. Minor units are added and compared without allocating, so they are used inside the
+ * ledger, while {@link BigDecimal} is kept at the API and in the database.
+ */
+@UtilityClass
+public class MoneyUtils {
+
+    /**
+     * Converts an amount to the number of minor units of its currency.
+     *
+     * @param amount   The amount.
+     * @param currency The {@link Currency} of the amount.
+     * @return The amount in minor units.
+     * @throws ArithmeticException when the amount has more decimal places than the currency, or does not fit in a long
+     */
+    public static long toMinorUnits(BigDecimal amount, Currency currency) {
+        return amount.movePointRight(currency.getFractionDigits()).longValueExact();
+    }
+
+    /**
+     * Converts a number of minor units to an amount with the scale of its currency.
+     *
+     * @param minorUnits The amount in minor units.
+     * @param currency   The {@link Currency} of the amount.
+     * @return The amount.
+     */
+    public static BigDecimal toAmount(long minorUnits, Currency currency) {
+        return BigDecimal.valueOf(minorUnits, currency.getFractionDigits());
+    }
+}
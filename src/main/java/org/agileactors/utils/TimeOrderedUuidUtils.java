@@ -0,0 +1,55 @@
+package org.agileactors.utils;
+
+import lombok.experimental.UtilityClass;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Utility class generating version 7 {@link UUID}s (RFC 9562), which start with the Unix time in milliseconds.
+ * Ids generated later compare greater, both as unsigned numbers and in the UUID columns of the database, so new rows
+ * are appended to the right edge of a primary key index instead of being scattered across it like random ids.
+ * The 12 bits after the version hold a counter that keeps the ids of one process strictly increasing within the same
+ * millisecond; when it overflows, the timestamp runs ahead of the clock by a millisecond. The remaining 62 bits are
+ * random, drawn without synchronization between threads.
+ */
+@UtilityClass
+public class TimeOrderedUuidUtils {
+    private static final int COUNTER_BITS = 12;
+    private static final AtomicLong LAST = new AtomicLong();
+
+    /**
+     * Generates a new time-ordered {@link UUID}.
+     *
+     * @return A version 7 UUID greater than every UUID generated before by this process.
+     */
+    public static UUID next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long last;
+        long stamp;
+        do {
+            last = LAST.get();
+            stamp = Math.max(now, last + 1);
+        } while (!LAST.compareAndSet(last, stamp));
+
+        long mostSignificantBits = (stamp >>> COUNTER_BITS) << 16 | 0x7000L | (stamp & 0xFFFL);
+        long leastSignificantBits = ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+
+    /**
+     * Extracts the time a version 7 {@link UUID} was generated at.
+     *
+     * @param id The UUID.
+     * @return The generation time, in milliseconds precision.
+     * @throws IllegalArgumentException when the UUID is not a version 7 UUID
+     */
+    public static Instant timestampOf(UUID id) {
+        if (id.version() != 7) {
+            throw new IllegalArgumentException("Not a time-ordered UUID: " + id);
+        }
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+}
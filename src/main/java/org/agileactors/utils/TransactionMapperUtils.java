@@ -1,11 +1,12 @@
 package org.agileactors.utils;
 
 import lombok.experimental.UtilityClass;
+import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
 import org.agileactors.entities.TransactionEntity;
 
 /**
- * Utility class for mapping transaction entities to transaction response DTOs.
+ * Utility class for mapping between transaction entities and transaction DTOs.
  */
 @UtilityClass
 public class TransactionMapperUtils {
@@ -26,4 +27,19 @@ public class TransactionMapperUtils {
                 transaction.getTransactionDate()
         );
     }
+
+    /**
+     * Maps a {@link TransactionRequestDto} to a new {@link TransactionEntity}.
+     *
+     * @param transactionRequest The {@link TransactionRequestDto} to be mapped.
+     * @return The corresponding {@link TransactionEntity}, which has not been persisted yet.
+     */
+    public static TransactionEntity mapTransactionRequestDtoToTransactionEntity(TransactionRequestDto transactionRequest) {
+        return TransactionEntity.builder()
+                .sourceAccountId(transactionRequest.getSourceAccountId())
+                .targetAccountId(transactionRequest.getTargetAccountId())
+                .amount(transactionRequest.getAmount())
+                .currency(transactionRequest.getCurrency())
+                .build();
+    }
 }
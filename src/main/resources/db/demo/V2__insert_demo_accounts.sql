@@ -0,0 +1,4 @@
+INSERT INTO ACCOUNT(id, balance, currency, created_at, version) VALUES (1, 1000, 'USD', CURRENT_TIMESTAMP, 0);
+INSERT INTO ACCOUNT(id, balance, currency, created_at, version) VALUES (2, 3000, 'EUR', CURRENT_TIMESTAMP, 0);
+INSERT INTO ACCOUNT(id, balance, currency, created_at, version) VALUES (3, 500, 'GBP', CURRENT_TIMESTAMP, 0);
+INSERT INTO ACCOUNT(id, balance, currency, created_at, version) VALUES (4, 15000, 'EUR', CURRENT_TIMESTAMP, 0);
\ No newline at end of file
@@ -0,0 +1,40 @@
+CREATE TABLE ACCOUNT (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    balance NUMERIC(38, 2) NOT NULL,
+    currency VARCHAR(255) NOT NULL CHECK (currency IN ('EUR', 'GBP', 'USD')),
+    created_at TIMESTAMP(6),
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE TRANSACTION (
+    id UUID NOT NULL,
+    source_account_id BIGINT NOT NULL,
+    target_account_id BIGINT NOT NULL,
+    amount NUMERIC(38, 2) NOT NULL,
+    currency VARCHAR(255) NOT NULL CHECK (currency IN ('EUR', 'GBP', 'USD')),
+    transaction_date TIMESTAMP(6),
+    idempotency_key VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT UK_TRANSACTION_IDEMPOTENCY_KEY UNIQUE (idempotency_key)
+);
+
+CREATE INDEX IDX_TRANSACTION_DATE_ID ON TRANSACTION (transaction_date, id);
+CREATE INDEX IDX_TRANSACTION_SOURCE_DATE_ID ON TRANSACTION (source_account_id, transaction_date, id);
+CREATE INDEX IDX_TRANSACTION_TARGET_DATE_ID ON TRANSACTION (target_account_id, transaction_date, id);
+
+CREATE TABLE ACCOUNT_STATS (
+    account_id BIGINT NOT NULL,
+    currency VARCHAR(255) NOT NULL CHECK (currency IN ('EUR', 'GBP', 'USD')),
+    incoming_count BIGINT NOT NULL,
+    total_in NUMERIC(38, 2) NOT NULL,
+    outgoing_count BIGINT NOT NULL,
+    total_out NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (account_id)
+);
+
+CREATE TABLE LEDGER_CHECKPOINT (
+    id INTEGER NOT NULL,
+    lsn BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
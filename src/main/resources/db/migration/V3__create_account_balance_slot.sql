@@ -0,0 +1,7 @@
+CREATE TABLE ACCOUNT_BALANCE_SLOT (
+    account_id BIGINT NOT NULL,
+    slot INTEGER NOT NULL,
+    currency VARCHAR(255) NOT NULL CHECK (currency IN ('EUR', 'GBP', 'USD')),
+    balance NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (account_id, slot)
+);
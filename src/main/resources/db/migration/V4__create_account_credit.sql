@@ -0,0 +1,9 @@
+CREATE TABLE ACCOUNT_CREDIT (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    account_id BIGINT NOT NULL,
+    currency VARCHAR(255) NOT NULL CHECK (currency IN ('EUR', 'GBP', 'USD')),
+    amount NUMERIC(38, 2) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX IDX_ACCOUNT_CREDIT_ACCOUNT ON ACCOUNT_CREDIT (account_id);
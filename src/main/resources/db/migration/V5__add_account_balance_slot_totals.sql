@@ -0,0 +1,4 @@
+ALTER TABLE ACCOUNT_BALANCE_SLOT ADD COLUMN incoming_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE ACCOUNT_BALANCE_SLOT ADD COLUMN total_in NUMERIC(38, 2) DEFAULT 0 NOT NULL;
+ALTER TABLE ACCOUNT_BALANCE_SLOT ADD COLUMN outgoing_count BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE ACCOUNT_BALANCE_SLOT ADD COLUMN total_out NUMERIC(38, 2) DEFAULT 0 NOT NULL;
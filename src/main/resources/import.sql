@@ -1,4 +0,0 @@
-INSERT INTO ACCOUNT(id, balance, currency, created_at) VALUES (1, 1000, 'USD', CURRENT_TIMESTAMP);
-INSERT INTO ACCOUNT(id, balance, currency, created_at) VALUES (2, 3000, 'EUR', CURRENT_TIMESTAMP);
-INSERT INTO ACCOUNT(id, balance, currency, created_at) VALUES (3, 500, 'GBP', CURRENT_TIMESTAMP);
-INSERT INTO ACCOUNT(id, balance, currency, created_at) VALUES (4, 15000, 'EUR', CURRENT_TIMESTAMP);
\ No newline at end of file
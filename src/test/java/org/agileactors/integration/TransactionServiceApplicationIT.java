@@ -3,16 +3,19 @@ package org.agileactors.integration;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 
 @SpringBootTest
+@AutoConfigureObservability(tracing = false)
 public class TransactionServiceApplicationIT {
     @Autowired
     private WebApplicationContext webApplicationContext;
@@ -25,4 +28,15 @@ public class TransactionServiceApplicationIT {
                 .andExpect(status().isOk())
                 .andExpect(content().string("{\"status\":\"UP\"}"));
     }
+
+    @SneakyThrows
+    @Test
+    void prometheusEndpointExportsTransactionHistograms() {
+        MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("transaction_stage_seconds_bucket{")))
+                .andExpect(content().string(containsString("transaction_outcomes_total{outcome=\"insufficient_balance\"")))
+                .andExpect(content().string(containsString("hikaricp_connections_usage_seconds_bucket{")));
+    }
 }
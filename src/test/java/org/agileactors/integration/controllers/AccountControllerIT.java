@@ -0,0 +1,144 @@
+package org.agileactors.integration.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.agileactors.dtos.TransactionRequestDto;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.AccountStatsEntityRepository;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+public class AccountControllerIT {
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TransactionEntityRepository transactionEntityRepository;
+
+    @Autowired
+    private AccountEntityRepository accountEntityRepository;
+
+    @Autowired
+    private AccountStatsEntityRepository accountStatsEntityRepository;
+
+    @BeforeEach
+    void setup(WebApplicationContext webApplicationContext) {
+        transactionEntityRepository.deleteAll();
+        accountStatsEntityRepository.deleteAll();
+        accountEntityRepository.deleteAll();
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testGetAccount_ReturnsBalanceAndTotals() {
+        accountEntityRepository.save(new AccountEntity(1L, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+        accountEntityRepository.save(new AccountEntity(2L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+
+        transfer(1L, 2L, "100.00");
+        transfer(1L, 2L, "50.00");
+        transfer(2L, 1L, "20.00");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(1)))
+                .andExpect(jsonPath("$.balance", is(870.0)))
+                .andExpect(jsonPath("$.currency", is("EUR")))
+                .andExpect(jsonPath("$.incomingCount", is(1)))
+                .andExpect(jsonPath("$.totalIn", is(20.0)))
+                .andExpect(jsonPath("$.outgoingCount", is(2)))
+                .andExpect(jsonPath("$.totalOut", is(150.0)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance", is(630.0)))
+                .andExpect(jsonPath("$.incomingCount", is(2)))
+                .andExpect(jsonPath("$.totalIn", is(150.0)))
+                .andExpect(jsonPath("$.outgoingCount", is(1)))
+                .andExpect(jsonPath("$.totalOut", is(20.0)));
+    }
+
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testGetAccount_WithoutTransactions() {
+        accountEntityRepository.save(new AccountEntity(1L, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance", is(1000.0)))
+                .andExpect(jsonPath("$.incomingCount", is(0)))
+                .andExpect(jsonPath("$.totalIn", is(0)))
+                .andExpect(jsonPath("$.outgoingCount", is(0)))
+                .andExpect(jsonPath("$.totalOut", is(0)));
+    }
+
+    @Test
+    @SneakyThrows
+    void testGetAccount_NotFound() {
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/42"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testGetAccountTransactions_PagesThroughHistory() {
+        accountEntityRepository.save(new AccountEntity(1L, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+        accountEntityRepository.save(new AccountEntity(2L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+        accountEntityRepository.save(new AccountEntity(3L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+
+        transfer(1L, 2L, "10.00");
+        transfer(2L, 3L, "20.00");
+        transfer(3L, 1L, "30.00");
+
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/accounts/1/transactions").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].amount", is(10.0)))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/1/transactions")
+                        .param("limit", "1")
+                        .param("cursor", first.getResponse().getHeader("X-Next-Cursor")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].amount", is(30.0)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    @SneakyThrows
+    void testGetAccountTransactions_NotFound() {
+        mockMvc.perform(MockMvcRequestBuilders.get("/accounts/42/transactions"))
+                .andExpect(status().isNotFound());
+    }
+
+    @SneakyThrows
+    private void transfer(Long sourceAccountId, Long targetAccountId, String amount) {
+        TransactionRequestDto requestDto = new TransactionRequestDto(sourceAccountId, targetAccountId, new BigDecimal(amount), Currency.EUR);
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(requestDto)))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,84 @@
+package org.agileactors.integration.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.agileactors.concurrency.AdaptiveConcurrencyLimiter;
+import org.agileactors.concurrency.LoadShedder;
+import org.agileactors.dtos.TransactionRequestDto;
+import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "transaction.admission.enabled=true",
+        "transaction.admission.retry-after=2s",
+        "transaction.admission.writes.initial-limit=1",
+        "transaction.admission.writes.min-limit=1",
+        "transaction.admission.writes.max-limit=1"
+})
+public class AdmissionControlTransactionControllerIT {
+    private MockMvc mockMvc;
+
+    @Autowired
+    private LoadShedder loadShedder;
+
+    @Autowired
+    private TransactionEntityRepository transactionEntityRepository;
+
+    @Autowired
+    private AccountEntityRepository accountEntityRepository;
+
+    @BeforeEach
+    void setup(WebApplicationContext webApplicationContext) {
+        transactionEntityRepository.deleteAll();
+        accountEntityRepository.deleteAll();
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+    }
+
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testMakeTransaction_ShedBeyondWriteLimit() {
+        String request = new ObjectMapper().writeValueAsString(new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR));
+
+        // The only write permit is held by a transfer in flight, reads have their own budget
+        try (AdaptiveConcurrencyLimiter.Permit ignored = loadShedder.admitWrite()) {
+            mockMvc.perform(MockMvcRequestBuilders.post("/transactions")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(request))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "2"));
+            mockMvc.perform(MockMvcRequestBuilders.get("/transactions/" + UUID.randomUUID()))
+                    .andExpect(status().isNotFound());
+        }
+
+        // Once the permit is released the transfer is admitted, and fails only because the accounts do not exist
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics/transaction.admission.rejected").param("tag", "budget:write"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", is(1.0)));
+        mockMvc.perform(MockMvcRequestBuilders.get("/actuator/metrics/transaction.admission.limit").param("tag", "budget:read"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[0].value", greaterThanOrEqualTo(8.0)));
+    }
+}
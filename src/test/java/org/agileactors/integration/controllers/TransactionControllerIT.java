@@ -3,6 +3,7 @@ package org.agileactors.integration.controllers;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.SneakyThrows;
 import org.agileactors.dtos.TransactionRequestDto;
+import org.agileactors.dtos.TransactionResponseDto;
 import org.agileactors.entities.AccountEntity;
 import org.agileactors.entities.TransactionEntity;
 import org.agileactors.enums.Currency;
@@ -15,15 +16,19 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.context.WebApplicationContext;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.UUID;
 
+import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
@@ -62,6 +67,31 @@ public class TransactionControllerIT {
                 .andExpect(content().string("Transaction successful"));
     }
 
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testMakeTransaction_IdempotencyKeyReturnsOriginalTransaction() {
+        accountEntityRepository.save(new AccountEntity(1L, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+        accountEntityRepository.save(new AccountEntity(2L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR);
+        String location = null;
+        for (int i = 0; i < 2; i++) {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.post("/transactions")
+                            .header("Idempotency-Key", "a3f1c1a0-retry")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(new ObjectMapper().writeValueAsString(requestDto)))
+                    .andExpect(status().isCreated())
+                    .andReturn();
+            String current = result.getResponse().getHeader("Location");
+            assertEquals(location == null ? current : location, current);
+            location = current;
+        }
+
+        assertEquals(1, transactionEntityRepository.count());
+        assertEquals(new BigDecimal("900.00"), accountEntityRepository.findById(1L).orElseThrow().getBalance());
+    }
+
     @Test
     @SneakyThrows
     void testMakeTransaction_returnsBadRequest_SameAccountTransfer() {
@@ -74,6 +104,19 @@ public class TransactionControllerIT {
                 .andExpect(content().string("Source and target accounts are the same."));
     }
 
+    @Test
+    @SneakyThrows
+    void testMakeTransaction_returnsBadRequest_AmountFinerThanCurrency() {
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("100.005"), Currency.EUR);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(requestDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("amount should have at most 15 integer digits and 2 decimal places"));
+        assertEquals(0, transactionEntityRepository.count());
+    }
+
     @Test
     @SneakyThrows
     void testMakeTransaction_returnsBadRequest_AccountNotFound() {
@@ -123,6 +166,100 @@ public class TransactionControllerIT {
                 .andExpect(content().string("Source and target account currencies should be the same as the transaction currency"));
     }
 
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testMakeTransactions_returnsItemOutcomes() {
+        AccountEntity sourceAccount = new AccountEntity(1L, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        accountEntityRepository.save(sourceAccount);
+
+        AccountEntity targetAccount = new AccountEntity(2L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        accountEntityRepository.save(targetAccount);
+
+        List<TransactionRequestDto> requestDtos = List.of(
+                new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(1L, 1L, new BigDecimal("100.00"), Currency.EUR));
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(requestDtos)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].status", is("CREATED")))
+                .andExpect(jsonPath("$[0].id", notNullValue()))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].status", is("REJECTED")))
+                .andExpect(jsonPath("$[1].errorCode", is("SAME_ACCOUNT")));
+    }
+
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testSubmitTransaction_CompletesAsynchronously() {
+        accountEntityRepository.save(new AccountEntity(1L, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+        accountEntityRepository.save(new AccountEntity(2L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR);
+        MvcResult submitted = mockMvc.perform(MockMvcRequestBuilders.post("/transactions/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(requestDto)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.status", is("PENDING")))
+                .andReturn();
+
+        MvcResult completed = awaitSubmission(submitted.getResponse().getHeader("Location"));
+        assertEquals(303, completed.getResponse().getStatus());
+        mockMvc.perform(MockMvcRequestBuilders.get(completed.getResponse().getHeader("Location")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount", is(100.00)));
+        assertEquals(new BigDecimal("900.00"), accountEntityRepository.findById(1L).orElseThrow().getBalance());
+    }
+
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testSubmitTransaction_RejectedAsynchronously() {
+        accountEntityRepository.save(new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+        accountEntityRepository.save(new AccountEntity(2L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("200.00"), Currency.EUR);
+        MvcResult submitted = mockMvc.perform(MockMvcRequestBuilders.post("/transactions/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(requestDto)))
+                .andExpect(status().isAccepted())
+                .andReturn();
+
+        MvcResult rejected = awaitSubmission(submitted.getResponse().getHeader("Location"));
+        assertEquals(200, rejected.getResponse().getStatus());
+        assertThat(rejected.getResponse().getContentAsString(), containsString("\"errorCode\":\"INSUFFICIENT_BALANCE\""));
+        assertEquals(0, transactionEntityRepository.count());
+    }
+
+    @Test
+    @SneakyThrows
+    void testSubmitTransaction_returnsBadRequest_InvalidRequest() {
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, null, Currency.EUR);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(requestDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().string("amount is required"));
+    }
+
+    @Test
+    @SneakyThrows
+    void testSubmitTransaction_returnsBadRequest_InvalidIdempotencyKey() {
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("10.00"), Currency.EUR);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/transactions/async")
+                        .header("Idempotency-Key", "k".repeat(TransactionEntity.IDEMPOTENCY_KEY_MAX_LENGTH + 1))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(new ObjectMapper().writeValueAsString(requestDto)))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @SneakyThrows
     void testGetAllTransactions_ReturnsEmptyList() {
@@ -167,6 +304,41 @@ public class TransactionControllerIT {
                 .andExpect(jsonPath("$[1].currency", is(transaction2.getCurrency().toString())));
     }
 
+    @Test
+    @SneakyThrows
+    @DirtiesContext
+    void testExportTransactions_StreamsNdjson() {
+        TransactionEntity transaction1 = TransactionEntity.builder()
+                .sourceAccountId(2L)
+                .targetAccountId(4L)
+                .amount(new BigDecimal("200.00"))
+                .currency(Currency.EUR)
+                .build();
+
+        TransactionEntity transaction2 = TransactionEntity.builder()
+                .sourceAccountId(1L)
+                .targetAccountId(3L)
+                .amount(new BigDecimal("400.00"))
+                .currency(Currency.GBP)
+                .build();
+
+        transactionEntityRepository.save(transaction1);
+        transactionEntityRepository.save(transaction2);
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/transactions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals(transaction1.getId(), new ObjectMapper().readValue(lines[0], TransactionResponseDto.class).getId());
+        assertEquals(transaction2.getId(), new ObjectMapper().readValue(lines[1], TransactionResponseDto.class).getId());
+    }
+
     @Test
     @SneakyThrows
     @DirtiesContext
@@ -190,4 +362,19 @@ public class TransactionControllerIT {
         mockMvc.perform(MockMvcRequestBuilders.get("/transactions/" + UUID.randomUUID()))
                 .andExpect(status().isNotFound());
     }
+
+    /**
+     * Polls the state of a submitted transaction until it is no longer pending.
+     */
+    @SneakyThrows
+    private MvcResult awaitSubmission(String location) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get(location)).andReturn();
+            if (result.getResponse().getStatus() != 202 || System.currentTimeMillis() > deadline) {
+                return result;
+            }
+            Thread.sleep(10);
+        }
+    }
 }
@@ -0,0 +1,99 @@
+package org.agileactors.integration.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.agileactors.dtos.TransactionRequestDto;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"transaction.virtual-threads.enabled=true", "spring.jpa.show-sql=false"})
+@EnabledForJreRange(min = JRE.JAVA_21)
+@DirtiesContext
+public class VirtualThreadTransactionControllerIT {
+    private static final int REQUESTS = 400;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ServletWebServerApplicationContext applicationContext;
+
+    @Autowired
+    private ExecutorService virtualThreadExecutor;
+
+    @Autowired
+    private TransactionEntityRepository transactionEntityRepository;
+
+    @Autowired
+    private AccountEntityRepository accountEntityRepository;
+
+    @BeforeEach
+    void setup() {
+        transactionEntityRepository.deleteAll();
+        accountEntityRepository.deleteAll();
+    }
+
+    @Test
+    void testTomcatServesRequestsOnVirtualThreads() throws Exception {
+        TomcatWebServer webServer = (TomcatWebServer) applicationContext.getWebServer();
+
+        assertSame(virtualThreadExecutor, webServer.getTomcat().getConnector().getProtocolHandler().getExecutor());
+        assertTrue(virtualThreadExecutor.submit(() -> Thread.currentThread().toString()).get().startsWith("VirtualThread"));
+    }
+
+    @Test
+    void testMakeTransaction_ManyConcurrentRequestsConserveBalance() throws Exception {
+        Long source = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("1000000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        Long target = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("0.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        String body = new ObjectMapper().writeValueAsString(new TransactionRequestDto(source, target, new BigDecimal("1.00"), Currency.EUR));
+
+        // More requests in flight than Tomcat has platform threads by default
+        HttpClient client = HttpClient.newBuilder().executor(virtualThreadExecutor).build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/transactions"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofString()));
+        }
+
+        int created = 0;
+        for (CompletableFuture<HttpResponse<String>> response : responses) {
+            int status = response.get().statusCode();
+            assertTrue(status == 201 || status == 503, "Unexpected status " + status);
+            created += status == 201 ? 1 : 0;
+        }
+
+        assertTrue(created > 0);
+        assertEquals(new BigDecimal("1000000.00").subtract(new BigDecimal(created)),
+                accountEntityRepository.findById(source).orElseThrow().getBalance());
+        assertEquals(new BigDecimal(created).setScale(2), accountEntityRepository.findById(target).orElseThrow().getBalance());
+        assertEquals(created, transactionEntityRepository.count());
+    }
+}
@@ -0,0 +1,230 @@
+package org.agileactors.integration.ledger;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.AccountStatsEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.enums.Currency;
+import org.agileactors.exceptions.InsufficientBalanceException;
+import org.agileactors.ledger.LedgerAccount;
+import org.agileactors.ledger.LedgerEngine;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.AccountStatsEntityRepository;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class LedgerEngineCrashRecoveryTestIT {
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @TempDir
+    private Path directory;
+
+    @Autowired
+    private AccountEntityRepository accountEntityRepository;
+    @Autowired
+    private TransactionEntityRepository transactionEntityRepository;
+    @Autowired
+    private AccountStatsEntityRepository accountStatsEntityRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionOperations transactionOperations;
+
+    private Long sourceAccountId;
+    private Long targetAccountId;
+
+    @BeforeEach
+    void setup() {
+        transactionEntityRepository.deleteAll();
+        accountStatsEntityRepository.deleteAll();
+        accountEntityRepository.deleteAll();
+        jdbcTemplate.update("DELETE FROM LEDGER_CHECKPOINT");
+        sourceAccountId = accountEntityRepository.save(new AccountEntity(null, INITIAL_BALANCE, Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        targetAccountId = accountEntityRepository.save(new AccountEntity(null, INITIAL_BALANCE, Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+    }
+
+    @Test
+    @DirtiesContext
+    void testStart_RecoversTransfersThatWereOnlyInTheLog() throws Exception {
+        LedgerEngine crashed = ledgerEngine();
+        crashed.start();
+        for (int i = 0; i < 50; i++) {
+            transfer(crashed, "10.00");
+        }
+
+        // The transfers are durable in the log, but have not been persisted to the database yet
+        assertEquals(0, transactionEntityRepository.count());
+        assertEquals(0, INITIAL_BALANCE.compareTo(balanceOf(sourceAccountId)));
+
+        // The ledger crashes without stopping, tearing the record it was writing
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().reduce((first, second) -> second).orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 1, 0, 42, 42, 42}, StandardOpenOption.APPEND);
+
+        LedgerEngine recovered = ledgerEngine();
+        recovered.start();
+
+        assertEquals(50, transactionEntityRepository.count());
+        assertEquals(0, new BigDecimal("500.00").compareTo(balanceOf(sourceAccountId)));
+        assertEquals(0, new BigDecimal("1500.00").compareTo(balanceOf(targetAccountId)));
+        assertEquals(50L, jdbcTemplate.queryForObject("SELECT lsn FROM LEDGER_CHECKPOINT WHERE id = 1", Long.class));
+
+        // The recovered ledger carries on from the recovered balances and log sequence numbers
+        transfer(recovered, "100.00");
+        recovered.stop();
+
+        assertEquals(51, transactionEntityRepository.count());
+        assertEquals(0, new BigDecimal("400.00").compareTo(balanceOf(sourceAccountId)));
+        assertEquals(0, new BigDecimal("1600.00").compareTo(balanceOf(targetAccountId)));
+        assertEquals(51L, jdbcTemplate.queryForObject("SELECT lsn FROM LEDGER_CHECKPOINT WHERE id = 1", Long.class));
+        AccountStatsEntity sourceStats = accountStatsEntityRepository.findById(sourceAccountId).orElseThrow();
+        assertEquals(51, sourceStats.getOutgoingCount());
+        assertEquals(0, new BigDecimal("600.00").compareTo(sourceStats.getTotalOut()));
+        AccountStatsEntity targetStats = accountStatsEntityRepository.findById(targetAccountId).orElseThrow();
+        assertEquals(51, targetStats.getIncomingCount());
+        assertEquals(0, new BigDecimal("600.00").compareTo(targetStats.getTotalIn()));
+        assertEquals(0, targetStats.getOutgoingCount());
+    }
+
+    @Test
+    @DirtiesContext
+    void testStart_RecoversShardedTransfers() throws Exception {
+        List<Long> payerIds = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            payerIds.add(accountEntityRepository.save(new AccountEntity(null, INITIAL_BALANCE, Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId());
+        }
+        LedgerEngine crashed = ledgerEngine(ConcurrencyMode.SHARDED);
+        crashed.start();
+
+        // Every payer pays the same merchant account concurrently, most of them from another shard
+        List<CompletableFuture<Void>> transfers = new ArrayList<>();
+        for (int round = 0; round < 20; round++) {
+            for (Long payerId : payerIds) {
+                TransactionEntity transaction = transaction(payerId, targetAccountId, "10.00");
+                transfers.add(crashed.submit(transaction, -1, LedgerEngineCrashRecoveryTestIT::validate));
+            }
+        }
+        // More than the balance of the payer, so it is rejected on the source shard without changing anything
+        CompletableFuture<Void> rejected = crashed.submit(transaction(sourceAccountId, targetAccountId, "5000.00"), -1, LedgerEngineCrashRecoveryTestIT::validate);
+        CompletableFuture.allOf(transfers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> rejected.get(30, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientBalanceException.class, exception.getCause());
+        assertEquals(0, transactionEntityRepository.count());
+
+        LedgerEngine recovered = ledgerEngine(ConcurrencyMode.SHARDED);
+        recovered.start();
+        recovered.stop();
+
+        assertEquals(140, transactionEntityRepository.count());
+        assertEquals(0, new BigDecimal("2400.00").compareTo(balanceOf(targetAccountId)));
+        assertEquals(0, INITIAL_BALANCE.compareTo(balanceOf(sourceAccountId)));
+        for (Long payerId : payerIds) {
+            assertEquals(0, new BigDecimal("800.00").compareTo(balanceOf(payerId)));
+            assertEquals(20, accountStatsEntityRepository.findById(payerId).orElseThrow().getOutgoingCount());
+        }
+        assertEquals(140, accountStatsEntityRepository.findById(targetAccountId).orElseThrow().getIncomingCount());
+        assertTrue(accountStatsEntityRepository.findById(sourceAccountId).isEmpty());
+    }
+
+    @Test
+    @DirtiesContext
+    void testRunAtomically_FailedUnitOfWorkIsUndone() {
+        LedgerEngine ledgerEngine = ledgerEngine();
+        ledgerEngine.start();
+
+        assertThrows(IllegalStateException.class, () -> ledgerEngine.runAtomically(() -> {
+            ledgerEngine.transfer(transaction("10.00"), -1, LedgerEngineCrashRecoveryTestIT::validate);
+            throw new IllegalStateException("Failed after the transfer");
+        }));
+        transfer(ledgerEngine, "20.00");
+        ledgerEngine.stop();
+
+        assertEquals(1, transactionEntityRepository.count());
+        assertEquals(0, new BigDecimal("980.00").compareTo(balanceOf(sourceAccountId)));
+        assertEquals(0, new BigDecimal("1020.00").compareTo(balanceOf(targetAccountId)));
+        assertEquals(1L, jdbcTemplate.queryForObject("SELECT lsn FROM LEDGER_CHECKPOINT WHERE id = 1", Long.class));
+    }
+
+    @Test
+    @DirtiesContext
+    void testStart_RejectsLogOfAnotherDatabase() {
+        LedgerEngine ledgerEngine = ledgerEngine();
+        ledgerEngine.start();
+        transfer(ledgerEngine, "10.00");
+        ledgerEngine.stop();
+
+        jdbcTemplate.update("DELETE FROM LEDGER_CHECKPOINT");
+
+        assertThrows(IllegalStateException.class, () -> ledgerEngine().start());
+    }
+
+    private LedgerEngine ledgerEngine() {
+        return ledgerEngine(ConcurrencyMode.LEDGER);
+    }
+
+    private LedgerEngine ledgerEngine(ConcurrencyMode mode) {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getConcurrency().setMode(mode);
+        properties.getLedger().setShards(4);
+        properties.getLedger().setDirectory(directory);
+        properties.getLedger().setFlushInterval(Duration.ofHours(1));
+        return new LedgerEngine(properties, accountEntityRepository, transactionEntityRepository, jdbcTemplate, transactionOperations, new SimpleMeterRegistry());
+    }
+
+    private void transfer(LedgerEngine ledgerEngine, String amount) {
+        TransactionEntity transaction = transaction(amount);
+        ledgerEngine.runAtomically(() -> ledgerEngine.transfer(transaction, -1, LedgerEngineCrashRecoveryTestIT::validate));
+        assertNotNull(transaction.getId());
+    }
+
+    private TransactionEntity transaction(String amount) {
+        return transaction(sourceAccountId, targetAccountId, amount);
+    }
+
+    private static TransactionEntity transaction(Long sourceAccountId, Long targetAccountId, String amount) {
+        return TransactionEntity.builder()
+                .sourceAccountId(sourceAccountId)
+                .targetAccountId(targetAccountId)
+                .amount(new BigDecimal(amount))
+                .currency(Currency.EUR)
+                .build();
+    }
+
+    private static void validate(TransactionEntity transaction, long amount, LedgerAccount sourceAccount, LedgerAccount targetAccount) {
+        assertNotNull(targetAccount);
+        if (sourceAccount.getBalance() < amount) {
+            throw new InsufficientBalanceException("Insufficient balance for the transaction");
+        }
+    }
+
+    private BigDecimal balanceOf(Long accountId) {
+        return accountEntityRepository.findDetachedById(accountId).orElseThrow().getBalance();
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
@@ -24,6 +25,9 @@ public class AccountServiceTestIT {
     @Autowired
     private AccountEntityRepository accountEntityRepository;
 
+    @Autowired
+    private TransactionOperations transactionOperations;
+
     @BeforeEach
     void before() {
         accountEntityRepository.deleteAll();
@@ -65,4 +69,23 @@ public class AccountServiceTestIT {
         assertTrue(updatedAccount.isPresent());
         assertEquals(newBalance, updatedAccount.get().getBalance());
     }
+
+    @Test
+    @DirtiesContext
+    void testUpdateAccountBalance_CacheOnlySeesCommittedBalances() {
+        Long accountId = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        accountService.getAccountById(accountId);
+
+        transactionOperations.executeWithoutResult(status -> {
+            accountService.updateAccountBalance(accountService.getAccountById(accountId).orElseThrow(), new BigDecimal("900.00"));
+            assertEquals(new BigDecimal("900.00"), accountService.getAccountById(accountId).orElseThrow().getBalance());
+            status.setRollbackOnly();
+        });
+        assertEquals(new BigDecimal("1000.00"), accountService.getAccountById(accountId).orElseThrow().getBalance());
+
+        transactionOperations.executeWithoutResult(status ->
+                accountService.updateAccountBalance(accountService.getAccountById(accountId).orElseThrow(), new BigDecimal("800.00")));
+        assertEquals(new BigDecimal("800.00"), accountService.getAccountById(accountId).orElseThrow().getBalance());
+        assertEquals(0, new BigDecimal("800.00").compareTo(accountEntityRepository.findById(accountId).orElseThrow().getBalance()));
+    }
 }
@@ -0,0 +1,7 @@
+package org.agileactors.integration.services;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "transaction.concurrency.mode=ATOMIC")
+public class AtomicTransactionServiceTestIT extends TransactionServiceTestIT {
+}
@@ -0,0 +1,105 @@
+package org.agileactors.integration.services;
+
+import org.agileactors.concurrency.CreditAggregator;
+import org.agileactors.dtos.AccountResponseDto;
+import org.agileactors.exceptions.InsufficientBalanceException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "transaction.concurrency.mode=LOCKING",
+        "transaction.credit-journal.enabled=true",
+        // The credits are settled by the tests, so they know which ones are still journaled
+        "transaction.credit-journal.flush-interval=1h",
+        "transaction.credit-journal.batch-size=100"
+})
+public class CreditJournalTransactionServiceTestIT extends MerchantPaymentsTestIT {
+    @Autowired
+    private CreditAggregator creditAggregator;
+
+    @Test
+    @DirtiesContext
+    void testPerformTransaction_CreditsAreSettledWhileTransfersRun() throws Exception {
+        Long merchantId = createAccount(BigDecimal.ZERO);
+        List<Long> payerIds = createPayers(PAYERS);
+
+        // The payers keep paying the merchant, which pays some of them back, while the credits are being settled
+        AtomicBoolean transferring = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> aggregation = executor.submit(() -> {
+            while (transferring.get()) {
+                creditAggregator.aggregate();
+                Thread.sleep(10);
+            }
+            return null;
+        });
+        int successful;
+        try {
+            successful = payMerchant(merchantId, payerIds);
+        } finally {
+            transferring.set(false);
+        }
+        aggregation.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        // The journaled credits are part of the balances and totals before they are settled
+        List<Long> accountIds = new ArrayList<>(payerIds);
+        accountIds.add(merchantId);
+        assertBalancesMatchTotals(accountIds, successful);
+
+        creditAggregator.aggregate();
+
+        assertEquals(0, accountCreditEntityRepository.count());
+        assertBalancesMatchTotals(accountIds, successful);
+        for (Long accountId : accountIds) {
+            BigDecimal balance = accountEntityRepository.findDetachedById(accountId).orElseThrow().getBalance();
+            assertEquals(0, balance.compareTo(accountService.getAccount(accountId).orElseThrow().getBalance()));
+        }
+    }
+
+    @Test
+    @DirtiesContext
+    void testPerformTransaction_DebitSettlesJournaledCredits() {
+        Long payerId = createAccount(INITIAL_BALANCE);
+        Long merchantId = createAccount(BigDecimal.ZERO);
+        for (int i = 0; i < 5; i++) {
+            transactionService.performTransaction(transaction(payerId, merchantId, "10.00"));
+        }
+
+        // The merchant row has not been touched, its balance is held by the journal
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountEntityRepository.findDetachedById(merchantId).orElseThrow().getBalance()));
+        assertEquals(5, accountCreditEntityRepository.count());
+        AccountResponseDto merchant = accountService.getAccount(merchantId).orElseThrow();
+        assertEquals(0, new BigDecimal("50.00").compareTo(merchant.getBalance()));
+        assertEquals(5, merchant.getIncomingCount());
+
+        // The row balance is too low for the debit, so the journaled credits are settled first
+        transactionService.performTransaction(transaction(merchantId, payerId, "30.00"));
+
+        assertEquals(0, new BigDecimal("20.00").compareTo(accountEntityRepository.findDetachedById(merchantId).orElseThrow().getBalance()));
+        assertEquals(1, accountCreditEntityRepository.count());
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.performTransaction(transaction(merchantId, payerId, "20.01")));
+
+        creditAggregator.aggregate();
+
+        assertEquals(0, accountCreditEntityRepository.count());
+        assertEquals(0, new BigDecimal("980.00").compareTo(accountService.getAccount(payerId).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("980.00").compareTo(accountEntityRepository.findDetachedById(payerId).orElseThrow().getBalance()));
+        assertEquals(6, transactionEntityRepository.count());
+    }
+}
@@ -0,0 +1,7 @@
+package org.agileactors.integration.services;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = "transaction.group-commit.enabled=true")
+public class GroupCommitTransactionServiceConcurrencyTestIT extends TransactionServiceConcurrencyTestIT {
+}
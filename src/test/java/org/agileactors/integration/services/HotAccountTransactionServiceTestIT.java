@@ -0,0 +1,169 @@
+package org.agileactors.integration.services;
+
+import org.agileactors.concurrency.HotAccountSplitter;
+import org.agileactors.dtos.AccountResponseDto;
+import org.agileactors.entities.AccountBalanceSlotEntity;
+import org.agileactors.exceptions.InsufficientBalanceException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "transaction.concurrency.mode=ATOMIC",
+        "transaction.hot-accounts.enabled=true",
+        "transaction.hot-accounts.slots=" + HotAccountTransactionServiceTestIT.SLOTS,
+        "transaction.hot-accounts.threshold=50",
+        // The windows are ended by the tests, so they know which accounts are split
+        "transaction.hot-accounts.window=1h"
+})
+public class HotAccountTransactionServiceTestIT extends MerchantPaymentsTestIT {
+    static final int SLOTS = 4;
+
+    @Autowired
+    private HotAccountSplitter hotAccountSplitter;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DirtiesContext
+    void testPerformTransaction_HotAccountIsSplitAndMergedBack() throws Exception {
+        Long merchantId = createAccount(BigDecimal.ZERO);
+        List<Long> payerIds = createPayers(PAYERS);
+        for (int i = 0; i < 100; i++) {
+            transactionService.performTransaction(transaction(payerIds.get(i % PAYERS), merchantId, "1.00"));
+        }
+
+        hotAccountSplitter.detect();
+
+        // Only the merchant took part in enough transfers, its balance is now spread over its slots
+        assertTrue(hotAccountSplitter.isSplit(merchantId));
+        payerIds.forEach(payerId -> assertFalse(hotAccountSplitter.isSplit(payerId)));
+        assertEquals(List.of("25.00", "25.00", "25.00", "25.00"), slotBalances(merchantId));
+        assertEquals(0, BigDecimal.ZERO.compareTo(accountEntityRepository.findDetachedById(merchantId).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("100.00").compareTo(accountService.getAccount(merchantId).orElseThrow().getBalance()));
+
+        // The payers keep paying the merchant, which pays some of them back
+        int successful = 100 + payMerchant(merchantId, payerIds);
+
+        List<Long> accountIds = new ArrayList<>(payerIds);
+        accountIds.add(merchantId);
+        assertBalancesMatchTotals(accountIds, successful);
+        slotBalances(merchantId).forEach(balance -> assertTrue(new BigDecimal(balance).signum() >= 0));
+
+        // The merchant is still hot when the window of the payments ends, and cools down without transfers in the next
+        BigDecimal merchantBalance = accountService.getAccount(merchantId).orElseThrow().getBalance();
+        hotAccountSplitter.detect();
+        assertTrue(hotAccountSplitter.isSplit(merchantId));
+        hotAccountSplitter.detect();
+
+        assertFalse(hotAccountSplitter.isSplit(merchantId));
+        assertTrue(slotBalances(merchantId).isEmpty());
+        assertEquals(0, merchantBalance.compareTo(accountEntityRepository.findDetachedById(merchantId).orElseThrow().getBalance()));
+        assertBalancesMatchTotals(accountIds, successful);
+    }
+
+    @Test
+    @DirtiesContext
+    void testPerformTransaction_DebitGathersWholeBalanceOfSplitAccount() {
+        Long payerId = createAccount(INITIAL_BALANCE);
+        Long merchantId = createAccount(BigDecimal.ZERO);
+        for (int i = 0; i < 50; i++) {
+            transactionService.performTransaction(transaction(payerId, merchantId, "2.00"));
+        }
+        hotAccountSplitter.detect();
+        assertEquals(List.of("25.00", "25.00", "25.00", "25.00"), slotBalances(merchantId));
+
+        // No slot holds 60.00, so the debit gathers the whole balance and spreads what is left
+        transactionService.performTransaction(transaction(merchantId, payerId, "60.00"));
+
+        assertEquals(List.of("10.00", "10.00", "10.00", "10.00"), slotBalances(merchantId));
+        assertEquals(0, new BigDecimal("40.00").compareTo(accountService.getAccount(merchantId).orElseThrow().getBalance()));
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> transactionService.performTransaction(transaction(merchantId, payerId, "40.01")));
+
+        assertEquals(List.of("10.00", "10.00", "10.00", "10.00"), slotBalances(merchantId));
+        assertEquals(0, new BigDecimal("960.00").compareTo(accountService.getAccount(payerId).orElseThrow().getBalance()));
+        assertEquals(51, transactionEntityRepository.count());
+    }
+
+    @Test
+    @DirtiesContext
+    void testPerformTransaction_PaymentsToSplitAccountDoNotWaitForEachOther() throws Exception {
+        Long merchantId = createAccount(BigDecimal.ZERO);
+        List<Long> payerIds = createPayers(SLOTS);
+        for (int i = 0; i < 100; i++) {
+            transactionService.performTransaction(transaction(payerIds.get(i % SLOTS), merchantId, "1.00"));
+        }
+        hotAccountSplitter.detect();
+        assertTrue(hotAccountSplitter.isSplit(merchantId));
+
+        // A payment stays in flight, holding the locks of the rows it has updated until it commits
+        CountDownLatch paid = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(SLOTS);
+        Future<?> inFlight = executor.submit(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionService.performTransaction(transaction(payerIds.get(0), merchantId, "1.00"));
+            paid.countDown();
+            try {
+                released.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(paid.await(10, TimeUnit.SECONDS));
+
+        // The other payments credit the other slots and add their totals there, neither waits for the payment in flight
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 1; i < SLOTS; i++) {
+            Long payerId = payerIds.get(i);
+            futures.add(executor.submit(() -> transactionService.performTransaction(transaction(payerId, merchantId, "1.00"))));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            released.countDown();
+            inFlight.get(10, TimeUnit.SECONDS);
+            executor.shutdown();
+        }
+
+        // The statistics row of the merchant has not been touched since the split
+        assertEquals(100, accountStatsEntityRepository.findById(merchantId).orElseThrow().getIncomingCount());
+        AccountResponseDto merchant = accountService.getAccount(merchantId).orElseThrow();
+        assertEquals(100 + SLOTS, merchant.getIncomingCount());
+        assertEquals(0, new BigDecimal(100 + SLOTS).compareTo(merchant.getTotalIn()));
+        assertEquals(0, new BigDecimal(100 + SLOTS).compareTo(merchant.getBalance()));
+
+        // Merging the merchant back keeps the totals of its slots
+        hotAccountSplitter.detect();
+        hotAccountSplitter.detect();
+        assertFalse(hotAccountSplitter.isSplit(merchantId));
+        assertEquals(100 + SLOTS, accountStatsEntityRepository.findById(merchantId).orElseThrow().getIncomingCount());
+        assertEquals(merchant.getIncomingCount(), accountService.getAccount(merchantId).orElseThrow().getIncomingCount());
+    }
+
+    private List<String> slotBalances(Long accountId) {
+        return accountBalanceSlotEntityRepository.findAll().stream()
+                .filter(slot -> slot.getAccountId().equals(accountId))
+                .sorted((first, second) -> Integer.compare(first.getSlot(), second.getSlot()))
+                .map(AccountBalanceSlotEntity::getBalance)
+                .map(BigDecimal::toPlainString)
+                .toList();
+    }
+}
@@ -0,0 +1,19 @@
+package org.agileactors.integration.services;
+
+import org.agileactors.ledger.LedgerEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "transaction.concurrency.mode=LEDGER",
+        "transaction.ledger.directory=${java.io.tmpdir}/ledger-${random.uuid}"
+})
+public class LedgerTransactionServiceConcurrencyTestIT extends TransactionServiceConcurrencyTestIT {
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Override
+    protected void awaitPersisted() {
+        ledgerEngine.flush();
+    }
+}
@@ -0,0 +1,136 @@
+package org.agileactors.integration.services;
+
+import org.agileactors.dtos.AccountResponseDto;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.exceptions.ConcurrentUpdateException;
+import org.agileactors.exceptions.InsufficientBalanceException;
+import org.agileactors.repositories.AccountBalanceSlotEntityRepository;
+import org.agileactors.repositories.AccountCreditEntityRepository;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.AccountStatsEntityRepository;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.agileactors.services.interfaces.AccountService;
+import org.agileactors.services.interfaces.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Payers paying a single merchant account, which pays some of them back, for the modes that relieve hot accounts.
+ */
+public abstract class MerchantPaymentsTestIT {
+    protected static final int PAYERS = 8;
+    protected static final int TRANSFERS = 2_000;
+    protected static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    protected TransactionService transactionService;
+    @Autowired
+    protected AccountService accountService;
+    @Autowired
+    protected TransactionEntityRepository transactionEntityRepository;
+    @Autowired
+    protected AccountEntityRepository accountEntityRepository;
+    @Autowired
+    protected AccountStatsEntityRepository accountStatsEntityRepository;
+    @Autowired
+    protected AccountBalanceSlotEntityRepository accountBalanceSlotEntityRepository;
+    @Autowired
+    protected AccountCreditEntityRepository accountCreditEntityRepository;
+
+    @BeforeEach
+    void setup() {
+        transactionEntityRepository.deleteAll();
+        accountStatsEntityRepository.deleteAll();
+        accountBalanceSlotEntityRepository.deleteAll();
+        accountCreditEntityRepository.deleteAll();
+        accountEntityRepository.deleteAll();
+    }
+
+    protected List<Long> createPayers(int payers) {
+        List<Long> payerIds = new ArrayList<>();
+        for (int i = 0; i < payers; i++) {
+            payerIds.add(createAccount(INITIAL_BALANCE));
+        }
+        return payerIds;
+    }
+
+    /**
+     * Runs {@link #TRANSFERS} concurrent transfers: the payers pay the merchant, which pays some of them back.
+     *
+     * @return The number of transfers that have been performed.
+     */
+    protected int payMerchant(Long merchantId, List<Long> payerIds) throws Exception {
+        AtomicInteger successful = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                Long payerId = payerIds.get(random.nextInt(payerIds.size()));
+                TransactionEntity transaction = random.nextInt(10) < 7
+                        ? transaction(payerId, merchantId, String.valueOf(1 + random.nextInt(10)))
+                        : transaction(merchantId, payerId, String.valueOf(1 + random.nextInt(50)));
+                try {
+                    transactionService.performTransaction(transaction);
+                    successful.incrementAndGet();
+                } catch (InsufficientBalanceException | ConcurrentUpdateException ignored) {
+                    // Rejected transfers must leave both balances untouched
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return successful.get();
+    }
+
+    /**
+     * Asserts that no money has been created or lost and that the totals of the accounts add up to their balances,
+     * given that {@link #PAYERS} payers started with {@link #INITIAL_BALANCE} and the other accounts with nothing.
+     */
+    protected void assertBalancesMatchTotals(List<Long> accountIds, int transactions) {
+        BigDecimal total = BigDecimal.ZERO;
+        long incoming = 0;
+        for (Long accountId : accountIds) {
+            AccountResponseDto account = accountService.getAccount(accountId).orElseThrow();
+            BigDecimal initialBalance = account.getBalance().subtract(account.getTotalIn()).add(account.getTotalOut());
+            assertTrue(account.getBalance().signum() >= 0);
+            assertTrue(accountEntityRepository.findDetachedById(accountId).orElseThrow().getBalance().signum() >= 0);
+            assertTrue(initialBalance.compareTo(BigDecimal.ZERO) == 0 || initialBalance.compareTo(INITIAL_BALANCE) == 0);
+            total = total.add(account.getBalance());
+            incoming += account.getIncomingCount();
+        }
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(PAYERS)).compareTo(total));
+        assertEquals(transactions, incoming);
+        assertEquals(transactions, transactionEntityRepository.count());
+    }
+
+    protected Long createAccount(BigDecimal balance) {
+        return accountEntityRepository.save(new AccountEntity(null, balance, Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+    }
+
+    protected static TransactionEntity transaction(Long sourceAccountId, Long targetAccountId, String amount) {
+        return TransactionEntity.builder()
+                .sourceAccountId(sourceAccountId)
+                .targetAccountId(targetAccountId)
+                .amount(new BigDecimal(amount))
+                .currency(Currency.EUR)
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package org.agileactors.integration.services;
+
+import org.agileactors.ledger.LedgerEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(properties = {
+        "transaction.concurrency.mode=SHARDED",
+        "transaction.ledger.shards=4",
+        "transaction.ledger.directory=${java.io.tmpdir}/ledger-${random.uuid}"
+})
+public class ShardedTransactionServiceConcurrencyTestIT extends TransactionServiceConcurrencyTestIT {
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Override
+    protected void awaitPersisted() {
+        ledgerEngine.flush();
+    }
+}
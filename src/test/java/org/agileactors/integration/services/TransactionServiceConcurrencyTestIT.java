@@ -0,0 +1,113 @@
+package org.agileactors.integration.services;
+
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.AccountStatsEntity;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.exceptions.ConcurrentUpdateException;
+import org.agileactors.exceptions.InsufficientBalanceException;
+import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.AccountStatsEntityRepository;
+import org.agileactors.repositories.TransactionEntityRepository;
+import org.agileactors.services.interfaces.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+public class TransactionServiceConcurrencyTestIT {
+    private static final int ACCOUNTS = 8;
+    private static final int TRANSFERS = 4_000;
+    private static final BigDecimal INITIAL_BALANCE = new BigDecimal("1000.00");
+
+    @Autowired
+    private TransactionService transactionService;
+    @Autowired
+    private TransactionEntityRepository transactionEntityRepository;
+    @Autowired
+    private AccountEntityRepository accountEntityRepository;
+    @Autowired
+    private AccountStatsEntityRepository accountStatsEntityRepository;
+
+    @BeforeEach
+    void setup() {
+        transactionEntityRepository.deleteAll();
+        accountStatsEntityRepository.deleteAll();
+        accountEntityRepository.deleteAll();
+    }
+
+    @Test
+    @DirtiesContext
+    void testPerformTransaction_ConcurrentTransfersConserveBalance() throws Exception {
+        List<Long> accountIds = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            AccountEntity account = new AccountEntity(null, INITIAL_BALANCE, Currency.EUR, new Timestamp(System.currentTimeMillis()));
+            accountIds.add(accountEntityRepository.save(account).getId());
+        }
+
+        AtomicInteger successful = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < TRANSFERS; i++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int source = random.nextInt(ACCOUNTS);
+                int target = (source + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                TransactionEntity transaction = TransactionEntity.builder()
+                        .sourceAccountId(accountIds.get(source))
+                        .targetAccountId(accountIds.get(target))
+                        .amount(BigDecimal.valueOf(1 + random.nextInt(100)))
+                        .currency(Currency.EUR)
+                        .build();
+                try {
+                    transactionService.performTransaction(transaction);
+                    successful.incrementAndGet();
+                } catch (InsufficientBalanceException | ConcurrentUpdateException ignored) {
+                    // Rejected transfers must leave both balances untouched
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        awaitPersisted();
+
+        List<AccountEntity> accounts = accountEntityRepository.findAllById(accountIds);
+        BigDecimal total = accounts.stream().map(AccountEntity::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)).compareTo(total));
+        accounts.forEach(account -> assertTrue(account.getBalance().signum() >= 0));
+        assertEquals(successful.get(), transactionEntityRepository.count());
+
+        // The running totals of every account add up to its balance, and count every transaction once on each side
+        Map<Long, AccountStatsEntity> stats = accountStatsEntityRepository.findAllById(accountIds).stream()
+                .collect(Collectors.toMap(AccountStatsEntity::getAccountId, Function.identity()));
+        for (AccountEntity account : accounts) {
+            AccountStatsEntity accountStats = stats.get(account.getId());
+            assertEquals(0, INITIAL_BALANCE.add(accountStats.getTotalIn()).subtract(accountStats.getTotalOut()).compareTo(account.getBalance()));
+        }
+        assertEquals(successful.get(), stats.values().stream().mapToLong(AccountStatsEntity::getIncomingCount).sum());
+        assertEquals(successful.get(), stats.values().stream().mapToLong(AccountStatsEntity::getOutgoingCount).sum());
+    }
+
+    /**
+     * Waits until the performed transactions have been persisted to the database, for modes that persist them
+     * asynchronously.
+     */
+    protected void awaitPersisted() {
+    }
+}
@@ -1,10 +1,20 @@
 package org.agileactors.integration.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import org.agileactors.dtos.IdempotencyRecord;
+import org.agileactors.dtos.TransactionBatchResultDto;
+import org.agileactors.dtos.TransactionPageDto;
+import org.agileactors.dtos.TransactionPageRequestDto;
+import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
 import org.agileactors.entities.AccountEntity;
 import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.BatchItemStatus;
+import org.agileactors.enums.BatchMode;
 import org.agileactors.enums.Currency;
+import org.agileactors.enums.TransactionErrorCode;
 import org.agileactors.exceptions.CurrencyMismatchException;
+import org.agileactors.exceptions.IdempotencyKeyReusedException;
 import org.agileactors.exceptions.InsufficientBalanceException;
 import org.agileactors.exceptions.SameAccountTransferException;
 import org.agileactors.repositories.AccountEntityRepository;
@@ -19,9 +29,13 @@ import org.springframework.test.annotation.DirtiesContext;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,6 +49,8 @@ public class TransactionServiceTestIT {
     private TransactionEntityRepository transactionEntityRepository;
     @Autowired
     private AccountEntityRepository accountEntityRepository;
+    @Autowired
+    private Cache<String, IdempotencyRecord> idempotencyCache;
 
     @BeforeEach
     void setup() {
@@ -42,6 +58,56 @@ public class TransactionServiceTestIT {
         transactionEntityRepository.deleteAll();
     }
 
+    @Test
+    @DirtiesContext
+    void testPerformTransaction_IdempotencyKeyPerformsTransactionOnce() throws Exception {
+        Long source = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("1000.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        Long target = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+
+        // Concurrent retries of the same request
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<UUID>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                TransactionEntity transaction = idempotentTransaction(source, target);
+                transactionService.performTransaction(transaction);
+                return transaction.getId();
+            }));
+        }
+        executor.shutdown();
+        UUID originalId = futures.get(0).get();
+        for (Future<UUID> future : futures) {
+            assertEquals(originalId, future.get());
+        }
+
+        // A retry once the key is no longer in memory, e.g. after a restart
+        idempotencyCache.invalidateAll();
+        TransactionEntity retry = idempotentTransaction(source, target);
+        transactionService.performTransaction(retry);
+
+        assertEquals(originalId, retry.getId());
+
+        // Another request reusing the key, looked up in the database
+        idempotencyCache.invalidateAll();
+        TransactionEntity reused = idempotentTransaction(source, target);
+        reused.setAmount(new BigDecimal("50.00"));
+        assertThrows(IdempotencyKeyReusedException.class, () -> transactionService.performTransaction(reused));
+
+        assertEquals(1, transactionEntityRepository.count());
+        assertEquals(new BigDecimal("900.00"), accountEntityRepository.findById(source).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("600.00"), accountEntityRepository.findById(target).orElseThrow().getBalance());
+    }
+
+    private static TransactionEntity idempotentTransaction(Long source, Long target) {
+        return TransactionEntity.builder()
+                .sourceAccountId(source)
+                .targetAccountId(target)
+                .amount(new BigDecimal("100.00"))
+                .currency(Currency.EUR)
+                .idempotencyKey("retried-transaction")
+                .build();
+    }
+
     @Test
     @DirtiesContext
     void testPerformTransaction_Successful() {
@@ -74,6 +140,7 @@ public class TransactionServiceTestIT {
         assertEquals(transaction.getSourceAccountId(), savedTransaction.get().getSourceAccountId());
         assertEquals(transaction.getTargetAccountId(), savedTransaction.get().getTargetAccountId());
         assertEquals(transaction.getCurrency(), savedTransaction.get().getCurrency());
+        assertEquals(7, transaction.getId().version());
     }
 
     @Test
@@ -220,7 +287,7 @@ public class TransactionServiceTestIT {
 
         transactionEntityRepository.saveAll(List.of(transaction1, transaction2));
 
-        List<TransactionResponseDto> retrievedTransactions = transactionService.getAllTransactions();
+        List<TransactionResponseDto> retrievedTransactions = transactionService.getTransactions(new TransactionPageRequestDto()).getTransactions();
 
         assertEquals(2, retrievedTransactions.size());
         assertEquals(transaction1.getId(), retrievedTransactions.get(0).getId());
@@ -238,8 +305,86 @@ public class TransactionServiceTestIT {
 
     @Test
     void testGetAllTransactions_ReturnsNoTransactions() {
-        List<TransactionResponseDto> retrievedTransactions = transactionService.getAllTransactions();
+        List<TransactionResponseDto> retrievedTransactions = transactionService.getTransactions(new TransactionPageRequestDto()).getTransactions();
 
         assertEquals(0, retrievedTransactions.size());
     }
+
+    @Test
+    @DirtiesContext
+    void testGetTransactions_PagesThroughFilteredTransactions() {
+        List<TransactionEntity> transactions = new java.util.ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            transactions.add(TransactionEntity.builder()
+                    .sourceAccountId(i % 2 == 0 ? 1L : 3L)
+                    .targetAccountId(i % 2 == 0 ? 2L : 1L)
+                    .amount(new BigDecimal("10.00"))
+                    .currency(i == 6 ? Currency.GBP : Currency.EUR)
+                    .build());
+        }
+        transactionEntityRepository.saveAll(transactions);
+        transactionEntityRepository.save(TransactionEntity.builder()
+                .sourceAccountId(2L).targetAccountId(3L).amount(new BigDecimal("10.00")).currency(Currency.EUR).build());
+
+        List<UUID> retrievedIds = new java.util.ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            TransactionPageDto page = transactionService.getTransactions(
+                    new TransactionPageRequestDto(1L, Currency.EUR, null, null, cursor, 2));
+            page.getTransactions().forEach(transaction -> retrievedIds.add(transaction.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(3, pages);
+        assertEquals(transactions.subList(0, 6).stream().map(TransactionEntity::getId).toList(), retrievedIds);
+    }
+
+    @Test
+    @DirtiesContext
+    void testPerformTransactions_BestEffort() {
+        Long sourceAccountId = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("150.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        Long targetAccountId = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        Long otherAccountId = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("500.00"), Currency.GBP, new Timestamp(System.currentTimeMillis()))).getId();
+
+        List<TransactionBatchResultDto> results = transactionService.performTransactions(List.of(
+                new TransactionRequestDto(sourceAccountId, targetAccountId, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(sourceAccountId, targetAccountId, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(targetAccountId, otherAccountId, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(targetAccountId, sourceAccountId, new BigDecimal("25.00"), Currency.EUR)
+        ), BatchMode.BEST_EFFORT);
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(TransactionErrorCode.INSUFFICIENT_BALANCE, results.get(1).getErrorCode());
+        assertEquals(TransactionErrorCode.CURRENCY_MISMATCH, results.get(2).getErrorCode());
+        assertEquals(BatchItemStatus.CREATED, results.get(3).getStatus());
+        assertTrue(transactionEntityRepository.findById(results.get(0).getId()).isPresent());
+        assertTrue(transactionEntityRepository.findById(results.get(3).getId()).isPresent());
+        assertEquals(2, transactionEntityRepository.count());
+
+        assertEquals(new BigDecimal("75.00"), accountEntityRepository.findById(sourceAccountId).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("575.00"), accountEntityRepository.findById(targetAccountId).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("500.00"), accountEntityRepository.findById(otherAccountId).orElseThrow().getBalance());
+    }
+
+    @Test
+    @DirtiesContext
+    void testPerformTransactions_AllOrNothing() {
+        Long sourceAccountId = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("150.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+        Long targetAccountId = accountEntityRepository.save(new AccountEntity(null, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))).getId();
+
+        List<TransactionBatchResultDto> results = transactionService.performTransactions(List.of(
+                new TransactionRequestDto(sourceAccountId, targetAccountId, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(sourceAccountId, targetAccountId, new BigDecimal("100.00"), Currency.EUR)
+        ), BatchMode.ALL_OR_NOTHING);
+
+        assertEquals(BatchItemStatus.ROLLED_BACK, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, results.get(1).getStatus());
+        assertEquals(TransactionErrorCode.INSUFFICIENT_BALANCE, results.get(1).getErrorCode());
+        assertEquals(0, transactionEntityRepository.count());
+
+        assertEquals(new BigDecimal("150.00"), accountEntityRepository.findById(sourceAccountId).orElseThrow().getBalance());
+        assertEquals(new BigDecimal("500.00"), accountEntityRepository.findById(targetAccountId).orElseThrow().getBalance());
+    }
 }
@@ -0,0 +1,81 @@
+package org.agileactors.unit.concurrency;
+
+import org.agileactors.concurrency.AccountLockManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccountLockManagerTest {
+
+    @Test
+    void testStripeCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new AccountLockManager(1).getStripeCount());
+        assertEquals(8, new AccountLockManager(5).getStripeCount());
+        assertEquals(1024, new AccountLockManager(1024).getStripeCount());
+        assertThrows(IllegalArgumentException.class, () -> new AccountLockManager(0));
+    }
+
+    @Test
+    void testLock_BlocksOtherThreadsUntilClosed() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(1);
+
+        AccountLockManager.AccountLocks locks = lockManager.lock(1L, 2L);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> lockManager.lock(3L).close());
+
+        assertThrows(TimeoutException.class, () -> waiter.get(100, TimeUnit.MILLISECONDS));
+        locks.close();
+        waiter.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testLock_UnrelatedAccountsDoNotBlock() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(1024);
+
+        try (AccountLockManager.AccountLocks ignored = lockManager.lock(1L, 2L)) {
+            CompletableFuture.runAsync(() -> lockManager.lock(3L, 4L).close()).get(1, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    void testLock_ConcurrentTransfersConserveBalance() throws Exception {
+        AccountLockManager lockManager = new AccountLockManager(16);
+        int accounts = 64;
+        long[] balances = new long[accounts];
+        Arrays.fill(balances, 1_000);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                int source = random.nextInt(accounts);
+                int target = (source + 1 + random.nextInt(accounts - 1)) % accounts;
+                long amount = 1 + random.nextInt(100);
+                try (AccountLockManager.AccountLocks ignored = lockManager.lock((long) source, (long) target)) {
+                    if (balances[source] < amount) {
+                        return;
+                    }
+                    balances[source] -= amount;
+                    Thread.yield();
+                    balances[target] += amount;
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long total = 0;
+        for (long balance : balances) {
+            assertTrue(balance >= 0);
+            total += balance;
+        }
+        assertEquals(accounts * 1_000L, total);
+    }
+}
@@ -0,0 +1,101 @@
+package org.agileactors.unit.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.AdaptiveConcurrencyLimiter;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.RequestLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testLimitsMustBeOrdered() {
+        assertThrows(IllegalArgumentException.class, () -> limiter(new TransactionProperties.Limit(2, 4, 8), 1.5));
+        assertThrows(IllegalArgumentException.class, () -> limiter(new TransactionProperties.Limit(4, 0, 8), 1.5));
+        assertThrows(IllegalArgumentException.class, () -> limiter(new TransactionProperties.Limit(4, 2, 8), 0.5));
+    }
+
+    @Test
+    void testAcquire_RejectsBeyondLimit() {
+        AdaptiveConcurrencyLimiter limiter = limiter(new TransactionProperties.Limit(2, 2, 2), 1.5);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquire();
+        AdaptiveConcurrencyLimiter.Permit second = limiter.acquire();
+        RequestLimitExceededException ex = assertThrows(RequestLimitExceededException.class, limiter::acquire);
+
+        assertEquals(Duration.ofSeconds(2), ex.getRetryAfter());
+        assertEquals(2, meterRegistry.get("transaction.admission.in.flight").tag("budget", "write").gauge().value());
+        assertEquals(1, meterRegistry.get("transaction.admission.rejected").tag("budget", "write").counter().count());
+        first.close();
+        first.close(); // Releasing twice must not admit an extra call
+        limiter.acquire();
+        assertThrows(RequestLimitExceededException.class, limiter::acquire);
+        second.close();
+    }
+
+    @Test
+    void testRelease_GrowsLimitWhileLatencyIsSteady() {
+        AdaptiveConcurrencyLimiter limiter = limiter(new TransactionProperties.Limit(10, 2, 40), 100);
+
+        for (int round = 0; round < 20; round++) {
+            runConcurrently(limiter, limiter.getLimit(), 0);
+        }
+
+        assertEquals(40, limiter.getLimit());
+        assertEquals(40, meterRegistry.get("transaction.admission.limit").tag("budget", "write").gauge().value());
+    }
+
+    @Test
+    void testRelease_ShrinksLimitWhenLatencyRises() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = limiter(new TransactionProperties.Limit(20, 4, 40), 1);
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire().close();
+        }
+
+        for (int round = 0; round < 5; round++) {
+            runConcurrently(limiter, limiter.getLimit(), 20);
+        }
+
+        assertTrue(limiter.getLimit() < 10, "Limit=" + limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void testRelease_KeepsLimitWhileMostlyIdle() {
+        AdaptiveConcurrencyLimiter limiter = limiter(new TransactionProperties.Limit(10, 2, 40), 100);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire().close();
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(TransactionProperties.Limit settings, double tolerance) {
+        settings.setTolerance(tolerance);
+        return new AdaptiveConcurrencyLimiter("write", settings, Duration.ofSeconds(2), meterRegistry);
+    }
+
+    /**
+     * Holds the given number of calls in flight for the given time, then releases them.
+     */
+    private static void runConcurrently(AdaptiveConcurrencyLimiter limiter, int calls, long millis) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            permits.add(limiter.acquire());
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        permits.forEach(AdaptiveConcurrencyLimiter.Permit::close);
+    }
+}
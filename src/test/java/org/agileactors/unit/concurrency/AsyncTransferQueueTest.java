@@ -0,0 +1,163 @@
+package org.agileactors.unit.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.AsyncTransferQueue;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.dtos.TransactionBatchResultDto;
+import org.agileactors.dtos.TransactionSubmissionDto;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.BatchItemStatus;
+import org.agileactors.enums.Currency;
+import org.agileactors.enums.SubmissionStatus;
+import org.agileactors.enums.TransactionErrorCode;
+import org.agileactors.exceptions.ServiceBusyException;
+import org.agileactors.services.interfaces.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferQueueTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private AsyncTransferQueue asyncTransferQueue;
+
+    @BeforeEach
+    void setup() {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getAsyncTransfers().setQueueCapacity(3);
+        properties.getAsyncTransfers().setBatchSize(2);
+        asyncTransferQueue = new AsyncTransferQueue(properties, transactionService, meterRegistry);
+    }
+
+    @Test
+    void testSubmit_PendingUntilPerformed() {
+        TransactionEntity transaction = transaction();
+
+        TransactionSubmissionDto submission = asyncTransferQueue.submit(transaction);
+
+        assertEquals(SubmissionStatus.PENDING, submission.getStatus());
+        assertEquals(SubmissionStatus.PENDING, asyncTransferQueue.getSubmission(submission.getId()).orElseThrow().getStatus());
+        assertEquals(1, meterRegistry.get("transaction.async.queued").gauge().value());
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void testSubmit_RejectedWhenQueueIsFull() {
+        for (int i = 0; i < 3; i++) {
+            asyncTransferQueue.submit(transaction());
+        }
+
+        assertThrows(ServiceBusyException.class, () -> asyncTransferQueue.submit(transaction()));
+        assertEquals(3, meterRegistry.get("transaction.async.queued").gauge().value());
+    }
+
+    @Test
+    void testDrain_PerformsBatchesAndRecordsOutcomes() {
+        UUID transactionId = UUID.randomUUID();
+        TransactionEntity completed = transaction();
+        TransactionEntity rejected = transaction();
+        TransactionEntity next = transaction();
+        when(transactionService.performAcceptedTransactions(eq(List.of(completed, rejected)), any())).thenAnswer(invocation -> report(invocation,
+                new TransactionBatchResultDto(0, BatchItemStatus.CREATED, transactionId, null, null),
+                new TransactionBatchResultDto(1, BatchItemStatus.REJECTED, null, TransactionErrorCode.INSUFFICIENT_BALANCE, "Insufficient balance")));
+        UUID completedId = asyncTransferQueue.submit(completed).getId();
+        UUID rejectedId = asyncTransferQueue.submit(rejected).getId();
+        UUID nextId = asyncTransferQueue.submit(next).getId();
+
+        assertEquals(2, asyncTransferQueue.drain());
+
+        TransactionSubmissionDto completedSubmission = asyncTransferQueue.getSubmission(completedId).orElseThrow();
+        assertEquals(SubmissionStatus.COMPLETED, completedSubmission.getStatus());
+        assertEquals(transactionId, completedSubmission.getTransactionId());
+        TransactionSubmissionDto rejectedSubmission = asyncTransferQueue.getSubmission(rejectedId).orElseThrow();
+        assertEquals(SubmissionStatus.REJECTED, rejectedSubmission.getStatus());
+        assertEquals(TransactionErrorCode.INSUFFICIENT_BALANCE, rejectedSubmission.getErrorCode());
+        assertEquals(SubmissionStatus.PENDING, asyncTransferQueue.getSubmission(nextId).orElseThrow().getStatus());
+        assertEquals(2, meterRegistry.get("transaction.async.batch.size").summary().max());
+    }
+
+    @Test
+    void testDrain_FailedBatchKeepsCommittedOutcomes() {
+        UUID transactionId = UUID.randomUUID();
+        when(transactionService.performAcceptedTransactions(any(), any())).thenAnswer(invocation -> {
+            report(invocation, new TransactionBatchResultDto(0, BatchItemStatus.CREATED, transactionId, null, null));
+            throw new IllegalStateException("Database is down");
+        });
+        UUID completedId = asyncTransferQueue.submit(transaction()).getId();
+        UUID failedId = asyncTransferQueue.submit(transaction()).getId();
+
+        assertEquals(2, asyncTransferQueue.drain());
+
+        TransactionSubmissionDto completed = asyncTransferQueue.getSubmission(completedId).orElseThrow();
+        assertEquals(SubmissionStatus.COMPLETED, completed.getStatus());
+        assertEquals(transactionId, completed.getTransactionId());
+        TransactionSubmissionDto failed = asyncTransferQueue.getSubmission(failedId).orElseThrow();
+        assertEquals(SubmissionStatus.UNKNOWN, failed.getStatus());
+        assertEquals(TransactionErrorCode.INTERNAL_ERROR, failed.getErrorCode());
+    }
+
+    @Test
+    void testSubmit_PendingStatesAreNotEvicted() {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getAsyncTransfers().setQueueCapacity(3);
+        properties.getAsyncTransfers().setStatusMaximumSize(1);
+        AsyncTransferQueue queue = new AsyncTransferQueue(properties, transactionService, new SimpleMeterRegistry());
+
+        List<UUID> ids = List.of(queue.submit(transaction()).getId(), queue.submit(transaction()).getId(), queue.submit(transaction()).getId());
+
+        ids.forEach(id -> assertEquals(SubmissionStatus.PENDING, queue.getSubmission(id).orElseThrow().getStatus()));
+    }
+
+    @Test
+    void testStop_PerformsQueuedTransfersThenRejectsSubmissions() {
+        when(transactionService.performAcceptedTransactions(any(), any())).thenAnswer(invocation -> report(invocation,
+                new TransactionBatchResultDto(0, BatchItemStatus.CREATED, UUID.randomUUID(), null, null)));
+        asyncTransferQueue.start();
+        UUID id = asyncTransferQueue.submit(transaction()).getId();
+
+        asyncTransferQueue.stop();
+
+        assertFalse(asyncTransferQueue.isRunning());
+        assertEquals(SubmissionStatus.COMPLETED, asyncTransferQueue.getSubmission(id).orElseThrow().getStatus());
+        assertThrows(ServiceBusyException.class, () -> asyncTransferQueue.submit(transaction()));
+    }
+
+    @Test
+    void testGetSubmission_UnknownId() {
+        assertTrue(asyncTransferQueue.getSubmission(UUID.randomUUID()).isEmpty());
+    }
+
+    private static List<TransactionBatchResultDto> report(InvocationOnMock invocation, TransactionBatchResultDto... results) {
+        Consumer<TransactionBatchResultDto> resultConsumer = invocation.getArgument(1);
+        for (TransactionBatchResultDto result : results) {
+            resultConsumer.accept(result);
+        }
+        return List.of(results);
+    }
+
+    private static TransactionEntity transaction() {
+        return TransactionEntity.builder()
+                .sourceAccountId(1L)
+                .targetAccountId(2L)
+                .amount(new BigDecimal("10.00"))
+                .currency(Currency.EUR)
+                .build();
+    }
+}
@@ -0,0 +1,67 @@
+package org.agileactors.unit.concurrency;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConnectionBulkheadTest {
+
+    @Test
+    void testMaxConcurrentMustBePositive() {
+        assertEquals(2, new ConnectionBulkhead(2, Duration.ofSeconds(1), new SimpleMeterRegistry()).getMaxConcurrent());
+        assertThrows(IllegalArgumentException.class, () -> new ConnectionBulkhead(0, Duration.ofSeconds(1), new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void testAcquire_RejectsWhenNoPermitBecomesAvailable() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead(1, Duration.ofMillis(50), meterRegistry);
+
+        try (ConnectionBulkhead.Permit ignored = bulkhead.acquire()) {
+            assertThrows(ServiceBusyException.class, bulkhead::acquire);
+            assertThrows(ServiceBusyException.class, bulkhead::acquire);
+        }
+        bulkhead.acquire().close();
+        assertEquals(2, meterRegistry.get("transaction.bulkhead.rejected").counter().count());
+    }
+
+    @Test
+    void testMaxConcurrent_PoolSizeLessReservedConnections() {
+        TransactionProperties properties = new TransactionProperties();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setMaximumPoolSize(10);
+
+        assertEquals(7, new ConnectionBulkhead(properties, dataSource, new SimpleMeterRegistry()).getMaxConcurrent());
+        properties.getBulkhead().setReservedConnections(20);
+        assertEquals(1, new ConnectionBulkhead(properties, dataSource, new SimpleMeterRegistry()).getMaxConcurrent());
+        properties.getBulkhead().setMaxConcurrent(4);
+        assertEquals(4, new ConnectionBulkhead(properties, dataSource, new SimpleMeterRegistry()).getMaxConcurrent());
+    }
+
+    @Test
+    void testAcquire_WaitsUntilPermitIsReleased() throws Exception {
+        ConnectionBulkhead bulkhead = new ConnectionBulkhead(1, Duration.ofMillis(500), new SimpleMeterRegistry());
+
+        ConnectionBulkhead.Permit permit = bulkhead.acquire();
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> bulkhead.acquire().close());
+
+        Thread.sleep(100);
+        assertFalse(waiter.isDone());
+        permit.close();
+        permit.close(); // Releasing twice must not grant an extra permit
+        waiter.get(1, TimeUnit.SECONDS);
+
+        try (ConnectionBulkhead.Permit ignored = bulkhead.acquire()) {
+            assertThrows(ServiceBusyException.class, bulkhead::acquire);
+        }
+    }
+}
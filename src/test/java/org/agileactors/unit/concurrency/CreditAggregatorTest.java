@@ -0,0 +1,121 @@
+package org.agileactors.unit.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.AccountLockManager;
+import org.agileactors.concurrency.CreditAggregator;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.services.interfaces.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CreditAggregatorTest {
+
+    @Mock
+    private AccountService accountService;
+
+    private final AccountLockManager accountLockManager = new AccountLockManager(16);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransactionProperties properties;
+
+    @BeforeEach
+    void setup() {
+        properties = new TransactionProperties();
+        properties.getCreditJournal().setEnabled(true);
+        properties.getCreditJournal().setBatchSize(2);
+    }
+
+    @Test
+    void testIsEnabled_OnlyInLockingAndOptimisticMode() {
+        assertTrue(aggregator().isEnabled());
+        properties.getConcurrency().setMode(ConcurrencyMode.OPTIMISTIC);
+        assertTrue(aggregator().isEnabled());
+        properties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+        assertFalse(aggregator().isEnabled());
+        properties.getConcurrency().setMode(ConcurrencyMode.LEDGER);
+        assertFalse(aggregator().isEnabled());
+    }
+
+    @Test
+    void testAggregate_SettlesBatchesUntilOneIsNotFull() {
+        when(accountService.getAccountsWithJournaledCredits(2)).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(accountService.settleCredits(List.of(1L, 2L), 2)).thenReturn(2);
+        when(accountService.settleCredits(List.of(3L), 2)).thenReturn(1);
+
+        assertEquals(3, aggregator().aggregate());
+
+        verify(accountService, times(2)).getAccountsWithJournaledCredits(2);
+        assertEquals(3, meterRegistry.get("transaction.credit.journal.settled").counter().count());
+    }
+
+    @Test
+    void testAggregate_SettlesAccountsInLockGroups() {
+        properties.getCreditJournal().setBatchSize(3);
+        properties.getCreditJournal().setLockGroupSize(2);
+        when(accountService.getAccountsWithJournaledCredits(3)).thenReturn(List.of(1L, 2L, 3L), List.of());
+        when(accountService.settleCredits(List.of(1L, 2L), 3)).thenReturn(2);
+        when(accountService.settleCredits(List.of(3L), 3)).thenReturn(1);
+
+        assertEquals(3, aggregator().aggregate());
+
+        verify(accountService).settleCredits(List.of(1L, 2L), 3);
+        verify(accountService).settleCredits(List.of(3L), 3);
+    }
+
+    @Test
+    void testAggregate_EmptyJournal() {
+        when(accountService.getAccountsWithJournaledCredits(2)).thenReturn(List.of());
+
+        assertEquals(0, aggregator().aggregate());
+
+        verify(accountService, never()).settleCredits(any(), anyInt());
+    }
+
+    @Test
+    void testAggregate_WaitsForTransfersOfItsAccountsInLockingMode() throws Exception {
+        CreditAggregator creditAggregator = aggregator();
+        when(accountService.getAccountsWithJournaledCredits(2)).thenReturn(List.of(1L));
+        when(accountService.settleCredits(List.of(1L), 2)).thenReturn(1);
+
+        CompletableFuture<Integer> aggregated;
+        try (AccountLockManager.AccountLocks ignored = accountLockManager.lock(1L)) {
+            aggregated = CompletableFuture.supplyAsync(creditAggregator::aggregate);
+            // The transfer of the account still holds its lock, so nothing is settled yet
+            assertThrows(TimeoutException.class, () -> aggregated.get(100, TimeUnit.MILLISECONDS));
+            verify(accountService, never()).settleCredits(any(), anyInt());
+        }
+
+        assertEquals(1, aggregated.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testStart_SettlesCreditsOfPreviousRun() {
+        properties.getCreditJournal().setEnabled(false);
+        CreditAggregator creditAggregator = aggregator();
+        when(accountService.getAccountsWithJournaledCredits(2)).thenReturn(List.of(1L), List.of());
+        when(accountService.settleCredits(List.of(1L), 2)).thenReturn(1);
+
+        creditAggregator.start();
+        creditAggregator.stop();
+
+        verify(accountService).settleCredits(List.of(1L), 2);
+        assertFalse(creditAggregator.isRunning());
+    }
+
+    private CreditAggregator aggregator() {
+        return new CreditAggregator(properties, accountService, accountLockManager, TransactionOperations.withoutTransaction(), meterRegistry);
+    }
+}
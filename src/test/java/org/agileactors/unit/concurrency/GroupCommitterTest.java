@@ -0,0 +1,114 @@
+package org.agileactors.unit.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.GroupCommitter;
+import org.agileactors.entities.TransactionEntity;
+import org.agileactors.exceptions.InsufficientBalanceException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupCommitterTest {
+
+    @Test
+    void testMaxSizeMustBePositive() {
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitter(Duration.ofMillis(1), 0, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void testCommit_ConcurrentTransfersShareGroups() throws Exception {
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofMillis(200), 4, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> inFlight = commitInFlight(groupCommitter, release);
+        List<Integer> groupSizes = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<CompletableFuture<Boolean>> commits = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            commits.add(CompletableFuture.supplyAsync(() -> groupCommitter.commit(new TransactionEntity(), transactions -> {
+                groupSizes.add(transactions.size());
+                return Map.of();
+            }), executor));
+        }
+
+        for (CompletableFuture<Boolean> commit : commits) {
+            assertTrue(commit.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        // A full group closes before the window elapses, so eight transfers are committed by two full groups
+        assertEquals(List.of(4, 4), groupSizes);
+        release.countDown();
+        assertTrue(inFlight.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCommit_AloneDoesNotWaitForTheWindow() {
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofSeconds(5), 8, new SimpleMeterRegistry());
+
+        long start = System.nanoTime();
+        assertTrue(groupCommitter.commit(new TransactionEntity(), transactions -> Map.of()));
+
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void testCommit_RejectionOnlyFailsItsTransfer() throws Exception {
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ofSeconds(5), 2, new SimpleMeterRegistry());
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> inFlight = commitInFlight(groupCommitter, release);
+        TransactionEntity rejected = new TransactionEntity();
+        TransactionEntity committed = new TransactionEntity();
+        InsufficientBalanceException rejection = new InsufficientBalanceException("Insufficient balance for the transaction");
+
+        CompletableFuture<Boolean> rejectedCommit = CompletableFuture.supplyAsync(() -> groupCommitter.commit(rejected, transactions -> {
+            Map<TransactionEntity, RuntimeException> rejections = new IdentityHashMap<>();
+            rejections.put(rejected, rejection);
+            return rejections;
+        }));
+        Thread.sleep(100);
+        assertTrue(groupCommitter.commit(committed, transactions -> fail("Only the leader performs the group")));
+
+        Exception exception = assertThrows(Exception.class, () -> rejectedCommit.get(5, TimeUnit.SECONDS));
+        assertSame(rejection, exception.getCause());
+        release.countDown();
+        assertTrue(inFlight.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testCommit_FailedGroupIsPerformedAlone() {
+        GroupCommitter groupCommitter = new GroupCommitter(Duration.ZERO, 8, new SimpleMeterRegistry());
+
+        assertFalse(groupCommitter.commit(new TransactionEntity(), transactions -> {
+            throw new IllegalStateException("Commit failed");
+        }));
+    }
+
+    /**
+     * Commits a transfer whose group stays in flight until released, so the next groups wait for their window.
+     */
+    private static CompletableFuture<Boolean> commitInFlight(GroupCommitter groupCommitter, CountDownLatch release) throws InterruptedException {
+        CountDownLatch performing = new CountDownLatch(1);
+        CompletableFuture<Boolean> commit = CompletableFuture.supplyAsync(() -> groupCommitter.commit(new TransactionEntity(), transactions -> {
+            performing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        }));
+        assertTrue(performing.await(5, TimeUnit.SECONDS));
+        return commit;
+    }
+}
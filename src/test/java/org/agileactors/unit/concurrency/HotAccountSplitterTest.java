@@ -0,0 +1,190 @@
+package org.agileactors.unit.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.HotAccountSplitter;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.enums.ConcurrencyMode;
+import org.agileactors.enums.Currency;
+import org.agileactors.services.interfaces.AccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotAccountSplitterTest {
+    private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+    @Mock
+    private AccountService accountService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HotAccountSplitter hotAccountSplitter;
+
+    @BeforeEach
+    void setup() {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+        properties.getHotAccounts().setEnabled(true);
+        properties.getHotAccounts().setSlots(4);
+        properties.getHotAccounts().setThreshold(3);
+        properties.getHotAccounts().setMaxAccounts(1);
+        hotAccountSplitter = new HotAccountSplitter(properties, accountService, TransactionOperations.withoutTransaction(), meterRegistry);
+    }
+
+    @Test
+    void testIsEnabled_OnlyInAtomicMode() {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getHotAccounts().setEnabled(true);
+
+        assertFalse(new HotAccountSplitter(properties, accountService, TransactionOperations.withoutTransaction(), meterRegistry).isEnabled());
+        assertTrue(hotAccountSplitter.isEnabled());
+    }
+
+    @Test
+    void testDetect_SplitsHotAccountWhoseCreditsGoToSlotsInTurn() {
+        when(accountService.credit(1L, AMOUNT, Currency.EUR)).thenReturn(true);
+        when(accountService.addSlots(1L, 4)).thenReturn(true);
+        when(accountService.rebalance(1L, 4, BigDecimal.ZERO, null)).thenReturn(4);
+        when(accountService.creditSlot(eq(1L), anyInt(), eq(AMOUNT), eq(Currency.EUR))).thenReturn(true);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(HotAccountSplitter.ACCOUNT_ROW, hotAccountSplitter.credit(1L, AMOUNT, Currency.EUR));
+        }
+        hotAccountSplitter.credit(2L, AMOUNT, Currency.EUR);
+
+        hotAccountSplitter.detect();
+
+        assertTrue(hotAccountSplitter.isSplit(1L));
+        assertFalse(hotAccountSplitter.isSplit(2L));
+        assertEquals(1, meterRegistry.get("transaction.hot.accounts").gauge().value());
+        for (int slot : new int[]{0, 1, 2, 3, 0}) {
+            assertEquals(slot, hotAccountSplitter.credit(1L, AMOUNT, Currency.EUR));
+        }
+        verify(accountService, times(3)).credit(1L, AMOUNT, Currency.EUR);
+    }
+
+    @Test
+    void testDetect_SplitsAtMostMaxAccountsHottestFirst() {
+        when(accountService.addSlots(2L, 4)).thenReturn(true);
+        when(accountService.rebalance(2L, 4, BigDecimal.ZERO, null)).thenReturn(4);
+        for (int i = 0; i < 3; i++) {
+            hotAccountSplitter.credit(1L, AMOUNT, Currency.EUR);
+        }
+        for (int i = 0; i < 4; i++) {
+            hotAccountSplitter.credit(2L, AMOUNT, Currency.EUR);
+        }
+
+        hotAccountSplitter.detect();
+
+        assertFalse(hotAccountSplitter.isSplit(1L));
+        assertTrue(hotAccountSplitter.isSplit(2L));
+        verify(accountService, never()).addSlots(eq(1L), anyInt());
+    }
+
+    @Test
+    void testDetect_MergesCooledDownAccount() {
+        split(1L);
+
+        hotAccountSplitter.detect();
+
+        assertFalse(hotAccountSplitter.isSplit(1L));
+        verify(accountService).rebalance(1L, 0, BigDecimal.ZERO, null);
+    }
+
+    @Test
+    void testDebit_FallsBackToTheNextSlots() {
+        split(1L);
+        when(accountService.debitSlot(1L, 0, AMOUNT, Currency.EUR)).thenReturn(false);
+        when(accountService.debitSlot(1L, 1, AMOUNT, Currency.EUR)).thenReturn(true);
+
+        assertEquals(1, hotAccountSplitter.debit(1L, AMOUNT, Currency.EUR));
+
+        verify(accountService, never()).rebalance(anyLong(), anyInt(), eq(AMOUNT), any());
+        assertEquals(0, meterRegistry.get("transaction.hot.rebalances").counter().count());
+    }
+
+    @Test
+    void testDebit_GathersWholeBalanceWhenNoSlotHoldsTheAmount() {
+        split(1L);
+        when(accountService.rebalance(1L, 4, AMOUNT, Currency.EUR)).thenReturn(4);
+
+        assertEquals(0, hotAccountSplitter.debit(1L, AMOUNT, Currency.EUR));
+
+        verify(accountService, times(4)).debitSlot(eq(1L), anyInt(), eq(AMOUNT), eq(Currency.EUR));
+        assertEquals(1, meterRegistry.get("transaction.hot.rebalances").counter().count());
+    }
+
+    @Test
+    void testDebit_RejectedWhenWholeBalanceIsTooLow() {
+        split(1L);
+        when(accountService.rebalance(1L, 4, AMOUNT, Currency.EUR)).thenReturn(-1);
+
+        assertEquals(HotAccountSplitter.REJECTED, hotAccountSplitter.debit(1L, AMOUNT, Currency.EUR));
+    }
+
+    @Test
+    void testDebit_AccountRowFallsBackToLeftoverSlots() {
+        when(accountService.debit(1L, AMOUNT, Currency.EUR)).thenReturn(false);
+        when(accountService.rebalance(1L, 0, AMOUNT, Currency.EUR)).thenReturn(0);
+
+        // The account has been merged while a transfer was still crediting one of its slots
+        assertEquals(HotAccountSplitter.ACCOUNT_ROW, hotAccountSplitter.debit(1L, AMOUNT, Currency.EUR));
+
+        verify(accountService, never()).debitSlot(anyLong(), anyInt(), any(), any());
+    }
+
+    @Test
+    void testCredit_MergedAccountFallsBackToAccountRow() {
+        split(1L);
+        when(accountService.creditSlot(1L, 0, AMOUNT, Currency.EUR)).thenReturn(false);
+        when(accountService.credit(1L, AMOUNT, Currency.EUR)).thenReturn(true);
+
+        assertEquals(HotAccountSplitter.ACCOUNT_ROW, hotAccountSplitter.credit(1L, AMOUNT, Currency.EUR));
+    }
+
+    @Test
+    void testStart_MergesSlotsOfPreviousRun() {
+        when(accountService.mergeAllSlots()).thenReturn(2);
+
+        hotAccountSplitter.start();
+        hotAccountSplitter.stop();
+
+        verify(accountService).mergeAllSlots();
+        assertFalse(hotAccountSplitter.isRunning());
+    }
+
+    @Test
+    void testStart_OtherModesOnlyMergeLeftoverSlots() {
+        HotAccountSplitter locking = new HotAccountSplitter(new TransactionProperties(), accountService, TransactionOperations.withoutTransaction(), meterRegistry);
+
+        locking.start();
+        locking.stop();
+        verify(accountService, never()).mergeAllSlots();
+
+        when(accountService.hasSlots()).thenReturn(true);
+        locking.start();
+        locking.stop();
+        verify(accountService).mergeAllSlots();
+    }
+
+    private void split(Long accountId) {
+        when(accountService.addSlots(accountId, 4)).thenReturn(true);
+        when(accountService.rebalance(accountId, 4, BigDecimal.ZERO, null)).thenReturn(4);
+        for (int i = 0; i < 3; i++) {
+            hotAccountSplitter.credit(accountId, AMOUNT, Currency.EUR);
+        }
+        hotAccountSplitter.detect();
+        assertTrue(hotAccountSplitter.isSplit(accountId));
+    }
+}
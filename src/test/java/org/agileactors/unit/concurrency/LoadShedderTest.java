@@ -0,0 +1,40 @@
+package org.agileactors.unit.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.AdaptiveConcurrencyLimiter;
+import org.agileactors.concurrency.LoadShedder;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.RequestLimitExceededException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadShedderTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testAdmit_UnlimitedWhenDisabled() {
+        LoadShedder loadShedder = new LoadShedder(new TransactionProperties(), meterRegistry);
+
+        assertSame(AdaptiveConcurrencyLimiter.Permit.UNLIMITED, loadShedder.admitWrite());
+        assertSame(AdaptiveConcurrencyLimiter.Permit.UNLIMITED, loadShedder.admitRead());
+        assertTrue(meterRegistry.find("transaction.admission.limit").meters().isEmpty());
+    }
+
+    @Test
+    void testAdmit_ReadsAndWritesHaveSeparateBudgets() {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getAdmission().setEnabled(true);
+        properties.getAdmission().getWrites().setInitialLimit(1);
+        properties.getAdmission().getWrites().setMinLimit(1);
+        LoadShedder loadShedder = new LoadShedder(properties, meterRegistry);
+
+        try (AdaptiveConcurrencyLimiter.Permit ignored = loadShedder.admitWrite()) {
+            assertThrows(RequestLimitExceededException.class, loadShedder::admitWrite);
+            loadShedder.admitRead().close();
+        }
+
+        assertEquals(1, meterRegistry.get("transaction.admission.rejected").tag("budget", "write").counter().count());
+        assertEquals(0, meterRegistry.get("transaction.admission.rejected").tag("budget", "read").counter().count());
+    }
+}
@@ -0,0 +1,73 @@
+package org.agileactors.unit.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.concurrency.OptimisticRetryExecutor;
+import org.agileactors.config.TransactionProperties;
+import org.agileactors.exceptions.ConcurrentUpdateException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryExecutorTest {
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetryExecutor retryExecutor;
+
+    @BeforeEach
+    void setup() {
+        TransactionProperties properties = new TransactionProperties();
+        properties.getOptimistic().setMaxAttempts(3);
+        properties.getOptimistic().setInitialBackoff(Duration.ofMillis(1));
+        properties.getOptimistic().setMaxBackoff(Duration.ofMillis(2));
+        meterRegistry = new SimpleMeterRegistry();
+        retryExecutor = new OptimisticRetryExecutor(properties, meterRegistry);
+    }
+
+    @Test
+    void testExecute_SucceedsAfterConflict() {
+        AtomicInteger calls = new AtomicInteger();
+
+        retryExecutor.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new ObjectOptimisticLockingFailureException("AccountEntity", 1L);
+            }
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(2, meterRegistry.counter("transaction.optimistic.attempts").count());
+        assertEquals(1, meterRegistry.counter("transaction.optimistic.conflicts").count());
+        assertEquals(1, meterRegistry.counter("transaction.optimistic.retries").count());
+        assertEquals(0, meterRegistry.counter("transaction.optimistic.exhausted").count());
+    }
+
+    @Test
+    void testExecute_ThrowsWhenAttemptsAreExhausted() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ConcurrentUpdateException.class, () -> retryExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException("AccountEntity", 1L);
+        }));
+
+        assertEquals(3, calls.get());
+        assertEquals(3, meterRegistry.counter("transaction.optimistic.conflicts").count());
+        assertEquals(1, meterRegistry.counter("transaction.optimistic.exhausted").count());
+    }
+
+    @Test
+    void testExecute_DoesNotRetryOtherExceptions() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(IllegalStateException.class, () -> retryExecutor.execute(() -> {
+            calls.incrementAndGet();
+            throw new IllegalStateException("Something went wrong.");
+        }));
+
+        assertEquals(1, calls.get());
+        assertEquals(0, meterRegistry.counter("transaction.optimistic.conflicts").count());
+    }
+}
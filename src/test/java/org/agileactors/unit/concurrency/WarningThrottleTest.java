@@ -0,0 +1,24 @@
+package org.agileactors.unit.concurrency;
+
+import org.agileactors.concurrency.WarningThrottle;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarningThrottleTest {
+
+    @Test
+    void testRecord_LogsOncePerIntervalWithSuppressedCount() throws Exception {
+        WarningThrottle throttle = new WarningThrottle(Duration.ofMillis(200));
+
+        assertEquals(1, throttle.record());
+        assertEquals(0, throttle.record());
+        assertEquals(0, throttle.record());
+
+        Thread.sleep(250);
+        assertEquals(3, throttle.record());
+        assertEquals(0, throttle.record());
+    }
+}
@@ -0,0 +1,32 @@
+package org.agileactors.unit.config;
+
+import org.agileactors.config.VirtualThreadConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadConfigTest {
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void testNewVirtualThreadPerTaskExecutor_EmptyBeforeJava21() {
+        assertFalse(VirtualThreadConfig.isSupported());
+        assertTrue(VirtualThreadConfig.newVirtualThreadPerTaskExecutor().isEmpty());
+        assertThrows(IllegalStateException.class, () -> new VirtualThreadConfig().virtualThreadExecutor());
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void testNewVirtualThreadPerTaskExecutor_StartsVirtualThreads() throws Exception {
+        assertTrue(VirtualThreadConfig.isSupported());
+        Optional<ExecutorService> executor = VirtualThreadConfig.newVirtualThreadPerTaskExecutor();
+
+        assertTrue(executor.orElseThrow().submit(() -> Thread.currentThread().toString()).get().startsWith("VirtualThread"));
+        executor.get().shutdown();
+    }
+}
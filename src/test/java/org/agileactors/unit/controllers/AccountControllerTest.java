@@ -0,0 +1,91 @@
+package org.agileactors.unit.controllers;
+
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.controllers.AccountController;
+import org.agileactors.dtos.AccountResponseDto;
+import org.agileactors.dtos.TransactionPageDto;
+import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.services.interfaces.AccountService;
+import org.agileactors.services.interfaces.TransactionService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountControllerTest {
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private ConnectionBulkhead connectionBulkhead;
+
+    @InjectMocks
+    private AccountController accountController;
+
+    @Test
+    void testGetAccount_Found() {
+        AccountResponseDto account = new AccountResponseDto(1L, new BigDecimal("100.00"), Currency.EUR,
+                new Timestamp(System.currentTimeMillis()), 1, new BigDecimal("50.00"), 2, new BigDecimal("25.00"));
+        when(accountService.getAccount(1L)).thenReturn(Optional.of(account));
+
+        ResponseEntity<AccountResponseDto> response = accountController.getAccount(1L);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(account, response.getBody());
+    }
+
+    @Test
+    void testGetAccount_NotFound() {
+        when(accountService.getAccount(1L)).thenReturn(Optional.empty());
+
+        assertEquals(HttpStatus.NOT_FOUND, accountController.getAccount(1L).getStatusCode());
+    }
+
+    @Test
+    void testGetAccountTransactions() {
+        List<TransactionResponseDto> transactions = List.of(new TransactionResponseDto(UUID.randomUUID(), 1L, 2L,
+                new BigDecimal("100.00"), Currency.EUR, new Timestamp(System.currentTimeMillis())));
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, null)));
+        when(transactionService.getTransactions(argThat(pageRequest -> pageRequest.getAccountId() == 1L
+                && pageRequest.getCurrency() == Currency.EUR && "cursor".equals(pageRequest.getCursor()))))
+                .thenReturn(new TransactionPageDto(transactions, "next"));
+
+        ResponseEntity<List<TransactionResponseDto>> response =
+                accountController.getAccountTransactions(1L, Currency.EUR, null, null, "cursor", 10);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(transactions, response.getBody());
+        assertEquals("next", response.getHeaders().getFirst("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetAccountTransactions_AccountNotFound() {
+        when(accountService.getAccountById(1L)).thenReturn(Optional.empty());
+
+        ResponseEntity<List<TransactionResponseDto>> response =
+                accountController.getAccountTransactions(1L, null, null, null, null, null);
+
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+        verifyNoInteractions(transactionService);
+    }
+}
@@ -1,26 +1,48 @@
 package org.agileactors.unit.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.agileactors.concurrency.AdaptiveConcurrencyLimiter;
+import org.agileactors.concurrency.AsyncTransferQueue;
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.concurrency.LoadShedder;
 import org.agileactors.controllers.TransactionController;
+import org.agileactors.dtos.TransactionBatchResultDto;
+import org.agileactors.dtos.TransactionPageDto;
 import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
+import org.agileactors.dtos.TransactionSubmissionDto;
 import org.agileactors.entities.TransactionEntity;
+import org.agileactors.enums.BatchItemStatus;
+import org.agileactors.enums.BatchMode;
 import org.agileactors.enums.Currency;
+import org.agileactors.enums.SubmissionStatus;
+import org.agileactors.enums.TransactionErrorCode;
+import org.agileactors.exceptions.InvalidIdempotencyKeyException;
+import org.agileactors.exceptions.RequestLimitExceededException;
 import org.agileactors.exceptions.SameAccountTransferException;
-import org.agileactors.services.TransactionServiceImpl;
+import org.agileactors.exceptions.ServiceBusyException;
+import org.agileactors.services.interfaces.TransactionService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.sql.Timestamp;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,7 +52,19 @@ import static org.mockito.Mockito.*;
 class TransactionControllerTest {
 
     @Mock
-    private TransactionServiceImpl transactionService;
+    private TransactionService transactionService;
+
+    @Mock
+    private AsyncTransferQueue asyncTransferQueue;
+
+    @Mock
+    private LoadShedder loadShedder;
+
+    @Mock
+    private ConnectionBulkhead connectionBulkhead;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
 
     @InjectMocks
     private TransactionController transactionController;
@@ -47,18 +81,27 @@ class TransactionControllerTest {
             return null; // performTransaction returns void
         }).when(transactionService).performTransaction(any(TransactionEntity.class));
 
-        ResponseEntity<String> response = transactionController.makeTransaction(requestDto);
+        ResponseEntity<String> response = transactionController.makeTransaction(requestDto, null);
 
         assertEquals(ResponseEntity.created(URI.create("/transactions/" + transactionId)).body("Transaction successful"), response);
     }
 
+    @Test
+    void testMakeTransaction_IdempotencyKey() {
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR);
+
+        transactionController.makeTransaction(requestDto, "key-1");
+
+        verify(transactionService).performTransaction(argThat(transaction -> "key-1".equals(transaction.getIdempotencyKey())));
+    }
+
     @Test
     void testMakeTransaction_BadRequestException() {
         TransactionRequestDto requestDto = new TransactionRequestDto(1L, 1L, new BigDecimal("100.00"), Currency.EUR);
 
         doThrow(new SameAccountTransferException("Same account transfer is not allowed.")).when(transactionService).performTransaction(any(TransactionEntity.class));
 
-        assertThrows(SameAccountTransferException.class, () -> transactionController.makeTransaction(requestDto));
+        assertThrows(SameAccountTransferException.class, () -> transactionController.makeTransaction(requestDto, null));
     }
 
     @Test
@@ -67,7 +110,20 @@ class TransactionControllerTest {
 
         doThrow(new RuntimeException("Something went wrong.")).when(transactionService).performTransaction(any(TransactionEntity.class));
 
-        assertThrows(RuntimeException.class, () -> transactionController.makeTransaction(requestDto));
+        assertThrows(RuntimeException.class, () -> transactionController.makeTransaction(requestDto, null));
+    }
+
+    @Test
+    void testMakeTransactions() {
+        List<TransactionRequestDto> requests = List.of(new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR));
+        List<TransactionBatchResultDto> results = List.of(new TransactionBatchResultDto(0, BatchItemStatus.CREATED, UUID.randomUUID(), null, null));
+
+        when(transactionService.performTransactions(requests, BatchMode.BEST_EFFORT)).thenReturn(results);
+
+        ResponseEntity<List<TransactionBatchResultDto>> response = transactionController.makeTransactions(BatchMode.BEST_EFFORT, requests);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(results, response.getBody());
     }
 
     @Test
@@ -90,12 +146,24 @@ class TransactionControllerTest {
         );
 
         List<TransactionResponseDto> transactions = List.of(transaction1, transaction2);
-        when(transactionService.getAllTransactions()).thenReturn(transactions);
+        when(transactionService.getTransactions(any())).thenReturn(new TransactionPageDto(transactions, "next"));
 
-        ResponseEntity<List<TransactionResponseDto>> response = transactionController.getAllTransactions();
+        ResponseEntity<List<TransactionResponseDto>> response = transactionController.getAllTransactions(1L, Currency.EUR, null, null, null, 2);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(transactions, response.getBody());
+        assertEquals("next", response.getHeaders().getFirst(TransactionController.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void testGetAllTransactions_LastPage() {
+        when(transactionService.getTransactions(any())).thenReturn(new TransactionPageDto(List.of(), null));
+
+        ResponseEntity<List<TransactionResponseDto>> response = transactionController.getAllTransactions(null, null, null, null, null, null);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertTrue(response.getBody().isEmpty());
+        assertFalse(response.getHeaders().containsKey(TransactionController.NEXT_CURSOR_HEADER));
     }
 
     @Test
@@ -113,7 +181,7 @@ class TransactionControllerTest {
 
         when(transactionService.getTransaction(transactionId)).thenReturn(Optional.of(transaction));
 
-        ResponseEntity<TransactionResponseDto> response = transactionController.getTransaction(transactionId);
+        ResponseEntity<?> response = transactionController.getTransaction(transactionId);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(transaction, response.getBody());
@@ -125,9 +193,114 @@ class TransactionControllerTest {
 
         when(transactionService.getTransaction(mockTransactionId)).thenReturn(Optional.empty());
 
-        ResponseEntity<TransactionResponseDto> response = transactionController.getTransaction(mockTransactionId);
+        ResponseEntity<?> response = transactionController.getTransaction(mockTransactionId);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
     }
+
+    @Test
+    void testMakeTransaction_ShedBeforeReachingService() {
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR);
+        when(loadShedder.admitWrite()).thenThrow(new RequestLimitExceededException("Too many requests, please retry later", Duration.ofSeconds(1)));
+
+        assertThrows(RequestLimitExceededException.class, () -> transactionController.makeTransaction(requestDto, null));
+
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void testGetTransaction_ReleasesReadPermit() {
+        UUID transactionId = UUID.randomUUID();
+        AdaptiveConcurrencyLimiter.Permit permit = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        when(loadShedder.admitRead()).thenReturn(permit);
+        when(transactionService.getTransaction(transactionId)).thenReturn(Optional.empty());
+
+        transactionController.getTransaction(transactionId);
+
+        verify(permit).close();
+        verify(loadShedder, never()).admitWrite();
+    }
+
+    @Test
+    void testGetAllTransactions_RejectedWhenNoConnectionIsAvailable() {
+        AdaptiveConcurrencyLimiter.Permit permit = mock(AdaptiveConcurrencyLimiter.Permit.class);
+        when(loadShedder.admitRead()).thenReturn(permit);
+        when(connectionBulkhead.acquire()).thenThrow(new ServiceBusyException("The service is busy, please retry the transaction"));
+
+        assertThrows(ServiceBusyException.class, () -> transactionController.getAllTransactions(null, null, null, null, null, null));
+
+        verify(permit).close();
+        verifyNoInteractions(transactionService);
+    }
+
+    @Test
+    void testSubmitTransaction() {
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR);
+        TransactionSubmissionDto submission = new TransactionSubmissionDto(UUID.randomUUID(), SubmissionStatus.PENDING, null, null, null);
+        when(asyncTransferQueue.submit(argThat(transaction -> "key-1".equals(transaction.getIdempotencyKey())
+                && transaction.getAmount().equals(new BigDecimal("100.00"))))).thenReturn(submission);
+
+        ResponseEntity<TransactionSubmissionDto> response = transactionController.submitTransaction(requestDto, "key-1");
+
+        assertEquals(ResponseEntity.accepted().location(URI.create("/transactions/" + submission.getId())).body(submission), response);
+        verify(transactionService, never()).performTransaction(any());
+    }
+
+    @Test
+    void testSubmitTransaction_InvalidIdempotencyKey() {
+        TransactionRequestDto requestDto = new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR);
+        doThrow(new InvalidIdempotencyKeyException("Idempotency key should not be blank")).when(transactionService).validateIdempotencyKey(" ");
+
+        assertThrows(InvalidIdempotencyKeyException.class, () -> transactionController.submitTransaction(requestDto, " "));
+
+        verifyNoInteractions(asyncTransferQueue);
+    }
+
+    @Test
+    void testGetTransaction_SubmissionStates() {
+        UUID pendingId = UUID.randomUUID();
+        UUID completedId = UUID.randomUUID();
+        UUID rejectedId = UUID.randomUUID();
+        UUID transactionId = UUID.randomUUID();
+        when(asyncTransferQueue.getSubmission(pendingId))
+                .thenReturn(Optional.of(new TransactionSubmissionDto(pendingId, SubmissionStatus.PENDING, null, null, null)));
+        when(asyncTransferQueue.getSubmission(completedId))
+                .thenReturn(Optional.of(new TransactionSubmissionDto(completedId, SubmissionStatus.COMPLETED, transactionId, null, null)));
+        when(asyncTransferQueue.getSubmission(rejectedId))
+                .thenReturn(Optional.of(new TransactionSubmissionDto(rejectedId, SubmissionStatus.REJECTED, null, TransactionErrorCode.INSUFFICIENT_BALANCE, "Insufficient balance")));
+
+        assertEquals(HttpStatus.ACCEPTED, transactionController.getTransaction(pendingId).getStatusCode());
+        ResponseEntity<?> completed = transactionController.getTransaction(completedId);
+        assertEquals(HttpStatus.SEE_OTHER, completed.getStatusCode());
+        assertEquals(URI.create("/transactions/" + transactionId), completed.getHeaders().getLocation());
+        ResponseEntity<?> rejected = transactionController.getTransaction(rejectedId);
+        assertEquals(HttpStatus.OK, rejected.getStatusCode());
+        assertEquals(SubmissionStatus.REJECTED, ((TransactionSubmissionDto) rejected.getBody()).getStatus());
+        verify(transactionService, never()).getTransaction(any());
+    }
+
+    @Test
+    void testExportTransactions() throws Exception {
+        UUID transactionId1 = UUID.randomUUID();
+        UUID transactionId2 = UUID.randomUUID();
+
+        doAnswer(invocation -> {
+            Consumer<TransactionResponseDto> consumer = invocation.getArgument(1);
+            consumer.accept(new TransactionResponseDto(transactionId1, 1L, 2L, new BigDecimal("100.00"), Currency.EUR, null));
+            consumer.accept(new TransactionResponseDto(transactionId2, 2L, 1L, new BigDecimal("50.00"), Currency.EUR, null));
+            return 2L;
+        }).when(transactionService).exportTransactions(any(), any());
+
+        ResponseEntity<StreamingResponseBody> response = transactionController.exportTransactions(1L, null, null, null, null, null);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        response.getBody().writeTo(outputStream);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(transactionId1, objectMapper.readValue(lines[0], TransactionResponseDto.class).getId());
+        assertEquals(transactionId2, objectMapper.readValue(lines[1], TransactionResponseDto.class).getId());
+    }
 }
@@ -1,21 +1,29 @@
 package org.agileactors.unit.exceptions;
 
+import org.agileactors.config.TransactionProperties;
 import org.agileactors.exceptions.*;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @ExtendWith(MockitoExtension.class)
 class ControllerExceptionHandlerTest {
 
-    @InjectMocks
-    private ControllerExceptionHandler exceptionHandler;
+    private final TransactionProperties transactionProperties = new TransactionProperties();
+
+    private final ControllerExceptionHandler exceptionHandler = new ControllerExceptionHandler(transactionProperties);
 
     @Mock
     private SameAccountTransferException sameAccountTransferException;
@@ -29,6 +37,12 @@ class ControllerExceptionHandlerTest {
     @Mock
     private AccountNotFoundException accountNotFoundException;
 
+    @Mock
+    private ConcurrentUpdateException concurrentUpdateException;
+
+    @Mock
+    private ServiceBusyException serviceBusyException;
+
     @Mock
     private Exception generalException;
 
@@ -50,12 +64,52 @@ class ControllerExceptionHandlerTest {
         assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
     }
 
+    @Test
+    void testHandleValidationException() {
+        BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(new Object(), "transactionRequest");
+        bindingResult.addError(new FieldError("transactionRequest", "currency", "currency is required"));
+        bindingResult.addError(new FieldError("transactionRequest", "amount", "amount is required"));
+
+        ResponseEntity<String> response = exceptionHandler.handleValidationException(new MethodArgumentNotValidException((MethodParameter) null, bindingResult));
+        assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+        assertEquals("amount is required, currency is required", response.getBody());
+    }
+
     @Test
     void testHandleNotFoundException() {
         ResponseEntity<String> response = exceptionHandler.handleNotFoundException(accountNotFoundException);
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
     }
 
+    @Test
+    void testHandleConflictException() {
+        ResponseEntity<String> response = exceptionHandler.handleConflictException(concurrentUpdateException);
+        assertEquals(HttpStatus.CONFLICT, response.getStatusCode());
+    }
+
+    @Test
+    void testHandleUnprocessableEntityException() {
+        ResponseEntity<String> response = exceptionHandler.handleUnprocessableEntityException(
+                new IdempotencyKeyReusedException("Idempotency key was already used by a different transaction"));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, response.getStatusCode());
+    }
+
+    @Test
+    void testHandleServiceUnavailableException() {
+        transactionProperties.getAdmission().setRetryAfter(Duration.ofSeconds(3));
+        ResponseEntity<String> response = exceptionHandler.handleServiceUnavailableException(serviceBusyException);
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void testHandleTooManyRequestsException() {
+        ResponseEntity<String> response = exceptionHandler.handleTooManyRequestsException(
+                new RequestLimitExceededException("Too many requests, please retry later", Duration.ofMillis(1500)));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("2", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
     @Test
     void testHandleInternalServerError() {
         ResponseEntity<String> response = exceptionHandler.handleInternalServerError(generalException);
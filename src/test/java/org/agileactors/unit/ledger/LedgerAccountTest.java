@@ -0,0 +1,39 @@
+package org.agileactors.unit.ledger;
+
+import org.agileactors.entities.AccountEntity;
+import org.agileactors.enums.Currency;
+import org.agileactors.ledger.LedgerAccount;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerAccountTest {
+
+    @Test
+    void testOf_ConvertsBalanceToMinorUnitsAndBack() {
+        Timestamp createdAt = new Timestamp(System.currentTimeMillis());
+        LedgerAccount account = LedgerAccount.of(new AccountEntity(1L, new BigDecimal("250.75"), Currency.EUR, createdAt, 3L));
+
+        assertEquals(25075, account.getBalance());
+        account.debit(75);
+        account.credit(1000);
+
+        AccountEntity entity = account.toEntity();
+        assertEquals(1L, entity.getId());
+        assertEquals(new BigDecimal("260.00"), entity.getBalance());
+        assertEquals(Currency.EUR, entity.getCurrency());
+        assertEquals(createdAt, entity.getCreatedAt());
+        assertEquals(3L, entity.getVersion());
+    }
+
+    @Test
+    void testCredit_RejectsOverflow() {
+        LedgerAccount account = new LedgerAccount(1L, Long.MAX_VALUE - 10, Currency.EUR, null, 0L);
+
+        assertThrows(ArithmeticException.class, () -> account.credit(11));
+        assertEquals(Long.MAX_VALUE - 10, account.getBalance());
+    }
+}
@@ -0,0 +1,108 @@
+package org.agileactors.unit.ledger;
+
+import org.agileactors.enums.Currency;
+import org.agileactors.ledger.LogRecord;
+import org.agileactors.ledger.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void testAppend_RecordsAreReadBackInOrder() throws Exception {
+        List<LogRecord> durable = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 20, durable::addAll)) {
+            assertTrue(log.open(1).isEmpty());
+            log.append(List.of(record(1, "key-1"), record(2, null))).get(5, TimeUnit.SECONDS);
+            log.append(List.of(record(3, null))).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(List.of(1L, 2L, 3L), durable.stream().map(LogRecord::lsn).toList());
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 20, records -> { })) {
+            List<LogRecord> records = log.open(1);
+            assertEquals(durable, records);
+            assertEquals("key-1", records.get(0).idempotencyKey());
+        }
+    }
+
+    @Test
+    void testAppend_ConcurrentAppendsShareWrites() throws Exception {
+        List<Integer> groups = new ArrayList<>();
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 20, records -> groups.add(records.size()))) {
+            log.open(1);
+            List<CompletableFuture<Void>> appends = new ArrayList<>();
+            for (int lsn = 1; lsn <= 200; lsn++) {
+                appends.add(log.append(List.of(record(lsn, null))));
+            }
+            CompletableFuture.allOf(appends.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(200, groups.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(groups.size() < 200);
+    }
+
+    @Test
+    void testOpen_TornRecordIsCutOff() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 20, records -> { })) {
+            log.open(1);
+            log.append(List.of(record(1, null), record(2, null))).get(5, TimeUnit.SECONDS);
+        }
+        Path segment = segments().get(0);
+        long size = Files.size(segment);
+        Files.write(segment, new byte[]{0, 0, 0, 90, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 20, records -> { })) {
+            assertEquals(List.of(1L, 2L), log.open(3).stream().map(LogRecord::lsn).toList());
+            assertEquals(size, Files.size(segment));
+            log.append(List.of(record(3, null))).get(5, TimeUnit.SECONDS);
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1 << 20, records -> { })) {
+            assertEquals(List.of(1L, 2L, 3L), log.open(4).stream().map(LogRecord::lsn).toList());
+        }
+    }
+
+    @Test
+    void testDeleteSegmentsUpTo_KeepsSegmentsWithUnpersistedRecords() throws Exception {
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1, records -> { })) {
+            log.open(1);
+            for (int lsn = 1; lsn <= 3; lsn++) {
+                log.append(List.of(record(lsn, null))).get(5, TimeUnit.SECONDS);
+            }
+            // Every append fills a segment, so the records are in segments 1, 2 and 3, and segment 4 is being written
+            assertEquals(4, segments().size());
+
+            log.deleteSegmentsUpTo(2);
+            assertEquals(2, segments().size());
+            log.deleteSegmentsUpTo(3);
+            assertEquals(1, segments().size());
+        }
+        try (WriteAheadLog log = new WriteAheadLog(directory, 1, records -> { })) {
+            assertTrue(log.open(4).isEmpty());
+        }
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    private static LogRecord record(long lsn, String idempotencyKey) {
+        return new LogRecord(lsn, UUID.randomUUID(), 1L, 2L, 1050, Currency.EUR,
+                new Timestamp(System.currentTimeMillis()), idempotencyKey);
+    }
+}
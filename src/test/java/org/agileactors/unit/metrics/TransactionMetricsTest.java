@@ -0,0 +1,47 @@
+package org.agileactors.unit.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.agileactors.enums.TransactionErrorCode;
+import org.agileactors.enums.TransactionStage;
+import org.agileactors.metrics.TransactionMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionMetricsTest {
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionMetrics transactionMetrics;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        transactionMetrics = new TransactionMetrics(meterRegistry);
+    }
+
+    @Test
+    void testRecordStage() {
+        transactionMetrics.recordStage(TransactionStage.BALANCE_UPDATE, TimeUnit.MILLISECONDS.toNanos(3));
+
+        assertEquals(1, meterRegistry.timer("transaction.stage", "stage", "balance_update").count());
+        assertEquals(3, meterRegistry.timer("transaction.stage", "stage", "balance_update").totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(0, meterRegistry.timer("transaction.stage", "stage", "commit").count());
+    }
+
+    @Test
+    void testRecordOutcomes() {
+        transactionMetrics.recordSuccess();
+        transactionMetrics.recordSuccess();
+        transactionMetrics.recordFailure(TransactionErrorCode.INSUFFICIENT_BALANCE);
+        transactionMetrics.recordReplay();
+        transactionMetrics.recordDuration(TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertEquals(2, meterRegistry.counter("transaction.outcomes", "outcome", "success").count());
+        assertEquals(1, meterRegistry.counter("transaction.outcomes", "outcome", "insufficient_balance").count());
+        assertEquals(1, meterRegistry.counter("transaction.outcomes", "outcome", "replayed").count());
+        assertEquals(0, meterRegistry.counter("transaction.outcomes", "outcome", "concurrent_update").count());
+        assertEquals(1, meterRegistry.timer("transaction.duration").count());
+    }
+}
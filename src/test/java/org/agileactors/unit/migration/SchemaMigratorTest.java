@@ -0,0 +1,100 @@
+package org.agileactors.unit.migration;
+
+import org.agileactors.migration.SchemaMigrator;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SchemaMigratorTest {
+    @TempDir
+    private Path directory;
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setup() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void testMigrate_AppliesScriptsInVersionOrderOnce() throws Exception {
+        Files.writeString(directory.resolve("V10__add_name.sql"), "ALTER TABLE ITEM ADD COLUMN name VARCHAR(20);");
+        Files.writeString(directory.resolve("V2__create_item.sql"), "CREATE TABLE ITEM (id BIGINT PRIMARY KEY);\nINSERT INTO ITEM (id) VALUES (1);");
+
+        assertEquals(2, migrator().migrate());
+        assertEquals(0, migrator().migrate());
+
+        assertEquals(List.of(2, 10), jdbcTemplate.queryForList("SELECT version FROM SCHEMA_VERSION ORDER BY version", Integer.class));
+        assertEquals("create item", jdbcTemplate.queryForObject("SELECT description FROM SCHEMA_VERSION WHERE version = 2", String.class));
+        jdbcTemplate.update("UPDATE ITEM SET name = 'first' WHERE id = 1");
+
+        Files.writeString(directory.resolve("V11__insert_item.sql"), "INSERT INTO ITEM (id, name) VALUES (2, 'second');");
+        assertEquals(1, migrator().migrate());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ITEM", Integer.class));
+    }
+
+    @Test
+    void testMigrate_ChangedScriptIsRejected() throws Exception {
+        Path script = directory.resolve("V1__create_item.sql");
+        Files.writeString(script, "CREATE TABLE ITEM (id BIGINT PRIMARY KEY);");
+        migrator().migrate();
+
+        Files.writeString(script, "CREATE TABLE ITEM (id BIGINT PRIMARY KEY, name VARCHAR(20));");
+
+        assertThrows(IllegalStateException.class, () -> migrator().migrate());
+    }
+
+    @Test
+    void testMigrate_OlderScriptIsRejected() throws Exception {
+        Files.writeString(directory.resolve("V1__create_item.sql"), "CREATE TABLE ITEM (id BIGINT PRIMARY KEY);");
+        Files.writeString(directory.resolve("V3__add_name.sql"), "ALTER TABLE ITEM ADD COLUMN name VARCHAR(20);");
+        migrator().migrate();
+
+        Files.writeString(directory.resolve("V2__insert_item.sql"), "INSERT INTO ITEM (id) VALUES (1);");
+        Files.writeString(directory.resolve("V4__insert_item.sql"), "INSERT INTO ITEM (id) VALUES (2);");
+
+        assertThrows(IllegalStateException.class, () -> migrator().migrate());
+        assertEquals(List.of(1, 3), jdbcTemplate.queryForList("SELECT version FROM SCHEMA_VERSION ORDER BY version", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ITEM", Integer.class));
+    }
+
+    @Test
+    void testMigrate_DuplicateVersionIsRejected() throws Exception {
+        Path other = Files.createDirectory(directory.resolve("other"));
+        Files.writeString(directory.resolve("V1__create_item.sql"), "CREATE TABLE ITEM (id BIGINT PRIMARY KEY);");
+        Files.writeString(other.resolve("V1__create_order.sql"), "CREATE TABLE ORDERS (id BIGINT PRIMARY KEY);");
+
+        SchemaMigrator migrator = new SchemaMigrator(dataSource, new PathMatchingResourcePatternResolver(),
+                List.of("file:" + directory, "file:" + other));
+
+        assertThrows(IllegalStateException.class, migrator::migrate);
+    }
+
+    @Test
+    void testMigrate_FailedScriptIsNotRecorded() throws Exception {
+        Files.writeString(directory.resolve("V1__create_item.sql"), "CREATE TABLE ITEM (id BIGINT PRIMARY KEY);");
+        Files.writeString(directory.resolve("V2__insert_item.sql"), "INSERT INTO ITEM (id) VALUES (1);\nINSERT INTO ITEM (id) VALUES (1);");
+
+        assertThrows(IllegalStateException.class, () -> migrator().migrate());
+
+        assertEquals(List.of(1), jdbcTemplate.queryForList("SELECT version FROM SCHEMA_VERSION", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ITEM", Integer.class));
+    }
+
+    private SchemaMigrator migrator() {
+        return new SchemaMigrator(dataSource, new PathMatchingResourcePatternResolver(), List.of("file:" + directory));
+    }
+}
@@ -1,21 +1,38 @@
 package org.agileactors.unit.services;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.agileactors.dtos.AccountResponseDto;
+import org.agileactors.entities.AccountBalanceSlotEntity;
+import org.agileactors.entities.AccountCreditEntity;
 import org.agileactors.entities.AccountEntity;
+import org.agileactors.entities.AccountStatsEntity;
+import org.agileactors.entities.TransactionEntity;
 import org.agileactors.enums.Currency;
+import org.agileactors.repositories.AccountBalanceSlotEntityRepository;
+import org.agileactors.repositories.AccountCreditEntityRepository;
 import org.agileactors.repositories.AccountEntityRepository;
+import org.agileactors.repositories.AccountStatsEntityRepository;
 import org.agileactors.services.AccountServiceImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
+import java.util.List;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +41,18 @@ class AccountServiceTest {
     @Mock
     private AccountEntityRepository accountEntityRepository;
 
+    @Spy
+    private Cache<Long, AccountEntity> accountCache = Caffeine.newBuilder().build();
+
+    @Mock
+    private AccountStatsEntityRepository accountStatsEntityRepository;
+
+    @Mock
+    private AccountBalanceSlotEntityRepository accountBalanceSlotEntityRepository;
+
+    @Mock
+    private AccountCreditEntityRepository accountCreditEntityRepository;
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -31,22 +60,52 @@ class AccountServiceTest {
     void testGetAccountById_Found() {
         AccountEntity mockAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
 
-        when(accountEntityRepository.findById(1L)).thenReturn(Optional.of(mockAccount));
+        when(accountEntityRepository.findDetachedById(1L)).thenReturn(Optional.of(mockAccount));
 
         Optional<AccountEntity> account = accountService.getAccountById(1L);
 
         assertTrue(account.isPresent());
-        assertEquals(mockAccount, account.get());
+        assertEquals(mockAccount.getBalance(), account.get().getBalance());
         assertEquals(mockAccount.getCreatedAt(), account.get().getCreatedAt());
     }
 
+    @Test
+    void testGetAccountById_Cached() {
+        AccountEntity mockAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+
+        when(accountEntityRepository.findDetachedById(1L)).thenReturn(Optional.of(mockAccount));
+
+        AccountEntity first = accountService.getAccountById(1L).orElseThrow();
+        first.setBalance(new BigDecimal("0.00"));
+        AccountEntity second = accountService.getAccountById(1L).orElseThrow();
+
+        assertNotSame(first, second);
+        assertEquals(new BigDecimal("100.00"), second.getBalance());
+        verify(accountEntityRepository, times(1)).findDetachedById(1L);
+    }
+
+    @Test
+    void testRefreshAccountById() {
+        AccountEntity staleAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, null, 1L);
+        AccountEntity freshAccount = new AccountEntity(1L, new BigDecimal("300.00"), Currency.EUR, null, 2L);
+
+        when(accountEntityRepository.findDetachedById(1L)).thenReturn(Optional.of(staleAccount), Optional.of(freshAccount));
+
+        accountService.getAccountById(1L);
+        Optional<AccountEntity> account = accountService.refreshAccountById(1L);
+
+        assertEquals(new BigDecimal("300.00"), account.orElseThrow().getBalance());
+        assertEquals(new BigDecimal("300.00"), accountService.getAccountById(1L).orElseThrow().getBalance());
+    }
+
     @Test
     void testGetAccountById_NotFound() {
-        when(accountEntityRepository.findById(1L)).thenReturn(Optional.empty());
+        when(accountEntityRepository.findDetachedById(1L)).thenReturn(Optional.empty());
 
         Optional<AccountEntity> account = accountService.getAccountById(1L);
 
         assertTrue(account.isEmpty());
+        assertNull(accountCache.getIfPresent(1L));
     }
 
     @Test
@@ -55,8 +114,212 @@ class AccountServiceTest {
 
         BigDecimal newBalance = BigDecimal.valueOf(500.0);
 
+        when(accountEntityRepository.updateBalance(1L, newBalance, 0L)).thenReturn(1);
+
         accountService.updateAccountBalance(mockAccount, newBalance);
 
         assertEquals(newBalance, mockAccount.getBalance());
+        assertEquals(1L, mockAccount.getVersion());
+        assertEquals(newBalance, accountService.getAccountById(1L).orElseThrow().getBalance());
+        verify(accountEntityRepository, never()).findDetachedById(1L);
+    }
+
+    @Test
+    void testUpdateAccountBalance_StaleVersion() {
+        AccountEntity mockAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        accountCache.put(1L, mockAccount);
+
+        when(accountEntityRepository.updateBalance(1L, new BigDecimal("500.00"), 0L)).thenReturn(0);
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> accountService.updateAccountBalance(mockAccount, new BigDecimal("500.00")));
+
+        assertEquals(new BigDecimal("100.00"), mockAccount.getBalance());
+        assertNull(accountCache.getIfPresent(1L));
+    }
+
+    @Test
+    void testDebit() {
+        when(accountEntityRepository.debit(1L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(1);
+        when(accountEntityRepository.debit(2L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(0);
+
+        accountCache.put(1L, new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, null));
+
+        assertTrue(accountService.debit(1L, new BigDecimal("100.00"), Currency.EUR));
+        assertNull(accountCache.getIfPresent(1L));
+        assertFalse(accountService.debit(2L, new BigDecimal("100.00"), Currency.EUR));
+    }
+
+    @Test
+    void testCredit() {
+        when(accountEntityRepository.credit(1L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(1);
+        when(accountEntityRepository.credit(2L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(0);
+
+        assertTrue(accountService.credit(1L, new BigDecimal("100.00"), Currency.EUR));
+        assertFalse(accountService.credit(2L, new BigDecimal("100.00"), Currency.EUR));
+    }
+
+    @Test
+    void testRecordTransfer() {
+        TransactionEntity transaction = TransactionEntity.builder()
+                .sourceAccountId(2L)
+                .targetAccountId(1L)
+                .amount(new BigDecimal("100.00"))
+                .currency(Currency.EUR)
+                .build();
+        when(accountStatsEntityRepository.add(1L, 1, new BigDecimal("100.00"), 0, BigDecimal.ZERO)).thenReturn(0);
+        when(accountStatsEntityRepository.add(2L, 0, BigDecimal.ZERO, 1, new BigDecimal("100.00"))).thenReturn(1);
+
+        accountService.recordTransfer(transaction);
+
+        InOrder inOrder = inOrder(accountStatsEntityRepository);
+        inOrder.verify(accountStatsEntityRepository).add(1L, 1, new BigDecimal("100.00"), 0, BigDecimal.ZERO);
+        inOrder.verify(accountStatsEntityRepository).insert(1L, "EUR", 1, new BigDecimal("100.00"), 0, BigDecimal.ZERO);
+        inOrder.verify(accountStatsEntityRepository).add(2L, 0, BigDecimal.ZERO, 1, new BigDecimal("100.00"));
+        verifyNoMoreInteractions(accountStatsEntityRepository);
+    }
+
+    @Test
+    void testRecordTransfer_SplitAccountKeepsTotalsOnItsSlot() {
+        TransactionEntity transaction = TransactionEntity.builder()
+                .sourceAccountId(1L)
+                .targetAccountId(2L)
+                .amount(new BigDecimal("100.00"))
+                .currency(Currency.EUR)
+                .build();
+        when(accountBalanceSlotEntityRepository.addTotals(2L, 3, 1, new BigDecimal("100.00"), 0, BigDecimal.ZERO)).thenReturn(1);
+        when(accountStatsEntityRepository.add(1L, 0, BigDecimal.ZERO, 1, new BigDecimal("100.00"))).thenReturn(1);
+
+        accountService.recordTransfer(transaction, -1, 3);
+
+        InOrder inOrder = inOrder(accountStatsEntityRepository, accountBalanceSlotEntityRepository);
+        inOrder.verify(accountStatsEntityRepository).add(1L, 0, BigDecimal.ZERO, 1, new BigDecimal("100.00"));
+        inOrder.verify(accountBalanceSlotEntityRepository).addTotals(2L, 3, 1, new BigDecimal("100.00"), 0, BigDecimal.ZERO);
+        verifyNoMoreInteractions(accountStatsEntityRepository);
+    }
+
+    @Test
+    void testMergeAllSlots_KeepsSlotTotals() {
+        when(accountBalanceSlotEntityRepository.sumTotalsByAccount()).thenReturn(List.of(
+                new AccountStatsEntity(1L, Currency.EUR, 4, new BigDecimal("40.00"), 2, new BigDecimal("15.00"))));
+        when(accountStatsEntityRepository.add(1L, 4, new BigDecimal("40.00"), 2, new BigDecimal("15.00"))).thenReturn(0);
+        when(accountEntityRepository.addSlotBalances()).thenReturn(1);
+
+        assertEquals(1, accountService.mergeAllSlots());
+
+        InOrder inOrder = inOrder(accountStatsEntityRepository, accountEntityRepository, accountBalanceSlotEntityRepository);
+        inOrder.verify(accountStatsEntityRepository).insert(1L, "EUR", 4, new BigDecimal("40.00"), 2, new BigDecimal("15.00"));
+        inOrder.verify(accountEntityRepository).addSlotBalances();
+        inOrder.verify(accountBalanceSlotEntityRepository).deleteAllInBatch();
+    }
+
+    @Test
+    void testGetAccount() {
+        AccountResponseDto account = new AccountResponseDto(1L, new BigDecimal("100.00"), Currency.EUR, null,
+                1, new BigDecimal("50.00"), 2, new BigDecimal("25.00"));
+        when(accountEntityRepository.findSnapshotById(1L)).thenReturn(Optional.of(account));
+
+        assertEquals(Optional.of(account), accountService.getAccount(1L));
+        assertEquals(Optional.empty(), accountService.getAccount(2L));
+    }
+
+    @Test
+    void testRebalance_SpreadsWhatIsLeftOverTheSlots() {
+        AccountEntity account = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, null, 3L);
+        when(accountEntityRepository.findDetachedByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountBalanceSlotEntityRepository.findDetachedByAccountIdForUpdate(1L)).thenReturn(List.of(
+                slot(0, "10.00", 0, "0.00", 0, "0.00"),
+                slot(1, "0.00", 0, "0.00", 0, "0.00"),
+                slot(2, "5.00", 0, "0.00", 0, "0.00")));
+        when(accountEntityRepository.updateBalance(1L, new BigDecimal("0.01"), 3L)).thenReturn(1);
+
+        assertEquals(3, accountService.rebalance(1L, 3, new BigDecimal("15.00"), Currency.EUR));
+
+        // 100.00 is left, the cent that cannot be spread evenly stays on the account row
+        for (int slot = 0; slot < 3; slot++) {
+            verify(accountBalanceSlotEntityRepository).updateBalance(1L, slot, new BigDecimal("33.33"));
+        }
+        verify(accountEntityRepository).updateBalance(1L, new BigDecimal("0.01"), 3L);
+        verify(accountBalanceSlotEntityRepository, never()).deleteByAccountId(any());
+    }
+
+    @Test
+    void testRebalance_MergesSlotsIntoAccountRow() {
+        AccountEntity account = new AccountEntity(1L, new BigDecimal("0.00"), Currency.EUR, null, 3L);
+        when(accountEntityRepository.findDetachedByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountBalanceSlotEntityRepository.findDetachedByAccountIdForUpdate(1L)).thenReturn(List.of(
+                slot(0, "10.00", 2, "30.00", 1, "20.00"),
+                slot(1, "5.00", 1, "5.00", 0, "0.00")));
+        when(accountEntityRepository.updateBalance(1L, new BigDecimal("15.00"), 3L)).thenReturn(1);
+        when(accountStatsEntityRepository.add(1L, 3, new BigDecimal("35.00"), 1, new BigDecimal("20.00"))).thenReturn(1);
+
+        assertEquals(0, accountService.rebalance(1L, 0, BigDecimal.ZERO, null));
+
+        verify(accountBalanceSlotEntityRepository).deleteByAccountId(1L);
+        verify(accountEntityRepository).updateBalance(1L, new BigDecimal("15.00"), 3L);
+        // The totals of the deleted slots are kept in the statistics of the account
+        verify(accountStatsEntityRepository).add(1L, 3, new BigDecimal("35.00"), 1, new BigDecimal("20.00"));
+    }
+
+    @Test
+    void testRebalance_RejectedWithoutChanges() {
+        AccountEntity account = new AccountEntity(1L, new BigDecimal("10.00"), Currency.EUR, null, 3L);
+        when(accountEntityRepository.findDetachedByIdForUpdate(1L)).thenReturn(Optional.of(account));
+        when(accountBalanceSlotEntityRepository.findDetachedByAccountIdForUpdate(1L)).thenReturn(List.of(
+                slot(0, "10.00", 0, "0.00", 0, "0.00")));
+
+        assertEquals(-1, accountService.rebalance(1L, 1, new BigDecimal("20.01"), Currency.EUR));
+        assertEquals(-1, accountService.rebalance(1L, 1, new BigDecimal("1.00"), Currency.GBP));
+        assertEquals(-1, accountService.rebalance(2L, 1, new BigDecimal("1.00"), Currency.EUR));
+
+        verify(accountBalanceSlotEntityRepository, never()).updateBalance(any(), anyInt(), any());
+        verify(accountEntityRepository, never()).updateBalance(any(), any(), anyLong());
+    }
+
+    @Test
+    void testJournalTransfer_LeavesTargetAccountUntouched() {
+        TransactionEntity transaction = TransactionEntity.builder()
+                .sourceAccountId(1L)
+                .targetAccountId(2L)
+                .amount(new BigDecimal("25.00"))
+                .currency(Currency.EUR)
+                .build();
+        when(accountStatsEntityRepository.add(1L, 0, BigDecimal.ZERO, 1, new BigDecimal("25.00"))).thenReturn(1);
+
+        accountService.journalTransfer(transaction);
+
+        verify(accountCreditEntityRepository).insert(2L, new BigDecimal("25.00"), Currency.EUR);
+        verify(accountStatsEntityRepository, never()).add(eq(2L), anyLong(), any(), anyLong(), any());
+        verify(accountEntityRepository, never()).credit(any(), any(), any());
+    }
+
+    @Test
+    void testSettleCredits_AddsTotalsToBalancesAndStats() {
+        AccountEntity account = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, null, 1L);
+        accountCache.put(1L, account);
+        when(accountCreditEntityRepository.findOldestByAccountIds(List.of(1L, 2L), 10)).thenReturn(List.of(
+                new AccountCreditEntity(11L, 1L, Currency.EUR, new BigDecimal("10.00")),
+                new AccountCreditEntity(12L, 2L, Currency.GBP, new BigDecimal("5.00")),
+                new AccountCreditEntity(13L, 1L, Currency.EUR, new BigDecimal("15.00")),
+                new AccountCreditEntity(14L, 1L, Currency.EUR, new BigDecimal("5.00"))));
+        when(accountStatsEntityRepository.add(1L, 3L, new BigDecimal("30.00"), 0, BigDecimal.ZERO)).thenReturn(1);
+        when(accountStatsEntityRepository.add(2L, 1L, new BigDecimal("5.00"), 0, BigDecimal.ZERO)).thenReturn(0);
+
+        assertEquals(4, accountService.settleCredits(List.of(1L, 2L), 10));
+
+        InOrder inOrder = inOrder(accountEntityRepository, accountCreditEntityRepository);
+        inOrder.verify(accountEntityRepository).findIdsForUpdate(List.of(1L, 2L));
+        inOrder.verify(accountCreditEntityRepository).findOldestByAccountIds(List.of(1L, 2L), 10);
+        inOrder.verify(accountCreditEntityRepository).deleteAllByIdInBatch(List.of(11L, 12L, 13L, 14L));
+        verify(accountEntityRepository).credit(1L, new BigDecimal("30.00"), Currency.EUR);
+        verify(accountEntityRepository).credit(2L, new BigDecimal("5.00"), Currency.GBP);
+        verify(accountStatsEntityRepository).insert(2L, "GBP", 1L, new BigDecimal("5.00"), 0, BigDecimal.ZERO);
+        // Only the database knows the settled balance
+        assertNull(accountCache.getIfPresent(1L));
+    }
+
+    private static AccountBalanceSlotEntity slot(int slot, String balance, long incomingCount, String totalIn, long outgoingCount, String totalOut) {
+        return new AccountBalanceSlotEntity(1L, slot, Currency.EUR, new BigDecimal(balance),
+                incomingCount, new BigDecimal(totalIn), outgoingCount, new BigDecimal(totalOut));
     }
 }
@@ -1,13 +1,43 @@
 package org.agileactors.unit.services;
 
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.agileactors.concurrency.AccountLockManager;
+import org.agileactors.concurrency.ConnectionBulkhead;
+import org.agileactors.concurrency.GroupCommitter;
+import org.agileactors.concurrency.CreditAggregator;
+import org.agileactors.concurrency.HotAccountSplitter;
+import org.agileactors.concurrency.OptimisticRetryExecutor;
+import org.agileactors.config.TransactionProperties;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.agileactors.dtos.IdempotencyRecord;
+import org.agileactors.dtos.TransactionBatchResultDto;
+import org.agileactors.dtos.TransactionCursor;
+import org.agileactors.dtos.TransactionPageDto;
+import org.agileactors.dtos.TransactionPageRequestDto;
+import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
 import org.agileactors.entities.AccountEntity;
 import org.agileactors.entities.TransactionEntity;
-import org.agileactors.enums.Currency;
+import org.agileactors.enums.*;
 import org.agileactors.exceptions.AccountNotFoundException;
+import org.agileactors.exceptions.BatchTooLargeException;
 import org.agileactors.exceptions.InsufficientBalanceException;
+import org.agileactors.exceptions.InvalidCursorException;
+import org.agileactors.exceptions.InvalidIdempotencyKeyException;
 import org.agileactors.exceptions.SameAccountTransferException;
 import org.agileactors.exceptions.CurrencyMismatchException;
+import org.agileactors.exceptions.DuplicateTransactionException;
+import org.agileactors.exceptions.IdempotencyKeyReusedException;
+import org.agileactors.ledger.LedgerAccount;
+import org.agileactors.ledger.LedgerEngine;
+import org.agileactors.ledger.TransferValidator;
+import org.agileactors.metrics.TransactionMetrics;
 import org.agileactors.repositories.TransactionEntityRepository;
 import org.agileactors.services.AccountServiceImpl;
 import org.agileactors.services.TransactionServiceImpl;
@@ -15,16 +45,30 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.stubbing.Answer;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +77,30 @@ class TransactionServiceTest {
     private AccountServiceImpl accountService;
     @Mock
     private TransactionEntityRepository transactionEntityRepository;
+    @Spy
+    private Cache<String, IdempotencyRecord> idempotencyCache = Caffeine.newBuilder().build();
+    @Mock
+    private AccountLockManager accountLockManager;
+    @Mock
+    private ConnectionBulkhead connectionBulkhead;
+    @Mock
+    private GroupCommitter groupCommitter;
+    @Spy
+    private TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+    @Mock
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+    @Mock
+    private LedgerEngine ledgerEngine;
+    @Spy
+    private TransactionProperties transactionProperties = new TransactionProperties();
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    @Mock
+    private TransactionMetrics transactionMetrics;
+    @Mock
+    private HotAccountSplitter hotAccountSplitter;
+    @Mock
+    private CreditAggregator creditAggregator;
     @InjectMocks
     private TransactionServiceImpl transactionService;
 
@@ -56,6 +124,653 @@ class TransactionServiceTest {
         verify(accountService, times(1)).updateAccountBalance(mockSourceAccount, new BigDecimal("100.00"));
         verify(accountService, times(1)).updateAccountBalance(mockTargetAccount, new BigDecimal("400.00"));
         verify(transactionEntityRepository, times(1)).save(mockTransaction);
+        verify(accountLockManager, times(1)).lock(List.of(1L, 2L));
+        for (TransactionStage stage : TransactionStage.values()) {
+            verify(transactionMetrics, times(1)).recordStage(eq(stage), anyLong());
+        }
+        verify(transactionMetrics, times(1)).recordSuccess();
+        verify(transactionMetrics, times(1)).recordDuration(anyLong());
+    }
+
+    @Test
+    void testPerformTransaction_LogsSampledSummary() {
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+
+        Logger logger = (Logger) LoggerFactory.getLogger(TransactionServiceImpl.class);
+        ListAppender<ILoggingEvent> appender = new ListAppender<>();
+        appender.start();
+        Level level = logger.getLevel();
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+        try {
+            transactionService.performTransaction(TransactionEntity.builder()
+                    .sourceAccountId(1L).targetAccountId(2L).amount(new BigDecimal("10.00")).currency(Currency.EUR).build());
+            transactionProperties.getLogging().setSummarySampleRate(0);
+            transactionService.performTransaction(TransactionEntity.builder()
+                    .sourceAccountId(1L).targetAccountId(2L).amount(new BigDecimal("10.00")).currency(Currency.EUR).build());
+        } finally {
+            logger.detachAppender(appender);
+            logger.setLevel(level);
+        }
+
+        List<ILoggingEvent> summaries = appender.list.stream()
+                .filter(event -> event.getMessage().startsWith("Transaction performed"))
+                .toList();
+        assertEquals(1, summaries.size());
+        assertEquals(1L, summaries.get(0).getArgumentArray()[1]);
+    }
+
+    @Test
+    void testPerformTransaction_GroupCommit_RejectedTransactionDoesNotFailItsGroup() {
+        transactionProperties.getGroupCommit().setEnabled(true);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+        TransactionEntity rejectedTransaction = new TransactionEntity();
+        rejectedTransaction.setSourceAccountId(3L);
+        rejectedTransaction.setTargetAccountId(2L);
+        rejectedTransaction.setAmount(new BigDecimal("100.00"));
+        rejectedTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockRejectedAccount = new AccountEntity(3L, new BigDecimal("50.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+        when(accountService.getAccountById(3L)).thenReturn(Optional.of(mockRejectedAccount));
+        when(accountService.refreshAccountById(3L)).thenReturn(Optional.of(mockRejectedAccount));
+        Map<TransactionEntity, RuntimeException> groupRejections = new IdentityHashMap<>();
+        when(groupCommitter.commit(eq(mockTransaction), any())).thenAnswer(invocation -> {
+            Function<List<TransactionEntity>, Map<TransactionEntity, RuntimeException>> work = invocation.getArgument(1);
+            groupRejections.putAll(work.apply(List.of(rejectedTransaction, mockTransaction)));
+            return true;
+        });
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        assertEquals(Set.of(rejectedTransaction), groupRejections.keySet());
+        assertInstanceOf(InsufficientBalanceException.class, groupRejections.get(rejectedTransaction));
+        verify(transactionEntityRepository, times(1)).save(mockTransaction);
+        verify(transactionEntityRepository, never()).save(rejectedTransaction);
+        verify(accountLockManager, times(1)).lock(List.of(3L, 2L, 1L, 2L));
+        verify(transactionMetrics, times(1)).recordStage(eq(TransactionStage.COMMIT), anyLong());
+        verify(transactionMetrics, times(1)).recordSuccess();
+    }
+
+    @Test
+    void testPerformTransaction_GroupCommitFailed_PerformedAlone() {
+        transactionProperties.getGroupCommit().setEnabled(true);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        when(groupCommitter.commit(eq(mockTransaction), any())).thenAnswer(invocation -> {
+            // The id assigned by the rolled back group must not be reused
+            mockTransaction.setId(UUID.randomUUID());
+            return false;
+        });
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        assertNull(mockTransaction.getId());
+        verify(transactionEntityRepository, times(1)).save(mockTransaction);
+        verify(accountLockManager, times(1)).lock(List.of(1L, 2L));
+        verify(transactionMetrics, times(1)).recordSuccess();
+    }
+
+    @Test
+    void testPerformTransaction_IdempotencyKeyIsIndexed() {
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+        mockTransaction.setIdempotencyKey("key-1");
+
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        UUID transactionId = UUID.randomUUID();
+        when(transactionEntityRepository.save(mockTransaction)).thenAnswer(invocation -> {
+            mockTransaction.setId(transactionId);
+            return mockTransaction;
+        });
+
+        transactionService.performTransaction(mockTransaction);
+
+        assertEquals(transactionId, idempotencyCache.getIfPresent("key-1").transactionId());
+        verify(transactionEntityRepository, never()).findIdempotencyRecordByIdempotencyKey(any());
+    }
+
+    @Test
+    void testPerformTransaction_IdempotencyKeyReplayedFromMemory() {
+        UUID originalId = UUID.randomUUID();
+        idempotencyCache.put("key-1", new IdempotencyRecord(originalId, 1L, 2L, new BigDecimal("100.0"), Currency.EUR));
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+        mockTransaction.setIdempotencyKey("key-1");
+
+        transactionService.performTransaction(mockTransaction);
+
+        assertEquals(originalId, mockTransaction.getId());
+        verifyNoInteractions(accountService, transactionEntityRepository, accountLockManager);
+        verify(transactionMetrics, times(1)).recordReplay();
+    }
+
+    @Test
+    void testPerformTransaction_IdempotencyKeyReplayedFromDatabase() {
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+        mockTransaction.setIdempotencyKey("key-1");
+
+        UUID originalId = UUID.randomUUID();
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        when(transactionEntityRepository.save(mockTransaction)).thenThrow(new DataIntegrityViolationException("UK_TRANSACTION_IDEMPOTENCY_KEY"));
+        when(transactionEntityRepository.findIdempotencyRecordByIdempotencyKey("key-1")).thenReturn(Optional.of(IdempotencyRecord.of(originalId, mockTransaction)));
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        assertEquals(originalId, mockTransaction.getId());
+        assertEquals(originalId, idempotencyCache.getIfPresent("key-1").transactionId());
+        verify(transactionMetrics, times(1)).recordReplay();
+        verify(transactionMetrics, never()).recordFailure(any());
+    }
+
+    @Test
+    void testPerformTransaction_IdempotencyKeyReusedFromMemory() {
+        UUID originalId = UUID.randomUUID();
+        idempotencyCache.put("key-1", new IdempotencyRecord(originalId, 1L, 2L, new BigDecimal("100.00"), Currency.EUR));
+        TransactionEntity mockTransaction = transaction(1L, 2L, "150.00");
+        mockTransaction.setIdempotencyKey("key-1");
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> transactionService.performTransaction(mockTransaction));
+
+        assertNull(mockTransaction.getId());
+        verifyNoInteractions(accountService, transactionEntityRepository, accountLockManager);
+        verify(transactionMetrics, never()).recordReplay();
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.IDEMPOTENCY_KEY_REUSED);
+    }
+
+    @Test
+    void testPerformTransaction_IdempotencyKeyReusedFromDatabase() {
+        TransactionEntity mockTransaction = transaction(1L, 2L, "100.00");
+        mockTransaction.setIdempotencyKey("key-1");
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()))));
+        when(transactionEntityRepository.save(mockTransaction)).thenThrow(new DataIntegrityViolationException("UK_TRANSACTION_IDEMPOTENCY_KEY"));
+        when(transactionEntityRepository.findIdempotencyRecordByIdempotencyKey("key-1"))
+                .thenReturn(Optional.of(new IdempotencyRecord(UUID.randomUUID(), 3L, 2L, new BigDecimal("100.00"), Currency.EUR)));
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> transactionService.performTransaction(mockTransaction));
+
+        verify(transactionMetrics, never()).recordReplay();
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.IDEMPOTENCY_KEY_REUSED);
+    }
+
+    @Test
+    void testPerformTransaction_InvalidIdempotencyKey() {
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+        mockTransaction.setIdempotencyKey(" ");
+
+        assertThrows(InvalidIdempotencyKeyException.class, () -> transactionService.performTransaction(mockTransaction));
+        verifyNoInteractions(accountService);
+    }
+
+    @Test
+    void testPerformTransaction_OptimisticMode() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.OPTIMISTIC);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setId(UUID.randomUUID()); // Left behind by a rolled back attempt
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(optimisticRetryExecutor).execute(any(Runnable.class));
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        assertNull(mockTransaction.getId());
+        verify(accountService, times(1)).updateAccountBalance(mockSourceAccount, new BigDecimal("100.00"));
+        verify(accountService, times(1)).updateAccountBalance(mockTargetAccount, new BigDecimal("400.00"));
+        verify(transactionEntityRepository, times(1)).save(mockTransaction);
+        verifyNoInteractions(accountLockManager);
+    }
+
+    @Test
+    void testPerformTransaction_AtomicMode() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(2L);
+        mockTransaction.setTargetAccountId(1L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        when(accountService.credit(1L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(true);
+        when(accountService.debit(2L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(true);
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        // The lower account id is updated first
+        var inOrder = inOrder(accountService);
+        inOrder.verify(accountService).credit(1L, new BigDecimal("100.00"), Currency.EUR);
+        inOrder.verify(accountService).debit(2L, new BigDecimal("100.00"), Currency.EUR);
+        inOrder.verify(accountService).recordTransfer(mockTransaction, HotAccountSplitter.ACCOUNT_ROW, HotAccountSplitter.ACCOUNT_ROW);
+        verify(accountService, never()).getAccountById(any());
+        verify(accountService, never()).updateAccountBalance(any(), any());
+        verify(transactionEntityRepository, times(1)).save(mockTransaction);
+        verifyNoInteractions(accountLockManager);
+    }
+
+    @Test
+    void testPerformTransaction_AtomicMode_InsufficientBalance() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("200.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+
+        when(accountService.debit(1L, new BigDecimal("200.00"), Currency.EUR)).thenReturn(false);
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.performTransaction(mockTransaction));
+
+        verify(accountService, never()).credit(any(), any(), any());
+        verify(transactionEntityRepository, never()).save(any());
+    }
+
+    @Test
+    void testPerformTransaction_AtomicMode_TargetAccountNotFound() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+
+        when(accountService.debit(1L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(true);
+        when(accountService.credit(2L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(false);
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.empty());
+
+        assertThrows(AccountNotFoundException.class, () -> transactionService.performTransaction(mockTransaction));
+
+        // The debit that was already applied is reverted
+        verify(accountService, times(1)).credit(1L, new BigDecimal("100.00"), Currency.EUR);
+        verify(transactionEntityRepository, never()).save(any());
+    }
+
+    @Test
+    void testPerformTransaction_AtomicMode_SplitAccountKeepsTotalsOnItsSlot() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        when(hotAccountSplitter.isEnabled()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(optimisticRetryExecutor).execute(any(Runnable.class));
+        when(hotAccountSplitter.debit(1L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(HotAccountSplitter.ACCOUNT_ROW);
+        when(hotAccountSplitter.credit(2L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(5);
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        verify(accountService, times(1)).recordTransfer(mockTransaction, HotAccountSplitter.ACCOUNT_ROW, 5);
+        verify(accountService, never()).recordTransfer(any());
+        verify(transactionEntityRepository, times(1)).save(mockTransaction);
+    }
+
+    @Test
+    void testPerformTransaction_AtomicMode_SplitAccountRevertsItsSlot() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.ATOMIC);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("500.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.GBP, new Timestamp(System.currentTimeMillis()));
+
+        when(hotAccountSplitter.isEnabled()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(optimisticRetryExecutor).execute(any(Runnable.class));
+        when(hotAccountSplitter.debit(1L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(3);
+        when(hotAccountSplitter.credit(2L, new BigDecimal("100.00"), Currency.EUR)).thenReturn(HotAccountSplitter.REJECTED);
+        when(accountService.getConsolidatedAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+
+        assertThrows(CurrencyMismatchException.class, () -> transactionService.performTransaction(mockTransaction));
+
+        // The debit is reverted on the slot it was taken from
+        verify(accountService, times(1)).creditSlot(1L, 3, new BigDecimal("100.00"), Currency.EUR);
+        verify(accountService, never()).credit(any(), any(), any());
+        verify(transactionEntityRepository, never()).save(any());
+    }
+
+    @Test
+    void testPerformTransaction_LedgerMode() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.LEDGER);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        doAnswer(validatedWith(ledgerAccount(1L, 20000), ledgerAccount(2L, 30000))).when(ledgerEngine).transfer(eq(mockTransaction), eq(-1L), any());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ledgerEngine).runAtomically(any(Runnable.class));
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        verify(ledgerEngine, times(1)).transfer(eq(mockTransaction), eq(-1L), any());
+        verifyNoInteractions(accountService, transactionEntityRepository, accountLockManager, connectionBulkhead);
+        verify(transactionMetrics, times(1)).recordSuccess();
+    }
+
+    @Test
+    void testPerformTransaction_LedgerMode_InsufficientBalance() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.LEDGER);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("300.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        doAnswer(validatedWith(ledgerAccount(1L, 20000), ledgerAccount(2L, 30000))).when(ledgerEngine).transfer(eq(mockTransaction), eq(-1L), any());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ledgerEngine).runAtomically(any(Runnable.class));
+
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.performTransaction(mockTransaction));
+
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.INSUFFICIENT_BALANCE);
+    }
+
+    @Test
+    void testPerformTransaction_LedgerMode_IdempotencyKeyReplayedFromLedger() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.LEDGER);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+        mockTransaction.setIdempotencyKey("key-1");
+
+        UUID originalId = UUID.randomUUID();
+        when(transactionEntityRepository.findIdempotencyRecordByIdempotencyKey("key-1")).thenReturn(Optional.empty());
+        when(ledgerEngine.getPersistedLsn()).thenReturn(10L);
+        doThrow(new DuplicateTransactionException("Transaction already performed", IdempotencyRecord.of(originalId, mockTransaction)))
+                .when(ledgerEngine).transfer(eq(mockTransaction), eq(10L), any());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ledgerEngine).runAtomically(any(Runnable.class));
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        assertEquals(originalId, mockTransaction.getId());
+        assertEquals(originalId, idempotencyCache.getIfPresent("key-1").transactionId());
+        verify(transactionMetrics, times(1)).recordReplay();
+        verify(transactionMetrics, never()).recordFailure(any());
+    }
+
+    @Test
+    void testPerformTransaction_ShardedMode() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.SHARDED);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        LedgerAccount mockSourceAccount = ledgerAccount(1L, 20000);
+        LedgerAccount mockTargetAccount = ledgerAccount(2L, 30000);
+        when(ledgerEngine.submit(eq(mockTransaction), eq(-1L), any())).thenAnswer(invocation -> {
+            invocation.<TransferValidator>getArgument(2).validate(mockTransaction, 10000, mockSourceAccount, mockTargetAccount);
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        verify(ledgerEngine, never()).runAtomically(any());
+        verifyNoInteractions(accountService, transactionEntityRepository, accountLockManager, connectionBulkhead);
+        verify(transactionMetrics, times(1)).recordStage(eq(TransactionStage.VALIDATION), anyLong());
+        verify(transactionMetrics, times(1)).recordSuccess();
+    }
+
+    @Test
+    void testPerformTransaction_ShardedMode_RejectedByShard() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.SHARDED);
+
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("300.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        LedgerAccount mockSourceAccount = ledgerAccount(1L, 20000);
+        LedgerAccount mockTargetAccount = ledgerAccount(2L, 30000);
+        when(ledgerEngine.submit(eq(mockTransaction), eq(-1L), any())).thenAnswer(invocation -> {
+            try {
+                invocation.<TransferValidator>getArgument(2).validate(mockTransaction, 30000, mockSourceAccount, mockTargetAccount);
+                return CompletableFuture.completedFuture(null);
+            } catch (RuntimeException ex) {
+                return CompletableFuture.failedFuture(ex);
+            }
+        });
+
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.performTransaction(mockTransaction));
+
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.INSUFFICIENT_BALANCE);
+    }
+
+    @Test
+    void testPerformTransactions_ShardedMode_AllOrNothingRunsAsUnitOfWork() {
+        transactionProperties.getConcurrency().setMode(ConcurrencyMode.SHARDED);
+
+        List<TransactionRequestDto> requests = List.of(
+                new TransactionRequestDto(1L, 2L, new BigDecimal("10.00"), Currency.EUR),
+                new TransactionRequestDto(2L, 3L, new BigDecimal("20.00"), Currency.EUR));
+        doAnswer(invocation -> {
+            TransactionEntity transaction = invocation.getArgument(0);
+            invocation.<TransferValidator>getArgument(2).validate(transaction, transaction.getAmount().movePointRight(2).longValueExact(),
+                    ledgerAccount(transaction.getSourceAccountId(), 10000), ledgerAccount(transaction.getTargetAccountId(), 10000));
+            return null;
+        }).when(ledgerEngine).transfer(any(), eq(-1L), any());
+        when(ledgerEngine.isInUnitOfWork()).thenReturn(true);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(ledgerEngine).runAtomically(any(Runnable.class));
+
+        List<TransactionBatchResultDto> results = transactionService.performTransactions(requests, BatchMode.ALL_OR_NOTHING);
+
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchItemStatus.CREATED));
+        verify(ledgerEngine, times(2)).transfer(any(), eq(-1L), any());
+        verify(ledgerEngine, never()).submit(any(), anyLong(), any());
+    }
+
+    @Test
+    void testPerformTransactions_BestEffort() {
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("150.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+        when(accountService.refreshAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        doAnswer(invocation -> {
+            invocation.<AccountEntity>getArgument(0).setBalance(invocation.getArgument(1));
+            return null;
+        }).when(accountService).updateAccountBalance(any(), any());
+
+        List<TransactionBatchResultDto> results = transactionService.performTransactions(List.of(
+                new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(1L, 1L, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(1L, 2L, null, Currency.EUR),
+                new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR), // Balance is 50.00 by now
+                new TransactionRequestDto(2L, 1L, new BigDecimal("100.00"), Currency.EUR)
+        ), BatchMode.BEST_EFFORT);
+
+        assertEquals(5, results.size());
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, results.get(1).getStatus());
+        assertEquals(TransactionErrorCode.SAME_ACCOUNT, results.get(1).getErrorCode());
+        assertEquals(BatchItemStatus.REJECTED, results.get(2).getStatus());
+        assertEquals(TransactionErrorCode.INVALID_REQUEST, results.get(2).getErrorCode());
+        assertEquals("amount is required", results.get(2).getMessage());
+        assertEquals(BatchItemStatus.REJECTED, results.get(3).getStatus());
+        assertEquals(TransactionErrorCode.INSUFFICIENT_BALANCE, results.get(3).getErrorCode());
+        assertEquals(BatchItemStatus.CREATED, results.get(4).getStatus());
+        assertEquals(new BigDecimal("150.00"), mockSourceAccount.getBalance());
+        assertEquals(new BigDecimal("300.00"), mockTargetAccount.getBalance());
+        verify(transactionEntityRepository, times(2)).save(any());
+        verify(accountLockManager, times(1)).lock(List.of(1L, 2L, 1L, 2L, 2L, 1L));
+        verify(transactionMetrics, times(2)).recordSuccess();
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.SAME_ACCOUNT);
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.INVALID_REQUEST);
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.INSUFFICIENT_BALANCE);
+    }
+
+    @Test
+    void testPerformTransactions_AllOrNothing_RejectedItemRollsBackBatch() {
+        List<TransactionBatchResultDto> results = transactionService.performTransactions(List.of(
+                new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(1L, 1L, new BigDecimal("100.00"), Currency.EUR)
+        ), BatchMode.ALL_OR_NOTHING);
+
+        assertEquals(BatchItemStatus.ROLLED_BACK, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, results.get(1).getStatus());
+        assertEquals(TransactionErrorCode.SAME_ACCOUNT, results.get(1).getErrorCode());
+        verifyNoInteractions(accountService, transactionEntityRepository, accountLockManager);
+    }
+
+    @Test
+    void testPerformTransactions_AllOrNothing_FailedTransferRollsBackBatch() {
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("150.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.USD, new Timestamp(System.currentTimeMillis()));
+
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+
+        List<TransactionBatchResultDto> results = transactionService.performTransactions(List.of(
+                new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.USD),
+                new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.USD)
+        ), BatchMode.ALL_OR_NOTHING);
+
+        assertEquals(BatchItemStatus.REJECTED, results.get(0).getStatus());
+        assertEquals(TransactionErrorCode.CURRENCY_MISMATCH, results.get(0).getErrorCode());
+        assertEquals(BatchItemStatus.ROLLED_BACK, results.get(1).getStatus());
+    }
+
+    @Test
+    void testPerformTransactions_TooLarge() {
+        transactionProperties.getBatch().setMaxSize(1);
+
+        List<TransactionRequestDto> requests = List.of(
+                new TransactionRequestDto(1L, 2L, new BigDecimal("100.00"), Currency.EUR),
+                new TransactionRequestDto(2L, 1L, new BigDecimal("100.00"), Currency.EUR));
+
+        assertThrows(BatchTooLargeException.class, () -> transactionService.performTransactions(requests, BatchMode.BEST_EFFORT));
+    }
+
+    @Test
+    void testPerformAcceptedTransactions() {
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("150.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, new Timestamp(System.currentTimeMillis()));
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+        when(accountService.refreshAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        doAnswer(invocation -> {
+            invocation.<AccountEntity>getArgument(0).setBalance(invocation.getArgument(1));
+            return null;
+        }).when(accountService).updateAccountBalance(any(), any());
+        UUID originalId = UUID.randomUUID();
+        idempotencyCache.put("key-1", new IdempotencyRecord(originalId, 1L, 2L, new BigDecimal("100.00"), Currency.EUR));
+        TransactionEntity replayed = transaction(1L, 2L, "100.00");
+        replayed.setIdempotencyKey("key-1");
+
+        List<TransactionBatchResultDto> reported = new ArrayList<>();
+
+        List<TransactionBatchResultDto> results = transactionService.performAcceptedTransactions(List.of(
+                transaction(1L, 2L, "100.00"),
+                transaction(1L, 1L, "100.00"),
+                replayed,
+                transaction(1L, 2L, "100.00") // Balance is 50.00 by now
+        ), reported::add);
+
+        assertEquals(4, results.size());
+        assertEquals(4, reported.size());
+        assertTrue(reported.containsAll(results));
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, results.get(1).getStatus());
+        assertEquals(TransactionErrorCode.SAME_ACCOUNT, results.get(1).getErrorCode());
+        assertEquals(BatchItemStatus.CREATED, results.get(2).getStatus());
+        assertEquals(originalId, results.get(2).getId());
+        assertEquals(BatchItemStatus.REJECTED, results.get(3).getStatus());
+        assertEquals(TransactionErrorCode.INSUFFICIENT_BALANCE, results.get(3).getErrorCode());
+        verify(transactionEntityRepository, times(1)).save(any());
+        verify(accountLockManager, times(1)).lock(List.of(1L, 2L, 1L, 2L));
+        verify(transactionMetrics, times(1)).recordSuccess();
+        verify(transactionMetrics, times(1)).recordReplay();
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.SAME_ACCOUNT);
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.INSUFFICIENT_BALANCE);
     }
 
     @Test
@@ -67,6 +782,9 @@ class TransactionServiceTest {
         mockTransaction.setCurrency(Currency.GBP);
 
         assertThrows(SameAccountTransferException.class, () -> transactionService.performTransaction(mockTransaction));
+        verifyNoInteractions(accountLockManager);
+        verify(transactionMetrics, times(1)).recordFailure(TransactionErrorCode.SAME_ACCOUNT);
+        verify(transactionMetrics, never()).recordSuccess();
     }
 
     @Test
@@ -115,8 +833,86 @@ class TransactionServiceTest {
 
         when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
         when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+        when(accountService.refreshAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+
+        assertThrows(InsufficientBalanceException.class, () -> transactionService.performTransaction(mockTransaction));
+        verify(accountService, times(1)).refreshAccountById(1L);
+    }
+
+    @Test
+    void testPerformTransaction_StaleCachedBalance() {
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("200.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity cachedSourceAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, null, 1L);
+        AccountEntity freshSourceAccount = new AccountEntity(1L, new BigDecimal("500.00"), Currency.EUR, null, 2L);
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, null);
+
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(cachedSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+        when(accountService.refreshAccountById(1L)).thenReturn(Optional.of(freshSourceAccount));
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        verify(accountService, times(1)).updateAccountBalance(freshSourceAccount, new BigDecimal("300.00"));
+        verify(accountService, times(1)).updateAccountBalance(mockTargetAccount, new BigDecimal("500.00"));
+    }
+
+    @Test
+    void testPerformTransaction_CreditJournal_OnlySourceAccountIsLockedAndUpdated() {
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("100.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity mockSourceAccount = new AccountEntity(1L, new BigDecimal("200.00"), Currency.EUR, null);
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, null);
+
+        when(creditAggregator.isEnabled()).thenReturn(true);
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(mockSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        verify(accountLockManager, times(1)).lock(List.of(1L));
+        verify(accountService, times(1)).updateAccountBalance(mockSourceAccount, new BigDecimal("100.00"));
+        verify(accountService, never()).updateAccountBalance(eq(mockTargetAccount), any());
+        verify(accountService, times(1)).journalTransfer(mockTransaction);
+        verify(accountService, never()).recordTransfer(any());
+        verify(transactionEntityRepository, times(1)).save(mockTransaction);
+    }
+
+    @Test
+    void testPerformTransaction_CreditJournal_SettlesCreditsBeforeRejecting() {
+        TransactionEntity mockTransaction = new TransactionEntity();
+        mockTransaction.setSourceAccountId(1L);
+        mockTransaction.setTargetAccountId(2L);
+        mockTransaction.setAmount(new BigDecimal("200.00"));
+        mockTransaction.setCurrency(Currency.EUR);
+
+        AccountEntity cachedSourceAccount = new AccountEntity(1L, new BigDecimal("100.00"), Currency.EUR, null, 1L);
+        AccountEntity settledSourceAccount = new AccountEntity(1L, new BigDecimal("250.00"), Currency.EUR, null, 2L);
+        AccountEntity mockTargetAccount = new AccountEntity(2L, new BigDecimal("300.00"), Currency.EUR, null);
+
+        when(creditAggregator.isEnabled()).thenReturn(true);
+        when(accountService.getAccountById(1L)).thenReturn(Optional.of(cachedSourceAccount));
+        when(accountService.getAccountById(2L)).thenReturn(Optional.of(mockTargetAccount));
+        when(accountService.settleCreditsById(1L)).thenReturn(Optional.of(settledSourceAccount));
+
+        assertDoesNotThrow(() -> transactionService.performTransaction(mockTransaction));
+
+        verify(accountService, never()).refreshAccountById(any());
+        verify(accountService, times(1)).updateAccountBalance(settledSourceAccount, new BigDecimal("50.00"));
+        verify(accountService, times(1)).journalTransfer(mockTransaction);
 
+        // Once the journaled credits are settled, a balance that is still too low rejects the transfer
+        when(accountService.settleCreditsById(1L)).thenReturn(Optional.of(cachedSourceAccount));
         assertThrows(InsufficientBalanceException.class, () -> transactionService.performTransaction(mockTransaction));
+        verify(accountService, times(1)).journalTransfer(any());
     }
 
     @Test
@@ -175,31 +971,23 @@ class TransactionServiceTest {
     @Test
     void testGetTransactionFound() {
         UUID mockTransactionId = UUID.randomUUID();
+        TransactionResponseDto transaction = new TransactionResponseDto(mockTransactionId, 2L, 1L, new BigDecimal("100.00"),
+                Currency.EUR, new Timestamp(1000L));
 
-        TransactionEntity transaction = new TransactionEntity();
-        transaction.setId(mockTransactionId);
-        transaction.setTargetAccountId(1L);
-        transaction.setSourceAccountId(2L);
-        transaction.setAmount(new BigDecimal("100.00"));
-        transaction.setCurrency(Currency.EUR);
-
-        when(transactionEntityRepository.findById(mockTransactionId)).thenReturn(Optional.of(transaction));
+        when(transactionEntityRepository.findResponseById(mockTransactionId)).thenReturn(Optional.of(transaction));
 
         Optional<TransactionResponseDto> result = transactionService.getTransaction(mockTransactionId);
 
         assertTrue(result.isPresent());
-        assertEquals(mockTransactionId, result.get().getId());
-        assertEquals(transaction.getSourceAccountId(), result.get().getSourceAccountId());
-        assertEquals(transaction.getTargetAccountId(), result.get().getTargetAccountId());
-        assertEquals(transaction.getAmount(), result.get().getAmount());
-        assertEquals(transaction.getCurrency(), result.get().getCurrency());
+        assertSame(transaction, result.get());
+        verify(transactionEntityRepository, never()).findById(any());
     }
 
     @Test
     void testGetTransactionNotFound() {
         UUID mockTransactionId = UUID.randomUUID();
 
-        when(transactionEntityRepository.findById(mockTransactionId)).thenReturn(Optional.empty());
+        when(transactionEntityRepository.findResponseById(mockTransactionId)).thenReturn(Optional.empty());
 
         Optional<TransactionResponseDto> result = transactionService.getTransaction(mockTransactionId);
 
@@ -208,42 +996,112 @@ class TransactionServiceTest {
 
     @Test
     void testGetAllTransactions() {
-        List<TransactionEntity> mockTransactions = new ArrayList<>();
-
-        TransactionEntity transaction1 = new TransactionEntity();
-        transaction1.setId(UUID.randomUUID());
-        transaction1.setTargetAccountId(1L);
-        transaction1.setSourceAccountId(2L);
-        transaction1.setAmount(new BigDecimal("100.00"));
-        transaction1.setCurrency(Currency.EUR);
-        mockTransactions.add(transaction1);
-
-        TransactionEntity transaction2 = new TransactionEntity();
-        transaction2.setId(UUID.randomUUID());
-        transaction2.setTargetAccountId(3L);
-        transaction2.setSourceAccountId(4L);
-        transaction2.setAmount(new BigDecimal("50.00"));
-        transaction2.setCurrency(Currency.GBP);
-        mockTransactions.add(transaction2);
-
-        when(transactionEntityRepository.findAll()).thenReturn(mockTransactions);
-
-        List<TransactionResponseDto> result = transactionService.getAllTransactions();
-
-        assertEquals(mockTransactions.size(), result.size());
-
-        TransactionResponseDto resultTransaction1 = result.get(0);
-        assertEquals(transaction1.getId(), resultTransaction1.getId());
-        assertEquals(transaction1.getSourceAccountId(), resultTransaction1.getSourceAccountId());
-        assertEquals(transaction1.getTargetAccountId(), resultTransaction1.getTargetAccountId());
-        assertEquals(transaction1.getAmount(), resultTransaction1.getAmount());
-        assertEquals(transaction1.getCurrency(), resultTransaction1.getCurrency());
-
-        TransactionResponseDto resultTransaction2 = result.get(1);
-        assertEquals(transaction2.getId(), resultTransaction2.getId());
-        assertEquals(transaction2.getSourceAccountId(), resultTransaction2.getSourceAccountId());
-        assertEquals(transaction2.getTargetAccountId(), resultTransaction2.getTargetAccountId());
-        assertEquals(transaction2.getAmount(), resultTransaction2.getAmount());
-        assertEquals(transaction2.getCurrency(), resultTransaction2.getCurrency());
+        List<TransactionResponseDto> mockTransactions = List.of(
+                new TransactionResponseDto(UUID.randomUUID(), 2L, 1L, new BigDecimal("100.00"), Currency.EUR, new Timestamp(1000L)),
+                new TransactionResponseDto(UUID.randomUUID(), 4L, 3L, new BigDecimal("50.00"), Currency.GBP, new Timestamp(2000L)));
+
+        when(transactionEntityRepository.findPage(null, null, null, null, null, 101)).thenReturn(mockTransactions);
+
+        TransactionPageDto page = transactionService.getTransactions(new TransactionPageRequestDto());
+
+        assertNull(page.getNextCursor());
+        assertEquals(mockTransactions, page.getTransactions());
+    }
+
+    @Test
+    void testGetTransactions_ReturnsNextCursor() {
+        TransactionResponseDto transaction1 = new TransactionResponseDto(UUID.randomUUID(), 1L, 2L, new BigDecimal("100.00"),
+                Currency.EUR, new Timestamp(1000L));
+        TransactionResponseDto transaction2 = new TransactionResponseDto(UUID.randomUUID(), 2L, 1L, new BigDecimal("50.00"),
+                Currency.EUR, new Timestamp(2000L));
+        TransactionCursor after = new TransactionCursor(new Timestamp(500L), UUID.randomUUID());
+
+        when(transactionEntityRepository.findPage(eq(1L), eq(Currency.EUR), isNull(), isNull(), any(TransactionCursor.class), eq(2)))
+                .thenReturn(List.of(transaction1, transaction2));
+
+        TransactionPageDto page = transactionService.getTransactions(
+                new TransactionPageRequestDto(1L, Currency.EUR, null, null, after.encode(), 1));
+
+        assertEquals(1, page.getTransactions().size());
+        assertEquals(transaction1.getId(), page.getTransactions().get(0).getId());
+        TransactionCursor next = TransactionCursor.decode(page.getNextCursor());
+        assertEquals(transaction1.getTransactionDate(), next.transactionDate());
+        assertEquals(transaction1.getId(), next.id());
+    }
+
+    @Test
+    void testGetTransactions_CapsLimit() {
+        transactionProperties.getPagination().setMaxLimit(10);
+
+        transactionService.getTransactions(new TransactionPageRequestDto(null, null, null, null, null, 1_000_000));
+
+        verify(transactionEntityRepository, times(1)).findPage(null, null, null, null, null, 11);
+    }
+
+    @Test
+    void testGetTransactions_InvalidCursor() {
+        assertThrows(InvalidCursorException.class, () ->
+                transactionService.getTransactions(new TransactionPageRequestDto(null, null, null, null, "not a cursor", null)));
+
+        verifyNoInteractions(transactionEntityRepository);
+    }
+
+    @Test
+    void testExportTransactions() {
+        TransactionResponseDto transaction1 = new TransactionResponseDto(UUID.randomUUID(), 1L, 2L, new BigDecimal("100.00"),
+                Currency.EUR, new Timestamp(1000L));
+        TransactionResponseDto transaction2 = new TransactionResponseDto(UUID.randomUUID(), 2L, 1L, new BigDecimal("50.00"),
+                Currency.EUR, new Timestamp(2000L));
+        List<Boolean> closed = new ArrayList<>();
+
+        when(transactionEntityRepository.streamAll(1L, null, null, null, null, 1000))
+                .thenReturn(Stream.of(transaction1, transaction2).onClose(() -> closed.add(true)));
+
+        List<TransactionResponseDto> exported = new ArrayList<>();
+        long count = transactionService.exportTransactions(new TransactionPageRequestDto(1L, null, null, null, null, null), exported::add);
+
+        assertEquals(2, count);
+        assertEquals(List.of(transaction1, transaction2), exported);
+        assertEquals(List.of(true), closed);
+    }
+
+    @Test
+    void testExportTransactions_Limit() {
+        TransactionResponseDto transaction = new TransactionResponseDto(UUID.randomUUID(), 1L, 2L, new BigDecimal("100.00"),
+                Currency.EUR, new Timestamp(1000L));
+
+        when(transactionEntityRepository.streamAll(null, null, null, null, null, 1000))
+                .thenReturn(Stream.of(transaction, transaction, transaction));
+
+        List<TransactionResponseDto> exported = new ArrayList<>();
+        long count = transactionService.exportTransactions(new TransactionPageRequestDto(null, null, null, null, null, 2), exported::add);
+
+        assertEquals(2, count);
+        assertEquals(2, exported.size());
+    }
+
+    private static TransactionEntity transaction(Long sourceAccountId, Long targetAccountId, String amount) {
+        return TransactionEntity.builder()
+                .sourceAccountId(sourceAccountId)
+                .targetAccountId(targetAccountId)
+                .amount(new BigDecimal(amount))
+                .currency(Currency.EUR)
+                .build();
+    }
+
+    private static LedgerAccount ledgerAccount(Long id, long balance) {
+        return new LedgerAccount(id, balance, Currency.EUR, new Timestamp(System.currentTimeMillis()), 0L);
+    }
+
+    /**
+     * Answers {@link LedgerEngine#transfer} by running the validator it was given against the given accounts.
+     */
+    private static Answer<Void> validatedWith(LedgerAccount sourceAccount, LedgerAccount targetAccount) {
+        return invocation -> {
+            TransactionEntity transaction = invocation.getArgument(0);
+            invocation.<TransferValidator>getArgument(2).validate(transaction, transaction.getAmount().movePointRight(2).longValueExact(),
+                    sourceAccount, targetAccount);
+            return null;
+        };
     }
 }
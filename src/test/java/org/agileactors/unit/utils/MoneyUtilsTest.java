@@ -0,0 +1,33 @@
+package org.agileactors.unit.utils;
+
+import org.agileactors.enums.Currency;
+import org.agileactors.utils.MoneyUtils;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyUtilsTest {
+
+    @Test
+    void testToMinorUnits() {
+        assertEquals(10050, MoneyUtils.toMinorUnits(new BigDecimal("100.50"), Currency.EUR));
+        assertEquals(10050, MoneyUtils.toMinorUnits(new BigDecimal("100.5"), Currency.USD));
+        assertEquals(100, MoneyUtils.toMinorUnits(BigDecimal.ONE, Currency.GBP));
+        assertEquals(100000, MoneyUtils.toMinorUnits(new BigDecimal("1E+3"), Currency.EUR));
+    }
+
+    @Test
+    void testToMinorUnits_RejectsAmountsItCannotRepresent() {
+        assertThrows(ArithmeticException.class, () -> MoneyUtils.toMinorUnits(new BigDecimal("100.005"), Currency.EUR));
+        assertThrows(ArithmeticException.class, () -> MoneyUtils.toMinorUnits(new BigDecimal("100000000000000000.00"), Currency.EUR));
+    }
+
+    @Test
+    void testToAmount() {
+        assertEquals(new BigDecimal("100.50"), MoneyUtils.toAmount(10050, Currency.EUR));
+        assertEquals(new BigDecimal("-0.05"), MoneyUtils.toAmount(-5, Currency.EUR));
+    }
+}
@@ -0,0 +1,88 @@
+package org.agileactors.unit.utils;
+
+import org.agileactors.utils.TimeOrderedUuidUtils;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidUtilsTest {
+
+    @Test
+    void testNext_IsVersion7() {
+        UUID id = TimeOrderedUuidUtils.next();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+    }
+
+    @Test
+    void testNext_IsStrictlyIncreasing() {
+        List<UUID> ids = new ArrayList<>();
+        // Far more ids than the counter holds in one millisecond
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(TimeOrderedUuidUtils.next());
+        }
+
+        for (int i = 1; i < ids.size(); i++) {
+            UUID previous = ids.get(i - 1);
+            UUID current = ids.get(i);
+            assertTrue(Long.compareUnsigned(previous.getMostSignificantBits(), current.getMostSignificantBits()) < 0,
+                    previous + " should be less than " + current);
+        }
+    }
+
+    @Test
+    void testNext_IsUniqueAcrossThreads() throws Exception {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        CountDownLatch done = new CountDownLatch(4);
+        for (int thread = 0; thread < 4; thread++) {
+            new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(TimeOrderedUuidUtils.next());
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        assertEquals(40_000, ids.size());
+    }
+
+    @Test
+    void testTimestampOf() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedUuidUtils.next();
+
+        Instant timestamp = TimeOrderedUuidUtils.timestampOf(id);
+
+        // The counter may run a few milliseconds ahead of the clock after the other tests
+        assertTrue(timestamp.toEpochMilli() >= before);
+        assertTrue(timestamp.toEpochMilli() <= System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    void testTimestampOf_RejectsRandomUuids() {
+        assertThrows(IllegalArgumentException.class, () -> TimeOrderedUuidUtils.timestampOf(UUID.randomUUID()));
+    }
+
+    @Test
+    void testNext_SortsLikeUuidColumns() {
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(TimeOrderedUuidUtils.next());
+        }
+        List<String> sorted = new ArrayList<>(ids.stream().map(UUID::toString).toList());
+        Collections.sort(sorted);
+
+        assertEquals(ids.stream().map(UUID::toString).toList(), sorted);
+    }
+}
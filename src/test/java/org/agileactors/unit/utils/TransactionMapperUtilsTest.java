@@ -1,5 +1,6 @@
 package org.agileactors.unit.utils;
 
+import org.agileactors.dtos.TransactionRequestDto;
 import org.agileactors.dtos.TransactionResponseDto;
 import org.agileactors.entities.TransactionEntity;
 import org.agileactors.enums.Currency;
@@ -11,6 +12,7 @@ import java.sql.Timestamp;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 class TransactionMapperUtilsTest {
 
@@ -33,4 +35,17 @@ class TransactionMapperUtilsTest {
         assertEquals(transaction.getCurrency(), result.getCurrency());
         assertEquals(transaction.getTransactionDate(), result.getTransactionDate());
     }
+
+    @Test
+    void testMapTransactionRequestDtoToTransactionEntity() {
+        TransactionRequestDto transactionRequest = new TransactionRequestDto(1L, 2L, BigDecimal.valueOf(100.0), Currency.USD);
+
+        TransactionEntity result = TransactionMapperUtils.mapTransactionRequestDtoToTransactionEntity(transactionRequest);
+
+        assertNull(result.getId());
+        assertEquals(transactionRequest.getSourceAccountId(), result.getSourceAccountId());
+        assertEquals(transactionRequest.getTargetAccountId(), result.getTargetAccountId());
+        assertEquals(transactionRequest.getAmount(), result.getAmount());
+        assertEquals(transactionRequest.getCurrency(), result.getCurrency());
+    }
 }